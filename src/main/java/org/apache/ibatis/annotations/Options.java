@@ -95,4 +95,19 @@ public @interface Options {
    * @return 结果集
    */
   String resultSets() default "";
+
+  /**
+   * @return 基于键分页（{@link org.apache.ibatis.session.KeysetBounds}）时的排序字段
+   */
+  String keysetColumn() default "";
+
+  /**
+   * @return 排序字段在结果对象中对应的属性，默认和 keysetColumn 相同
+   */
+  String keysetProperty() default "";
+
+  /**
+   * @return 二级缓存的标签（一般为表名），多个使用逗号分隔。查询时为读取的表，修改时为修改的表
+   */
+  String cacheTags() default "";
 }
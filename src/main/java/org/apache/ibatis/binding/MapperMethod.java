@@ -23,10 +23,13 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Flush;
 import org.apache.ibatis.annotations.MapKey;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.executor.statement.StatementCancellation;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
@@ -37,6 +40,9 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.defaults.DefaultSqlSession;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 
 /**
  *
@@ -58,6 +64,10 @@ public class MapperMethod {
    * methodSignature对象
    */
   private final MethodSignature method;
+  /**
+   * 无法获得 SqlSessionFactory 时，异步执行使用的默认实现
+   */
+  private volatile SqlSessionFactory defaultSqlSessionFactory;
 
   public MapperMethod(Class<?> mapperInterface, Method method, Configuration config) {
     this.command = new SqlCommand(config, mapperInterface, method);
@@ -71,6 +81,14 @@ public class MapperMethod {
    * @return
    */
   public Object execute(SqlSession sqlSession, Object[] args) {
+    // 返回 CompletableFuture 时，使用独立的 SqlSession 异步执行
+    if (method.returnsFuture()) {
+      return executeAsync(sqlSession, args);
+    }
+    return executeCommand(sqlSession, args);
+  }
+
+  private Object executeCommand(SqlSession sqlSession, Object[] args) {
     Object result;
     switch (command.getType()) {
       case INSERT: {
@@ -102,7 +120,10 @@ public class MapperMethod {
           // <2.4> 执行查询，返回 Cursor
         } else if (method.returnsCursor()) {
           result = executeForCursor(sqlSession, args);
-          // <2.5> 执行查询，返回单个对象
+          // <2.5> 执行查询，返回 CursorPublisher
+        } else if (method.returnsPublisher()) {
+          result = executeForPublisher(sqlSession, args);
+          // <2.6> 执行查询，返回单个对象
         } else {
           // 转换参数
           Object param = method.convertArgsToSqlCommandParam(args);
@@ -127,6 +148,62 @@ public class MapperMethod {
     return result;
   }
 
+  /**
+   * 在 {@link Configuration#getAsyncExecutor()} 中使用新的 SqlSession 执行，执行完成后提交并关闭 SqlSession 。
+   * 新的 SqlSession 由打开调用方 SqlSession 的 SqlSessionFactory 创建。
+   * 取消返回的 CompletableFuture 时，通过 {@link java.sql.Statement#cancel()} 取消正在执行的 Statement
+   */
+  private CompletableFuture<Object> executeAsync(SqlSession callerSession, Object[] args) {
+    final Configuration configuration = callerSession.getConfiguration();
+    final SqlSessionFactory sqlSessionFactory = getSqlSessionFactory(callerSession);
+    StatementCancellation cancellation = new StatementCancellation();
+    CompletableFuture<Object> future = new CompletableFuture<Object>() {
+      @Override
+      public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+          cancellation.cancel();
+        }
+        return cancelled;
+      }
+    };
+    configuration.getAsyncExecutor().execute(() -> {
+      if (future.isDone()) {
+        return;
+      }
+      cancellation.bind();
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        Object result = executeCommand(sqlSession, args);
+        sqlSession.commit();
+        future.complete(result);
+      } catch (Throwable t) {
+        future.completeExceptionally(t);
+      } finally {
+        cancellation.unbind();
+      }
+    });
+    return future;
+  }
+
+  /**
+   * 获得打开 SqlSession 的 SqlSessionFactory 。{@link org.apache.ibatis.session.SqlSessionManager} 本身就是 SqlSessionFactory
+   */
+  private SqlSessionFactory getSqlSessionFactory(SqlSession sqlSession) {
+    if (sqlSession instanceof SqlSessionFactory) {
+      return (SqlSessionFactory) sqlSession;
+    }
+    if (sqlSession instanceof DefaultSqlSession && ((DefaultSqlSession) sqlSession).getSqlSessionFactory() != null) {
+      return ((DefaultSqlSession) sqlSession).getSqlSessionFactory();
+    }
+    // 其它 SqlSession 实现无法获得 SqlSessionFactory ，使用共享的默认实现
+    SqlSessionFactory factory = defaultSqlSessionFactory;
+    if (factory == null || factory.getConfiguration() != sqlSession.getConfiguration()) {
+      factory = new DefaultSqlSessionFactory(sqlSession.getConfiguration());
+      defaultSqlSessionFactory = factory;
+    }
+    return factory;
+  }
+
   private Object rowCountResult(int rowCount) {
     final Object result;
     if (method.returnsVoid()) {
@@ -192,6 +269,16 @@ public class MapperMethod {
     return result;
   }
 
+  private <T> CursorPublisher<T> executeForPublisher(SqlSession sqlSession, Object[] args) {
+    Object param = method.convertArgsToSqlCommandParam(args);
+    if (method.hasRowBounds()) {
+      RowBounds rowBounds = method.extractRowBounds(args);
+      return sqlSession.selectPublisher(command.getName(), param, rowBounds);
+    } else {
+      return sqlSession.selectPublisher(command.getName(), param);
+    }
+  }
+
   private <E> Object convertToDeclaredCollection(Configuration config, List<E> list) {
     Object collection = config.getObjectFactory().create(method.getReturnType());
     MetaObject metaObject = config.newMetaObject(collection);
@@ -339,6 +426,14 @@ public class MapperMethod {
      * 返回类型是否为 {@link org.apache.ibatis.cursor.Cursor}
      */
     private final boolean returnsCursor;
+    /**
+     * 返回类型是否为 {@link org.apache.ibatis.cursor.CursorPublisher}
+     */
+    private final boolean returnsPublisher;
+    /**
+     * 返回类型是否为 {@link CompletableFuture} ，此时其它属性根据 <> 中的类型初始化
+     */
+    private final boolean returnsFuture;
     /**
      * 返回类型是否为 {@link java.util.Optional}
      */
@@ -371,19 +466,33 @@ public class MapperMethod {
     public MethodSignature(Configuration configuration, Class<?> mapperInterface, Method method) {
       // 初始化 returnType 类型
       Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, mapperInterface);
+      // 初始化 returnsFuture 属性，使用 <> 中的类型作为返回类型
+      this.returnsFuture = CompletableFuture.class.equals(method.getReturnType());
+      if (this.returnsFuture) {
+        resolvedReturnType = resolvedReturnType instanceof ParameterizedType
+            ? ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0] : Object.class;
+      }
       if (resolvedReturnType instanceof Class<?>) { // 普通类
         this.returnType = (Class<?>) resolvedReturnType;
       } else if (resolvedReturnType instanceof ParameterizedType) { // 泛型
         this.returnType = (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType();
+      } else if (this.returnsFuture) {
+        this.returnType = Object.class;
       } else { // 内部类等
         this.returnType = method.getReturnType();
       }
       // 初始化 returnsVoid 属性
-      this.returnsVoid = void.class.equals(this.returnType);
+      this.returnsVoid = void.class.equals(this.returnType) || (this.returnsFuture && Void.class.equals(this.returnType));
       // 初始化 returnsMany 属性
       this.returnsMany = configuration.getObjectFactory().isCollection(this.returnType) || this.returnType.isArray();
       // 初始化 returnsCursor 属性
       this.returnsCursor = Cursor.class.equals(this.returnType);
+      // 初始化 returnsPublisher 属性
+      this.returnsPublisher = CursorPublisher.class.equals(this.returnType);
+      if (this.returnsFuture && (this.returnsCursor || this.returnsPublisher)) {
+        throw new BindingException("Mapper method '" + method.getDeclaringClass().getName() + "." + method.getName()
+            + "' cannot return a CompletableFuture of a Cursor or CursorPublisher.");
+      }
       // 初始化 returnsOptional 属性
       this.returnsOptional = Optional.class.equals(this.returnType);
       // <1> 初始化 mapKey
@@ -446,6 +555,14 @@ public class MapperMethod {
       return returnsCursor;
     }
 
+    public boolean returnsPublisher() {
+      return returnsPublisher;
+    }
+
+    public boolean returnsFuture() {
+      return returnsFuture;
+    }
+
     /**
      * return whether return type is {@code java.util.Optional}.
      * @return return {@code true}, if return type is {@code java.util.Optional}
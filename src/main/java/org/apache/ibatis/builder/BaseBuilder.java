@@ -82,6 +82,16 @@ public abstract class BaseBuilder {
     return value == null ? defaultValue : Integer.valueOf(value);
   }
 
+  /**
+   * 将字符串转为 Long
+   * @param value
+   * @param defaultValue
+   * @return
+   */
+  protected Long longValueOf(String value, Long defaultValue) {
+    return value == null ? defaultValue : Long.valueOf(value);
+  }
+
   /**
    * 将字符串转为 String
    * @param value
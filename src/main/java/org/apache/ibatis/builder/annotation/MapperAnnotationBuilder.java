@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.annotations.Arg;
 import org.apache.ibatis.annotations.CacheNamespace;
@@ -67,6 +68,7 @@ import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.builder.xml.XMLMapperBuilder;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -220,10 +222,23 @@ public class MapperAnnotationBuilder {
       // 获得properties属性
       Properties props = convertToProperties(cacheDomain.properties());
       // 创建cache对象
-      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props);
+      assistant.useNewCache(cacheDomain.implementation(), cacheDomain.eviction(), flushInterval, size, cacheDomain.readWrite(), cacheDomain.blocking(), props, hasCacheTags());
     }
   }
 
+  /**
+   * 是否有方法声明了 cacheTags ，此时缓存需要支持按标签清除
+   */
+  private boolean hasCacheTags() {
+    for (Method method : type.getMethods()) {
+      Options options = method.getAnnotation(Options.class);
+      if (options != null && !options.cacheTags().trim().isEmpty()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   private Properties convertToProperties(Property[] properties) {
     if (properties.length == 0) {
       return null;
@@ -469,7 +484,10 @@ public class MapperAnnotationBuilder {
           null,
           languageDriver,
           // ResultSets
-          options != null ? nullOrEmpty(options.resultSets()) : null);
+          options != null ? nullOrEmpty(options.resultSets()) : null,
+          options != null ? nullOrEmpty(options.keysetColumn()) : null,
+          options != null ? nullOrEmpty(options.keysetProperty()) : null,
+          options != null ? nullOrEmpty(options.cacheTags()) : null);
     }
   }
 
@@ -517,6 +535,13 @@ public class MapperAnnotationBuilder {
     Class<?> returnType = method.getReturnType();
     // 解析完成对应的 Type
     Type resolvedReturnType = TypeParameterResolver.resolveReturnType(method, type);
+    // 如果是 CompletableFuture 类型，使用 <> 中的类型
+    if (resolvedReturnType instanceof ParameterizedType
+        && CompletableFuture.class.equals(((ParameterizedType) resolvedReturnType).getRawType())) {
+      resolvedReturnType = ((ParameterizedType) resolvedReturnType).getActualTypeArguments()[0];
+      returnType = resolvedReturnType instanceof ParameterizedType
+          ? (Class<?>) ((ParameterizedType) resolvedReturnType).getRawType() : Object.class;
+    }
     // 如果Type是class 普通类
     if (resolvedReturnType instanceof Class) {
       returnType = (Class<?>) resolvedReturnType;
@@ -537,8 +562,9 @@ public class MapperAnnotationBuilder {
       // 获得泛型 rawType
       ParameterizedType parameterizedType = (ParameterizedType) resolvedReturnType;
       Class<?> rawType = (Class<?>) parameterizedType.getRawType();
-      // 如果是 Collection 或者 Cursor 类型时
-      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)) {
+      // 如果是 Collection 、 Cursor 或者 CursorPublisher 类型时
+      if (Collection.class.isAssignableFrom(rawType) || Cursor.class.isAssignableFrom(rawType)
+          || CursorPublisher.class.isAssignableFrom(rawType)) {
         // 获得 <> 中实际类型
         Type[] actualTypeArguments = parameterizedType.getActualTypeArguments();
         // 如果 actualTypeArguments 的大小为 1 ，进一步处理
@@ -15,19 +15,35 @@
  */
 package org.apache.ibatis.builder.xml;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import javax.sql.DataSource;
 
 import org.apache.ibatis.builder.BaseBuilder;
 import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.cache.invalidation.InvalidationBus;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
 import org.apache.ibatis.datasource.DataSourceFactory;
+import org.apache.ibatis.datasource.replica.ReplicaDataSource;
+import org.apache.ibatis.dialect.Dialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.loader.ProxyFactory;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.io.VFS;
 import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.mapping.DatabaseIdProvider;
 import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.parsing.XNode;
@@ -45,6 +61,7 @@ import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.type.JdbcType;
+import org.w3c.dom.Document;
 
 /**
  * xml配置构建器，主要负责解析 mybatis-config.xml配置文件
@@ -53,6 +70,8 @@ import org.apache.ibatis.type.JdbcType;
  */
 public class XMLConfigBuilder extends BaseBuilder {
 
+  private static final Log log = LogFactory.getLog(XMLConfigBuilder.class);
+
   /**
    * 是否已解析
    */
@@ -69,6 +88,11 @@ public class XMLConfigBuilder extends BaseBuilder {
    * ReflectorFactory 对象   用于创建和缓存reflector对象
    */
   private final ReflectorFactory localReflectorFactory = new DefaultReflectorFactory();
+  /**
+   * mapper xml 文件的快照，由 mapperSnapshot 配置项加载
+   */
+  private XMLMapperSnapshot mapperSnapshot;
+  private boolean mapperSnapshotLoaded;
 
   public XMLConfigBuilder(Reader reader) {
     this(reader, null, null);
@@ -359,6 +383,8 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setMapUnderscoreToCamelCase(booleanValueOf(props.getProperty("mapUnderscoreToCamelCase"), false));
     configuration.setSafeRowBoundsEnabled(booleanValueOf(props.getProperty("safeRowBoundsEnabled"), false));
     configuration.setLocalCacheScope(LocalCacheScope.valueOf(props.getProperty("localCacheScope", "SESSION")));
+    configuration.setLocalCacheSize(integerValueOf(props.getProperty("localCacheSize"), 0));
+    configuration.setLocalCacheMaxWeight(longValueOf(props.getProperty("localCacheMaxWeight"), 0L));
     configuration.setJdbcTypeForNull(JdbcType.valueOf(props.getProperty("jdbcTypeForNull", "OTHER")));
     configuration.setLazyLoadTriggerMethods(stringSetValueOf(props.getProperty("lazyLoadTriggerMethods"), "equals,clone,hashCode,toString"));
     configuration.setSafeResultHandlerEnabled(booleanValueOf(props.getProperty("safeResultHandlerEnabled"), true));
@@ -369,6 +395,20 @@ public class XMLConfigBuilder extends BaseBuilder {
     configuration.setReturnInstanceForEmptyRow(booleanValueOf(props.getProperty("returnInstanceForEmptyRow"), false));
     configuration.setLogPrefix(props.getProperty("logPrefix"));
     configuration.setConfigurationFactory(resolveClass(props.getProperty("configurationFactory")));
+    configuration.setParallelMapperParsing(booleanValueOf(props.getProperty("parallelMapperParsing"), false));
+    configuration.setLazyMappedStatements(booleanValueOf(props.getProperty("lazyMappedStatements"), false));
+    configuration.setMapperSnapshot(props.getProperty("mapperSnapshot"));
+    configuration.setStreamingMapperParsing(booleanValueOf(props.getProperty("streamingMapperParsing"), false));
+    configuration.setPhysicalPagination(booleanValueOf(props.getProperty("physicalPagination"), false));
+    configuration.setDialect((Dialect) createInstance(props.getProperty("dialect")));
+    configuration.setParallelResultSetMapping(booleanValueOf(props.getProperty("parallelResultSetMapping"), false));
+    configuration.setCompactNestedResultMapping(booleanValueOf(props.getProperty("compactNestedResultMapping"), false));
+    InvalidationTransport cacheInvalidationTransport = (InvalidationTransport) createInstance(props.getProperty("cacheInvalidationTransport"));
+    if (cacheInvalidationTransport != null) {
+      // 传输方式的属性来自 <properties /> 标签
+      cacheInvalidationTransport.setProperties(configuration.getVariables());
+      configuration.setCacheInvalidationBus(new InvalidationBus(cacheInvalidationTransport));
+    }
   }
 
   /**
@@ -396,6 +436,15 @@ public class XMLConfigBuilder extends BaseBuilder {
           Environment.Builder environmentBuilder = new Environment.Builder(id)
                   .transactionFactory(txFactory)
                   .dataSource(dataSource);
+          // 解析 `<replicaDataSource />` 标签，作为只读副本
+          List<XNode> replicaNodes = child.evalNodes("replicaDataSource");
+          if (!replicaNodes.isEmpty()) {
+            List<DataSource> replicas = new ArrayList<>();
+            for (XNode replicaNode : replicaNodes) {
+              replicas.add(dataSourceElement(replicaNode).getDataSource());
+            }
+            environmentBuilder.readOnlyDataSource(new ReplicaDataSource(replicas));
+          }
           // 6 构造 Environment 对象，并设置到 configuration 中
           configuration.setEnvironment(environmentBuilder.build());
         }
@@ -515,7 +564,9 @@ public class XMLConfigBuilder extends BaseBuilder {
    * @throws Exception
    */
   private void mapperElement(XNode parent) throws Exception {
-    if (parent != null) {
+    if (parent != null && configuration.isParallelMapperParsing()) {
+      parallelMapperElement(parent);
+    } else if (parent != null) {
       //遍历节点
       for (XNode child : parent.getChildren()) {
         if ("package".equals(child.getName())) {
@@ -530,17 +581,14 @@ public class XMLConfigBuilder extends BaseBuilder {
           // 使用相对于类路径的资源引用
           if (resource != null && url == null && mapperClass == null) {
             ErrorContext.instance().resource(resource);
-            // 获得 resource 的inputstresm对象
-            InputStream inputStream = Resources.getResourceAsStream(resource);
             // 创建 xmlMapperBuilder对象
-            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+            XMLMapperBuilder mapperParser = newMapperBuilder(resource, false);
             // 执行解析
             mapperParser.parse();
           // <3> 使用完全限定资源定位符（URL）
           } else if (resource == null && url != null && mapperClass == null) {
             ErrorContext.instance().resource(url);
-            InputStream inputStream = Resources.getUrlAsStream(url);
-            XMLMapperBuilder mapperParser = new XMLMapperBuilder(inputStream, configuration, url, configuration.getSqlFragments());
+            XMLMapperBuilder mapperParser = newMapperBuilder(url, true);
             mapperParser.parse();
           // <4> 使用映射器接口实现类的完全限定类名
           } else if (resource == null && url == null && mapperClass != null) {
@@ -555,6 +603,155 @@ public class XMLConfigBuilder extends BaseBuilder {
     }
   }
 
+  /**
+   * 并行解析 <mappers /> 标签
+   * 1. 在 ForkJoinPool 中并行将 mapper xml 解析为 DOM
+   * 2. 按声明顺序解析 <cache />、<resultMap />、<sql /> 等节点，<package /> 和 class 属性同样按顺序处理
+   * 3. 在 ForkJoinPool 中并行构建每个 mapper 的 statement
+   * 4. 按声明顺序合并解析失败的 statement ，并绑定 mapper 接口
+   * 工作线程使用调用线程的 context class loader ，和串行解析一样通过 {@link Resources} 加载资源和类
+   * @param parent
+   * @throws Exception
+   */
+  private void parallelMapperElement(XNode parent) throws Exception {
+    ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+    ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), forkJoinPool -> {
+      ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(forkJoinPool);
+      thread.setContextClassLoader(contextClassLoader);
+      return thread;
+    }, null, false);
+    try {
+      List<XNode> children = parent.getChildren();
+      List<Future<XMLMapperBuilder>> parsing = new ArrayList<>(children.size());
+      for (XNode child : children) {
+        parsing.add(submitMapperParsing(pool, child));
+      }
+      List<XMLMapperBuilder> mapperParsers = new ArrayList<>();
+      for (int i = 0; i < children.size(); i++) {
+        XNode child = children.get(i);
+        if ("package".equals(child.getName())) {
+          configuration.addMappers(child.getStringAttribute("name"));
+        } else if (parsing.get(i) == null) {
+          configuration.addMapper(Resources.classForName(child.getStringAttribute("class")));
+        } else {
+          XMLMapperBuilder mapperParser = await(parsing.get(i));
+          mapperParser.parseElements();
+          mapperParsers.add(mapperParser);
+        }
+      }
+      List<Future<?>> building = new ArrayList<>(mapperParsers.size());
+      configuration.setConcurrentMapperRegistration(true);
+      try {
+        for (XMLMapperBuilder mapperParser : mapperParsers) {
+          building.add(pool.submit(mapperParser::parseStatements));
+        }
+        for (Future<?> future : building) {
+          await(future);
+        }
+      } finally {
+        // 失败时也要等待已提交的任务结束，再关闭并发访问
+        for (Future<?> future : building) {
+          future.cancel(false);
+        }
+        pool.shutdown();
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        configuration.setConcurrentMapperRegistration(false);
+      }
+      for (XMLMapperBuilder mapperParser : mapperParsers) {
+        mapperParser.bindParsedMapper();
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * 提交 mapper xml 的 DOM 解析任务，class 属性和 <package /> 标签返回 null
+   */
+  private Future<XMLMapperBuilder> submitMapperParsing(ForkJoinPool pool, XNode child) {
+    if ("package".equals(child.getName())) {
+      return null;
+    }
+    String resource = child.getStringAttribute("resource");
+    String url = child.getStringAttribute("url");
+    String mapperClass = child.getStringAttribute("class");
+    if (resource != null && url == null && mapperClass == null) {
+      return pool.submit(() -> submittedMapperBuilder(resource, false));
+    } else if (resource == null && url != null && mapperClass == null) {
+      return pool.submit(() -> submittedMapperBuilder(url, true));
+    } else if (resource == null && url == null && mapperClass != null) {
+      return null;
+    } else {
+      throw new BuilderException("A mapper element may only specify a url, resource or class, but not more than one.");
+    }
+  }
+
+  private XMLMapperBuilder submittedMapperBuilder(String resource, boolean url) throws IOException {
+    try {
+      ErrorContext.instance().resource(resource);
+      return newMapperBuilder(resource, url);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  /**
+   * 创建 XMLMapperBuilder 对象。如果配置了 mapperSnapshot 并且文件没有变化，直接使用快照中的 DOM 。
+   * 先比较文件的大小和最后修改时间，不一致时才读取文件内容比较 SHA-256
+   * @param resource mapper 文件的 resource 或 url
+   * @param url resource 是否为 url
+   */
+  private XMLMapperBuilder newMapperBuilder(String resource, boolean url) throws IOException {
+    XMLMapperSnapshot snapshot = getMapperSnapshot();
+    if (snapshot == null) {
+      InputStream inputStream = url ? Resources.getUrlAsStream(resource) : Resources.getResourceAsStream(resource);
+      return new XMLMapperBuilder(inputStream, configuration, resource, configuration.getSqlFragments());
+    }
+    URLConnection connection = (url ? new URL(resource) : Resources.getResourceURL(resource)).openConnection();
+    Document document;
+    try (InputStream inputStream = connection.getInputStream()) {
+      document = snapshot.getDocument(resource, XMLMapperSnapshot.length(connection), XMLMapperSnapshot.lastModified(connection));
+      if (document == null) {
+        byte[] content = XMLMapperSnapshot.readContent(inputStream);
+        document = snapshot.getDocument(resource, content);
+        if (document == null) {
+          log.warn("Mapper snapshot " + configuration.getMapperSnapshot() + (snapshot.contains(resource) ? " is out of date for " : " does not contain ")
+              + resource + ", parsing it instead.");
+          return new XMLMapperBuilder(new ByteArrayInputStream(content), configuration, resource, configuration.getSqlFragments());
+        }
+      }
+    }
+    XPathParser mapperParser = new XPathParser(document, true, configuration.getVariables(), new XMLMapperEntityResolver());
+    return new XMLMapperBuilder(mapperParser, configuration, resource, configuration.getSqlFragments());
+  }
+
+  /**
+   * 加载 mapperSnapshot 配置的快照，快照不存在或者无法读取时打印 warn 日志并返回 null ，照常解析 mapper xml 文件
+   */
+  private synchronized XMLMapperSnapshot getMapperSnapshot() {
+    if (!mapperSnapshotLoaded && configuration.getMapperSnapshot() != null) {
+      mapperSnapshotLoaded = true;
+      try (InputStream inputStream = Resources.getResourceAsStream(configuration.getMapperSnapshot())) {
+        mapperSnapshot = XMLMapperSnapshot.read(inputStream);
+      } catch (IOException e) {
+        log.warn("Could not use mapper snapshot " + configuration.getMapperSnapshot() + ", parsing mapper files instead. Cause: " + e);
+        mapperSnapshot = null;
+      }
+    }
+    return mapperSnapshot;
+  }
+
+  private static <T> T await(Future<T> future) throws Exception {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof Exception) {
+        throw (Exception) e.getCause();
+      }
+      throw e;
+    }
+  }
+
   private boolean isSpecifiedEnvironment(String id) {
     if (environment == null) {
       throw new BuilderException("No environment specified.");
@@ -23,8 +23,8 @@ import org.apache.ibatis.builder.BuilderException;
 import org.apache.ibatis.builder.IncompleteElementException;
 import org.apache.ibatis.builder.MapperBuilderAssistant;
 import org.apache.ibatis.parsing.PropertyParser;
-import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Document;
 import org.w3c.dom.NamedNodeMap;
 import org.w3c.dom.Node;
 import org.w3c.dom.NodeList;
@@ -80,14 +80,11 @@ public class XMLIncludeTransformer {
     // 判断是 include标签
     if (source.getNodeName().equals("include")) {
       // 获得 <sql> 对应的节点
-      Node toInclude = findSqlFragment(getStringAttribute(source, "refid"), variablesContext);
+      Node toInclude = findSqlFragment(getStringAttribute(source, "refid"), variablesContext, source.getOwnerDocument());
       // 获得包含 <include> 标签内的属性，形成新的 properties对象返回，用于替换占位符
       Properties toIncludeContext = getVariablesContext(source, variablesContext);
       // 递归调用 ，继续替换，此处是 <sql>对应的节点，这里可能会使用 include引用其他的标签
       applyIncludes(toInclude, toIncludeContext, true);
-      if (toInclude.getOwnerDocument() != source.getOwnerDocument()) {
-        toInclude = source.getOwnerDocument().importNode(toInclude, true);
-      }
       // 将 <include> 节点替换为 <sql>节点
       source.getParentNode().replaceChild(toInclude, source);
       // 将 <sql> 节点的子节点添加到 <sql> 节点前面
@@ -121,16 +118,22 @@ public class XMLIncludeTransformer {
     }
   }
 
-  private Node findSqlFragment(String refid, Properties variables) {
+  private Node findSqlFragment(String refid, Properties variables, Document targetDocument) {
     // 这里 refid可能是动态变量，所以进行替换
     refid = PropertyParser.parse(refid, variables);
     // 获得完整的 refid ，格式为 "${namespace}.${refid}"
     refid = builderAssistant.applyCurrentNamespace(refid, true);
     try {
       //获得对应的<sql>节点
-      XNode nodeToInclude = configuration.getSqlFragments().get(refid);
-      // 获得node节点，克隆
-      return nodeToInclude.getNode().cloneNode(true);
+      Node nodeToInclude = configuration.getSqlFragments().get(refid).getNode();
+      // 获得node节点，复制到 <include> 所在的文档中，后续的替换只修改当前文档
+      // 并行解析 mapper 时多个线程可能同时引用同一个 <sql> 节点，DOM 并非线程安全，需要加锁
+      synchronized (nodeToInclude.getOwnerDocument()) {
+        if (nodeToInclude.getOwnerDocument() == targetDocument) {
+          return nodeToInclude.cloneNode(true);
+        }
+        return targetDocument.importNode(nodeToInclude, true);
+      }
     } catch (IllegalArgumentException e) {
       throw new IncompleteElementException("Could not find SQL statement to include with refid '" + refid + "'", e);
     }
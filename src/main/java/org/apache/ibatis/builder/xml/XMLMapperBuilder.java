@@ -41,12 +41,15 @@ import org.apache.ibatis.mapping.ParameterMode;
 import org.apache.ibatis.mapping.ResultFlag;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
+import org.apache.ibatis.parsing.StaxDocumentBuilder;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.reflection.MetaClass;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
+import org.w3c.dom.Document;
+import org.w3c.dom.Node;
 
 /**
  * 加载 Mapper 映射配置文件
@@ -71,6 +74,14 @@ public class XMLMapperBuilder extends BaseBuilder {
    * 资源引用地址
    */
   private final String resource;
+  /**
+   * 并行解析时，待 {@link #parseStatements()} 构建 statement 的 <mapper /> 节点
+   */
+  private XNode deferredContext;
+  /**
+   * 并行解析时，解析失败的 statement 先暂存在这里，由 {@link #bindParsedMapper()} 按 mapper 的声明顺序添加到 configuration 中
+   */
+  private List<XMLStatementBuilder> deferredIncompleteStatements;
 
   @Deprecated
   public XMLMapperBuilder(Reader reader, Configuration configuration, String resource, Map<String, XNode> sqlFragments, String namespace) {
@@ -90,11 +101,10 @@ public class XMLMapperBuilder extends BaseBuilder {
   }
 
   public XMLMapperBuilder(InputStream inputStream, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
-    this(new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver()),
-        configuration, resource, sqlFragments);
+    this(newParser(inputStream, configuration), configuration, resource, sqlFragments);
   }
 
-  private XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
+  XMLMapperBuilder(XPathParser parser, Configuration configuration, String resource, Map<String, XNode> sqlFragments) {
     super(configuration);
     this.builderAssistant = new MapperBuilderAssistant(configuration, resource);
     this.parser = parser;
@@ -102,6 +112,16 @@ public class XMLMapperBuilder extends BaseBuilder {
     this.resource = resource;
   }
 
+  /**
+   * 创建 mapper xml 文件的解析器，开启 streamingMapperParsing 时使用 StAX 构建 DOM ，不做 DTD 校验
+   */
+  private static XPathParser newParser(InputStream inputStream, Configuration configuration) {
+    if (configuration.isStreamingMapperParsing()) {
+      return new XPathParser(StaxDocumentBuilder.parse(inputStream), false, configuration.getVariables(), new XMLMapperEntityResolver());
+    }
+    return new XPathParser(inputStream, true, configuration.getVariables(), new XMLMapperEntityResolver());
+  }
+
   /**
    * 解析mapper文件
    */
@@ -123,6 +143,55 @@ public class XMLMapperBuilder extends BaseBuilder {
     parsePendingStatements();
   }
 
+  /**
+   * 并行解析的第一步：解析 statement 以外的节点，statement 留给 {@link #parseStatements()} 在其它线程中构建
+   */
+  void parseElements() {
+    ErrorContext.instance().resource(resource);
+    if (!configuration.isResourceLoaded(resource)) {
+      XNode context = parser.evalNode("/mapper");
+      configurationElement(context, false);
+      configuration.addLoadedResource(resource);
+      deferredContext = context;
+    }
+    parsePendingResultMaps();
+    parsePendingCacheRefs();
+  }
+
+  /**
+   * 并行解析的第二步：构建 <select /> <insert /> <update /> <delete /> 节点，可以在任意线程中执行
+   */
+  void parseStatements() {
+    if (deferredContext == null) {
+      return;
+    }
+    ErrorContext.instance().resource(resource);
+    try {
+      deferredIncompleteStatements = new ArrayList<>();
+      buildStatementFromContext(deferredContext.evalNodes("select|insert|update|delete"));
+    } catch (Exception e) {
+      throw new BuilderException("Error parsing Mapper XML. The XML location is '" + resource + "'. Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
+  /**
+   * 并行解析的最后一步：合并解析失败的 statement ，并绑定 mapper
+   */
+  void bindParsedMapper() {
+    ErrorContext.instance().resource(resource);
+    if (deferredContext != null) {
+      deferredIncompleteStatements.forEach(configuration::addIncompleteStatement);
+      deferredIncompleteStatements = null;
+      deferredContext = null;
+      bindMapperForNamespace();
+    }
+    parsePendingResultMaps();
+    parsePendingCacheRefs();
+    parsePendingStatements();
+  }
+
   public XNode getSqlFragment(String refid) {
     return sqlFragments.get(refid);
   }
@@ -132,6 +201,10 @@ public class XMLMapperBuilder extends BaseBuilder {
    * @param context
    */
   private void configurationElement(XNode context) {
+    configurationElement(context, true);
+  }
+
+  private void configurationElement(XNode context, boolean buildStatements) {
     try {
       // 1.获得namespaced属性
       String namespace = context.getStringAttribute("namespace");
@@ -143,7 +216,7 @@ public class XMLMapperBuilder extends BaseBuilder {
       // <2> 解析 <cache-ref /> 节点
       cacheRefElement(context.evalNode("cache-ref"));
       // <3> 解析 <cache /> 节点
-      cacheElement(context.evalNode("cache"));
+      cacheElement(context.evalNode("cache"), hasCacheTags(context.evalNodes("select|insert|update|delete")));
       // 已废弃
       parameterMapElement(context.evalNodes("/mapper/parameterMap"));
       // <4> 解析 <resultMap /> 节点们
@@ -151,7 +224,9 @@ public class XMLMapperBuilder extends BaseBuilder {
       // <5> 解析 <sql /> 节点们
       sqlElement(context.evalNodes("/mapper/sql"));
       // <6> 解析 <select /> <insert /> <update /> <delete /> 节点们
-      buildStatementFromContext(context.evalNodes("select|insert|update|delete"));
+      if (buildStatements) {
+        buildStatementFromContext(context.evalNodes("select|insert|update|delete"));
+      }
     } catch (Exception e) {
       throw new BuilderException("Error parsing Mapper XML. The XML location is '" + resource + "'. Cause: " + e, e);
     }
@@ -175,10 +250,18 @@ public class XMLMapperBuilder extends BaseBuilder {
         // <1> 创建 XMLStatementBuilder 对象，执行解析
         final XMLStatementBuilder statementParser = new XMLStatementBuilder(configuration, builderAssistant, context, requiredDatabaseId);
         try {
-          statementParser.parseStatementNode();
+          if (configuration.isLazyMappedStatements()) {
+            statementParser.registerStatementNode();
+          } else {
+            statementParser.parseStatementNode();
+          }
         } catch (IncompleteElementException e) {
           // <2> 解析失败，添加到 configuration 中
-          configuration.addIncompleteStatement(statementParser);
+          if (deferredIncompleteStatements != null) {
+            deferredIncompleteStatements.add(statementParser);
+          } else {
+            configuration.addIncompleteStatement(statementParser);
+          }
         }
       }
   }
@@ -251,7 +334,7 @@ public class XMLMapperBuilder extends BaseBuilder {
    * 解析缓存标签 <cache/>
    * @param context
    */
-  private void cacheElement(XNode context) {
+  private void cacheElement(XNode context, boolean tagged) {
     if (context != null) {
       // 获得负责存储 cache的实现类，这里一般加载自定义的缓存方式
       String type = context.getStringAttribute("type", "PERPETUAL");
@@ -268,8 +351,21 @@ public class XMLMapperBuilder extends BaseBuilder {
       // 获得properties属性 用于初始化二级缓存
       Properties props = context.getChildrenAsProperties();
       // 创建cache对象
-      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props);
+      builderAssistant.useNewCache(typeClass, evictionClass, flushInterval, size, readWrite, blocking, props, tagged);
+    }
+  }
+
+  /**
+   * 是否有语句声明了 cacheTags ，此时缓存需要支持按标签清除
+   */
+  private boolean hasCacheTags(List<XNode> list) {
+    for (XNode context : list) {
+      String cacheTags = context.getStringAttribute("cacheTags");
+      if (cacheTags != null && !cacheTags.trim().isEmpty()) {
+        return true;
+      }
     }
+    return false;
   }
 
   private void parameterMapElement(List<XNode> list) {
@@ -449,11 +545,21 @@ public class XMLMapperBuilder extends BaseBuilder {
       // <4> 判断 databaseId 是否匹配
       if (databaseIdMatchesCurrent(id, databaseId, requiredDatabaseId)) {
         // <5> 添加到 sqlFragments 中
-        sqlFragments.put(id, context);
+        sqlFragments.put(id, configuration.isParallelMapperParsing() ? detachSqlFragment(context) : context);
       }
     }
   }
 
+  /**
+   * 将 <sql /> 节点复制到单独的文档中。
+   * 并行解析时其它线程会引用该节点，复制后不会和当前 mapper 文档的修改互相影响
+   */
+  private XNode detachSqlFragment(XNode context) {
+    Node node = context.getNode();
+    Document document = node.getOwnerDocument().getImplementation().createDocument(null, null, null);
+    return context.newXNode(document.appendChild(document.importNode(node, true)));
+  }
+
   private boolean databaseIdMatchesCurrent(String id, String databaseId, String requiredDatabaseId) {
     // 先判断是否相等
     if (requiredDatabaseId != null) {
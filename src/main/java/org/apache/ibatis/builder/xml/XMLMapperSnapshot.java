@@ -0,0 +1,359 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.builder.xml;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.JarEntry;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.parsing.XNode;
+import org.apache.ibatis.parsing.XPathParser;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * 已解析的 mapper xml 文件的快照。
+ *
+ * 快照以紧凑的二进制格式保存每个 mapper 文件校验后的 DOM ，同时记录生成快照时文件的大小、最后修改时间和内容的 SHA-256 。
+ * 启动时先比较大小和最后修改时间，一致时不读取文件内容，直接由快照还原 DOM ，跳过 xml 解析和 DTD 校验；
+ * 不一致时读取内容并比较 SHA-256 ，内容没有变化时同样使用快照，否则照常解析。
+ * 通过 <code>mapperSnapshot</code> 配置项指定快照的 classpath 路径，快照可以在构建时通过 {@link #main(String[])} 生成。
+ */
+public class XMLMapperSnapshot {
+
+  private static final int MAGIC = 0x4d425353;
+  private static final int VERSION = 2;
+
+  private final Map<String, Entry> entries = new LinkedHashMap<>();
+
+  /**
+   * 根据文件的大小和最后修改时间获得 mapper 文件对应的 DOM ，不读取文件内容。
+   * 快照中不存在、大小或最后修改时间不一致、或者最后修改时间未知时返回 null
+   * @param resource mapper 文件的 resource 或 url
+   * @param length mapper 文件的大小
+   * @param lastModified mapper 文件的最后修改时间
+   */
+  public Document getDocument(String resource, long length, long lastModified) {
+    Entry entry = entries.get(resource);
+    if (entry == null || lastModified <= 0 || entry.lastModified != lastModified || entry.length != length) {
+      return null;
+    }
+    return readDocument(resource, entry);
+  }
+
+  /**
+   * 获得 mapper 文件对应的 DOM ，如果快照中不存在或者内容已经变化则返回 null
+   * @param resource mapper 文件的 resource 或 url
+   * @param content mapper 文件的内容
+   */
+  public Document getDocument(String resource, byte[] content) {
+    Entry entry = entries.get(resource);
+    if (entry == null || !Arrays.equals(entry.hash, hash(content))) {
+      return null;
+    }
+    return readDocument(resource, entry);
+  }
+
+  private static Document readDocument(String resource, Entry entry) {
+    try {
+      return readDocument(new DataInputStream(new ByteArrayInputStream(entry.document)));
+    } catch (IOException e) {
+      throw new BuilderException("Error reading mapper snapshot of '" + resource + "'. Cause: " + e, e);
+    }
+  }
+
+  public void addDocument(String resource, byte[] content, long lastModified, Document document) {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      writeDocument(out, document);
+    } catch (IOException e) {
+      throw new BuilderException("Error writing mapper snapshot of '" + resource + "'. Cause: " + e, e);
+    }
+    entries.put(resource, new Entry(content.length, lastModified, hash(content), bytes.toByteArray()));
+  }
+
+  public boolean contains(String resource) {
+    return entries.containsKey(resource);
+  }
+
+  public void write(OutputStream outputStream) throws IOException {
+    DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+    out.writeInt(MAGIC);
+    out.writeInt(VERSION);
+    out.writeInt(entries.size());
+    for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+      writeBytes(out, entry.getKey().getBytes(StandardCharsets.UTF_8));
+      out.writeLong(entry.getValue().length);
+      out.writeLong(entry.getValue().lastModified);
+      writeBytes(out, entry.getValue().hash);
+      writeBytes(out, entry.getValue().document);
+    }
+    out.flush();
+  }
+
+  public static XMLMapperSnapshot read(InputStream inputStream) throws IOException {
+    DataInputStream in = new DataInputStream(new BufferedInputStream(inputStream));
+    if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+      throw new IOException("Not a mapper snapshot or unsupported snapshot version.");
+    }
+    XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+    int size = in.readInt();
+    for (int i = 0; i < size; i++) {
+      String resource = new String(readBytes(in), StandardCharsets.UTF_8);
+      snapshot.entries.put(resource, new Entry(in.readLong(), in.readLong(), readBytes(in), readBytes(in)));
+    }
+    return snapshot;
+  }
+
+  /**
+   * 解析 mybatis-config.xml 中 <mappers /> 声明的 mapper xml 文件，生成快照
+   * @param args mybatis-config.xml 的 classpath 路径和快照的输出文件
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      throw new IllegalArgumentException("Usage: XMLMapperSnapshot <config resource> <output file>");
+    }
+    XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+    XPathParser configParser;
+    try (InputStream inputStream = Resources.getResourceAsStream(args[0])) {
+      configParser = new XPathParser(inputStream, true, null, new XMLMapperEntityResolver());
+    }
+    for (XNode mapper : configParser.evalNodes("/configuration/mappers/mapper")) {
+      String resource = mapper.getStringAttribute("resource");
+      String url = mapper.getStringAttribute("url");
+      if (resource != null) {
+        snapshot.addMapper(resource, Resources.getResourceURL(resource));
+      } else if (url != null) {
+        snapshot.addMapper(url, new URL(url));
+      }
+    }
+    try (OutputStream out = new FileOutputStream(args[1])) {
+      snapshot.write(out);
+    }
+  }
+
+  private void addMapper(String resource, URL url) throws IOException {
+    URLConnection connection = url.openConnection();
+    byte[] content = readContent(connection.getInputStream());
+    XPathParser parser = new XPathParser(new ByteArrayInputStream(content), true, null, new XMLMapperEntityResolver());
+    addDocument(resource, content, lastModified(connection), parser.evalNode("/mapper").getNode().getOwnerDocument());
+  }
+
+  /**
+   * 获得 mapper 文件的大小，jar 中的文件使用 entry 的大小，未知时返回 -1
+   */
+  static long length(URLConnection connection) throws IOException {
+    if (connection instanceof JarURLConnection) {
+      JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+      return entry == null ? -1 : entry.getSize();
+    }
+    return connection.getContentLengthLong();
+  }
+
+  /**
+   * 获得 mapper 文件的最后修改时间，jar 中的文件使用 entry 的时间而不是 jar 文件的时间，未知时返回 0
+   */
+  static long lastModified(URLConnection connection) throws IOException {
+    if (connection instanceof JarURLConnection) {
+      JarEntry entry = ((JarURLConnection) connection).getJarEntry();
+      return entry == null ? 0 : Math.max(entry.getTime(), 0);
+    }
+    return connection.getLastModified();
+  }
+
+  static byte[] readContent(InputStream inputStream) throws IOException {
+    try (InputStream in = inputStream) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      byte[] buffer = new byte[8192];
+      int read;
+      while ((read = in.read(buffer)) != -1) {
+        out.write(buffer, 0, read);
+      }
+      return out.toByteArray();
+    }
+  }
+
+  private static byte[] hash(byte[] content) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (NoSuchAlgorithmException e) {
+      throw new BuilderException("SHA-256 is not available. Cause: " + e, e);
+    }
+  }
+
+  private static void writeBytes(DataOutputStream out, byte[] bytes) throws IOException {
+    out.writeInt(bytes.length);
+    out.write(bytes);
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[in.readInt()];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  private static void writeDocument(DataOutputStream out, Document document) throws IOException {
+    new NodeWriter(out).writeNode(document.getDocumentElement());
+  }
+
+  private static Document readDocument(DataInputStream in) throws IOException {
+    Document document;
+    try {
+      document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+    } catch (ParserConfigurationException e) {
+      throw new BuilderException("Error creating document instance. Cause: " + e, e);
+    }
+    document.appendChild(new NodeReader(in, document).readNode());
+    return document;
+  }
+
+  private static class Entry {
+    private final long length;
+    private final long lastModified;
+    private final byte[] hash;
+    private final byte[] document;
+
+    Entry(long length, long lastModified, byte[] hash, byte[] document) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.hash = hash;
+      this.document = document;
+    }
+  }
+
+  /**
+   * 只保存 mybatis 使用到的元素、属性、文本和 CDATA 节点，元素名、属性名等重复的字符串只保存一次
+   */
+  private static class NodeWriter {
+    private final DataOutputStream out;
+    private final Map<String, Integer> strings = new HashMap<>();
+
+    NodeWriter(DataOutputStream out) {
+      this.out = out;
+    }
+
+    void writeNode(Node node) throws IOException {
+      out.writeByte(node.getNodeType());
+      if (node.getNodeType() == Node.ELEMENT_NODE) {
+        writeString(node.getNodeName());
+        NamedNodeMap attributes = node.getAttributes();
+        out.writeInt(attributes.getLength());
+        for (int i = 0; i < attributes.getLength(); i++) {
+          writeString(attributes.item(i).getNodeName());
+          writeString(attributes.item(i).getNodeValue());
+        }
+        List<Node> children = new ArrayList<>();
+        NodeList childNodes = node.getChildNodes();
+        for (int i = 0; i < childNodes.getLength(); i++) {
+          short type = childNodes.item(i).getNodeType();
+          if (type == Node.ELEMENT_NODE || type == Node.TEXT_NODE || type == Node.CDATA_SECTION_NODE) {
+            children.add(childNodes.item(i));
+          }
+        }
+        out.writeInt(children.size());
+        for (Node child : children) {
+          writeNode(child);
+        }
+      } else {
+        writeString(node.getNodeValue());
+      }
+    }
+
+    private void writeString(String value) throws IOException {
+      Integer index = strings.get(value);
+      if (index != null) {
+        out.writeInt(index);
+      } else {
+        strings.put(value, strings.size());
+        out.writeInt(-1);
+        writeBytes(out, value.getBytes(StandardCharsets.UTF_8));
+      }
+    }
+  }
+
+  private static class NodeReader {
+    private final DataInputStream in;
+    private final Document document;
+    private final List<String> strings = new ArrayList<>();
+
+    NodeReader(DataInputStream in, Document document) {
+      this.in = in;
+      this.document = document;
+    }
+
+    Node readNode() throws IOException {
+      byte type = in.readByte();
+      switch (type) {
+        case Node.ELEMENT_NODE:
+          Element element = document.createElement(readString());
+          int attributes = in.readInt();
+          for (int i = 0; i < attributes; i++) {
+            element.setAttribute(readString(), readString());
+          }
+          int children = in.readInt();
+          for (int i = 0; i < children; i++) {
+            element.appendChild(readNode());
+          }
+          return element;
+        case Node.TEXT_NODE:
+          return document.createTextNode(readString());
+        case Node.CDATA_SECTION_NODE:
+          return document.createCDATASection(readString());
+        default:
+          throw new IOException("Unknown node type " + type + " in mapper snapshot.");
+      }
+    }
+
+    private String readString() throws IOException {
+      int index = in.readInt();
+      if (index >= 0) {
+        return strings.get(index);
+      }
+      String value = new String(readBytes(in), StandardCharsets.UTF_8);
+      strings.add(value);
+      return value;
+    }
+  }
+
+}
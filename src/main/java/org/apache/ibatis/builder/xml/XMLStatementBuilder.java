@@ -32,6 +32,7 @@ import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.parsing.XNode;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.w3c.dom.Node;
 
 /**
  * statementxml 配置构建器 主要解析 statement 配置
@@ -60,6 +61,27 @@ public class XMLStatementBuilder extends BaseBuilder {
     this.requiredDatabaseId = databaseId;
   }
 
+  /**
+   * 延迟构建模式下只登记 statement 的 id ，第一次获取时才执行 {@link #parseStatementNode()}
+   */
+  public void registerStatementNode() {
+    String id = context.getStringAttribute("id");
+    String databaseId = context.getStringAttribute("databaseId");
+    if (databaseIdMatchesCurrent(id, databaseId, this.requiredDatabaseId)) {
+      configuration.addLazyStatement(builderAssistant.applyCurrentNamespace(id, false), this);
+    }
+  }
+
+  /**
+   * 延迟构建完成后，将节点从 mapper 文档中移除，文档中其它节点不再引用已经构建的 statement 的节点
+   */
+  public void detachStatementNode() {
+    Node node = context.getNode();
+    if (node.getParentNode() != null) {
+      node.getParentNode().removeChild(node);
+    }
+  }
+
   /**
    * 执行statement解析
    */
@@ -125,12 +147,15 @@ public class XMLStatementBuilder extends BaseBuilder {
     String keyProperty = context.getStringAttribute("keyProperty");
     String keyColumn = context.getStringAttribute("keyColumn");
     String resultSets = context.getStringAttribute("resultSets");
+    String keysetColumn = context.getStringAttribute("keysetColumn");
+    String keysetProperty = context.getStringAttribute("keysetProperty");
+    String cacheTags = context.getStringAttribute("cacheTags");
 
     // 创建 MappedStatement
     builderAssistant.addMappedStatement(id, sqlSource, statementType, sqlCommandType,
         fetchSize, timeout, parameterMap, parameterTypeClass, resultMap, resultTypeClass,
         resultSetTypeEnum, flushCache, useCache, resultOrdered,
-        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets);
+        keyGenerator, keyProperty, keyColumn, databaseId, langDriver, resultSets, keysetColumn, keysetProperty, cacheTags);
   }
 
   private void processSelectKeyNodes(String id, Class<?> parameterTypeClass, LanguageDriver langDriver) {
@@ -239,6 +264,11 @@ public class XMLStatementBuilder extends BaseBuilder {
           return false;
         }
       }
+      // 延迟构建时，之前的 statement 可能还未构建
+      XMLStatementBuilder lazyPrevious = this.configuration.getLazyStatements().get(id);
+      if (lazyPrevious != null && lazyPrevious != this && lazyPrevious.requiredDatabaseId != null) {
+        return false;
+      }
     }
     return true;
   }
@@ -56,6 +56,10 @@ public class CacheKey implements Cloneable, Serializable {
    * 计算hashcode对象的集合
    */
   private List<Object> updateList;
+  /**
+   * 重新加载该缓存键对应的缓存值的任务，不参与比较，也不序列化
+   */
+  private transient Runnable refresher;
 
   public CacheKey() {
     this.hashcode = DEFAULT_HASHCODE;
@@ -74,6 +78,17 @@ public class CacheKey implements Cloneable, Serializable {
     return updateList.size();
   }
 
+  public Runnable getRefresher() {
+    return refresher;
+  }
+
+  /**
+   * 设置重新加载缓存值的任务，用于 {@link org.apache.ibatis.cache.decorators.ScheduledCache} 的提前刷新
+   */
+  public void setRefresher(Runnable refresher) {
+    this.refresher = refresher;
+  }
+
   /**
    * 更新相关属性
    * @param object
@@ -0,0 +1,160 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import java.lang.reflect.Array;
+import java.time.temporal.TemporalAccessor;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+
+import org.apache.ibatis.executor.loader.WriteReplaceInterface;
+import org.apache.ibatis.reflection.DefaultReflectorFactory;
+import org.apache.ibatis.reflection.Reflector;
+import org.apache.ibatis.reflection.ReflectorFactory;
+
+/**
+ * 默认的 Weigher 实现，估算缓存值占用的字节数
+ *
+ * 集合只估算前 {@value #SAMPLE_SIZE} 个元素，再按照元素数量推算；结果对象通过 {@link Reflector} 读取属性估算，
+ * 嵌套超过 {@value #MAX_DEPTH} 层的对象和延迟加载的代理对象只计算本身的大小，不会触发延迟加载。
+ * 估算值基于 64 位 JVM 压缩指针的对象布局，只用于控制内存占用的大致范围。
+ */
+public class DefaultWeigher implements Weigher {
+
+  private static final int OBJECT_HEADER = 16;
+  private static final int REFERENCE = 4;
+  /**
+   * 包装类型、日期等小对象的大小
+   */
+  private static final int SMALL_OBJECT = 24;
+  /**
+   * HashMap 每个 Entry 的大小
+   */
+  private static final int MAP_ENTRY = 32;
+  private static final int SAMPLE_SIZE = 16;
+  private static final int MAX_DEPTH = 4;
+
+  private final ReflectorFactory reflectorFactory = new DefaultReflectorFactory();
+
+  @Override
+  public long weigh(Object key, Object value) {
+    return estimate(value, 0);
+  }
+
+  protected long estimate(Object value, int depth) {
+    if (value == null || value instanceof Enum || value instanceof Class) {
+      // 共享的对象不计算
+      return 0;
+    }
+    if (value instanceof CharSequence) {
+      return align(OBJECT_HEADER + 8) + align(OBJECT_HEADER + 2L * ((CharSequence) value).length());
+    }
+    if (value instanceof Number || value instanceof Boolean || value instanceof Character
+        || value instanceof Date || value instanceof TemporalAccessor) {
+      return SMALL_OBJECT;
+    }
+    if (value instanceof byte[]) {
+      return align(OBJECT_HEADER + ((byte[]) value).length);
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      int size = collection.size();
+      return align(OBJECT_HEADER + 16) + align(OBJECT_HEADER + (long) size * REFERENCE)
+          + estimateElements(collection.iterator(), size, depth);
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      int size = map.size();
+      return align(OBJECT_HEADER + 32) + align(OBJECT_HEADER + (long) size * REFERENCE) + (long) size * MAP_ENTRY
+          + estimateElements(map.keySet().iterator(), size, depth)
+          + estimateElements(map.values().iterator(), size, depth);
+    }
+    Class<?> type = value.getClass();
+    if (type.isArray()) {
+      return estimateArray(value, depth);
+    }
+    return estimateObject(value, depth);
+  }
+
+  private long estimateArray(Object array, int depth) {
+    int length = Array.getLength(array);
+    Class<?> componentType = array.getClass().getComponentType();
+    if (componentType.isPrimitive()) {
+      return align(OBJECT_HEADER + (long) length * primitiveSize(componentType));
+    }
+    long sampled = 0;
+    int sampleSize = Math.min(length, SAMPLE_SIZE);
+    for (int i = 0; i < sampleSize; i++) {
+      sampled += estimate(Array.get(array, i), depth + 1);
+    }
+    return align(OBJECT_HEADER + (long) length * REFERENCE) + extrapolate(sampled, sampleSize, length);
+  }
+
+  private long estimateElements(Iterator<?> iterator, int size, int depth) {
+    long sampled = 0;
+    int sampleSize = 0;
+    while (sampleSize < SAMPLE_SIZE && iterator.hasNext()) {
+      sampled += estimate(iterator.next(), depth + 1);
+      sampleSize++;
+    }
+    return extrapolate(sampled, sampleSize, size);
+  }
+
+  private long estimateObject(Object value, int depth) {
+    Reflector reflector;
+    try {
+      reflector = reflectorFactory.findForClass(value.getClass());
+    } catch (RuntimeException e) {
+      return SMALL_OBJECT;
+    }
+    String[] names = reflector.getGetablePropertyNames();
+    long size = align(OBJECT_HEADER + (long) names.length * REFERENCE);
+    // 延迟加载的代理对象调用 getter 方法会触发加载
+    if (depth >= MAX_DEPTH || value instanceof WriteReplaceInterface) {
+      return size;
+    }
+    for (String name : names) {
+      try {
+        size += estimate(reflector.getGetInvoker(name).invoke(value, null), depth + 1);
+      } catch (Exception e) {
+        // 无法读取的属性忽略
+      }
+    }
+    return size;
+  }
+
+  private static long extrapolate(long sampled, int sampleSize, int size) {
+    return sampleSize == 0 ? 0 : sampled * size / sampleSize;
+  }
+
+  private static int primitiveSize(Class<?> type) {
+    if (type == long.class || type == double.class) {
+      return 8;
+    } else if (type == int.class || type == float.class) {
+      return 4;
+    } else if (type == short.class || type == char.class) {
+      return 2;
+    }
+    return 1;
+  }
+
+  private static long align(long size) {
+    return (size + 7) & ~7L;
+  }
+
+}
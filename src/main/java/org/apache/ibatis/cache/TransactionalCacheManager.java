@@ -15,10 +15,12 @@
  */
 package org.apache.ibatis.cache;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
+import java.util.Set;
 
 import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.apache.ibatis.cache.stats.CacheStatsRegistry;
 
 /**
  * TransactionCache 管理器
@@ -27,19 +29,60 @@ import org.apache.ibatis.cache.decorators.TransactionalCache;
 public class TransactionalCacheManager {
 
   /**
-   * Cache 和 TransactionalCache 的映射
-   *     Cache 作为 KEY ，TransactionalCache 作为 VALUE 的 Map 对象
+   * 使用过的 Cache 和对应的 TransactionalCache ，下标相同
+   *
+   * 一个会话一般只使用少数几个 Cache ，使用数组按照引用查找，避免 HashMap 在每次查询时计算装饰器链的 hashCode 和 equals 。
+   * 每个 Cache 的 id 唯一，只有一个 Cache 对象，所以按照引用查找和按照 equals 查找的结果相同。第一次使用时才创建数组
    */
-  private final Map<Cache, TransactionalCache> transactionalCaches = new HashMap<>();
+  private Cache[] caches;
+  private TransactionalCache[] transactionalCaches;
+  private int size;
+  /**
+   * 记录提交和回滚的次数，可以为空
+   */
+  private final CacheStatsRegistry statsRegistry;
+
+  public TransactionalCacheManager() {
+    this(null);
+  }
+
+  public TransactionalCacheManager(CacheStatsRegistry statsRegistry) {
+    this.statsRegistry = statsRegistry;
+  }
 
   public void clear(Cache cache) {
     getTransactionalCache(cache).clear();
   }
 
+  /**
+   * 提交时按照标签清除缓存
+   * @param cache
+   * @param tags 修改的标签
+   */
+  public void invalidate(Cache cache, Set<String> tags) {
+    getTransactionalCache(cache).invalidate(tags);
+  }
+
+  /**
+   * 当前事务中是否使用过该缓存，例如已经清空
+   */
+  public boolean contains(Cache cache) {
+    for (int i = 0; i < size; i++) {
+      if (caches[i] == cache) {
+        return true;
+      }
+    }
+    return false;
+  }
+
   public Object getObject(Cache cache, CacheKey key) {
     return getTransactionalCache(cache).getObject(key);
   }
 
+  public Object getObject(Cache cache, CacheKey key, Set<String> tags) {
+    return getTransactionalCache(cache).getObject(key, tags);
+  }
+
   /**
    * 添加 Cache + KV ，到缓存中
    * @param cache
@@ -52,18 +95,36 @@ public class TransactionalCacheManager {
     getTransactionalCache(cache).putObject(key, value);
   }
 
+  public void putObject(Cache cache, CacheKey key, Object value, Set<String> tags) {
+    getTransactionalCache(cache).putObject(key, value, tags);
+  }
+
   public void commit() {
-    for (TransactionalCache txCache : transactionalCaches.values()) {
+    for (int i = 0; i < size; i++) {
+      TransactionalCache txCache = transactionalCaches[i];
       txCache.commit();
+      CacheStats stats = getStats(txCache);
+      if (stats != null) {
+        stats.recordCommit();
+      }
     }
   }
 
   public void rollback() {
-    for (TransactionalCache txCache : transactionalCaches.values()) {
+    for (int i = 0; i < size; i++) {
+      TransactionalCache txCache = transactionalCaches[i];
       txCache.rollback();
+      CacheStats stats = getStats(txCache);
+      if (stats != null) {
+        stats.recordRollback();
+      }
     }
   }
 
+  private CacheStats getStats(TransactionalCache txCache) {
+    return statsRegistry == null ? null : statsRegistry.getStats(txCache.getId());
+  }
+
   /**
    * 从 transactionalCaches 获得 Cache 对象，对应的 TransactionalCache 对象。
    * 如果不存在，则创建一个 TransactionalCache 对象，并添加到 transactionalCaches 中
@@ -71,7 +132,23 @@ public class TransactionalCacheManager {
    * @return
    */
   private TransactionalCache getTransactionalCache(Cache cache) {
-    return transactionalCaches.computeIfAbsent(cache, TransactionalCache::new);
+    for (int i = 0; i < size; i++) {
+      if (caches[i] == cache) {
+        return transactionalCaches[i];
+      }
+    }
+    if (caches == null) {
+      caches = new Cache[4];
+      transactionalCaches = new TransactionalCache[4];
+    } else if (size == caches.length) {
+      caches = Arrays.copyOf(caches, size * 2);
+      transactionalCaches = Arrays.copyOf(transactionalCaches, size * 2);
+    }
+    TransactionalCache txCache = new TransactionalCache(cache);
+    caches[size] = cache;
+    transactionalCaches[size] = txCache;
+    size++;
+    return txCache;
   }
 
 }
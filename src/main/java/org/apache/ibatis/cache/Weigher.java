@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+/**
+ * 计算缓存项权重的接口，用于按照权重淘汰缓存项
+ *
+ * SPI to compute the weight of a cache entry. Eviction decorators that are given a {@code maxWeight}
+ * keep the total weight of their entries under that budget.
+ * <p>
+ * Implementations must be thread safe and have a no-argument constructor when configured by class name, e.g.
+ *
+ * <pre>
+ * &lt;cache&gt;
+ *   &lt;property name="maxWeight" value="67108864"/&gt;
+ *   &lt;property name="weigher" value="com.example.MyWeigher"/&gt;
+ * &lt;/cache&gt;
+ * </pre>
+ *
+ * @see DefaultWeigher
+ */
+public interface Weigher {
+
+  /**
+   * Returns the weight of an entry. The value may be {@code null}.
+   *
+   * @param key the cache key
+   * @param value the cached value
+   * @return the weight, must not be negative
+   */
+  long weigh(Object key, Object value);
+
+}
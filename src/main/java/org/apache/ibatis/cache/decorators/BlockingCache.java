@@ -15,24 +15,27 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.stats.CacheStats;
 
 /**
- *  阻塞的cache 实现
- *    当线程获取缓存值的时候，如果不存在，则会阻塞后续的其他线程获取该缓存；
- *    因为当线程 A 在获取不到缓存值时，一般会去设置对应的缓存值，这样就避免其他也需要该缓存的线程 B、C 等，重复添加缓存
- * Simple blocking decorator
+ * 阻塞的 cache 实现，参考 EhCache 的 BlockingCache
  *
- * Simple and inefficient version of EhCache's BlockingCache decorator.
- * It sets a lock over a cache key when the element is not found in cache.
- * This way, other threads will wait until this element is filled instead of hitting the database.
+ * 当线程获取缓存值的时候，如果不存在，则会阻塞后续的其他线程获取该缓存；
+ * 因为当线程 A 在获取不到缓存值时，一般会去设置对应的缓存值，这样就避免其他也需要该缓存的线程 B、C 等，重复查询数据库。
+ *
+ * 第一个未命中的线程登记一个 {@link CompletableFuture} 并成为该缓存键的加载线程，其它未命中的线程等待它完成。
+ * 只有加载线程调用 {@link #putObject(Object, Object)} 或者 {@link #removeObject(Object)} 时才会完成，
+ * 加载线程再次未命中时直接返回 null ，不会等待自己。命中时不需要加锁。
+ * 等待超过 timeout 毫秒时，不再等待，直接返回 null ，由调用方查询数据库。
  *
  * @author Eduardo Macarron
  *
@@ -40,18 +43,22 @@ import org.apache.ibatis.cache.CacheException;
 public class BlockingCache implements Cache {
 
   /**
-   * 超时等待时间
+   * 超时等待时间，为 0 时一直等待
    */
   private long timeout;
   private final Cache delegate;
   /**
-   * 缓存键与 reentrantLock对象的关系
+   * 缓存键与正在进行的加载的关系
+   */
+  private final ConcurrentHashMap<Object, Load> inFlight;
+  /**
+   * 记录等待的次数
    */
-  private final ConcurrentHashMap<Object, ReentrantLock> locks;
+  private CacheStats stats;
 
   public BlockingCache(Cache delegate) {
     this.delegate = delegate;
-    this.locks = new ConcurrentHashMap<>();
+    this.inFlight = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -70,36 +77,75 @@ public class BlockingCache implements Cache {
       // 添加缓存
       delegate.putObject(key, value);
     } finally {
-      // 释放锁
-      releaseLock(key);
+      // 唤醒等待的线程
+      release(key, value);
     }
   }
 
   @Override
   public Object getObject(Object key) {
-    // 获得锁
-    acquireLock(key);
-    // 获取缓存值
-    Object value = delegate.getObject(key);
-    if (value != null) {
-      // 释放锁
-      releaseLock(key);
+    while (true) {
+      // 获取缓存值，命中时直接返回
+      Object value = delegate.getObject(key);
+      if (value != null) {
+        return value;
+      }
+      Load existing = inFlight.putIfAbsent(key, new Load());
+      if (existing == null) {
+        // 登记后再检查一次，避免在两次操作之间已经添加了缓存
+        value = delegate.getObject(key);
+        if (value != null) {
+          release(key, value);
+        }
+        // 返回 null 时由当前线程加载
+        return value;
+      }
+      if (existing.owner == Thread.currentThread()) {
+        // 自己正在加载（例如同一个会话提交前再次查询），不能等待自己
+        return null;
+      }
+      if (stats != null) {
+        stats.recordBlockedWait();
+      }
+      value = await(key, existing.future);
+      if (value != null) {
+        return value;
+      }
+      if (!existing.future.isDone()) {
+        // 等待超时，直接查询数据库
+        return null;
+      }
+      // 没有加载到值，重新尝试
     }
-    return value;
   }
 
   /**
-   * 移除锁
+   * 当前线程是加载线程时，唤醒等待的线程
    * @param key The key
    * @return
    */
   @Override
   public Object removeObject(Object key) {
     // despite of its name, this method is called only to release locks
-    releaseLock(key);
+    release(key, null);
     return null;
   }
 
+  /**
+   * 移除缓存，并唤醒等待的线程。用于按标签清除缓存，
+   * 事务回滚时通过 {@link #removeObject(Object)} 只唤醒等待的线程，不会移除其它会话添加的缓存
+   *
+   * @param key 缓存键
+   * @return 移除的缓存值
+   */
+  public Object evictObject(Object key) {
+    try {
+      return delegate.removeObject(key);
+    } finally {
+      release(key, null);
+    }
+  }
+
   @Override
   public void clear() {
     delegate.clear();
@@ -111,47 +157,38 @@ public class BlockingCache implements Cache {
   }
 
   /**
-   * 获得 ReentrantLock 对象。如果不存在，进行添加
+   * 等待正在加载的值
    *
    * @param key 缓存键
-   * @return ReentrantLock 对象
+   * @param loading 正在加载的 CompletableFuture 对象
+   * @return 加载到的值，没有加载到值或者超时时返回 null
    */
-  private ReentrantLock getLockForKey(Object key) {
-    return locks.computeIfAbsent(key, k -> new ReentrantLock());
-  }
-
-  /**
-   * 锁定 ReentrantLock 对象
-   * @param key
-   */
-  private void acquireLock(Object key) {
-    Lock lock = getLockForKey(key);
-    // 获得锁，直到超时
-    if (timeout > 0) {
-      try {
-        boolean acquired = lock.tryLock(timeout, TimeUnit.MILLISECONDS);
-        if (!acquired) {
-          throw new CacheException("Couldn't get a lock in " + timeout + " for the key " +  key + " at the cache " + delegate.getId());
-        }
-      } catch (InterruptedException e) {
-        throw new CacheException("Got interrupted while trying to acquire lock for key " + key, e);
+  private Object await(Object key, CompletableFuture<Object> loading) {
+    try {
+      if (timeout > 0) {
+        return loading.get(timeout, TimeUnit.MILLISECONDS);
       }
-    } else {
-      //释放锁
-      lock.lock();
+      return loading.get();
+    } catch (TimeoutException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new CacheException("Got interrupted while waiting for key " + key, e);
+    } catch (ExecutionException e) {
+      // 不会发生，只会正常完成
+      throw new CacheException("Error waiting for key " + key + " at the cache " + delegate.getId(), e.getCause());
     }
   }
 
   /**
-   * 释放对象
+   * 完成当前线程正在进行的加载。其它线程的加载不受影响，例如等待超时的线程回滚时不会唤醒等待其它线程的线程
    * @param key
+   * @param value 加载到的值
    */
-  private void releaseLock(Object key) {
-    // 获得 ReentrantLock 对象
-    ReentrantLock lock = locks.get(key);
-    // 判断是否当前线程持有
-    if (lock.isHeldByCurrentThread()) {
-      lock.unlock();
+  private void release(Object key, Object value) {
+    Load loading = inFlight.get(key);
+    if (loading != null && loading.owner == Thread.currentThread() && inFlight.remove(key, loading)) {
+      loading.future.complete(value);
     }
   }
 
@@ -162,4 +199,22 @@ public class BlockingCache implements Cache {
   public void setTimeout(long timeout) {
     this.timeout = timeout;
   }
+
+  public void setCacheStats(CacheStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * 正在进行的加载
+   */
+  private static class Load {
+
+    /**
+     * 加载线程
+     */
+    private final Thread owner = Thread.currentThread();
+    private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+  }
+
 }
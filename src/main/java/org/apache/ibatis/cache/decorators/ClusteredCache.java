@@ -0,0 +1,64 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.invalidation.InvalidationBus;
+import org.apache.ibatis.cache.invalidation.InvalidationEvent;
+
+/**
+ * 集群中使用的 cache 实现（装饰器）
+ *
+ * 在 {@link TaggedCache} 的基础上，把清空缓存和按标签清除发布到 {@link InvalidationBus} ，
+ * 并且应用其它节点发布的事件。{@link TransactionalCache} 只在提交时调用这两个方法，所以只发布已经提交的修改。
+ */
+public class ClusteredCache extends TaggedCache {
+
+  private final InvalidationBus bus;
+
+  public ClusteredCache(Cache delegate, InvalidationBus bus) {
+    super(delegate);
+    this.bus = bus;
+    bus.register(getId(), this::apply);
+  }
+
+  @Override
+  public void clear() {
+    super.clear();
+    bus.publish(InvalidationEvent.clear(bus.getNodeId(), getId()));
+  }
+
+  @Override
+  public void invalidate(Collection<String> tags) {
+    super.invalidate(tags);
+    bus.publish(InvalidationEvent.invalidateTags(bus.getNodeId(), getId(), new LinkedHashSet<>(tags)));
+  }
+
+  /**
+   * 应用其它节点发布的事件，不再发布
+   */
+  private void apply(InvalidationEvent event) {
+    if (event.getType() == InvalidationEvent.Type.CLEAR) {
+      super.clear();
+    } else {
+      super.invalidate(event.getTags());
+    }
+  }
+
+}
@@ -16,14 +16,20 @@
 package org.apache.ibatis.cache.decorators;
 
 import java.util.Deque;
+import java.util.HashMap;
 import java.util.LinkedList;
+import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.DefaultWeigher;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.stats.CacheStats;
 
 /**
  * 基于先进先出的淘汰机制的 Cache 实现类
  *    会存在重复元素的问题
+ *    设置 maxWeight 后，同时按照 {@link Weigher} 计算的权重淘汰，使缓存项的总权重不超过 maxWeight
  * FIFO (first in, first out) cache decorator.
  *
  * @author Clinton Begin
@@ -41,6 +47,23 @@ public class FifoCache implements Cache {
    * 队列上限
    */
   private int size;
+  /**
+   * 权重上限，小于等于 0 时不按照权重淘汰
+   */
+  private long maxWeight;
+  private Weigher weigher = new DefaultWeigher();
+  /**
+   * 缓存项的权重
+   */
+  private final Map<Object, Long> weights = new HashMap<>();
+  /**
+   * 缓存项的总权重
+   */
+  private long totalWeight;
+  /**
+   * 记录淘汰的次数和总权重
+   */
+  private CacheStats stats;
 
   public FifoCache(Cache delegate) {
     this.delegate = delegate;
@@ -62,11 +85,43 @@ public class FifoCache implements Cache {
     this.size = size;
   }
 
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+  }
+
+  public void setCacheStats(CacheStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * @return the total weight of the entries, or 0 when no {@code maxWeight} is set
+   */
+  public long getWeight() {
+    return totalWeight;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     //循环keyList
     cycleKeyList(key);
     delegate.putObject(key, value);
+    // 按照权重淘汰
+    if (maxWeight > 0) {
+      long weight = weigher.weigh(key, value);
+      Long previous = weights.put(key, weight);
+      long delta = weight - (previous == null ? 0 : previous);
+      totalWeight += delta;
+      if (stats != null) {
+        stats.recordWeight(delta);
+      }
+      while (totalWeight > maxWeight && !keyList.isEmpty()) {
+        removeOldest();
+      }
+    }
   }
 
   @Override
@@ -81,6 +136,7 @@ public class FifoCache implements Cache {
    */
   @Override
   public Object removeObject(Object key) {
+    removeWeight(key);
     return delegate.removeObject(key);
   }
 
@@ -88,6 +144,11 @@ public class FifoCache implements Cache {
   public void clear() {
     delegate.clear();
     keyList.clear();
+    weights.clear();
+    if (stats != null) {
+      stats.recordWeight(-totalWeight);
+    }
+    totalWeight = 0;
   }
 
   @Override
@@ -100,8 +161,30 @@ public class FifoCache implements Cache {
     keyList.addLast(key);
     // 超过上限，将队首的元素移除
     if (keyList.size() > size) {
-      Object oldestKey = keyList.removeFirst();
-      delegate.removeObject(oldestKey);
+      removeOldest();
+    }
+  }
+
+  private void removeOldest() {
+    Object oldestKey = keyList.removeFirst();
+    delegate.removeObject(oldestKey);
+    removeWeight(oldestKey);
+    recordEviction();
+  }
+
+  private void removeWeight(Object key) {
+    Long weight = weights.remove(key);
+    if (weight != null) {
+      totalWeight -= weight;
+      if (stats != null) {
+        stats.recordWeight(-weight);
+      }
+    }
+  }
+
+  private void recordEviction() {
+    if (stats != null) {
+      stats.recordEviction();
     }
   }
 
@@ -18,11 +18,13 @@ package org.apache.ibatis.cache.decorators;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.stats.CacheStats;
 import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 
 /**
  * 支持打印日志的 cache实现（装饰器）
+ *    同时记录命中、未命中和添加的次数到 {@link CacheStats}
  *
  * @author Clinton Begin
  */
@@ -33,18 +35,35 @@ public class LoggingCache implements Cache {
    * 委托的cache对象
    */
   private final Cache delegate;
+  /**
+   * 统计信息
+   */
+  private final CacheStats stats;
   /**
    * 统计请求的缓存次数
+   * @deprecated 为了兼容子类保留，和 {@link #getStats()} 同步更新，请使用 {@link CacheStats#getRequests()}
    */
+  @Deprecated
   protected int requests = 0;
   /**
    * 命中的缓存次数
+   * @deprecated 为了兼容子类保留，和 {@link #getStats()} 同步更新，请使用 {@link CacheStats#getHits()}
    */
+  @Deprecated
   protected int hits = 0;
 
   public LoggingCache(Cache delegate) {
+    this(delegate, null);
+  }
+
+  public LoggingCache(Cache delegate, CacheStats stats) {
     this.delegate = delegate;
     this.log = LogFactory.getLog(getId());
+    this.stats = stats != null ? stats : new CacheStats(getId());
+  }
+
+  public CacheStats getStats() {
+    return stats;
   }
 
   @Override
@@ -60,6 +79,7 @@ public class LoggingCache implements Cache {
   @Override
   public void putObject(Object key, Object object) {
     delegate.putObject(key, object);
+    stats.recordPut();
   }
 
   @Override
@@ -71,9 +91,12 @@ public class LoggingCache implements Cache {
     if (value != null) {
       // 如果不为空，命中次数++
       hits++;
+      stats.recordHit();
+    } else {
+      stats.recordMiss();
     }
     if (log.isDebugEnabled()) {
-      log.debug("Cache Hit Ratio [" + getId() + "]: " + getHitRatio());
+      log.debug("Cache Hit Ratio [" + getId() + "]: " + stats.getHitRatio());
     }
     return value;
   }
@@ -103,12 +126,4 @@ public class LoggingCache implements Cache {
     return delegate.equals(obj);
   }
 
-  /**
-   * 命中率计算
-   * @return
-   */
-  private double getHitRatio() {
-    return (double) hits / (double) requests;
-  }
-
 }
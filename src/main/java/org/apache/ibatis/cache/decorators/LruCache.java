@@ -15,14 +15,20 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.DefaultWeigher;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.stats.CacheStats;
 
 /**
  * 基于最少使用的淘汰机制的 Cache 实现类
+ *    设置 maxWeight 后，同时按照 {@link Weigher} 计算的权重淘汰，使缓存项的总权重不超过 maxWeight
  * Lru (least recently used) cache decorator.
  *
  * @author Clinton Begin
@@ -38,6 +44,23 @@ public class LruCache implements Cache {
    * 最老的键，既要被淘汰的
    */
   private Object eldestKey;
+  /**
+   * 权重上限，小于等于 0 时不按照权重淘汰
+   */
+  private long maxWeight;
+  private Weigher weigher = new DefaultWeigher();
+  /**
+   * 缓存项的权重
+   */
+  private final Map<Object, Long> weights = new HashMap<>();
+  /**
+   * 缓存项的总权重
+   */
+  private long totalWeight;
+  /**
+   * 记录淘汰的次数和总权重
+   */
+  private CacheStats stats;
 
   public LruCache(Cache delegate) {
     this.delegate = delegate;
@@ -73,12 +96,36 @@ public class LruCache implements Cache {
     };
   }
 
+  public void setMaxWeight(long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  public void setWeigher(Weigher weigher) {
+    this.weigher = weigher;
+  }
+
+  public void setCacheStats(CacheStats stats) {
+    this.stats = stats;
+  }
+
+  /**
+   * @return the total weight of the entries, or 0 when no {@code maxWeight} is set
+   */
+  public long getWeight() {
+    return totalWeight;
+  }
+
   @Override
   public void putObject(Object key, Object value) {
     //添加到缓存
     delegate.putObject(key, value);
     // 循环keymap
     cycleKeyList(key);
+    // 按照权重淘汰
+    if (maxWeight > 0) {
+      addWeight(key, weigher.weigh(key, value));
+      evictOverweight();
+    }
   }
 
   @Override
@@ -89,6 +136,7 @@ public class LruCache implements Cache {
 
   @Override
   public Object removeObject(Object key) {
+    removeWeight(key);
     return delegate.removeObject(key);
   }
 
@@ -96,6 +144,11 @@ public class LruCache implements Cache {
   public void clear() {
     delegate.clear();
     keyMap.clear();
+    weights.clear();
+    if (stats != null) {
+      stats.recordWeight(-totalWeight);
+    }
+    totalWeight = 0;
   }
 
   @Override
@@ -109,8 +162,49 @@ public class LruCache implements Cache {
     // 如果超过上限，则从 delegate 中，移除最少使用的那个
     if (eldestKey != null) {
       delegate.removeObject(eldestKey);
+      removeWeight(eldestKey);
+      recordEviction();
       eldestKey = null;
     }
   }
 
+  private void addWeight(Object key, long weight) {
+    Long previous = weights.put(key, weight);
+    long delta = weight - (previous == null ? 0 : previous);
+    totalWeight += delta;
+    if (stats != null) {
+      stats.recordWeight(delta);
+    }
+  }
+
+  private void removeWeight(Object key) {
+    Long weight = weights.remove(key);
+    if (weight != null) {
+      totalWeight -= weight;
+      if (stats != null) {
+        stats.recordWeight(-weight);
+      }
+    }
+  }
+
+  private void recordEviction() {
+    if (stats != null) {
+      stats.recordEviction();
+    }
+  }
+
+  /**
+   * 从最少使用的开始移除，直到总权重不超过上限。超过上限的单个缓存项也会被移除
+   */
+  private void evictOverweight() {
+    Iterator<Object> iterator = keyMap.keySet().iterator();
+    while (totalWeight > maxWeight && iterator.hasNext()) {
+      Object key = iterator.next();
+      iterator.remove();
+      delegate.removeObject(key);
+      removeWeight(key);
+      recordEviction();
+    }
+  }
+
 }
@@ -15,25 +15,63 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.locks.ReadWriteLock;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.cache.CacheKey;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
 
 /**
  * 定时清空整个容器的 Cache 实现类
+ *
+ * 设置 timeToLive 后，每个缓存项在添加 timeToLive 毫秒后过期。再设置 refreshAheadFactor 后，
+ * 缓存项存在超过 timeToLive * refreshAheadFactor 毫秒后被访问时，在后台线程中重新执行查询，刷新前仍然返回原来的值。
+ * 重新执行查询的任务来自 {@link CacheKey#getRefresher()} 。
  * @author Clinton Begin
  */
 public class ScheduledCache implements Cache {
 
+  private static final Log log = LogFactory.getLog(ScheduledCache.class);
+
+  /**
+   * 执行刷新的线程
+   */
+  private static final ExecutorService REFRESH_EXECUTOR = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cache-refresh");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /**
+   * 刷新线程正在刷新的缓存项
+   */
+  private static final ThreadLocal<TimedValue> REFRESHING = new ThreadLocal<>();
+
   private final Cache delegate;
   /**
-   * 清空间隔
+   * 清空间隔，小于等于 0 时不清空
    */
   protected long clearInterval;
   /**
    * 最后清空时间
    */
   protected long lastClear;
+  /**
+   * 缓存项的过期时间，小于等于 0 时不过期
+   */
+  protected long timeToLive;
+  /**
+   * 缓存项存在的时间超过 timeToLive 的该比例后刷新，为 0 时不刷新
+   */
+  protected double refreshAheadFactor;
+  /**
+   * 记录过期的次数
+   */
+  private CacheStats stats;
 
   public ScheduledCache(Cache delegate) {
     this.delegate = delegate;
@@ -45,6 +83,28 @@ public class ScheduledCache implements Cache {
     this.clearInterval = clearInterval;
   }
 
+  public void setTimeToLive(long timeToLive) {
+    this.timeToLive = timeToLive;
+  }
+
+  public void setCacheStats(CacheStats stats) {
+    this.stats = stats;
+  }
+
+  public void setRefreshAheadFactor(double refreshAheadFactor) {
+    if (refreshAheadFactor < 0 || refreshAheadFactor >= 1) {
+      throw new IllegalArgumentException("refreshAheadFactor must be between 0 (inclusive) and 1 (exclusive) but was " + refreshAheadFactor);
+    }
+    this.refreshAheadFactor = refreshAheadFactor;
+  }
+
+  /**
+   * 是否开启了提前刷新
+   */
+  public boolean isRefreshAhead() {
+    return timeToLive > 0 && refreshAheadFactor > 0;
+  }
+
   @Override
   public String getId() {
     return delegate.getId();
@@ -60,20 +120,55 @@ public class ScheduledCache implements Cache {
   public void putObject(Object key, Object object) {
     //判断是否要全清空
     clearWhenStale();
-    delegate.putObject(key, object);
+    if (timeToLive <= 0 || object == null) {
+      delegate.putObject(key, object);
+      return;
+    }
+    TimedValue refreshing = REFRESHING.get();
+    if (refreshing != null && refreshing.key.equals(key) && delegate.getObject(key) != refreshing) {
+      // 刷新期间缓存项已经被清除，丢弃刷新的结果
+      return;
+    }
+    delegate.putObject(key, new TimedValue(key, object));
   }
 
   @Override
   public Object getObject(Object key) {
     // 判断是否要全部清空
-    return clearWhenStale() ? null : delegate.getObject(key);
+    if (clearWhenStale()) {
+      return null;
+    }
+    TimedValue refreshing = REFRESHING.get();
+    if (refreshing != null && refreshing.key.equals(key)) {
+      // 刷新的线程重新执行查询，视为未命中
+      return null;
+    }
+    Object value = delegate.getObject(key);
+    if (!(value instanceof TimedValue)) {
+      return value;
+    }
+    TimedValue timedValue = (TimedValue) value;
+    long age = System.currentTimeMillis() - timedValue.createdAt;
+    if (age >= timeToLive) {
+      // 过期
+      delegate.removeObject(key);
+      if (stats != null) {
+        stats.recordEviction();
+      }
+      return null;
+    }
+    if (refreshAheadFactor > 0 && age >= timeToLive * refreshAheadFactor) {
+      refresh(timedValue);
+    }
+    return timedValue.value;
   }
 
   @Override
   public Object removeObject(Object key) {
     // 判断是否要全部清空
     clearWhenStale();
-    return delegate.removeObject(key);
+    Object value = delegate.removeObject(key);
+    return value instanceof TimedValue ? ((TimedValue) value).value : value;
   }
 
   @Override
@@ -104,7 +199,7 @@ public class ScheduledCache implements Cache {
    * @return
    */
   private boolean clearWhenStale() {
-    if (System.currentTimeMillis() - lastClear > clearInterval) {
+    if (clearInterval > 0 && System.currentTimeMillis() - lastClear > clearInterval) {
       // 清空
       clear();
       return true;
@@ -112,4 +207,45 @@ public class ScheduledCache implements Cache {
     return false;
   }
 
+  /**
+   * 在后台线程中重新加载缓存项，每个缓存项只刷新一次。
+   * 刷新任务通过外层的 Cache 写回，以便经过同步和序列化等装饰器。
+   * 刷新期间该缓存项对刷新的线程视为未命中
+   */
+  private void refresh(TimedValue timedValue) {
+    if (timedValue.refreshing || !(timedValue.key instanceof CacheKey)) {
+      return;
+    }
+    Runnable refresher = ((CacheKey) timedValue.key).getRefresher();
+    if (refresher == null) {
+      return;
+    }
+    timedValue.refreshing = true;
+    REFRESH_EXECUTOR.execute(() -> {
+      REFRESHING.set(timedValue);
+      try {
+        refresher.run();
+      } catch (RuntimeException e) {
+        log.warn("Error refreshing the cache entry " + timedValue.key + " of " + getId() + ". Cause: " + e);
+      } finally {
+        REFRESHING.remove();
+      }
+    });
+  }
+
+  /**
+   * 带有添加时间的缓存值
+   */
+  private static class TimedValue {
+    private final Object key;
+    private final Object value;
+    private final long createdAt = System.currentTimeMillis();
+    private volatile boolean refreshing;
+
+    TimedValue(Object key, Object value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
 }
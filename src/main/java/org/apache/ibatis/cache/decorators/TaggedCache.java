@@ -0,0 +1,217 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.decorators;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * 支持按照标签清除的 cache 实现（装饰器）
+ *
+ * 添加缓存时记录缓存项的标签（一般为查询的表名），维护标签到缓存键的索引，
+ * 修改时通过 {@link #invalidate(Collection)} 只清除标签相同的缓存项，而不是清空整个缓存。
+ * 没有标签的缓存项不知道读取了哪些表，任何按标签的清除都会清除它们。
+ * <p>
+ * 被淘汰（例如 LRU）的缓存项不会通知到这里，所以索引超过缓存大小较多时丢弃索引，下次按标签清除时清空整个缓存。
+ * <p>
+ * 只在命名空间中有语句声明了 cacheTags ，或者配置了 {@link ClusteredCache} 时使用。
+ */
+public class TaggedCache implements Cache {
+
+  /**
+   * 索引大小超过该值后，才检查是否需要丢弃索引
+   */
+  private static final int MIN_INDEX_SIZE = 1024;
+
+  private final Cache delegate;
+  /**
+   * 缓存键与标签的关系，没有标签时为空集合
+   */
+  private final ConcurrentHashMap<Object, Set<String>> keyTags = new ConcurrentHashMap<>();
+  /**
+   * 标签与缓存键的关系
+   */
+  private final ConcurrentHashMap<String, Set<Object>> tagKeys = new ConcurrentHashMap<>();
+  /**
+   * 没有标签的缓存键
+   */
+  private final Set<Object> untaggedKeys = ConcurrentHashMap.newKeySet();
+  /**
+   * 索引是否包含所有的缓存项
+   */
+  private volatile boolean indexComplete = true;
+
+  public TaggedCache(Cache delegate) {
+    this.delegate = delegate;
+  }
+
+  /**
+   * 是否包装了 {@link BlockingCache} 。未命中的缓存键在提交或回滚前一直阻塞其它线程，需要释放
+   */
+  public boolean isBlocking() {
+    return delegate instanceof BlockingCache;
+  }
+
+  @Override
+  public String getId() {
+    return delegate.getId();
+  }
+
+  @Override
+  public int getSize() {
+    return delegate.getSize();
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    putObject(key, value, Collections.emptySet());
+  }
+
+  /**
+   * 添加缓存，并记录它的标签
+   *
+   * @param key 缓存键
+   * @param value 缓存值
+   * @param tags 标签，为空时任何按标签的清除都会清除该缓存项
+   */
+  public void putObject(Object key, Object value, Set<String> tags) {
+    delegate.putObject(key, value);
+    unindex(key);
+    // null 只用于释放 BlockingCache 的锁，不需要索引
+    if (value == null) {
+      return;
+    }
+    keyTags.put(key, tags);
+    if (tags.isEmpty()) {
+      untaggedKeys.add(key);
+    } else {
+      for (String tag : tags) {
+        // 在 compute 中添加，避免和 unindex 同时执行时添加到已经移除的集合中
+        tagKeys.compute(tag, (k, keys) -> {
+          Set<Object> result = keys == null ? ConcurrentHashMap.newKeySet() : keys;
+          result.add(key);
+          return result;
+        });
+      }
+    }
+    if (keyTags.size() > MIN_INDEX_SIZE && keyTags.size() > 2 * delegate.getSize()) {
+      // 被淘汰的缓存项过多，丢弃索引
+      indexComplete = false;
+      clearIndex();
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    Object value = delegate.getObject(key);
+    if (value == null) {
+      // 可能已经被淘汰
+      unindex(key);
+    }
+    return value;
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    if (isBlocking()) {
+      // BlockingCache 只唤醒等待的线程，缓存项还在，需要保留索引
+      return delegate.removeObject(key);
+    }
+    return evictObject(key);
+  }
+
+  @Override
+  public void clear() {
+    clearAll();
+  }
+
+  /**
+   * 清除带有任意一个标签的缓存项，以及没有标签的缓存项
+   *
+   * @param tags 标签
+   */
+  public void invalidate(Collection<String> tags) {
+    if (!indexComplete) {
+      clearAll();
+      return;
+    }
+    Set<Object> keys = new HashSet<>(untaggedKeys);
+    for (String tag : tags) {
+      Set<Object> tagged = tagKeys.get(tag);
+      if (tagged != null) {
+        keys.addAll(tagged);
+      }
+    }
+    for (Object key : keys) {
+      evictObject(key);
+    }
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  @Override
+  public int hashCode() {
+    return delegate.hashCode();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return delegate.equals(obj);
+  }
+
+  private Object evictObject(Object key) {
+    try {
+      return isBlocking() ? ((BlockingCache) delegate).evictObject(key) : delegate.removeObject(key);
+    } finally {
+      unindex(key);
+    }
+  }
+
+  private void unindex(Object key) {
+    Set<String> tags = keyTags.remove(key);
+    if (tags == null) {
+      return;
+    }
+    if (tags.isEmpty()) {
+      untaggedKeys.remove(key);
+    }
+    for (String tag : tags) {
+      tagKeys.computeIfPresent(tag, (k, keys) -> keys.remove(key) && keys.isEmpty() ? null : keys);
+    }
+  }
+
+  private void clearAll() {
+    delegate.clear();
+    clearIndex();
+    indexComplete = true;
+  }
+
+  private void clearIndex() {
+    keyTags.clear();
+    tagKeys.clear();
+    untaggedKeys.clear();
+  }
+
+}
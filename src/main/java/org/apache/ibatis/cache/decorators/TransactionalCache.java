@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.cache.decorators;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.locks.ReadWriteLock;
@@ -54,22 +56,37 @@ public class TransactionalCache implements Cache {
    * 清理后{@link #clear()} 时，该值为 true ，表示持续处于清空状态
    */
   private boolean clearOnCommit;
+  /**
+   * 是否记录查找不到的 KEY 。只有 {@link BlockingCache} 需要在提交或回滚时释放未命中的 KEY 。
+   * 标准装饰器中 {@link BlockingCache} 在 {@link SynchronizedCache} 之外，最外层为 {@link SynchronizedCache} 时不会阻塞，
+   * 自定义的 Cache 实现无法判断，也会记录
+   */
+  private final boolean trackMisses;
   /**
    * 待提交的 KV 映射
    *    在事务未提交时，entriesToAddOnCommit 属性，会暂存当前事务新产生的缓存 KV 对。
    *    在事务提交时，entriesToAddOnCommit 属性，会同步到二级缓存 delegate
+   *
+   * 以下集合在第一次使用时才创建，只读取缓存的会话不需要创建
    */
-  private final Map<Object, Object> entriesToAddOnCommit;
+  private Map<Object, Object> entriesToAddOnCommit;
   /**
    * 查找不到的 KEY 集合
    */
-  private final Set<Object> entriesMissedInCache;
+  private Set<Object> entriesMissedInCache;
+  /**
+   * 待提交的 KV 对应的标签，没有标签的不记录
+   */
+  private Map<Object, Set<String>> tagsOfEntriesToAdd;
+  /**
+   * 提交时，按照标签清除 {@link #delegate} 中的缓存
+   */
+  private Set<String> tagsToInvalidateOnCommit;
 
   public TransactionalCache(Cache delegate) {
     this.delegate = delegate;
     this.clearOnCommit = false;
-    this.entriesToAddOnCommit = new HashMap<>();
-    this.entriesMissedInCache = new HashSet<>();
+    this.trackMisses = delegate instanceof TaggedCache ? ((TaggedCache) delegate).isBlocking() : !(delegate instanceof SynchronizedCache);
   }
 
   @Override
@@ -84,16 +101,30 @@ public class TransactionalCache implements Cache {
 
   @Override
   public Object getObject(Object key) {
+    return getObject(key, Collections.emptySet());
+  }
+
+  /**
+   * 获取缓存值
+   *
+   * @param key 缓存键
+   * @param tags 缓存项的标签
+   * @return 缓存值，被当前事务中的修改清除时返回 null
+   */
+  public Object getObject(Object key, Set<String> tags) {
     // issue #116
     // <1> 从 delegate 中获取 key 对应的 value
     Object object = delegate.getObject(key);
     // <2> 如果不存在，则添加到 entriesMissedInCache 中
-    if (object == null) {
+    if (object == null && trackMisses) {
+      if (entriesMissedInCache == null) {
+        entriesMissedInCache = new HashSet<>();
+      }
       entriesMissedInCache.add(key);
     }
     // issue #146
     // <3> 如果 clearOnCommit 为 true ，表示处于持续清空状态，则返回 null
-    if (clearOnCommit) {
+    if (clearOnCommit || isInvalidated(tags)) {
       return null;
       // <4> 返回 value
     } else {
@@ -108,7 +139,29 @@ public class TransactionalCache implements Cache {
 
   @Override
   public void putObject(Object key, Object object) {
+    putObject(key, object, Collections.emptySet());
+  }
+
+  /**
+   * 暂存缓存项，提交时添加到 {@link #delegate}
+   *
+   * @param key 缓存键
+   * @param object 缓存值
+   * @param tags 缓存项的标签
+   */
+  public void putObject(Object key, Object object, Set<String> tags) {
+    if (entriesToAddOnCommit == null) {
+      entriesToAddOnCommit = new HashMap<>();
+    }
     entriesToAddOnCommit.put(key, object);
+    if (!tags.isEmpty()) {
+      if (tagsOfEntriesToAdd == null) {
+        tagsOfEntriesToAdd = new HashMap<>();
+      }
+      tagsOfEntriesToAdd.put(key, tags);
+    } else if (tagsOfEntriesToAdd != null) {
+      tagsOfEntriesToAdd.remove(key);
+    }
   }
 
   @Override
@@ -119,13 +172,56 @@ public class TransactionalCache implements Cache {
   @Override
   public void clear() {
     clearOnCommit = true;
-    entriesToAddOnCommit.clear();
+    entriesToAddOnCommit = null;
+    tagsOfEntriesToAdd = null;
+  }
+
+  /**
+   * 清除带有任意一个标签的缓存项，以及没有标签的缓存项。
+   *
+   * 和 {@link #clear()} 一样，只清除当前事务暂存的缓存项，提交时才清除 {@link #delegate} 中的缓存
+   *
+   * @param tags 修改的标签，为空时等同于 {@link #clear()}
+   */
+  public void invalidate(Set<String> tags) {
+    if (tags.isEmpty()) {
+      clear();
+      return;
+    }
+    if (clearOnCommit) {
+      return;
+    }
+    if (tagsToInvalidateOnCommit == null) {
+      tagsToInvalidateOnCommit = new HashSet<>();
+    }
+    tagsToInvalidateOnCommit.addAll(tags);
+    if (entriesToAddOnCommit == null) {
+      return;
+    }
+    Iterator<Object> keys = entriesToAddOnCommit.keySet().iterator();
+    while (keys.hasNext()) {
+      Object key = keys.next();
+      Set<String> entryTags = tagsOfEntriesToAdd == null ? null : tagsOfEntriesToAdd.get(key);
+      if (entryTags == null || !Collections.disjoint(entryTags, tags)) {
+        keys.remove();
+        if (entryTags != null) {
+          tagsOfEntriesToAdd.remove(key);
+        }
+      }
+    }
   }
 
   public void commit() {
     // <1> 如果 clearOnCommit 为 true ，则清空 delegate 缓存
     if (clearOnCommit) {
       delegate.clear();
+    } else if (tagsToInvalidateOnCommit != null) {
+      // 按照标签清除，不支持标签的缓存（例如自定义的缓存）直接清空
+      if (delegate instanceof TaggedCache) {
+        ((TaggedCache) delegate).invalidate(tagsToInvalidateOnCommit);
+      } else {
+        delegate.clear();
+      }
     }
     // 将 entriesToAddOnCommit、entriesMissedInCache 刷入 delegate 中
     flushPendingEntries();
@@ -142,24 +238,45 @@ public class TransactionalCache implements Cache {
     // 重置 clearOnCommit 为 false
     clearOnCommit = false;
     // 清空 entriesToAddOnCommit、entriesMissedInCache
-    entriesToAddOnCommit.clear();
-    entriesMissedInCache.clear();
+    entriesToAddOnCommit = null;
+    entriesMissedInCache = null;
+    tagsOfEntriesToAdd = null;
+    tagsToInvalidateOnCommit = null;
+  }
+
+  /**
+   * 缓存项是否被当前事务中的修改清除
+   */
+  private boolean isInvalidated(Set<String> tags) {
+    return tagsToInvalidateOnCommit != null && (tags.isEmpty() || !Collections.disjoint(tags, tagsToInvalidateOnCommit));
   }
 
   private void flushPendingEntries() {
     // 将 entriesToAddOnCommit 刷入 delegate 中
-    for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
-      delegate.putObject(entry.getKey(), entry.getValue());
+    if (entriesToAddOnCommit != null) {
+      for (Map.Entry<Object, Object> entry : entriesToAddOnCommit.entrySet()) {
+        Set<String> tags = tagsOfEntriesToAdd == null ? null : tagsOfEntriesToAdd.get(entry.getKey());
+        if (tags != null && delegate instanceof TaggedCache) {
+          ((TaggedCache) delegate).putObject(entry.getKey(), entry.getValue(), tags);
+        } else {
+          delegate.putObject(entry.getKey(), entry.getValue());
+        }
+      }
     }
     // 将 entriesMissedInCache 刷入 delegate 中
-    for (Object entry : entriesMissedInCache) {
-      if (!entriesToAddOnCommit.containsKey(entry)) {
-        delegate.putObject(entry, null);
+    if (entriesMissedInCache != null) {
+      for (Object entry : entriesMissedInCache) {
+        if (entriesToAddOnCommit == null || !entriesToAddOnCommit.containsKey(entry)) {
+          delegate.putObject(entry, null);
+        }
       }
     }
   }
 
   private void unlockMissedEntries() {
+    if (entriesMissedInCache == null) {
+      return;
+    }
     for (Object entry : entriesMissedInCache) {
       try {
         delegate.removeObject(entry);
@@ -20,6 +20,7 @@ import java.lang.ref.WeakReference;
 import java.util.Deque;
 import java.util.LinkedList;
 import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cache.Cache;
 
@@ -36,6 +37,10 @@ public class WeakCache implements Cache {
    * 强引用的键的队列
    */
   private final Deque<Object> hardLinksToAvoidGarbageCollection;
+  /**
+   * hardLinksToAvoidGarbageCollection 的锁，LinkedList 不是线程安全的
+   */
+  private final ReentrantLock hardLinksLock = new ReentrantLock();
   /**
    * 被GC回收的 weakEntry 集合，避免 GC
    */
@@ -91,10 +96,15 @@ public class WeakCache implements Cache {
         delegate.removeObject(key);
       } else {
         // 添加到 hardLinksToAvoidGarbageCollection 的队头，避免被GC 这里避免队列无限扩大，需要设置上限（这里可能存在重复添加的问题）
-        hardLinksToAvoidGarbageCollection.addFirst(result);
-        // 超过上限，移除 hardLinksToAvoidGarbageCollection 的队尾
-        if (hardLinksToAvoidGarbageCollection.size() > numberOfHardLinks) {
-          hardLinksToAvoidGarbageCollection.removeLast();
+        hardLinksLock.lock();
+        try {
+          hardLinksToAvoidGarbageCollection.addFirst(result);
+          // 超过上限，移除 hardLinksToAvoidGarbageCollection 的队尾
+          if (hardLinksToAvoidGarbageCollection.size() > numberOfHardLinks) {
+            hardLinksToAvoidGarbageCollection.removeLast();
+          }
+        } finally {
+          hardLinksLock.unlock();
         }
       }
     }
@@ -111,7 +121,12 @@ public class WeakCache implements Cache {
   @Override
   public void clear() {
     // 清空 hardLinksToAvoidGarbageCollection
-    hardLinksToAvoidGarbageCollection.clear();
+    hardLinksLock.lock();
+    try {
+      hardLinksToAvoidGarbageCollection.clear();
+    } finally {
+      hardLinksLock.unlock();
+    }
     // 移除已经被 GC 回收的 WeakEntry
     removeGarbageCollectedItems();
     // 清空 delegate
@@ -0,0 +1,106 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * 二级缓存失效事件的总线
+ *
+ * 本节点提交事务时清除的缓存，通过 {@link InvalidationTransport} 发布到其它节点；
+ * 收到其它节点的事件时，在单独的线程中按照接收的顺序清除本节点对应的缓存。
+ */
+public class InvalidationBus {
+
+  private static final Log log = LogFactory.getLog(InvalidationBus.class);
+
+  private final String nodeId = UUID.randomUUID().toString();
+  private final InvalidationTransport transport;
+  /**
+   * 缓存编号与处理事件的方法的关系
+   */
+  private final Map<String, Consumer<InvalidationEvent>> handlers = new ConcurrentHashMap<>();
+  private final ExecutorService applier = Executors.newSingleThreadExecutor(runnable -> {
+    Thread thread = new Thread(runnable, "mybatis-cache-invalidation-applier");
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  public InvalidationBus(InvalidationTransport transport) {
+    this.transport = transport;
+    transport.start(this::receive);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public InvalidationTransport getTransport() {
+    return transport;
+  }
+
+  /**
+   * 注册缓存，接收它的失效事件
+   *
+   * @param cacheId 缓存编号
+   * @param handler 处理其它节点发布的事件
+   */
+  public void register(String cacheId, Consumer<InvalidationEvent> handler) {
+    handlers.put(cacheId, handler);
+  }
+
+  public void publish(InvalidationEvent event) {
+    try {
+      transport.publish(event);
+    } catch (RuntimeException e) {
+      log.warn("Could not publish cache invalidation " + event + ". Cause: " + e);
+    }
+  }
+
+  /**
+   * 停止接收和发布事件
+   */
+  public void close() {
+    transport.close();
+    applier.shutdown();
+  }
+
+  private void receive(InvalidationEvent event) {
+    if (nodeId.equals(event.getNodeId())) {
+      return;
+    }
+    Consumer<InvalidationEvent> handler = handlers.get(event.getCacheId());
+    if (handler == null) {
+      return;
+    }
+    applier.execute(() -> {
+      try {
+        handler.accept(event);
+      } catch (RuntimeException e) {
+        log.warn("Could not apply cache invalidation " + event + ". Cause: " + e);
+      }
+    });
+  }
+
+}
@@ -0,0 +1,88 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 二级缓存的失效事件，由提交事务的节点发布，其它节点收到后清除本地的缓存
+ */
+public class InvalidationEvent implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  public enum Type {
+    /**
+     * 清空整个缓存
+     */
+    CLEAR,
+    /**
+     * 按照标签清除
+     */
+    INVALIDATE_TAGS
+  }
+
+  /**
+   * 发布事件的节点
+   */
+  private final String nodeId;
+  /**
+   * 缓存编号，即 namespace
+   */
+  private final String cacheId;
+  private final Type type;
+  private final HashSet<String> tags;
+
+  private InvalidationEvent(String nodeId, String cacheId, Type type, Set<String> tags) {
+    this.nodeId = nodeId;
+    this.cacheId = cacheId;
+    this.type = type;
+    this.tags = new HashSet<>(tags);
+  }
+
+  public static InvalidationEvent clear(String nodeId, String cacheId) {
+    return new InvalidationEvent(nodeId, cacheId, Type.CLEAR, Collections.emptySet());
+  }
+
+  public static InvalidationEvent invalidateTags(String nodeId, String cacheId, Set<String> tags) {
+    return new InvalidationEvent(nodeId, cacheId, Type.INVALIDATE_TAGS, tags);
+  }
+
+  public String getNodeId() {
+    return nodeId;
+  }
+
+  public String getCacheId() {
+    return cacheId;
+  }
+
+  public Type getType() {
+    return type;
+  }
+
+  public Set<String> getTags() {
+    return Collections.unmodifiableSet(tags);
+  }
+
+  @Override
+  public String toString() {
+    return type + " " + cacheId + (tags.isEmpty() ? "" : " " + tags) + " from " + nodeId;
+  }
+
+}
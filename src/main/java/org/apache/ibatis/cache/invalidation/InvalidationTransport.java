@@ -0,0 +1,61 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Properties;
+import java.util.function.Consumer;
+
+/**
+ * 在节点之间传递 {@link InvalidationEvent} 的传输方式
+ *
+ * Implementations must deliver the events published by the other nodes to the listener given to {@link #start(Consumer)}.
+ * Whether the events published by this node are delivered back does not matter, they are ignored.
+ * Events are best effort: a node that misses an event keeps stale entries until they are evicted or flushed.
+ *
+ * @see LoopbackTransport
+ * @see SocketTransport
+ */
+public interface InvalidationTransport {
+
+  /**
+   * Sets the configuration properties, called before {@link #start(Consumer)}.
+   *
+   * @param properties the configuration variables
+   */
+  default void setProperties(Properties properties) {
+    // NOP
+  }
+
+  /**
+   * Starts receiving events.
+   *
+   * @param listener called with each event received, possibly from another thread
+   */
+  void start(Consumer<InvalidationEvent> listener);
+
+  /**
+   * Sends an event to the other nodes.
+   *
+   * @param event the event
+   */
+  void publish(InvalidationEvent event);
+
+  /**
+   * Stops receiving and sending events.
+   */
+  void close();
+
+}
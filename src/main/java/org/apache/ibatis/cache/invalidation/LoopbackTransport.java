@@ -0,0 +1,67 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 进程内的传输方式，同一个 channel 中的节点（例如同一个 JVM 中的多个 SqlSessionFactory）互相传递事件
+ *
+ * 通过 cache.invalidation.channel 属性设置 channel ，默认为 default
+ */
+public class LoopbackTransport implements InvalidationTransport {
+
+  public static final String CHANNEL_PROPERTY = "cache.invalidation.channel";
+
+  private static final Map<String, Set<LoopbackTransport>> CHANNELS = new ConcurrentHashMap<>();
+
+  private String channel = "default";
+  private volatile Consumer<InvalidationEvent> listener;
+
+  @Override
+  public void setProperties(Properties properties) {
+    channel = properties.getProperty(CHANNEL_PROPERTY, channel);
+  }
+
+  @Override
+  public void start(Consumer<InvalidationEvent> listener) {
+    this.listener = listener;
+    CHANNELS.computeIfAbsent(channel, k -> ConcurrentHashMap.newKeySet()).add(this);
+  }
+
+  @Override
+  public void publish(InvalidationEvent event) {
+    Set<LoopbackTransport> members = CHANNELS.get(channel);
+    if (members == null) {
+      return;
+    }
+    for (LoopbackTransport member : members) {
+      if (member != this) {
+        member.listener.accept(event);
+      }
+    }
+  }
+
+  @Override
+  public void close() {
+    CHANNELS.computeIfPresent(channel, (k, members) -> members.remove(this) && members.isEmpty() ? null : members);
+  }
+
+}
@@ -0,0 +1,288 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.invalidation;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.UnknownHostException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * 基于 TCP 的传输方式，不依赖组播
+ *
+ * 每个节点在 cache.invalidation.bind 地址上监听 cache.invalidation.port 端口（为 0 时使用随机端口），并把事件发送到
+ * cache.invalidation.peers 中的每个节点，格式为逗号分隔的 host:port 。和节点的连接在第一次发送时建立，失败时丢弃事件，
+ * 下次发送时重新连接。
+ * <p>
+ * 收到的事件没有认证，任何能连接到端口的人都可以清空缓存，所以默认只监听本机回环地址。集群部署时需要设置
+ * cache.invalidation.bind （例如内网网卡的地址，0.0.0.0 表示所有网卡），并通过防火墙或者私有网络限制可以连接的主机。
+ * <p>
+ * 每个节点有一个发送线程，发布事件的线程（提交事务的线程）只把事件放入队列，不会被连接或者发送阻塞。
+ * 连接和读取的超时时间为 cache.invalidation.timeout 毫秒，默认 1000 。
+ */
+public class SocketTransport implements InvalidationTransport {
+
+  public static final String BIND_PROPERTY = "cache.invalidation.bind";
+  public static final String PORT_PROPERTY = "cache.invalidation.port";
+  public static final String PEERS_PROPERTY = "cache.invalidation.peers";
+  public static final String TIMEOUT_PROPERTY = "cache.invalidation.timeout";
+
+  /**
+   * 每个节点最多等待发送的事件数，超过时丢弃事件
+   */
+  private static final int MAX_PENDING_EVENTS = 1024;
+
+  private static final Log log = LogFactory.getLog(SocketTransport.class);
+
+  /**
+   * 只允许反序列化事件中的类型
+   */
+  private static final Set<String> ALLOWED_CLASSES = new HashSet<>(Arrays.asList(
+      InvalidationEvent.class.getName(), InvalidationEvent.Type.class.getName(), Enum.class.getName(),
+      HashSet.class.getName(), String.class.getName()));
+
+  private InetAddress bindAddress = InetAddress.getLoopbackAddress();
+  private int port;
+  private final List<Peer> peers = new ArrayList<>();
+  private ServerSocket serverSocket;
+  private volatile boolean closed;
+
+  @Override
+  public void setProperties(Properties properties) {
+    String bind = properties.getProperty(BIND_PROPERTY);
+    if (bind != null && !bind.trim().isEmpty()) {
+      try {
+        bindAddress = InetAddress.getByName(bind.trim());
+      } catch (UnknownHostException e) {
+        throw new CacheException("Invalid bind address '" + bind + "'. Cause: " + e, e);
+      }
+    }
+    port = Integer.parseInt(properties.getProperty(PORT_PROPERTY, "0"));
+    int timeout = Integer.parseInt(properties.getProperty(TIMEOUT_PROPERTY, "1000"));
+    String value = properties.getProperty(PEERS_PROPERTY);
+    if (value != null) {
+      for (String peer : value.split(",")) {
+        peer = peer.trim();
+        if (!peer.isEmpty()) {
+          int index = peer.lastIndexOf(':');
+          if (index < 0) {
+            throw new CacheException("Invalid peer '" + peer + "', expected host:port");
+          }
+          peers.add(new Peer(peer.substring(0, index), Integer.parseInt(peer.substring(index + 1)), timeout));
+        }
+      }
+    }
+  }
+
+  @Override
+  public void start(Consumer<InvalidationEvent> listener) {
+    try {
+      serverSocket = new ServerSocket(port, 0, bindAddress);
+    } catch (IOException e) {
+      throw new CacheException("Could not listen for cache invalidations on " + bindAddress.getHostAddress() + ":" + port
+          + ". Cause: " + e, e);
+    }
+    startThread("mybatis-cache-invalidation-acceptor", () -> {
+      while (!closed) {
+        try {
+          Socket socket = serverSocket.accept();
+          startThread("mybatis-cache-invalidation-receiver", () -> receive(socket, listener));
+        } catch (IOException e) {
+          if (!closed) {
+            log.warn("Error accepting a cache invalidation connection. Cause: " + e);
+          }
+        }
+      }
+    });
+  }
+
+  /**
+   * 获得监听的端口
+   */
+  public int getLocalPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * 获得监听的地址
+   */
+  public InetAddress getLocalAddress() {
+    return serverSocket.getInetAddress();
+  }
+
+  @Override
+  public void publish(InvalidationEvent event) {
+    for (Peer peer : peers) {
+      peer.send(event);
+    }
+  }
+
+  @Override
+  public void close() {
+    closed = true;
+    closeQuietly(serverSocket);
+    for (Peer peer : peers) {
+      peer.close();
+    }
+  }
+
+  private void receive(Socket socket, Consumer<InvalidationEvent> listener) {
+    try (ObjectInputStream in = new EventInputStream(new BufferedInputStream(socket.getInputStream()))) {
+      while (!closed) {
+        listener.accept((InvalidationEvent) in.readObject());
+      }
+    } catch (IOException | ClassNotFoundException e) {
+      // 对方关闭连接
+      if (!closed && log.isDebugEnabled()) {
+        log.debug("Cache invalidation connection closed. Cause: " + e);
+      }
+    } finally {
+      closeQuietly(socket);
+    }
+  }
+
+  private static void startThread(String name, Runnable runnable) {
+    Thread thread = new Thread(runnable, name);
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  private static void closeQuietly(AutoCloseable closeable) {
+    if (closeable != null) {
+      try {
+        closeable.close();
+      } catch (Exception e) {
+        // ignore
+      }
+    }
+  }
+
+  private static class Peer {
+    private final String host;
+    private final int port;
+    private final int timeout;
+    /**
+     * 发送线程，按照发布的顺序发送事件
+     */
+    private final ThreadPoolExecutor sender;
+    private volatile Socket socket;
+    private volatile ObjectOutputStream out;
+
+    Peer(String host, int port, int timeout) {
+      this.host = host;
+      this.port = port;
+      this.timeout = timeout;
+      this.sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(MAX_PENDING_EVENTS),
+          runnable -> {
+            Thread thread = new Thread(runnable, "mybatis-cache-invalidation-sender");
+            thread.setDaemon(true);
+            return thread;
+          },
+          (runnable, executor) -> {
+            if (!executor.isShutdown()) {
+              log.warn("Too many pending cache invalidations for " + host + ":" + port + ", dropping the event.");
+            }
+          });
+    }
+
+    void send(InvalidationEvent event) {
+      sender.execute(() -> write(event));
+    }
+
+    /**
+     * 在发送线程中执行
+     */
+    private void write(InvalidationEvent event) {
+      try {
+        ObjectOutputStream stream = out;
+        if (stream == null) {
+          Socket newSocket = new Socket();
+          // 关闭时可以断开正在建立的连接
+          socket = newSocket;
+          newSocket.setSoTimeout(timeout);
+          newSocket.connect(new InetSocketAddress(host, port), timeout);
+          stream = new ObjectOutputStream(new BufferedOutputStream(newSocket.getOutputStream()));
+          out = stream;
+        }
+        stream.writeObject(event);
+        // 不保留已经发送的对象的引用
+        stream.reset();
+        stream.flush();
+      } catch (IOException e) {
+        log.warn("Could not send cache invalidation to " + host + ":" + port + ". Cause: " + e);
+        disconnect();
+      }
+    }
+
+    void close() {
+      // 等待已经发布的事件发送完成，超时时关闭连接，中断正在进行的发送
+      sender.shutdown();
+      try {
+        sender.awaitTermination(timeout, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      sender.shutdownNow();
+      disconnect();
+    }
+
+    private void disconnect() {
+      closeQuietly(out);
+      closeQuietly(socket);
+      out = null;
+      socket = null;
+    }
+  }
+
+  private static class EventInputStream extends ObjectInputStream {
+
+    EventInputStream(InputStream in) throws IOException {
+      super(in);
+    }
+
+    @Override
+    protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+      if (!ALLOWED_CLASSES.contains(desc.getName())) {
+        throw new InvalidClassException(desc.getName(), "Unexpected class in a cache invalidation event");
+      }
+      return super.resolveClass(desc);
+    }
+  }
+
+}
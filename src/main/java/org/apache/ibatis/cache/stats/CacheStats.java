@@ -0,0 +1,219 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.ibatis.cache.Cache;
+
+/**
+ * 一个二级缓存的统计信息
+ *
+ * 计数器使用 {@link LongAdder} ，多个线程同时记录时开销很小。读取的值不是一个原子的快照，只用于监控。
+ *
+ * @see CacheStatsRegistry
+ */
+public class CacheStats {
+
+  private final String id;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  /**
+   * 缓存未命中时查询数据库的总时间，单位为纳秒
+   */
+  private final LongAdder loadTime = new LongAdder();
+  /**
+   * 在 BlockingCache 中等待其它线程加载的次数
+   */
+  private final LongAdder blockedWaits = new LongAdder();
+  private final LongAdder commits = new LongAdder();
+  private final LongAdder rollbacks = new LongAdder();
+  /**
+   * 设置了 maxWeight 的淘汰装饰器统计的总权重
+   */
+  private final LongAdder weight = new LongAdder();
+  /**
+   * 统计的缓存对象，用于获得缓存项的数量
+   */
+  private volatile Cache cache;
+
+  public CacheStats(String id) {
+    this.id = id;
+  }
+
+  public String getId() {
+    return id;
+  }
+
+  public void setCache(Cache cache) {
+    this.cache = cache;
+  }
+
+  public void recordHit() {
+    hits.increment();
+  }
+
+  public void recordMiss() {
+    misses.increment();
+  }
+
+  public void recordPut() {
+    puts.increment();
+  }
+
+  public void recordEviction() {
+    evictions.increment();
+  }
+
+  /**
+   * @param nanos the time spent querying the database after a miss
+   */
+  public void recordLoad(long nanos) {
+    loads.increment();
+    loadTime.add(nanos);
+  }
+
+  public void recordBlockedWait() {
+    blockedWaits.increment();
+  }
+
+  public void recordCommit() {
+    commits.increment();
+  }
+
+  public void recordRollback() {
+    rollbacks.increment();
+  }
+
+  /**
+   * @param delta the change of the total weight of the entries
+   */
+  public void recordWeight(long delta) {
+    weight.add(delta);
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  public long getRequests() {
+    return getHits() + getMisses();
+  }
+
+  /**
+   * @return the ratio of requests that hit the cache, or 0 when there were no requests
+   */
+  public double getHitRatio() {
+    long hitCount = getHits();
+    long requests = hitCount + getMisses();
+    return requests == 0 ? 0 : (double) hitCount / requests;
+  }
+
+  public long getPuts() {
+    return puts.sum();
+  }
+
+  /**
+   * @return the number of entries removed by the eviction policy or because they expired
+   */
+  public long getEvictions() {
+    return evictions.sum();
+  }
+
+  public long getLoads() {
+    return loads.sum();
+  }
+
+  /**
+   * @return the total time spent loading missed entries from the database, in nanoseconds
+   */
+  public long getTotalLoadTime() {
+    return loadTime.sum();
+  }
+
+  /**
+   * @return the average time spent loading a missed entry, in nanoseconds
+   */
+  public double getAverageLoadTime() {
+    long loadCount = getLoads();
+    return loadCount == 0 ? 0 : (double) getTotalLoadTime() / loadCount;
+  }
+
+  /**
+   * @return the number of times a thread waited in a blocking cache for another thread to load an entry
+   */
+  public long getBlockedWaits() {
+    return blockedWaits.sum();
+  }
+
+  public long getCommits() {
+    return commits.sum();
+  }
+
+  public long getRollbacks() {
+    return rollbacks.sum();
+  }
+
+  /**
+   * Returns the estimated size of the entries in bytes. It is tracked only when the cache is bounded
+   * by {@code maxWeight}, and is in the units of the configured {@link org.apache.ibatis.cache.Weigher}.
+   *
+   * @return the total weight of the entries, or 0 when it is not tracked
+   */
+  public long getEstimatedBytes() {
+    return weight.sum();
+  }
+
+  /**
+   * @return the current number of entries
+   */
+  public int getEntryCount() {
+    Cache current = cache;
+    return current == null ? 0 : current.getSize();
+  }
+
+  /**
+   * Resets the counters. The entry count and the estimated bytes are kept.
+   */
+  public void reset() {
+    hits.reset();
+    misses.reset();
+    puts.reset();
+    evictions.reset();
+    loads.reset();
+    loadTime.reset();
+    blockedWaits.reset();
+    commits.reset();
+    rollbacks.reset();
+  }
+
+  @Override
+  public String toString() {
+    return "CacheStats [" + id + "] hits=" + getHits() + ", misses=" + getMisses() + ", hitRatio=" + getHitRatio()
+        + ", puts=" + getPuts() + ", evictions=" + getEvictions() + ", loads=" + getLoads()
+        + ", averageLoadTime=" + getAverageLoadTime() + "ns, blockedWaits=" + getBlockedWaits()
+        + ", commits=" + getCommits() + ", rollbacks=" + getRollbacks()
+        + ", entries=" + getEntryCount() + ", estimatedBytes=" + getEstimatedBytes();
+  }
+
+}
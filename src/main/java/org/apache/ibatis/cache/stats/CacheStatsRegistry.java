@@ -0,0 +1,63 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache.stats;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 二级缓存统计信息的注册表，每个 {@link org.apache.ibatis.session.Configuration} 一个
+ *
+ * 缓存的 id 一般是对应映射文件的 namespace 。
+ */
+public class CacheStatsRegistry {
+
+  private final Map<String, CacheStats> stats = new ConcurrentHashMap<>();
+
+  /**
+   * 获得缓存的统计信息，不存在时创建
+   *
+   * @param cacheId the cache id
+   * @return the statistics of the cache
+   */
+  public CacheStats register(String cacheId) {
+    return stats.computeIfAbsent(cacheId, CacheStats::new);
+  }
+
+  /**
+   * @param cacheId the cache id
+   * @return the statistics of the cache, or {@code null} when the cache is unknown
+   */
+  public CacheStats getStats(String cacheId) {
+    return stats.get(cacheId);
+  }
+
+  /**
+   * @return the statistics of all caches by cache id
+   */
+  public Map<String, CacheStats> getAllStats() {
+    return Collections.unmodifiableMap(stats);
+  }
+
+  /**
+   * Resets the counters of all caches.
+   */
+  public void reset() {
+    stats.values().forEach(CacheStats::reset);
+  }
+
+}
@@ -16,14 +16,23 @@
 package org.apache.ibatis.cursor;
 
 import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * 执行结果的游标
  *
  * Cursor contract to handle fetching items lazily using an Iterator.
  * Cursors are a perfect fit to handle millions of items queries that would not normally fits in memory.
- * If you use collections in resultMaps then cursor SQL queries must be ordered (resultOrdered="true")
- * using the id columns of the resultMap.
+ * <p>
+ * 嵌套结果映射的游标按父对象分组返回结果
+ * <p>
+ * If you use collections in resultMaps, the rows of each parent must be contiguous, typically by ordering the cursor SQL
+ * by the id columns of the resultMap. A parent is returned once the first row of the next parent is read (or the result
+ * set ends), so it always contains all of its nested objects, and only the parent being built is kept in memory.
+ * When the rows of a parent are not contiguous, the parent is returned once for each group of rows.
  *
  * @author Guillaume Darmont / guillaume@dropinocean.com
  */
@@ -45,4 +54,37 @@ public interface Cursor<T> extends Closeable, Iterable<T> {
    * @return -1 if the first cursor item has not been retrieved. The index of the current item retrieved.
    */
   int getCurrentIndex();
+
+  /**
+   * 返回游标的 Stream ，关闭 Stream 时关闭游标
+   *
+   * Returns a sequential {@link Stream} over the items of this cursor. Like {@link #iterator()}, it can be obtained only once.
+   * Closing the stream closes the cursor.
+   *
+   * @return a stream over the items of this cursor
+   */
+  default Stream<T> stream() {
+    return StreamSupport.stream(spliterator(), false).onClose(() -> {
+      try {
+        close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    });
+  }
+
+  /**
+   * 返回游标的 Stream ，每次映射 chunkSize 行
+   *
+   * Returns a sequential {@link Stream} over the items of this cursor that maps rows in chunks of the given size.
+   * Mapped chunks are handed off when the stream is made parallel, so that downstream operations can run on multiple threads
+   * while rows are still read and mapped by one thread at a time.
+   * Implementations that do not support chunked mapping may ignore the chunk size.
+   *
+   * @param chunkSize the number of rows mapped at a time
+   * @return a stream over the items of this cursor
+   */
+  default Stream<T> stream(int chunkSize) {
+    return stream();
+  }
 }
@@ -0,0 +1,74 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor;
+
+/**
+ * 基于 {@link Cursor} 的发布者，按照订阅者的请求数量读取和映射结果
+ *
+ * A publisher of query results that pushes items to a subscriber under backpressure.
+ * The interfaces mirror {@code java.util.concurrent.Flow} and the Reactive Streams API,
+ * so that a publisher can be adapted to either of them by delegating each method.
+ * <p>
+ * The query is executed when the subscriber first requests items, and results are fetched only as requested.
+ * Each publisher can be subscribed only once. Like a {@link Cursor}, it must be consumed
+ * while the {@link org.apache.ibatis.session.SqlSession} that created it is open.
+ * Rows are read and mapped on a thread calling {@link Subscription#request(long)}, one thread at a time.
+ *
+ * @param <T> the published item type
+ */
+public interface CursorPublisher<T> {
+
+  /**
+   * Adds the given subscriber. A publisher accepts only one subscriber.
+   *
+   * @param subscriber the subscriber
+   */
+  void subscribe(Subscriber<? super T> subscriber);
+
+  /**
+   * A receiver of the published items.
+   *
+   * @param <T> the subscribed item type
+   */
+  interface Subscriber<T> {
+
+    void onSubscribe(Subscription subscription);
+
+    void onNext(T item);
+
+    void onError(Throwable throwable);
+
+    void onComplete();
+  }
+
+  /**
+   * The link between a publisher and its subscriber.
+   */
+  interface Subscription {
+
+    /**
+     * Requests up to {@code n} more items. Rows are fetched and mapped on the calling thread.
+     *
+     * @param n the number of items to request, must be positive
+     */
+    void request(long n);
+
+    /**
+     * Stops the delivery of items and closes the underlying cursor.
+     */
+    void cancel();
+  }
+}
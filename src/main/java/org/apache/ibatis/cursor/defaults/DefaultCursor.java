@@ -17,8 +17,16 @@ package org.apache.ibatis.cursor.defaults;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
+import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.resultset.DefaultResultSetHandler;
@@ -36,12 +44,17 @@ import org.apache.ibatis.session.RowBounds;
  */
 public class DefaultCursor<T> implements Cursor<T> {
 
+  /**
+   * {@link #stream()} 每次映射的行数
+   */
+  private static final int DEFAULT_CHUNK_SIZE = 256;
+
   // ResultSetHandler stuff
   private final DefaultResultSetHandler resultSetHandler;
   private final ResultMap resultMap;
   private final ResultSetWrapper rsw;
   private final RowBounds rowBounds;
-  private final ObjectWrapperResultHandler<T> objectWrapperResultHandler = new ObjectWrapperResultHandler<>();
+  private final ChunkResultHandler<T> chunkResultHandler = new ChunkResultHandler<>();
 
   private final CursorIterator cursorIterator = new CursorIterator();
   private boolean iteratorRetrieved;
@@ -103,6 +116,31 @@ public class DefaultCursor<T> implements Cursor<T> {
     return cursorIterator;
   }
 
+  @Override
+  public Spliterator<T> spliterator() {
+    return spliterator(DEFAULT_CHUNK_SIZE);
+  }
+
+  /**
+   * 返回按 chunkSize 映射的 Spliterator
+   *
+   * @param chunkSize the number of rows mapped at a time
+   * @return a spliterator over the items of this cursor
+   */
+  public Spliterator<T> spliterator(int chunkSize) {
+    if (chunkSize <= 0) {
+      throw new IllegalArgumentException("Chunk size must be greater than 0 but was " + chunkSize);
+    }
+    // 和 iterator() 一样，只能获取一次
+    iterator();
+    return new CursorSpliterator(chunkSize);
+  }
+
+  @Override
+  public Stream<T> stream(int chunkSize) {
+    return StreamSupport.stream(spliterator(chunkSize), false).onClose(this::close);
+  }
+
   @Override
   public void close() {
     if (isClosed()) {
@@ -130,31 +168,59 @@ public class DefaultCursor<T> implements Cursor<T> {
   }
 
   protected T fetchNextObjectFromDatabase() {
+    List<T> results = fetchNextObjectsFromDatabase(1);
+    return results.isEmpty() ? null : results.get(0);
+  }
+
+  /**
+   * 跳过 RowBounds 的 offset ，获得接下来最多 size 个对象。返回空集合时游标已经消费完
+   */
+  protected List<T> fetchNextChunkUsingRowBound(int size) {
+    List<T> chunk;
+    do {
+      chunk = fetchNextObjectsFromDatabase(size);
+      int skip = rowBounds.getOffset() - (indexWithRowBound - chunk.size() + 1);
+      if (skip > 0) {
+        chunk = chunk.subList(Math.min(skip, chunk.size()), chunk.size());
+      }
+    } while (chunk.isEmpty() && !isClosed());
+    return chunk;
+  }
+
+  /**
+   * 调用一次 {@link DefaultResultSetHandler#handleRowValues} 映射最多 maxSize 个对象
+   */
+  protected List<T> fetchNextObjectsFromDatabase(int maxSize) {
     if (isClosed()) {
-      return null;
+      return Collections.emptyList();
     }
 
+    int size = (int) Math.min(maxSize, (long) rowBounds.getOffset() + rowBounds.getLimit() - getReadItemsCount());
+    chunkResultHandler.reset(size);
     try {
       status = CursorStatus.OPEN;
       if (!rsw.getResultSet().isClosed()) {
-        resultSetHandler.handleRowValues(rsw, resultMap, objectWrapperResultHandler, RowBounds.DEFAULT, null);
+        resultSetHandler.handleRowValues(rsw, resultMap, chunkResultHandler, RowBounds.DEFAULT, null);
       }
     } catch (SQLException e) {
       throw new RuntimeException(e);
     }
 
-    T next = objectWrapperResultHandler.result;
-    if (next != null) {
-      indexWithRowBound++;
+    List<T> results = chunkResultHandler.results;
+    // 和逐行映射一样，遇到 null 对象时结束
+    int nullIndex = results.indexOf(null);
+    if (nullIndex >= 0) {
+      results = results.subList(0, nullIndex);
     }
+    indexWithRowBound += results.size();
     // No more object or limit reached
-    if (next == null || getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit()) {
+    if (results.isEmpty() || nullIndex >= 0 || getReadItemsCount() == rowBounds.getOffset() + rowBounds.getLimit()) {
       close();
       status = CursorStatus.CONSUMED;
     }
-    objectWrapperResultHandler.result = null;
+    chunkResultHandler.results = null;
 
-    return next;
+    return results;
   }
 
   private boolean isClosed() {
@@ -165,14 +231,22 @@ public class DefaultCursor<T> implements Cursor<T> {
     return indexWithRowBound + 1;
   }
 
-  private static class ObjectWrapperResultHandler<T> implements ResultHandler<T> {
+  private static class ChunkResultHandler<T> implements ResultHandler<T> {
+
+    private List<T> results;
+    private int size;
 
-    private T result;
+    void reset(int size) {
+      this.results = new ArrayList<>(Math.min(size, DEFAULT_CHUNK_SIZE));
+      this.size = size;
+    }
 
     @Override
     public void handleResult(ResultContext<? extends T> context) {
-      this.result = context.getResultObject();
-      context.stop();
+      results.add(context.getResultObject());
+      if (results.size() >= size) {
+        context.stop();
+      }
     }
   }
 
@@ -218,4 +292,66 @@ public class DefaultCursor<T> implements Cursor<T> {
       throw new UnsupportedOperationException("Cannot remove element from Cursor");
     }
   }
+
+  /**
+   * 按块映射的 Spliterator 。{@link #trySplit()} 将已经映射好的块交给其它线程处理，结果集始终只由一个线程读取
+   */
+  private class CursorSpliterator implements Spliterator<T> {
+
+    private final int chunkSize;
+    private List<T> chunk = Collections.emptyList();
+    private int chunkIndex;
+
+    CursorSpliterator(int chunkSize) {
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+      if (chunkIndex == chunk.size() && !nextChunk()) {
+        return false;
+      }
+      cursorIterator.iteratorIndex++;
+      action.accept(chunk.get(chunkIndex++));
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+      do {
+        while (chunkIndex < chunk.size()) {
+          cursorIterator.iteratorIndex++;
+          action.accept(chunk.get(chunkIndex++));
+        }
+      } while (nextChunk());
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+      if (chunkIndex == chunk.size() && !nextChunk()) {
+        return null;
+      }
+      Object[] split = chunk.subList(chunkIndex, chunk.size()).toArray();
+      cursorIterator.iteratorIndex += split.length;
+      chunk = Collections.emptyList();
+      chunkIndex = 0;
+      return Spliterators.spliterator(split, ORDERED | NONNULL);
+    }
+
+    @Override
+    public long estimateSize() {
+      return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | NONNULL;
+    }
+
+    private boolean nextChunk() {
+      chunk = fetchNextChunkUsingRowBound(chunkSize);
+      chunkIndex = 0;
+      return !chunk.isEmpty();
+    }
+  }
 }
@@ -0,0 +1,181 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cursor.defaults;
+
+import java.io.IOException;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+
+/**
+ * 默认的 CursorPublisher 实现。
+ *
+ * 第一次 request 时执行查询获得 {@link Cursor} ，之后按照请求的数量从游标中读取，每次最多映射 chunkSize 行。
+ * 取消订阅、发生异常或者读取完成时关闭游标。
+ *
+ * @param <T> the published item type
+ */
+public class DefaultCursorPublisher<T> implements CursorPublisher<T> {
+
+  private final Supplier<Cursor<T>> cursorSupplier;
+  private final int chunkSize;
+  private final AtomicBoolean subscribed = new AtomicBoolean();
+
+  /**
+   * @param cursorSupplier executes the query
+   * @param chunkSize the number of rows mapped at a time, or 0 to use the cursor default
+   */
+  public DefaultCursorPublisher(Supplier<Cursor<T>> cursorSupplier, int chunkSize) {
+    this.cursorSupplier = cursorSupplier;
+    this.chunkSize = chunkSize;
+  }
+
+  @Override
+  public void subscribe(Subscriber<? super T> subscriber) {
+    if (subscriber == null) {
+      throw new NullPointerException("Subscriber must not be null");
+    }
+    if (!subscribed.compareAndSet(false, true)) {
+      subscriber.onSubscribe(new Subscription() {
+        @Override
+        public void request(long n) {
+          // nothing to do
+        }
+
+        @Override
+        public void cancel() {
+          // nothing to do
+        }
+      });
+      subscriber.onError(new IllegalStateException("A CursorPublisher can be subscribed only once"));
+      return;
+    }
+    subscriber.onSubscribe(new CursorSubscription(subscriber));
+  }
+
+  private class CursorSubscription implements Subscription {
+
+    private final Subscriber<? super T> subscriber;
+    /**
+     * 尚未发送的请求数量
+     */
+    private final AtomicLong requested = new AtomicLong();
+    /**
+     * 保证同一时间只有一个线程读取游标
+     */
+    private final AtomicInteger wip = new AtomicInteger();
+    private volatile boolean cancelled;
+    private volatile Throwable invalidRequest;
+
+    private Cursor<T> cursor;
+    private Spliterator<T> spliterator;
+    private boolean done;
+
+    CursorSubscription(Subscriber<? super T> subscriber) {
+      this.subscriber = subscriber;
+    }
+
+    @Override
+    public void request(long n) {
+      if (n <= 0) {
+        invalidRequest = new IllegalArgumentException("Requested items must be positive but was " + n);
+      } else {
+        requested.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+      }
+      drain();
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      drain();
+    }
+
+    private void drain() {
+      if (wip.getAndIncrement() != 0) {
+        return;
+      }
+      int missed = 1;
+      do {
+        if (!done) {
+          emit();
+        }
+        missed = wip.addAndGet(-missed);
+      } while (missed != 0);
+    }
+
+    private void emit() {
+      try {
+        if (invalidRequest != null) {
+          fail(invalidRequest);
+          return;
+        }
+        long emitted = 0;
+        long demand = requested.get();
+        while (emitted != demand && !cancelled) {
+          if (spliterator == null) {
+            open();
+          }
+          if (!spliterator.tryAdvance(subscriber::onNext)) {
+            done = true;
+            closeCursor();
+            subscriber.onComplete();
+            return;
+          }
+          emitted++;
+          if (emitted == demand) {
+            demand = requested.addAndGet(-emitted);
+            emitted = 0;
+          }
+        }
+        if (cancelled) {
+          done = true;
+          closeCursor();
+        }
+      } catch (Throwable t) {
+        fail(t);
+      }
+    }
+
+    private void open() {
+      cursor = cursorSupplier.get();
+      spliterator = chunkSize > 0 && cursor instanceof DefaultCursor
+          ? ((DefaultCursor<T>) cursor).spliterator(chunkSize)
+          : cursor.spliterator();
+    }
+
+    private void fail(Throwable t) {
+      done = true;
+      closeCursor();
+      subscriber.onError(t);
+    }
+
+    private void closeCursor() {
+      if (cursor != null) {
+        try {
+          cursor.close();
+        } catch (IOException e) {
+          // ignore
+        }
+      }
+    }
+  }
+}
@@ -23,6 +23,7 @@ import java.sql.DriverManager;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import javax.sql.DataSource;
@@ -329,7 +330,8 @@ public class PooledDataSource implements DataSource {
    * Closes all active and idle connections in the pool.
    */
   public void forceCloseAll() {
-    synchronized (state) {
+    state.lock.lock();
+    try {
       // 计算 expectedConnectionTypeCode
       expectedConnectionTypeCode = assembleConnectionTypeCode(dataSource.getUrl(), dataSource.getUsername(), dataSource.getPassword());
       for (int i = state.activeConnections.size(); i > 0; i--) {
@@ -362,6 +364,8 @@ public class PooledDataSource implements DataSource {
           // ignore
         }
       }
+    } finally {
+      state.lock.unlock();
     }
     if (log.isDebugEnabled()) {
       log.debug("PooledDataSource forcefully closed/removed all connections.");
@@ -384,7 +388,8 @@ public class PooledDataSource implements DataSource {
    */
   protected void pushConnection(PooledConnection conn) throws SQLException {
 
-    synchronized (state) {
+    state.lock.lock();
+    try {
       // 从激活的连接集合中移除该连接
       state.activeConnections.remove(conn);
       // 校验连接是否有效
@@ -409,7 +414,7 @@ public class PooledDataSource implements DataSource {
             log.debug("Returned connection " + newConn.getRealHashCode() + " to pool.");
           }
           // 唤醒等待的连接
-          state.notifyAll();
+          state.condition.signal();
         } else {
           // 统计连接使用时长
           state.accumulatedCheckoutTime += conn.getCheckoutTime();
@@ -432,6 +437,8 @@ public class PooledDataSource implements DataSource {
         // 统计获取到坏的连接的次数
         state.badConnectionCount++;
       }
+    } finally {
+      state.lock.unlock();
     }
   }
 
@@ -454,7 +461,8 @@ public class PooledDataSource implements DataSource {
 
     // 循环，获取可用的连接
     while (conn == null) {
-      synchronized (state) {
+      state.lock.lock();
+      try {
         // 空闲连接非空
         if (!state.idleConnections.isEmpty()) {
           // Pool has available connection
@@ -527,7 +535,11 @@ public class PooledDataSource implements DataSource {
                 // 设置当前时间
                 long wt = System.currentTimeMillis();
                 // 等待，知道超时，或 pingConnection方法中癸亥连接时的唤醒
-                state.wait(poolTimeToWait);
+                if (poolTimeToWait > 0) {
+                  state.condition.await(poolTimeToWait, TimeUnit.MILLISECONDS);
+                } else {
+                  state.condition.await();
+                }
                 // 统计等待的时间
                 state.accumulatedWaitTime += System.currentTimeMillis() - wt;
               } catch (InterruptedException e) {
@@ -572,8 +584,9 @@ public class PooledDataSource implements DataSource {
             }
           }
         }
+      } finally {
+        state.lock.unlock();
       }
-
     }
     // 获取不到连接，抛出异常
     if (conn == null) {
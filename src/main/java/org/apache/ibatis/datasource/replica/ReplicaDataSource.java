@@ -0,0 +1,189 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.replica;
+
+import java.io.PrintWriter;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.logging.Logger;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * 多个只读副本组成的 DataSource
+ *
+ * 按照轮询的方式从副本获取连接。获取连接失败的副本被剔除 ejectTime 毫秒，期间不再使用，之后重新尝试。
+ * 所有副本都被剔除时，仍然依次尝试，全部失败时抛出最后一个异常。
+ *
+ * @see org.apache.ibatis.mapping.Environment#getReadOnlyDataSource()
+ */
+public class ReplicaDataSource implements DataSource {
+
+  private static final Log log = LogFactory.getLog(ReplicaDataSource.class);
+
+  private final List<DataSource> replicas;
+  /**
+   * 每个副本被剔除到的时间，为 0 时可用
+   */
+  private final AtomicLongArray ejectedUntil;
+  /**
+   * 下一次使用的副本
+   */
+  private final AtomicInteger next = new AtomicInteger();
+  /**
+   * 获取连接失败后剔除的时间，单位为毫秒
+   */
+  private volatile long ejectTime = 30000;
+
+  public ReplicaDataSource(List<DataSource> replicas) {
+    if (replicas == null || replicas.isEmpty()) {
+      throw new IllegalArgumentException("At least one replica data source is required");
+    }
+    this.replicas = Collections.unmodifiableList(new ArrayList<>(replicas));
+    this.ejectedUntil = new AtomicLongArray(replicas.size());
+  }
+
+  public List<DataSource> getReplicas() {
+    return replicas;
+  }
+
+  public long getEjectTime() {
+    return ejectTime;
+  }
+
+  public void setEjectTime(long ejectTime) {
+    this.ejectTime = ejectTime;
+  }
+
+  /**
+   * @param index the index of the replica
+   * @return whether the replica is currently used
+   */
+  public boolean isAvailable(int index) {
+    return ejectedUntil.get(index) <= System.currentTimeMillis();
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    return getConnection(null, null, false);
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    return getConnection(username, password, true);
+  }
+
+  private Connection getConnection(String username, String password, boolean withCredentials) throws SQLException {
+    int size = replicas.size();
+    int start = Math.floorMod(next.getAndIncrement(), size);
+    SQLException lastException = null;
+    boolean attempted = false;
+    for (int i = 0; i < size; i++) {
+      int index = (start + i) % size;
+      if (!isAvailable(index)) {
+        continue;
+      }
+      attempted = true;
+      try {
+        return connect(index, username, password, withCredentials);
+      } catch (SQLException e) {
+        lastException = e;
+      }
+    }
+    if (!attempted) {
+      // 所有副本都被剔除时，依次尝试
+      for (int i = 0; i < size; i++) {
+        try {
+          return connect((start + i) % size, username, password, withCredentials);
+        } catch (SQLException e) {
+          lastException = e;
+        }
+      }
+    }
+    throw lastException;
+  }
+
+  private Connection connect(int index, String username, String password, boolean withCredentials) throws SQLException {
+    DataSource replica = replicas.get(index);
+    try {
+      Connection connection = withCredentials ? replica.getConnection(username, password) : replica.getConnection();
+      ejectedUntil.set(index, 0);
+      return connection;
+    } catch (SQLException e) {
+      eject(index, e);
+      throw e;
+    }
+  }
+
+  private void eject(int index, SQLException e) {
+    ejectedUntil.set(index, System.currentTimeMillis() + ejectTime);
+    if (log.isDebugEnabled()) {
+      log.debug("Ejected replica " + index + " for " + ejectTime + " ms.  Cause: " + e);
+    }
+  }
+
+  @Override
+  public PrintWriter getLogWriter() throws SQLException {
+    return replicas.get(0).getLogWriter();
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) throws SQLException {
+    for (DataSource replica : replicas) {
+      replica.setLogWriter(out);
+    }
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) throws SQLException {
+    for (DataSource replica : replicas) {
+      replica.setLoginTimeout(seconds);
+    }
+  }
+
+  @Override
+  public int getLoginTimeout() throws SQLException {
+    return replicas.get(0).getLoginTimeout();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> iface) throws SQLException {
+    if (iface.isInstance(this)) {
+      return iface.cast(this);
+    }
+    throw new SQLException(getClass().getName() + " is not a wrapper for " + iface.getName());
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> iface) {
+    return iface.isInstance(this);
+  }
+
+  @Override
+  public Logger getParentLogger() throws SQLFeatureNotSupportedException {
+    return Logger.getLogger(Logger.GLOBAL_LOGGER_NAME);
+  }
+
+}
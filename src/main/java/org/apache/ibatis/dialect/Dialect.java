@@ -0,0 +1,41 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+/**
+ * 数据库方言，用于在 SQL 中实现分页
+ *
+ * 开启 physicalPagination 后，{@link org.apache.ibatis.session.RowBounds} 由数据库处理，而不是读取后在客户端跳过。
+ * 分页的 offset 和 limit 以 ? 占位符的方式添加到 SQL 中，对应的参数值按照占位符的顺序添加到 parameters 中。
+ *
+ * @see org.apache.ibatis.session.Configuration#getDialect()
+ */
+public interface Dialect {
+
+  /**
+   * Returns the given select statement restricted to the given page.
+   *
+   * @param sql the select statement
+   * @param offset the number of rows to skip, {@link org.apache.ibatis.session.RowBounds#NO_ROW_OFFSET} for none
+   * @param limit the maximum number of rows, {@link org.apache.ibatis.session.RowBounds#NO_ROW_LIMIT} for no limit
+   * @param parameters receives the values of the placeholders added to the statement, in order
+   * @return the paginated statement
+   */
+  String getPageSql(String sql, int offset, int limit, List<Integer> parameters);
+
+}
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 根据 databaseId 获得内置的 {@link Dialect}
+ *
+ * databaseId 可以是 {@link org.apache.ibatis.mapping.VendorDatabaseIdProvider} 返回的数据库产品名，
+ * 也可以是通过 properties 配置的别名，例如 mysql 、oracle 。
+ */
+public final class Dialects {
+
+  private static final Dialect LIMIT_OFFSET = new LimitOffsetDialect();
+  private static final Dialect FETCH_FIRST = new FetchFirstDialect();
+  private static final Dialect ROWNUM = new RowNumDialect();
+
+  /**
+   * 已知的数据库产品名和别名（小写），必须完全相同
+   */
+  private static final Map<String, Dialect> DIALECTS = new HashMap<>();
+
+  /**
+   * SQL 末尾的锁定子句，分页子句需要添加在它之前
+   */
+  private static final Pattern LOCKING_CLAUSE = Pattern.compile(
+      "\\bFOR\\s+(UPDATE|SHARE|NO\\s+KEY\\s+UPDATE|KEY\\s+SHARE)\\b|\\bLOCK\\s+IN\\s+SHARE\\s+MODE\\b",
+      Pattern.CASE_INSENSITIVE);
+
+  static {
+    for (String id : new String[] {"mysql", "mariadb", "postgresql", "postgres", "hsql database engine", "hsqldb", "hsql",
+        "h2", "sqlite"}) {
+      DIALECTS.put(id, LIMIT_OFFSET);
+    }
+    DIALECTS.put("oracle", ROWNUM);
+    for (String id : new String[] {"db2", "apache derby", "derby"}) {
+      DIALECTS.put(id, FETCH_FIRST);
+    }
+  }
+
+  private Dialects() {
+    // Prevent Instantiation
+  }
+
+  /**
+   * Returns the built-in dialect of the given database, or {@code null} if the database is not known.
+   */
+  public static Dialect forDatabaseId(String databaseId) {
+    if (databaseId == null) {
+      return null;
+    }
+    String id = databaseId.trim().toLowerCase(Locale.ENGLISH);
+    // DB2 LUW 的产品名包含平台，例如 DB2/LINUXX8664
+    if (id.startsWith("db2/")) {
+      return FETCH_FIRST;
+    }
+    // SQL Server 的 OFFSET FETCH 要求 ORDER BY ，无法通用地改写
+    return DIALECTS.get(id);
+  }
+
+  /**
+   * 返回 SQL 末尾锁定子句（例如 {@code FOR UPDATE} 、{@code LOCK IN SHARE MODE}）的起始位置，没有时返回 SQL 的长度。
+   * 忽略括号、字符串、双引号标识符、单行注释和块注释中的内容
+   */
+  static int lockingClauseStart(String sql) {
+    // 使用 transparent bounds ，\b 可以看到 region 之前的字符
+    Matcher matcher = LOCKING_CLAUSE.matcher(sql).useTransparentBounds(true);
+    int length = sql.length();
+    int depth = 0;
+    int i = 0;
+    while (i < length) {
+      char c = sql.charAt(i);
+      if (c == '\'' || c == '"') {
+        // 转义的 '' 和 "" 相当于两段相邻的字符串
+        i = skipTo(sql, String.valueOf(c), i + 1);
+      } else if (sql.startsWith("--", i)) {
+        i = skipTo(sql, "\n", i + 2);
+      } else if (sql.startsWith("/*", i)) {
+        i = skipTo(sql, "*/", i + 2);
+      } else if (c == '(') {
+        depth++;
+        i++;
+      } else if (c == ')') {
+        depth--;
+        i++;
+      } else if (depth == 0 && matcher.region(i, length).lookingAt()) {
+        return i;
+      } else {
+        i++;
+      }
+    }
+    return length;
+  }
+
+  /**
+   * 返回 from 之后第一个 end 结束的位置，没有时返回 SQL 的长度
+   */
+  private static int skipTo(String sql, String end, int from) {
+    int index = sql.indexOf(end, from);
+    return index < 0 ? sql.length() : index + end.length();
+  }
+
+}
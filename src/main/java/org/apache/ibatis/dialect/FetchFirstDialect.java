@@ -0,0 +1,46 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * SQL:2008 标准的 {@code OFFSET ? ROWS FETCH NEXT ? ROWS ONLY} 分页，适用于 Oracle 12c 、DB2 和 Derby
+ */
+public class FetchFirstDialect implements Dialect {
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+    // OFFSET FETCH 需要在 FOR UPDATE 等锁定子句之前
+    int lockingClause = Dialects.lockingClauseStart(sql);
+    StringBuilder pageSql = new StringBuilder(sql.length() + 40).append(sql.substring(0, lockingClause).trim());
+    if (offset > RowBounds.NO_ROW_OFFSET) {
+      pageSql.append(" OFFSET ? ROWS");
+      parameters.add(offset);
+    }
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pageSql.append(offset > RowBounds.NO_ROW_OFFSET ? " FETCH NEXT ? ROWS ONLY" : " FETCH FIRST ? ROWS ONLY");
+      parameters.add(limit);
+    }
+    if (lockingClause < sql.length()) {
+      pageSql.append(' ').append(sql, lockingClause, sql.length());
+    }
+    return pageSql.toString();
+  }
+
+}
@@ -0,0 +1,44 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * {@code LIMIT ? OFFSET ?} 分页，适用于 MySQL 、MariaDB 、PostgreSQL 、H2 、HSQLDB 和 SQLite
+ */
+public class LimitOffsetDialect implements Dialect {
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+    // MySQL 不支持单独使用 OFFSET ，所以总是添加 LIMIT
+    // LIMIT 需要在 FOR UPDATE 等锁定子句之前
+    int lockingClause = Dialects.lockingClauseStart(sql);
+    StringBuilder pageSql = new StringBuilder(sql.length() + 20).append(sql.substring(0, lockingClause).trim()).append(" LIMIT ?");
+    parameters.add(limit);
+    if (offset > RowBounds.NO_ROW_OFFSET) {
+      pageSql.append(" OFFSET ?");
+      parameters.add(offset);
+    }
+    if (lockingClause < sql.length()) {
+      pageSql.append(' ').append(sql, lockingClause, sql.length());
+    }
+    return pageSql.toString();
+  }
+
+}
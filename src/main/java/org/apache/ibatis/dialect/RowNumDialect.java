@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * 基于 {@code ROWNUM} 的分页，适用于各个版本的 Oracle
+ *
+ * 有 offset 时结果中会多出一列 {@value #ROWNUM_COLUMN} ，Oracle 无法在外层查询中排除它。
+ * 自动映射会忽略分页 SQL 结果中的这一列，但显式声明的 resultMap 和 {@link org.apache.ibatis.session.ResultHandler} 仍然可以看到它。
+ */
+public class RowNumDialect implements Dialect {
+
+  /**
+   * 分页时添加的行号列
+   */
+  public static final String ROWNUM_COLUMN = "rownum_";
+
+  @Override
+  public String getPageSql(String sql, int offset, int limit, List<Integer> parameters) {
+    // FOR UPDATE 不能出现在子查询中，放到最外层
+    int lockingClause = Dialects.lockingClauseStart(sql);
+    String body = sql.substring(0, lockingClause).trim();
+    String locking = lockingClause < sql.length() ? " " + sql.substring(lockingClause) : "";
+    if (offset == RowBounds.NO_ROW_OFFSET) {
+      parameters.add(limit);
+      return "SELECT * FROM (" + body + ") WHERE ROWNUM <= ?" + locking;
+    }
+    StringBuilder pageSql = new StringBuilder(sql.length() + 120)
+        .append("SELECT * FROM (SELECT row_.*, ROWNUM ").append(ROWNUM_COLUMN).append(" FROM (").append(body).append(") row_");
+    if (limit != RowBounds.NO_ROW_LIMIT) {
+      pageSql.append(" WHERE ROWNUM <= ?");
+      // 避免溢出
+      parameters.add((int) Math.min((long) offset + limit, Integer.MAX_VALUE));
+    }
+    pageSql.append(") WHERE ").append(ROWNUM_COLUMN).append(" > ?");
+    parameters.add(offset);
+    return pageSql.append(locking).toString();
+  }
+
+}
@@ -21,8 +21,10 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.Statement;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentLinkedQueue;
 
+import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.apache.ibatis.cursor.Cursor;
@@ -41,6 +43,7 @@ import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.LocalCacheScope;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.RoutingTransaction;
 import org.apache.ibatis.transaction.Transaction;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 
@@ -83,11 +86,23 @@ public abstract class BaseExecutor implements Executor {
    * 是否关闭
    */
   private boolean closed;
+  /**
+   * 是否只读
+   */
+  private boolean readOnly;
+  /**
+   * 连接是否已经设置为只读
+   */
+  private boolean connectionReadOnly;
 
   protected BaseExecutor(Configuration configuration, Transaction transaction) {
     this.transaction = transaction;
     this.deferredLoads = new ConcurrentLinkedQueue<>();
-    this.localCache = new PerpetualCache("LocalCache");
+    // 设置了上限时，使用有上限的一级缓存
+    this.localCache = configuration != null
+        && (configuration.getLocalCacheSize() > 0 || configuration.getLocalCacheMaxWeight() > 0)
+        ? new LocalCache("LocalCache", configuration.getLocalCacheSize(), configuration.getLocalCacheMaxWeight())
+        : new PerpetualCache("LocalCache");
     this.localOutputParameterCache = new PerpetualCache("LocalOutputParameterCache");
     this.closed = false;
     this.configuration = configuration;
@@ -115,7 +130,14 @@ public abstract class BaseExecutor implements Executor {
       } finally {
         // 关闭事物
         if (transaction != null) {
-          transaction.close();
+          try {
+            // 连接可能会被连接池复用，恢复为可写
+            if (connectionReadOnly) {
+              transaction.getConnection().setReadOnly(false);
+            }
+          } finally {
+            transaction.close();
+          }
         }
       }
     } catch (SQLException e) {
@@ -149,12 +171,26 @@ public abstract class BaseExecutor implements Executor {
     if (closed) {
       throw new ExecutorException("Executor was closed.");
     }
+    checkWritable();
+    markWritten();
     // 清空本地缓存
     clearLocalCache();
     // 执行写操作
     return doUpdate(ms, parameter);
   }
 
+  @Override
+  public CompletableFuture<Integer> updatePipelined(MappedStatement ms, Object parameter) throws SQLException {
+    ErrorContext.instance().resource(ms.getResource()).activity("executing an update").object(ms.getId());
+    if (closed) {
+      throw new ExecutorException("Executor was closed.");
+    }
+    checkWritable();
+    markWritten();
+    clearLocalCache();
+    return doUpdatePipelined(ms, parameter);
+  }
+
   /**
    * 刷入批处理语句
    * @return
@@ -176,7 +212,7 @@ public abstract class BaseExecutor implements Executor {
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameter, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     // 获得对应的 boundSql
-    BoundSql boundSql = ms.getBoundSql(parameter);
+    BoundSql boundSql = ms.getBoundSql(parameter, rowBounds);
     // 创建对应缓存
     CacheKey key = createCacheKey(ms, parameter, rowBounds, boundSql);
     // 查询
@@ -221,6 +257,8 @@ public abstract class BaseExecutor implements Executor {
       if (configuration.getLocalCacheScope() == LocalCacheScope.STATEMENT) {
         // issue #482
         clearLocalCache();
+      } else if (localCache instanceof LocalCache) {
+        trimLocalCache();
       }
     }
     return list;
@@ -237,7 +275,7 @@ public abstract class BaseExecutor implements Executor {
    */
   @Override
   public <E> Cursor<E> queryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds) throws SQLException {
-    BoundSql boundSql = ms.getBoundSql(parameter);
+    BoundSql boundSql = ms.getBoundSql(parameter, rowBounds);
     return doQueryCursor(ms, parameter, rowBounds, boundSql);
   }
 
@@ -364,6 +402,15 @@ public abstract class BaseExecutor implements Executor {
       localOutputParameterCache.clear();
     }
   }
+  /**
+   * 一级缓存超过上限时，淘汰最少使用的查询结果
+   */
+  private void trimLocalCache() {
+    for (Object key : ((LocalCache) localCache).trim()) {
+      localOutputParameterCache.removeObject(key);
+    }
+  }
+
   /****  模版方法 （模版设计模式）  ****/
 
   protected abstract int doUpdate(MappedStatement ms, Object parameter)
@@ -378,6 +425,14 @@ public abstract class BaseExecutor implements Executor {
   protected abstract <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql)
       throws SQLException;
 
+  /**
+   * 执行写操作，返回实际更新数量的 CompletableFuture 。默认立即执行
+   */
+  protected CompletableFuture<Integer> doUpdatePipelined(MappedStatement ms, Object parameter)
+      throws SQLException {
+    return CompletableFuture.completedFuture(doUpdate(ms, parameter));
+  }
+
   protected void closeStatement(Statement statement) {
     if (statement != null) {
       try {
@@ -449,7 +504,29 @@ public abstract class BaseExecutor implements Executor {
   }
 
   protected Connection getConnection(Log statementLog) throws SQLException {
-    Connection connection = transaction.getConnection();
+    return prepareConnection(transaction.getConnection(), statementLog);
+  }
+
+  /**
+   * 获得查询使用的连接。读写分离时，可以使用副本的查询使用副本的连接，其它语句使用 {@link #getConnection(Log)}
+   *
+   * @param ms the query to execute
+   * @return the connection
+   * @throws SQLException
+   */
+  protected Connection getReadConnection(MappedStatement ms) throws SQLException {
+    if (transaction instanceof RoutingTransaction && RoutingTransaction.isReplicaEligible(ms)) {
+      return prepareConnection(((RoutingTransaction) transaction).getReadConnection(), ms.getStatementLog());
+    }
+    return getConnection(ms.getStatementLog());
+  }
+
+  private Connection prepareConnection(Connection connection, Log statementLog) throws SQLException {
+    // 只读时，第一次获取连接时设置为只读
+    if (readOnly && !connectionReadOnly) {
+      connection.setReadOnly(true);
+      connectionReadOnly = true;
+    }
     if (statementLog.isDebugEnabled()) {
       return ConnectionLogger.newInstance(connection, statementLog, queryStack);
     } else {
@@ -463,6 +540,32 @@ public abstract class BaseExecutor implements Executor {
     this.wrapper = wrapper;
   }
 
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  /**
+   * 设置为只读。只读时连接设置为只读，执行修改时抛出异常
+   */
+  public void setReadOnly(boolean readOnly) {
+    this.readOnly = readOnly;
+  }
+
+  /**
+   * 读写分离时，记录会话执行过写操作，之后的查询使用主库
+   */
+  private void markWritten() {
+    if (transaction instanceof RoutingTransaction) {
+      ((RoutingTransaction) transaction).markWritten();
+    }
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new ExecutorException("Cannot execute an update in a read-only session.");
+    }
+  }
+
   /**
    * 延迟加载队列 （静态成员类 ）
    */
@@ -472,7 +575,7 @@ public abstract class BaseExecutor implements Executor {
     private final String property;
     private final Class<?> targetType;
     private final CacheKey key;
-    private final PerpetualCache localCache;
+    private final Cache localCache;
     private final ObjectFactory objectFactory;
     private final ResultExtractor resultExtractor;
 
@@ -483,6 +586,15 @@ public abstract class BaseExecutor implements Executor {
                         PerpetualCache localCache,
                         Configuration configuration,
                         Class<?> targetType) {
+      this(resultObject, property, key, (Cache) localCache, configuration, targetType);
+    }
+
+    public DeferredLoad(MetaObject resultObject,
+                        String property,
+                        CacheKey key,
+                        Cache localCache,
+                        Configuration configuration,
+                        Class<?> targetType) {
       this.resultObject = resultObject;
       this.property = property;
       this.key = key;
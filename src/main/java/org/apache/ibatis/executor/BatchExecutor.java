@@ -120,7 +120,7 @@ public class BatchExecutor extends BaseExecutor {
       // 创建 StatementHandler 对象
       StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameterObject, rowBounds, resultHandler, boundSql);
       // 获得 Connection 对象
-      Connection connection = getConnection(ms.getStatementLog());
+      Connection connection = getReadConnection(ms);
       // 创建 Statement 或 PrepareStatement 对象
       stmt = handler.prepare(connection, transaction.getTimeout());
       // 设置 SQL 上的参数，例如 PrepareStatement 对象上的占位符
@@ -141,7 +141,7 @@ public class BatchExecutor extends BaseExecutor {
     // 创建 StatementHandler 对象
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
     // 获得 Connection 对象
-    Connection connection = getConnection(ms.getStatementLog());
+    Connection connection = getReadConnection(ms);
     // 创建 Statement 或 PrepareStatement 对象
     Statement stmt = handler.prepare(connection, transaction.getTimeout());
     // 设置 Statement ，如果执行完成，则进行自动关闭
@@ -17,19 +17,30 @@ package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cache.TransactionalCacheManager;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.apache.ibatis.cache.stats.CacheStatsRegistry;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.Environment;
 import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ParameterMapping;
 import org.apache.ibatis.mapping.ParameterMode;
+import org.apache.ibatis.mapping.SqlCommandType;
 import org.apache.ibatis.mapping.StatementType;
 import org.apache.ibatis.reflection.MetaObject;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ExecutorType;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.RoutingTransaction;
 import org.apache.ibatis.transaction.Transaction;
 
 /**
@@ -47,10 +58,29 @@ public class CachingExecutor implements Executor {
   /**
    * 支持事物的缓存管理器 二级缓存为session共享的，所以需要考虑事物，那么，必然需要做到事务提交时，才将当前事务中查询时产生的缓存，同步到二级缓存中。这个功能，就通过 TransactionalCacheManager 来实现
    */
-  private final TransactionalCacheManager tcm = new TransactionalCacheManager();
+  private final TransactionalCacheManager tcm;
+  /**
+   * 二级缓存的统计信息，可以为空
+   */
+  private final CacheStatsRegistry statsRegistry;
+  /**
+   * 是否只读。只读时不经过 {@link #tcm} ，未命中时直接写入二级缓存
+   */
+  private final boolean readOnly;
 
   public CachingExecutor(Executor delegate) {
+    this(delegate, null);
+  }
+
+  public CachingExecutor(Executor delegate, CacheStatsRegistry statsRegistry) {
+    this(delegate, statsRegistry, false);
+  }
+
+  public CachingExecutor(Executor delegate, CacheStatsRegistry statsRegistry, boolean readOnly) {
     this.delegate = delegate;
+    this.statsRegistry = statsRegistry;
+    this.readOnly = readOnly;
+    this.tcm = new TransactionalCacheManager(statsRegistry);
     // delegate 被当前执行器所包装
     delegate.setExecutorWrapper(this);
   }
@@ -84,16 +114,24 @@ public class CachingExecutor implements Executor {
 
   @Override
   public int update(MappedStatement ms, Object parameterObject) throws SQLException {
+    checkWritable();
     // 如果需要清空缓存，则进行清空
     flushCacheIfRequired(ms);
     // 执行 delegate 对应的方法
     return delegate.update(ms, parameterObject);
   }
 
+  @Override
+  public CompletableFuture<Integer> updatePipelined(MappedStatement ms, Object parameterObject) throws SQLException {
+    checkWritable();
+    flushCacheIfRequired(ms);
+    return delegate.updatePipelined(ms, parameterObject);
+  }
+
   @Override
   public <E> List<E> query(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler) throws SQLException {
     // 获得 BoundSql 对象
-    BoundSql boundSql = ms.getBoundSql(parameterObject);
+    BoundSql boundSql = ms.getBoundSql(parameterObject, rowBounds);
     // 创建 CacheKey 对象
     CacheKey key = createCacheKey(ms, parameterObject, rowBounds, boundSql);
     // 查询
@@ -120,14 +158,23 @@ public class CachingExecutor implements Executor {
       // MappedStatement#isUseCache() 方法，返回 true 时，才使用二级缓存。默认开启。可通过 @Options(useCache = false) 或 <select useCache="false"> 方法，关闭
       if (ms.isUseCache() && resultHandler == null) {
         ensureNoOutParams(ms, boundSql);
+        // 只读会话清空过缓存后，和普通会话一样经过 tcm ，提交时才清空
+        if (readOnly && !tcm.contains(cache)) {
+          return queryReadOnly(cache, ms, parameterObject, rowBounds, key, boundSql);
+        }
         @SuppressWarnings("unchecked")
         // 从二级缓存中 获得结果
-        List<E> list = (List<E>) tcm.getObject(cache, key);
+        List<E> list = (List<E>) tcm.getObject(cache, key, ms.getCacheTags());
         if (list == null) {
           // 如果不存在，直接从数据库中获取
+          long start = System.nanoTime();
           list = delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
-          // 将结果缓存到二级缓存中
-          tcm.putObject(cache, key, list); // issue #578 and #116
+          recordLoad(cache, System.nanoTime() - start);
+          if (populatesCache(ms)) {
+            setRefresherIfRequired(cache, ms, parameterObject, rowBounds, key);
+            // 将结果缓存到二级缓存中
+            tcm.putObject(cache, key, list, ms.getCacheTags()); // issue #578 and #116
+          }
         }
         return list;
       }
@@ -136,6 +183,47 @@ public class CachingExecutor implements Executor {
     return delegate.query(ms, parameterObject, rowBounds, resultHandler, key, boundSql);
   }
 
+  /**
+   * 只读会话不会修改数据，二级缓存未命中时直接把结果写入缓存，不需要等到提交。
+   * 从只读副本读取的结果不写入缓存
+   */
+  private <E> List<E> queryReadOnly(Cache cache, MappedStatement ms, Object parameterObject, RowBounds rowBounds,
+      CacheKey key, BoundSql boundSql) throws SQLException {
+    @SuppressWarnings("unchecked")
+    List<E> list = (List<E>) cache.getObject(key);
+    if (list == null) {
+      long start = System.nanoTime();
+      try {
+        list = delegate.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER, key, boundSql);
+      } catch (SQLException | RuntimeException e) {
+        // 唤醒 BlockingCache 中等待的线程
+        cache.removeObject(key);
+        throw e;
+      }
+      recordLoad(cache, System.nanoTime() - start);
+      if (!populatesCache(ms)) {
+        // 唤醒 BlockingCache 中等待的线程
+        cache.removeObject(key);
+        return list;
+      }
+      setRefresherIfRequired(cache, ms, parameterObject, rowBounds, key);
+      putObject(cache, key, list, ms.getCacheTags());
+    }
+    return list;
+  }
+
+  /**
+   * 查询结果是否写入二级缓存。只读会话在配置了只读的 DataSource 时，以及自动提交的会话读写分离时从副本读取，
+   * 副本的数据可能落后于主库，写入共享的二级缓存后会被其它会话读到
+   */
+  private boolean populatesCache(MappedStatement ms) {
+    Transaction transaction = delegate.getTransaction();
+    if (transaction instanceof RoutingTransaction && ((RoutingTransaction) transaction).readsFromReplica(ms)) {
+      return false;
+    }
+    return !readOnly || ms.getConfiguration().getEnvironment().getReadOnlyDataSource() == null;
+  }
+
   @Override
   public List<BatchResult> flushStatements() throws SQLException {
     return delegate.flushStatements();
@@ -162,6 +250,56 @@ public class CachingExecutor implements Executor {
     }
   }
 
+  private void recordLoad(Cache cache, long nanos) {
+    CacheStats stats = statsRegistry == null ? null : statsRegistry.getStats(cache.getId());
+    if (stats != null) {
+      stats.recordLoad(nanos);
+    }
+  }
+
+  /**
+   * 缓存开启了 ScheduledCache 的提前刷新时，记录重新加载的任务。未开启时不记录，避免缓存键持有参数对象
+   */
+  private static void setRefresherIfRequired(Cache cache, MappedStatement ms, Object parameterObject, RowBounds rowBounds,
+      CacheKey key) {
+    if (ms.getConfiguration().isRefreshAheadCache(cache.getId())) {
+      key.setRefresher(() -> refresh(ms, parameterObject, rowBounds));
+    }
+  }
+
+  /**
+   * 使用新的连接重新执行查询，并把结果写入二级缓存。
+   * 和普通的查询一样经过插件和 CachingExecutor ，刷新中的缓存项对刷新的线程视为未命中，结果在提交时写回
+   */
+  private static void refresh(MappedStatement ms, Object parameterObject, RowBounds rowBounds) {
+    Configuration configuration = ms.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    Transaction tx = environment.getTransactionFactory().newTransaction(environment.getDataSource(), null, false);
+    Executor executor = configuration.newExecutor(tx, ExecutorType.SIMPLE);
+    try {
+      executor.query(ms, parameterObject, rowBounds, Executor.NO_RESULT_HANDLER);
+      executor.commit(true);
+    } catch (SQLException e) {
+      throw ExceptionFactory.wrapException("Error refreshing the cache entry.  Cause: " + e, e);
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  private static void putObject(Cache cache, CacheKey key, Object value, Set<String> tags) {
+    if (cache instanceof TaggedCache) {
+      ((TaggedCache) cache).putObject(key, value, tags);
+    } else {
+      cache.putObject(key, value);
+    }
+  }
+
+  private void checkWritable() {
+    if (readOnly) {
+      throw new ExecutorException("Cannot execute an update in a read-only session.");
+    }
+  }
+
   private void ensureNoOutParams(MappedStatement ms, BoundSql boundSql) {
     if (ms.getStatementType() == StatementType.CALLABLE) {
       for (ParameterMapping parameterMapping : boundSql.getParameterMappings()) {
@@ -196,14 +334,20 @@ public class CachingExecutor implements Executor {
    * 通过 @Options(flushCache = Options.FlushCachePolicy.TRUE) 或 <select flushCache="true"> 方式，开启需要清空缓存
    *
    *    注意，此时清空的仅仅，当前事务中查询数据产生的缓存。而真正的清空，在事务的提交时。这是为什么呢？还是因为二级缓存是跨 Session 共享缓存，在事务尚未结束时，不能对二级缓存做任何修改
+   *
+   *    声明了 cacheTags 的写操作，只清除标签相同的缓存
    * @param ms
    */
   private void flushCacheIfRequired(MappedStatement ms) {
     Cache cache = ms.getCache();
     // 是否需要清空缓存
     if (cache != null && ms.isFlushCacheRequired()) {
-      // 这里调用 TransactionalCacheManager.clear() --> transactionalCaches
-      tcm.clear(cache);
+      if (ms.getSqlCommandType() != SqlCommandType.SELECT && !ms.getCacheTags().isEmpty()) {
+        tcm.invalidate(cache, ms.getCacheTags());
+      } else {
+        // 这里调用 TransactionalCacheManager.clear() --> transactionalCaches
+        tcm.clear(cache);
+      }
     }
   }
 
@@ -17,6 +17,7 @@ package org.apache.ibatis.executor;
 
 import java.sql.SQLException;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
@@ -50,6 +51,22 @@ public interface Executor {
    */
   int update(MappedStatement ms, Object parameter) throws SQLException;
 
+  /**
+   * 执行写操作，返回实际更新数量的 CompletableFuture 。
+   * 默认立即执行；{@link PipelineExecutor} 将写操作加入批处理，执行批处理后完成。
+   * <p>
+   * 该方法不经过 {@link #update(MappedStatement, Object)} ，拦截 update 的插件看不到流水线写操作，
+   * 需要同时拦截 {@code updatePipelined}
+   *
+   * @param ms the update statement
+   * @param parameter the parameter object
+   * @return a future completed with the number of rows affected
+   * @throws SQLException if the update fails
+   */
+  default CompletableFuture<Integer> updatePipelined(MappedStatement ms, Object parameter) throws SQLException {
+    return CompletableFuture.completedFuture(update(ms, parameter));
+  }
+
   /**
    * 查询带 resulthandler + cachekey+boundsql
    * @param ms
@@ -0,0 +1,151 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+
+import org.apache.ibatis.cache.DefaultWeigher;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+
+/**
+ * 有上限的一级缓存，替代 {@link PerpetualCache} 使用
+ *
+ * 添加缓存项时不淘汰，执行中的语句需要的结果（循环引用、延迟加载队列 DeferredLoad ）都会保留。
+ * 最外层的查询完成后，由 {@link BaseExecutor} 调用 {@link #trim()} ，从最少使用的开始移除，直到数量和权重都不超过上限。
+ *
+ * @see org.apache.ibatis.session.Configuration#getLocalCacheSize()
+ * @see org.apache.ibatis.session.Configuration#getLocalCacheMaxWeight()
+ */
+public class LocalCache extends PerpetualCache {
+
+  /**
+   * 缓存项数量的上限，小于等于 0 时不限制
+   */
+  private final int maxSize;
+  /**
+   * 权重上限，小于等于 0 时不按照权重淘汰
+   */
+  private final long maxWeight;
+  private final Weigher weigher = new DefaultWeigher();
+  /**
+   * 按照访问顺序排序，最少使用的在前面
+   */
+  private final Map<Object, Object> cache = new LinkedHashMap<>(16, .75F, true);
+  /**
+   * 缓存项的权重
+   */
+  private final Map<Object, Long> weights = new HashMap<>();
+  /**
+   * 缓存项的总权重
+   */
+  private long totalWeight;
+
+  public LocalCache(String id, int maxSize, long maxWeight) {
+    super(id);
+    this.maxSize = maxSize;
+    this.maxWeight = maxWeight;
+  }
+
+  @Override
+  public int getSize() {
+    return cache.size();
+  }
+
+  /**
+   * @return the total weight of the entries, or 0 when no {@code maxWeight} is set
+   */
+  public long getWeight() {
+    return totalWeight;
+  }
+
+  @Override
+  public void putObject(Object key, Object value) {
+    cache.put(key, value);
+    // 占位对象很快会被替换，不计算权重
+    if (maxWeight > 0 && value != EXECUTION_PLACEHOLDER) {
+      long weight = weigher.weigh(key, value);
+      Long previous = weights.put(key, weight);
+      totalWeight += weight - (previous == null ? 0 : previous);
+    } else {
+      removeWeight(key);
+    }
+  }
+
+  @Override
+  public Object getObject(Object key) {
+    return cache.get(key);
+  }
+
+  @Override
+  public Object removeObject(Object key) {
+    removeWeight(key);
+    return cache.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    cache.clear();
+    weights.clear();
+    totalWeight = 0;
+  }
+
+  @Override
+  public ReadWriteLock getReadWriteLock() {
+    return null;
+  }
+
+  /**
+   * 从最少使用的开始移除，直到数量和权重都不超过上限
+   *
+   * @return the keys of the removed entries
+   */
+  public List<Object> trim() {
+    if (!isOverLimit()) {
+      return Collections.emptyList();
+    }
+    List<Object> evicted = new ArrayList<>();
+    Iterator<Object> iterator = cache.keySet().iterator();
+    while (isOverLimit() && iterator.hasNext()) {
+      Object key = iterator.next();
+      iterator.remove();
+      removeWeight(key);
+      evicted.add(key);
+    }
+    return evicted;
+  }
+
+  private boolean isOverLimit() {
+    return (maxSize > 0 && cache.size() > maxSize) || (maxWeight > 0 && totalWeight > maxWeight);
+  }
+
+  private void removeWeight(Object key) {
+    Long weight = weights.remove(key);
+    if (weight != null) {
+      totalWeight -= weight;
+    }
+  }
+
+}
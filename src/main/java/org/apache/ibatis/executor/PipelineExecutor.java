@@ -0,0 +1,296 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import java.sql.BatchUpdateException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
+import org.apache.ibatis.executor.keygen.KeyGenerator;
+import org.apache.ibatis.executor.keygen.NoKeyGenerator;
+import org.apache.ibatis.executor.statement.StatementHandler;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.StatementType;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+
+/**
+ * 流水线执行的 Executor 实现类
+ *
+ * 通过 {@link #updatePipelined(MappedStatement, Object)} 执行的写操作先加入批处理，在查询、提交或者 flushStatements 时统一执行，
+ * 执行后完成返回的 CompletableFuture 。和 {@link BatchExecutor} 不同之处：
+ * <ul>
+ *   <li>相同 SQL 的写操作不需要连续，都加入同一个 PreparedStatement 的批处理</li>
+ *   <li>STATEMENT 类型、不生成主键的写操作，不论 SQL 是否相同，都加入同一个 Statement 的批处理，一次发送</li>
+ * </ul>
+ * 因此流水线写操作的执行顺序可能和调用顺序不同，只适用于相互独立的写操作。
+ * 普通的 {@link #update(MappedStatement, Object)} 不加入批处理，先执行等待中的批处理，再立即执行，保证和之前的写操作的顺序。
+ * <p>
+ * 某个批处理失败时，同一次执行中之前已经执行的批处理随事务回滚，它们的 future 也以同一个异常完成（自动提交时除外）。
+ * 之前已经正常完成的 future 不受之后的回滚影响。
+ */
+public class PipelineExecutor extends BaseExecutor {
+
+  /**
+   * 所有 STATEMENT 类型的写操作共用的批处理
+   */
+  private static final String MIXED_BATCH_KEY = "";
+
+  /**
+   * 等待执行的批处理，按照第一次加入的顺序执行
+   *
+   * KEY：{@link MappedStatement#getId()} + SQL ，或者 {@link #MIXED_BATCH_KEY}
+   */
+  private final Map<String, PendingBatch> batches = new LinkedHashMap<>();
+
+  private static class PendingBatch {
+    private final Statement statement;
+    /**
+     * 为 null 时是共用的批处理，包含不同的 MappedStatement
+     */
+    private final MappedStatement mappedStatement;
+    private final List<PendingUpdate> updates = new ArrayList<>();
+    /**
+     * 执行后的更新数量，为 null 时没有执行
+     */
+    private int[] updateCounts;
+
+    PendingBatch(Statement statement, MappedStatement mappedStatement) {
+      this.statement = statement;
+      this.mappedStatement = mappedStatement;
+    }
+  }
+
+  private static class PendingUpdate {
+    private final MappedStatement mappedStatement;
+    private final String sql;
+    private final Object parameterObject;
+    private final CompletableFuture<Integer> updateCount = new CompletableFuture<>();
+
+    PendingUpdate(MappedStatement mappedStatement, String sql, Object parameterObject) {
+      this.mappedStatement = mappedStatement;
+      this.sql = sql;
+      this.parameterObject = parameterObject;
+    }
+  }
+
+  public PipelineExecutor(Configuration configuration, Transaction transaction) {
+    super(configuration, transaction);
+  }
+
+  @Override
+  public int doUpdate(MappedStatement ms, Object parameterObject) throws SQLException {
+    Statement stmt = null;
+    try {
+      // 先执行等待中的写操作，保证执行顺序
+      flushStatements();
+      Configuration configuration = ms.getConfiguration();
+      StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+      Connection connection = getConnection(ms.getStatementLog());
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      handler.parameterize(stmt);
+      return handler.update(stmt);
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  @Override
+  protected CompletableFuture<Integer> doUpdatePipelined(MappedStatement ms, Object parameterObject) throws SQLException {
+    final Configuration configuration = ms.getConfiguration();
+    final StatementHandler handler = configuration.newStatementHandler(this, ms, parameterObject, RowBounds.DEFAULT, null, null);
+    final BoundSql boundSql = handler.getBoundSql();
+    final String sql = boundSql.getSql();
+    final boolean mixed = StatementType.STATEMENT == ms.getStatementType() && ms.getKeyGenerator() instanceof NoKeyGenerator;
+    final String key = mixed ? MIXED_BATCH_KEY : ms.getId() + ":" + sql;
+    PendingBatch batch = batches.get(key);
+    if (batch == null) {
+      Connection connection = getConnection(ms.getStatementLog());
+      Statement stmt = handler.prepare(connection, transaction.getTimeout());
+      batch = new PendingBatch(stmt, mixed ? null : ms);
+      batches.put(key, batch);
+    } else {
+      applyTransactionTimeout(batch.statement);
+    }
+    handler.parameterize(batch.statement);
+    handler.batch(batch.statement);
+    PendingUpdate update = new PendingUpdate(ms, sql, parameterObject);
+    batch.updates.add(update);
+    return update.updateCount;
+  }
+
+  @Override
+  public <E> List<E> doQuery(MappedStatement ms, Object parameterObject, RowBounds rowBounds, ResultHandler resultHandler, BoundSql boundSql)
+      throws SQLException {
+    Statement stmt = null;
+    try {
+      // 查询前执行等待中的写操作
+      flushStatements();
+      Configuration configuration = ms.getConfiguration();
+      StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameterObject, rowBounds, resultHandler, boundSql);
+      Connection connection = getReadConnection(ms);
+      stmt = handler.prepare(connection, transaction.getTimeout());
+      handler.parameterize(stmt);
+      return handler.query(stmt, resultHandler);
+    } finally {
+      closeStatement(stmt);
+    }
+  }
+
+  @Override
+  protected <E> Cursor<E> doQueryCursor(MappedStatement ms, Object parameter, RowBounds rowBounds, BoundSql boundSql) throws SQLException {
+    flushStatements();
+    Configuration configuration = ms.getConfiguration();
+    StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
+    Connection connection = getReadConnection(ms);
+    Statement stmt = handler.prepare(connection, transaction.getTimeout());
+    stmt.closeOnCompletion();
+    handler.parameterize(stmt);
+    return handler.queryCursor(stmt);
+  }
+
+  @Override
+  public List<BatchResult> doFlushStatements(boolean isRollback) throws SQLException {
+    List<PendingBatch> pending = new ArrayList<>(batches.values());
+    batches.clear();
+    Throwable failure = null;
+    try {
+      if (isRollback) {
+        return Collections.emptyList();
+      }
+      List<BatchResult> results = new ArrayList<>();
+      int index = 0;
+      for (PendingBatch batch : pending) {
+        index++;
+        applyTransactionTimeout(batch.statement);
+        int[] updateCounts;
+        try {
+          updateCounts = batch.statement.executeBatch();
+        } catch (BatchUpdateException e) {
+          BatchResult batchResult = toBatchResult(batch, e.getUpdateCounts());
+          StringBuilder message = new StringBuilder();
+          message.append(batchResult.getMappedStatement().getId())
+              .append(" (batch index #")
+              .append(index)
+              .append(")")
+              .append(" failed.");
+          if (index > 1) {
+            message.append(" ")
+                .append(index - 1)
+                .append(" prior sub executor(s) completed successfully, but will be rolled back.");
+          }
+          BatchExecutorException exception = new BatchExecutorException(message.toString(), e, results, batchResult);
+          failure = exception;
+          throw exception;
+        }
+        if (batch.mappedStatement != null) {
+          generateKeys(batch);
+        }
+        batch.updateCounts = updateCounts;
+        if (batch.mappedStatement != null) {
+          results.add(toBatchResult(batch, updateCounts));
+        } else {
+          for (int i = 0; i < batch.updates.size(); i++) {
+            PendingUpdate update = batch.updates.get(i);
+            BatchResult batchResult = new BatchResult(update.mappedStatement, update.sql, update.parameterObject);
+            batchResult.setUpdateCounts(new int[] {updateCount(updateCounts, i)});
+            results.add(batchResult);
+          }
+        }
+      }
+      return results;
+    } catch (SQLException | RuntimeException e) {
+      failure = failure == null ? e : failure;
+      throw e;
+    } finally {
+      for (PendingBatch batch : pending) {
+        closeStatement(batch.statement);
+      }
+      // 某个批处理失败时，之前已经执行的批处理也会随事务回滚，它们的 future 同样异常完成
+      boolean rolledBack = failure != null && !isAutoCommit();
+      // 所有批处理结束后再完成 future ，回调中可以继续使用当前 Executor
+      for (PendingBatch batch : pending) {
+        completeUpdates(batch, rolledBack ? null : batch.updateCounts, failure);
+      }
+    }
+  }
+
+  private boolean isAutoCommit() {
+    try {
+      return transaction.getConnection().getAutoCommit();
+    } catch (SQLException e) {
+      return false;
+    }
+  }
+
+  /**
+   * 按照加入的顺序设置每个写操作的更新数量。updateCounts 为 null 时（回滚、批处理失败或者之前执行的批处理将被回滚）异常完成
+   */
+  private void completeUpdates(PendingBatch batch, int[] updateCounts, Throwable failure) {
+    for (int i = 0; i < batch.updates.size(); i++) {
+      PendingUpdate update = batch.updates.get(i);
+      if (updateCounts != null) {
+        update.updateCount.complete(updateCount(updateCounts, i));
+      } else {
+        update.updateCount.completeExceptionally(failure != null ? failure
+            : new ExecutorException("The pipelined update of '" + update.mappedStatement.getId() + "' was discarded by a rollback."));
+      }
+    }
+  }
+
+  private static int updateCount(int[] updateCounts, int index) {
+    return index < updateCounts.length ? updateCounts[index] : Statement.SUCCESS_NO_INFO;
+  }
+
+  private void generateKeys(PendingBatch batch) throws SQLException {
+    MappedStatement ms = batch.mappedStatement;
+    KeyGenerator keyGenerator = ms.getKeyGenerator();
+    if (Jdbc3KeyGenerator.class.equals(keyGenerator.getClass())) {
+      List<Object> parameterObjects = new ArrayList<>(batch.updates.size());
+      for (PendingUpdate update : batch.updates) {
+        parameterObjects.add(update.parameterObject);
+      }
+      ((Jdbc3KeyGenerator) keyGenerator).processBatch(ms, batch.statement, parameterObjects);
+    } else if (!NoKeyGenerator.class.equals(keyGenerator.getClass())) {
+      for (PendingUpdate update : batch.updates) {
+        keyGenerator.processAfter(this, ms, batch.statement, update.parameterObject);
+      }
+    }
+  }
+
+  private BatchResult toBatchResult(PendingBatch batch, int[] updateCounts) {
+    PendingUpdate first = batch.updates.get(0);
+    BatchResult batchResult = new BatchResult(batch.mappedStatement != null ? batch.mappedStatement : first.mappedStatement, first.sql);
+    for (PendingUpdate update : batch.updates) {
+      batchResult.addParameterObject(update.parameterObject);
+    }
+    batchResult.setUpdateCounts(updateCounts);
+    return batchResult;
+  }
+
+}
@@ -57,7 +57,7 @@ public class ReuseExecutor extends BaseExecutor {
     // 创建 StatementHandler 对象
     StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
     // 初始化 StatementHandler 对象
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, false);
     // 执行 StatementHandler  ，进行写操作
     return handler.update(stmt);
   }
@@ -68,7 +68,7 @@ public class ReuseExecutor extends BaseExecutor {
     // 创建 StatementHandler 对象
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
     // <1> 初始化 StatementHandler 对象 这里不同于 simpleExecutor
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, true);
     // 执行 StatementHandler  ，进行读操作
     return handler.query(stmt, resultHandler);
   }
@@ -79,7 +79,7 @@ public class ReuseExecutor extends BaseExecutor {
     // 创建 StatementHandler 对象
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
     // 初始化 StatementHandler 对象
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, true);
     // 执行 StatementHandler  ，进行读操作
     return handler.queryCursor(stmt);
   }
@@ -95,7 +95,7 @@ public class ReuseExecutor extends BaseExecutor {
     return Collections.emptyList();
   }
 
-  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+  private Statement prepareStatement(MappedStatement ms, StatementHandler handler, boolean read) throws SQLException {
     Statement stmt;
     BoundSql boundSql = handler.getBoundSql();
     String sql = boundSql.getSql();
@@ -107,7 +107,7 @@ public class ReuseExecutor extends BaseExecutor {
       applyTransactionTimeout(stmt);
     } else { // 不存在
       // <2.1> 获得 Connection 对象
-      Connection connection = getConnection(statementLog);
+      Connection connection = read ? getReadConnection(ms) : getConnection(ms.getStatementLog());
       // <2.2> 创建 Statement 或 PrepareStatement 对象
       stmt = handler.prepare(connection, transaction.getTimeout());
       // <2.3> 添加到缓存中
@@ -51,7 +51,7 @@ public class SimpleExecutor extends BaseExecutor {
       // 创建statementhandler对象
       StatementHandler handler = configuration.newStatementHandler(this, ms, parameter, RowBounds.DEFAULT, null, null);
       // 初始化创建的对象
-      stmt = prepareStatement(handler, ms.getStatementLog());
+      stmt = prepareStatement(ms, handler, false);
       // 执行，进行读操作
       return handler.update(stmt);
     } finally {
@@ -66,7 +66,7 @@ public class SimpleExecutor extends BaseExecutor {
     try {
       Configuration configuration = ms.getConfiguration();
       StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, resultHandler, boundSql);
-      stmt = prepareStatement(handler, ms.getStatementLog());
+      stmt = prepareStatement(ms, handler, true);
       return handler.query(stmt, resultHandler);
     } finally {
       closeStatement(stmt);
@@ -79,7 +79,7 @@ public class SimpleExecutor extends BaseExecutor {
     // 创建 StatementHandler 对象
     StatementHandler handler = configuration.newStatementHandler(wrapper, ms, parameter, rowBounds, null, boundSql);
     // 初始化 StatementHandler 对象
-    Statement stmt = prepareStatement(handler, ms.getStatementLog());
+    Statement stmt = prepareStatement(ms, handler, true);
     // 设置 Statement ，如果执行完成，则进行自动关闭
     stmt.closeOnCompletion();
     // 执行 StatementHandler  ，进行读操作
@@ -96,10 +96,10 @@ public class SimpleExecutor extends BaseExecutor {
     return Collections.emptyList();
   }
 
-  private Statement prepareStatement(StatementHandler handler, Log statementLog) throws SQLException {
+  private Statement prepareStatement(MappedStatement ms, StatementHandler handler, boolean read) throws SQLException {
     Statement stmt;
     // 获得 Connection 对象
-    Connection connection = getConnection(statementLog);
+    Connection connection = read ? getReadConnection(ms) : getConnection(ms.getStatementLog());
     //创建 Statement 或 PrepareStatement 对象
     stmt = handler.prepare(connection, transaction.getTimeout());
     //设置 SQL 上的参数，例如 PrepareStatement 对象上的占位符
@@ -27,6 +27,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.executor.BaseExecutor;
@@ -48,6 +49,10 @@ import org.apache.ibatis.session.RowBounds;
 public class ResultLoaderMap {
 
   private final Map<String, LoadPair> loaderMap = new HashMap<>();
+  /**
+   * 延迟加载代理在触发加载时持有的锁。加载过程中会执行查询，使用 ReentrantLock 避免虚拟线程被固定在载体线程上
+   */
+  private final ReentrantLock lock = new ReentrantLock();
 
   public void addLoader(String property, MetaObject metaResultObject, ResultLoader resultLoader) {
     String upperFirst = getUppercaseFirstProperty(property);
@@ -60,6 +65,10 @@ public class ResultLoaderMap {
     loaderMap.put(upperFirst, new LoadPair(property, metaResultObject, resultLoader));
   }
 
+  public ReentrantLock getLock() {
+    return lock;
+  }
+
   public final Map<String, LoadPair> getProperties() {
     return new HashMap<>(this.loaderMap);
   }
@@ -27,12 +27,17 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
 
 import org.apache.ibatis.annotations.AutomapConstructor;
 import org.apache.ibatis.binding.MapperMethod.ParamMap;
 import org.apache.ibatis.cache.CacheKey;
 import org.apache.ibatis.cursor.Cursor;
 import org.apache.ibatis.cursor.defaults.DefaultCursor;
+import org.apache.ibatis.dialect.RowNumDialect;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
@@ -42,6 +47,7 @@ import org.apache.ibatis.executor.parameter.ParameterHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.executor.result.DefaultResultHandler;
 import org.apache.ibatis.executor.result.ResultMapException;
+import org.apache.ibatis.executor.resultset.DetachedResultSet.ColumnReader;
 import org.apache.ibatis.mapping.BoundSql;
 import org.apache.ibatis.mapping.Discriminator;
 import org.apache.ibatis.mapping.MappedStatement;
@@ -71,6 +77,14 @@ import org.apache.ibatis.type.TypeHandlerRegistry;
 public class DefaultResultSetHandler implements ResultSetHandler {
 
   private static final Object DEFERRED = new Object();
+  /**
+   * 并行映射时，未设置 fetchSize 时每个数据块的行数
+   */
+  private static final int PARALLEL_MAPPING_CHUNK_SIZE = 1000;
+  /**
+   * 并行映射时，同时在其它线程映射的数据块数量上限
+   */
+  private static final int PARALLEL_MAPPING_PERMITS = Math.max(2, Runtime.getRuntime().availableProcessors() * 2);
 
   private final Executor executor;
   private final Configuration configuration;
@@ -87,9 +101,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   private final ReflectorFactory reflectorFactory;
 
   // nested resultmaps
-  private final Map<CacheKey, Object> nestedResultObjects = new HashMap<>();
+  /**
+   * 嵌套映射中已经创建的结果对象，KEY 为 {@link CacheKey} ，开启 compactNestedResultMapping 时为 {@link RowKey}
+   */
+  private final Map<Object, Object> nestedResultObjects = new HashMap<>();
   private final Map<String, Object> ancestorObjects = new HashMap<>();
   private Object previousRowValue;
+  /**
+   * 紧凑行键使用的字段的缓存，KEY：{@link ResultMap#getId()} + ":" +  columnPrefix
+   */
+  private final Map<String, RowKeyColumns> rowKeyColumnsCache = new HashMap<>();
+  /**
+   * 结果是否按照 id 字段分组的缓存，KEY：{@link ResultMap#getId()}
+   */
+  private final Map<String, Boolean> groupedResultMaps = new HashMap<>();
+  /**
+   * 是否通过 {@link Cursor} 返回结果，游标中的嵌套结果映射总是按父对象分组
+   */
+  private boolean cursorResults;
 
   // multiple resultsets
   private final Map<String, ResultMapping> nextResultMaps = new HashMap<>();
@@ -104,6 +133,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
    * @see #createRowKeyForUnmappedProperties(ResultMap, ResultSetWrapper, CacheKey, String)
    */
   private final Map<String, List<UnMappedColumnAutoMapping>> autoMappingsCache = new HashMap<>();
+  /**
+   * 并行映射时读取字段值的方式，为 null 时直接通过 TypeHandler 读取
+   */
+  private ColumnReader columnReader;
 
   // temporary marking flag that indicate using constructor mapping (use field to reduce memory usage)
   /**
@@ -111,6 +144,21 @@ public class DefaultResultSetHandler implements ResultSetHandler {
    */
   private boolean useConstructorMappings;
 
+  /**
+   * 计算紧凑行键时读取的字段
+   */
+  private static class RowKeyColumns {
+    private final List<String> columns = new ArrayList<>();
+    /**
+     * 为 null 时通过 {@link ResultSet#getString(String)} 读取
+     */
+    private final List<TypeHandler<?>> typeHandlers = new ArrayList<>();
+    /**
+     * 值为 null 的字段是否也算作键的一部分，和 {@link #createRowKeyForMappedProperties} 一致
+     */
+    private boolean nullValuesCounted;
+  }
+
   private static class PendingRelation {
     public MetaObject metaObject;
     public ResultMapping propertyMapping;
@@ -201,6 +249,12 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   public List<Object> handleResultSets(Statement stmt) throws SQLException {
     ErrorContext.instance().activity("handling results").object(mappedStatement.getId());
 
+    // 多个结果集时，可以在其它线程并行映射
+    Map<String, ResultMapping> resultSetMappings = parallelResultSetMappings();
+    if (resultSetMappings != null) {
+      return handleResultSetsInParallel(stmt, resultSetMappings);
+    }
+
     // <1> 多 ResultSet 的结果集合，每个 ResultSet 对应一个 Object 对象。而实际上，每个 Object 是 List<Object> 对象。
     // 在不考虑存储过程的多 ResultSet 的情况，普通的查询，实际就一个 ResultSet ，也就是说，multipleResults 最多就一个元素。
     final List<Object> multipleResults = new ArrayList<>();
@@ -261,6 +315,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
 
     ResultMap resultMap = resultMaps.get(0);
+    cursorResults = true;
     return new DefaultCursor<>(this, resultMap, rsw, rowBounds);
   }
 
@@ -314,6 +369,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
 
   private void cleanUpAfterHandlingResultSet() {
     nestedResultObjects.clear();
+    rowKeyColumnsCache.clear();
   }
 
   private void validateResultMapsCount(ResultSetWrapper rsw, int resultMapCount) {
@@ -359,6 +415,239 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return multipleResults.size() == 1 ? (List<Object>) multipleResults.get(0) : multipleResults;
   }
 
+  //
+  // HANDLE RESULT SETS IN PARALLEL
+  //
+
+  /**
+   * 开启 parallelResultSetMapping 并且可以并行映射时，返回 resultSet 名字和引用它的 ResultMapping 的映射，否则返回 null 。
+   *
+   * 只有简单的 ResultMap 可以在其它线程映射：嵌套结果映射依赖跨行的状态，嵌套查询需要使用当前线程的 Executor ，
+   * 鉴别器使每一行读取的字段可能不同。
+   * 子结果集对应的 ResultMapping 在这里静态确定，而不是像顺序映射那样在映射父对象时记录。
+   */
+  private Map<String, ResultMapping> parallelResultSetMappings() {
+    if (!configuration.isParallelResultSetMapping() || resultHandler != null) {
+      return null;
+    }
+    List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+    if (resultMaps.size() < 2 && mappedStatement.getResultSets() == null) {
+      return null;
+    }
+    Map<String, ResultMapping> resultSetMappings = new HashMap<>();
+    Set<String> visited = new HashSet<>();
+    for (ResultMap resultMap : resultMaps) {
+      if (!collectResultSetMappings(resultMap, resultSetMappings, visited)) {
+        return null;
+      }
+    }
+    return resultSetMappings;
+  }
+
+  private boolean collectResultSetMappings(ResultMap resultMap, Map<String, ResultMapping> resultSetMappings, Set<String> visited) {
+    if (!visited.add(resultMap.getId())) {
+      return true;
+    }
+    if (resultMap.hasNestedResultMaps() || resultMap.hasNestedQueries() || resultMap.getDiscriminator() != null) {
+      return false;
+    }
+    for (ResultMapping propertyMapping : resultMap.getPropertyResultMappings()) {
+      if (propertyMapping.getResultSet() != null) {
+        ResultMapping previous = resultSetMappings.putIfAbsent(propertyMapping.getResultSet(), propertyMapping);
+        // 多个属性使用同一个结果集时，交给顺序映射处理（抛出异常）
+        if (previous != null && !previous.equals(propertyMapping)) {
+          return false;
+        }
+        if (!collectResultSetMappings(configuration.getResultMap(propertyMapping.getNestedResultMapId()), resultSetMappings, visited)) {
+          return false;
+        }
+      }
+    }
+    return true;
+  }
+
+  /**
+   * 并行映射多个结果集。
+   *
+   * 当前线程依次读取每个结果集，通过 TypeHandler 读取字段值，每 fetchSize 行保存为一个 {@link DetachedResultSet} ，
+   * 交给 {@link ForkJoinPool#commonPool()} 创建结果对象。正在映射的数据块数量有上限，超过时由读取线程自己映射，
+   * 顶层结果集的数据块映射后不再保存读取的值，子结果集的数据块保存到关联父对象之后。
+   * 全部映射完成后，按照读取的顺序合并结果和 PendingRelation ，再把子结果集的对象关联到父对象上，结果和顺序映射相同。
+   */
+  private List<Object> handleResultSetsInParallel(Statement stmt, Map<String, ResultMapping> resultSetMappings) throws SQLException {
+    List<ResultMap> resultMaps = mappedStatement.getResultMaps();
+    String[] resultSets = mappedStatement.getResultSets();
+    int resultSetLimit = Math.max(resultMaps.size(), resultSets == null ? 0 : resultSets.length);
+    List<List<MappingChunk>> topLevelChunks = new ArrayList<>();
+    List<MappingChunk> childChunks = new ArrayList<>();
+    Semaphore permits = new Semaphore(PARALLEL_MAPPING_PERMITS);
+
+    int resultSetCount = 0;
+    ResultSetWrapper rsw = getFirstResultSet(stmt);
+    validateResultMapsCount(rsw, resultMaps.size());
+    while (rsw != null && resultSetCount < resultSetLimit) {
+      if (resultSetCount < resultMaps.size()) {
+        topLevelChunks.add(readChunks(rsw, resultMaps.get(resultSetCount), null, permits));
+      } else {
+        ResultMapping parentMapping = resultSetMappings.get(resultSets[resultSetCount]);
+        if (parentMapping != null) {
+          childChunks.addAll(readChunks(rsw, configuration.getResultMap(parentMapping.getNestedResultMapId()), parentMapping, permits));
+        } else {
+          closeResultSet(rsw.getResultSet());
+        }
+      }
+      rsw = getNextResultSet(stmt);
+      resultSetCount++;
+    }
+
+    final List<Object> multipleResults = new ArrayList<>();
+    for (List<MappingChunk> chunks : topLevelChunks) {
+      List<Object> resultList = new ArrayList<>();
+      for (MappingChunk chunk : chunks) {
+        resultList.addAll(chunk.join());
+      }
+      multipleResults.add(resultList);
+    }
+    for (MappingChunk chunk : childChunks) {
+      chunk.join();
+    }
+    // 父对象全部登记后，再关联子结果集的对象
+    columnReader = DetachedResultSet.READER;
+    for (MappingChunk chunk : childChunks) {
+      chunk.linkToParents();
+    }
+    return collapseSingleResultList(multipleResults);
+  }
+
+  /**
+   * 读取结果集的全部行，分块提交映射。顶层结果集在这里应用 RowBounds
+   */
+  private List<MappingChunk> readChunks(ResultSetWrapper rsw, ResultMap resultMap, ResultMapping parentMapping, Semaphore permits) throws SQLException {
+    ResultSet rs = rsw.getResultSet();
+    try {
+      RowBounds bounds = parentMapping == null ? rowBounds : RowBounds.DEFAULT;
+      skipRows(rs, bounds);
+      DetachedResultSet columns = DetachedResultSet.of(rs.getMetaData());
+      Integer fetchSize = mappedStatement.getFetchSize() != null ? mappedStatement.getFetchSize() : configuration.getDefaultFetchSize();
+      int chunkSize = fetchSize != null && fetchSize > 0 ? fetchSize : PARALLEL_MAPPING_CHUNK_SIZE;
+      List<MappingChunk> chunks = new ArrayList<>();
+      List<Object[]> rows = new ArrayList<>();
+      int rowCount = 0;
+      while (rowCount < bounds.getLimit() && !rs.isClosed() && rs.next()) {
+        // 字段值总是在读取线程通过 TypeHandler 读取
+        rows.add(rowCount == 0 ? recordFirstRow(rsw, resultMap, parentMapping, columns) : columns.readRow(rs));
+        rowCount++;
+        if (rows.size() == chunkSize) {
+          chunks.add(new MappingChunk(columns.withRows(rows), resultMap, parentMapping, permits));
+          rows = new ArrayList<>();
+        }
+      }
+      if (!rows.isEmpty()) {
+        chunks.add(new MappingChunk(columns.withRows(rows), resultMap, parentMapping, permits));
+      }
+      return chunks;
+    } finally {
+      closeResultSet(rs);
+    }
+  }
+
+  /**
+   * 在读取线程映射结果集的第一行，记录映射读取的字段和使用的 TypeHandler ，之后的行只读取这些字段。
+   * 映射得到的对象不使用，第一行和其它行一样在数据块中映射
+   *
+   * @return 第一行读取的字段值
+   */
+  private Object[] recordFirstRow(ResultSetWrapper rsw, ResultMap resultMap, ResultMapping parentMapping, DetachedResultSet columns) throws SQLException {
+    List<Object> values = new ArrayList<>();
+    DefaultResultSetHandler recorder = new DefaultResultSetHandler(executor, mappedStatement, parameterHandler, null, boundSql, RowBounds.DEFAULT);
+    recorder.columnReader = columns.recorder(values);
+    recorder.getRowValue(rsw, resultMap, null);
+    if (parentMapping != null) {
+      // 关联父对象时读取的字段
+      recorder.createKeyForMultipleResults(rsw.getResultSet(), parentMapping, parentMapping.getColumn(), parentMapping.getForeignColumn());
+    }
+    return values.toArray();
+  }
+
+  /**
+   * 在其它线程映射的一段结果
+   */
+  private class MappingChunk {
+
+    /**
+     * 读取的字段值，顶层结果集的数据块映射后不再需要
+     */
+    private DetachedResultSet rows;
+    private final ResultMapping parentMapping;
+    private final CompletableFuture<DefaultResultSetHandler> handler;
+    private final DefaultResultHandler results = new DefaultResultHandler(objectFactory);
+
+    MappingChunk(DetachedResultSet rows, ResultMap resultMap, ResultMapping parentMapping, Semaphore permits) {
+      this.rows = rows;
+      this.parentMapping = parentMapping;
+      if (permits.tryAcquire()) {
+        this.handler = CompletableFuture.supplyAsync(() -> {
+          try {
+            return map(resultMap);
+          } catch (SQLException e) {
+            throw new CompletionException(e);
+          } finally {
+            permits.release();
+          }
+        }, ForkJoinPool.commonPool());
+      } else {
+        // 映射跟不上读取时，在读取线程映射
+        this.handler = new CompletableFuture<>();
+        try {
+          handler.complete(map(resultMap));
+        } catch (SQLException | RuntimeException e) {
+          handler.completeExceptionally(e);
+        }
+      }
+    }
+
+    private DefaultResultSetHandler map(ResultMap resultMap) throws SQLException {
+      // 每个数据块使用新的 DefaultResultSetHandler ，各自保存自动映射缓存和 PendingRelation
+      DefaultResultSetHandler worker = new DefaultResultSetHandler(executor, mappedStatement, parameterHandler, null, boundSql, RowBounds.DEFAULT);
+      worker.columnReader = DetachedResultSet.READER;
+      worker.handleRowValues(new ResultSetWrapper(rows.open(), configuration), resultMap, results, RowBounds.DEFAULT, null);
+      if (parentMapping == null) {
+        rows = null;
+      }
+      return worker;
+    }
+
+    /**
+     * 等待映射完成，合并 PendingRelation ，返回映射的结果
+     */
+    List<Object> join() throws SQLException {
+      DefaultResultSetHandler worker;
+      try {
+        worker = handler.join();
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof SQLException) {
+          throw (SQLException) cause;
+        } else if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        throw e;
+      }
+      worker.pendingRelations.forEach((key, relations) -> pendingRelations.computeIfAbsent(key, k -> new ArrayList<>()).addAll(relations));
+      return results.getResultList();
+    }
+
+    void linkToParents() throws SQLException {
+      ResultSet rs = rows.open();
+      for (Object rowValue : results.getResultList()) {
+        rs.next();
+        DefaultResultSetHandler.this.linkToParents(rs, parentMapping, rowValue);
+      }
+    }
+  }
+
   //
   // HANDLE ROWS FOR SIMPLE RESULTMAP
   //
@@ -376,8 +665,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     if (resultMap.hasNestedResultMaps()) {
       // 校验不要使用 rowbounds
       ensureNoRowBounds();
-      // 校验不要使用自定义的resulthandler
-      checkResultHandler();
+      // 校验不要使用自定义的resulthandler，结果按父对象分组时可以使用
+      if (!isGroupedByParent(resultMap, parentMapping)) {
+        checkResultHandler();
+      }
       // 处理嵌套的结果集映射
       handleRowValuesForNestedResultMap(rsw, resultMap, resultHandler, rowBounds, parentMapping);
     } else {
@@ -583,10 +874,24 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     } else {
       final TypeHandler<?> typeHandler = propertyMapping.getTypeHandler();
       final String column = prependPrefix(propertyMapping.getColumn(), columnPrefix);
-      return typeHandler.getResult(rs, column);
+      return getColumnValue(rs, typeHandler, column);
     }
   }
 
+  /**
+   * 读取字段值。并行映射时由 {@link #columnReader} 读取，其它情况直接调用 TypeHandler
+   */
+  private Object getColumnValue(ResultSet rs, TypeHandler<?> typeHandler, String column) throws SQLException {
+    return columnReader == null ? typeHandler.getResult(rs, column) : columnReader.read(rs, typeHandler, column);
+  }
+
+  /**
+   * 是否为 {@link RowNumDialect} 分页时添加的行号列，自动映射时忽略
+   */
+  private boolean isPageColumn(String columnName) {
+    return boundSql != null && boundSql.getAppliedRowBounds() != null && RowNumDialect.ROWNUM_COLUMN.equalsIgnoreCase(columnName);
+  }
+
   private List<UnMappedColumnAutoMapping> createAutomaticMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String columnPrefix) throws SQLException {
     final String mapKey = resultMap.getId() + ":" + columnPrefix;
     List<UnMappedColumnAutoMapping> autoMapping = autoMappingsCache.get(mapKey);
@@ -594,6 +899,9 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       autoMapping = new ArrayList<>();
       final List<String> unmappedColumnNames = rsw.getUnmappedColumnNames(resultMap, columnPrefix);
       for (String columnName : unmappedColumnNames) {
+        if (isPageColumn(columnName)) {
+          continue;
+        }
         String propertyName = columnName;
         if (columnPrefix != null && !columnPrefix.isEmpty()) {
           // When columnPrefix is specified,
@@ -632,7 +940,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     boolean foundValues = false;
     if (!autoMapping.isEmpty()) {
       for (UnMappedColumnAutoMapping mapping : autoMapping) {
-        final Object value = mapping.typeHandler.getResult(rsw.getResultSet(), mapping.column);
+        final Object value = getColumnValue(rsw.getResultSet(), mapping.typeHandler, mapping.column);
         if (value != null) {
           foundValues = true;
         }
@@ -684,7 +992,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       String[] columnsArray = columns.split(",");
       String[] namesArray = names.split(",");
       for (int i = 0; i < columnsArray.length; i++) {
-        Object value = rs.getString(columnsArray[i]);
+        Object value = columnReader == null ? rs.getString(columnsArray[i]) : columnReader.read(rs, null, columnsArray[i]);
         if (value != null) {
           cacheKey.update(namesArray[i]);
           cacheKey.update(value);
@@ -784,7 +1092,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
           // 最常用的情况，直接使用 TypeHandler 获取当前 ResultSet 的当前行的指定字段的值
         } else {
           final TypeHandler<?> typeHandler = constructorMapping.getTypeHandler();
-          value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(column, columnPrefix));
+          value = getColumnValue(rsw.getResultSet(), typeHandler, prependPrefix(column, columnPrefix));
         }
       } catch (ResultMapException | SQLException e) {
         throw new ExecutorException("Could not process result for mapping: " + constructorMapping, e);
@@ -826,7 +1134,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       Class<?> parameterType = constructor.getParameterTypes()[i];
       String columnName = rsw.getColumnNames().get(i);
       TypeHandler<?> typeHandler = rsw.getTypeHandler(parameterType, columnName);
-      Object value = typeHandler.getResult(rsw.getResultSet(), prependPrefix(columnName, columnPrefix));
+      Object value = getColumnValue(rsw.getResultSet(), typeHandler, prependPrefix(columnName, columnPrefix));
       constructorArgTypes.add(parameterType);
       constructorArgs.add(value);
       foundValues = value != null || foundValues;
@@ -878,7 +1186,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       columnName = rsw.getColumnNames().get(0);
     }
     final TypeHandler<?> typeHandler = rsw.getTypeHandler(resultType, columnName);
-    return typeHandler.getResult(rsw.getResultSet(), columnName);
+    return getColumnValue(rsw.getResultSet(), typeHandler, columnName);
   }
 
   //
@@ -1105,6 +1413,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     // 跳到指定的位置开始
     skipRows(resultSet, rowBounds);
     Object rowValue = previousRowValue;
+    // 结果按父对象分组时，父对象变化后即可清理已完成的父对象及其嵌套对象
+    final boolean grouped = isGroupedByParent(resultMap, parentMapping);
     // 循环处理
     while (shouldProcessMoreRows(resultContext, rowBounds) // 是否继续处理resultset
             && !resultSet.isClosed()  // resultset是否已经关闭
@@ -1112,10 +1422,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
       // <4> 根据该行记录以及 ResultMap.discriminator ，决定映射使用的 ResultMap 对象
       final ResultMap discriminatedResultMap = resolveDiscriminatedResultMap(resultSet, resultMap, null);
       // <5> 根据最终确定的 ResultMap 对 ResultSet 中的该行记录进行映射，得到映射后的结果对象
-      final CacheKey rowKey = createRowKey(discriminatedResultMap, rsw, null);
+      final Object rowKey = createRowKey(discriminatedResultMap, rsw, null);
       Object partialObject = nestedResultObjects.get(rowKey);
       // issue #577 && #542
-      if (mappedStatement.isResultOrdered()) {
+      if (grouped) {
         if (partialObject == null && rowValue != null) {
           nestedResultObjects.clear();
           storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
@@ -1128,7 +1438,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
         }
       }
     }
-    if (rowValue != null && mappedStatement.isResultOrdered() && shouldProcessMoreRows(resultContext, rowBounds)) {
+    if (rowValue != null && grouped && shouldProcessMoreRows(resultContext, rowBounds)) {
       storeObject(resultHandler, resultContext, rowValue, parentMapping, resultSet);
       previousRowValue = null;
     } else if (rowValue != null) {
@@ -1136,6 +1446,221 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     }
   }
 
+  /**
+   * 结果是否按父对象分组，即同一个父对象的行是连续的。
+   *
+   * 设置了 resultOrdered 时由用户保证。开启 compactNestedResultMapping 时，如果 SQL 最外层的 ORDER BY
+   * 以顶层 ResultMap 的全部 id 字段（没有 id 时为全部字段）开头，也可以确定结果是分组的。
+   * 通过游标返回时总是按分组处理：父对象在下一个父对象开始时才返回，内存中只保留当前父对象。
+   */
+  private boolean isGroupedByParent(ResultMap resultMap, ResultMapping parentMapping) {
+    if (mappedStatement.isResultOrdered() || (cursorResults && parentMapping == null)) {
+      return true;
+    }
+    if (!configuration.isCompactNestedResultMapping() || parentMapping != null || boundSql == null) {
+      return false;
+    }
+    return groupedResultMaps.computeIfAbsent(resultMap.getId(), id -> isOrderedByIdColumns(boundSql.getSql(), resultMap));
+  }
+
+  private static boolean isOrderedByIdColumns(String sql, ResultMap resultMap) {
+    List<ResultMapping> idMappings = resultMap.getIdResultMappings();
+    if (resultMap.getDiscriminator() != null || idMappings.isEmpty()) {
+      return false;
+    }
+    Set<String> idColumns = new HashSet<>();
+    for (ResultMapping idMapping : idMappings) {
+      if (idMapping.getColumn() == null || idMapping.getNestedResultMapId() != null || idMapping.getNestedQueryId() != null) {
+        return false;
+      }
+      idColumns.add(idMapping.getColumn().toUpperCase(Locale.ENGLISH));
+    }
+    List<String> orderByColumns = getOrderByColumns(sql);
+    if (orderByColumns.size() < idColumns.size()) {
+      return false;
+    }
+    // 排序项可能带有表别名，例如 c.id ，需要通过 select 列表确定它在结果集中的列名，无法确定时认为没有分组
+    List<String[]> selectItems = getSelectItems(sql);
+    Set<String> orderByLabels = new HashSet<>();
+    for (String column : orderByColumns.subList(0, idColumns.size())) {
+      String label = resolveColumnLabel(column, selectItems);
+      if (label == null) {
+        return false;
+      }
+      orderByLabels.add(label);
+    }
+    return idColumns.equals(orderByLabels);
+  }
+
+  /**
+   * 解析 SQL 最外层的 ORDER BY ，返回每个排序项的第一个单词（保留表别名，去掉引号，转成大写）
+   */
+  static List<String> getOrderByColumns(String sql) {
+    final String upperSql = sql.toUpperCase(Locale.ENGLISH);
+    int orderByEnd = -1;
+    int order = indexOfKeyword(upperSql, 0, "ORDER");
+    while (order >= 0) {
+      int by = skipWhitespace(upperSql, order + "ORDER".length());
+      if (isKeywordAt(upperSql, by, "BY")) {
+        orderByEnd = by + "BY".length();
+      }
+      order = indexOfKeyword(upperSql, order + "ORDER".length(), "ORDER");
+    }
+    List<String> columns = new ArrayList<>();
+    if (orderByEnd < 0) {
+      return columns;
+    }
+    for (String item : split(upperSql.substring(orderByEnd), false)) {
+      List<String> tokens = split(item, true);
+      columns.add(tokens.isEmpty() ? "" : unquote(tokens.get(0)));
+    }
+    return columns;
+  }
+
+  /**
+   * 解析 SQL 最外层的 select 列表，返回每一项的表达式和列名（去掉引号，转成大写）。{@code *} 和 {@code t.*} 的列名为 null
+   */
+  static List<String[]> getSelectItems(String sql) {
+    final String upperSql = sql.toUpperCase(Locale.ENGLISH);
+    List<String[]> items = new ArrayList<>();
+    int select = indexOfKeyword(upperSql, 0, "SELECT");
+    if (select < 0) {
+      return items;
+    }
+    int begin = skipWhitespace(upperSql, select + "SELECT".length());
+    for (String keyword : new String[] {"DISTINCT", "ALL"}) {
+      if (isKeywordAt(upperSql, begin, keyword)) {
+        begin = skipWhitespace(upperSql, begin + keyword.length());
+      }
+    }
+    int from = indexOfKeyword(upperSql, begin, "FROM");
+    for (String item : split(upperSql.substring(begin, from < 0 ? upperSql.length() : from), false)) {
+      List<String> tokens = split(item, true);
+      int size = tokens.size();
+      String expression;
+      String label;
+      if (size >= 3 && "AS".equals(tokens.get(size - 2))) {
+        expression = String.join(" ", tokens.subList(0, size - 2));
+        label = unquote(tokens.get(size - 1));
+      } else if (size == 2 && isIdentifier(tokens.get(1))) {
+        expression = tokens.get(0);
+        label = unquote(tokens.get(1));
+      } else {
+        expression = String.join(" ", tokens);
+        label = expression.endsWith("*") ? null : unquote(expression.substring(expression.lastIndexOf('.') + 1));
+      }
+      items.add(new String[] {unquote(expression), label});
+    }
+    return items;
+  }
+
+  /**
+   * 根据 select 列表返回排序项在结果集中的列名。排序项是表达式、可能对应多列或者 select 列表包含通配符时返回 null
+   */
+  static String resolveColumnLabel(String column, List<String[]> selectItems) {
+    if (column.isEmpty() || column.indexOf('(') >= 0) {
+      return null;
+    }
+    if (column.chars().allMatch(Character::isDigit)) {
+      int position = Integer.parseInt(column);
+      return position >= 1 && position <= selectItems.size() ? selectItems.get(position - 1)[1] : null;
+    }
+    boolean qualified = column.indexOf('.') >= 0;
+    String label = null;
+    int matches = 0;
+    for (String[] item : selectItems) {
+      if (item[1] == null) {
+        // 通配符中可能包含同名的列
+        return null;
+      } else if (qualified ? column.equals(item[0]) : column.equals(item[1])) {
+        label = item[1];
+        matches++;
+      }
+    }
+    return matches == 1 ? label : null;
+  }
+
+  /**
+   * 返回 SQL 最外层（不在括号和引号中）关键字的位置，没有时返回 -1
+   */
+  private static int indexOfKeyword(String upperSql, int fromIndex, String keyword) {
+    int depth = 0;
+    char quote = 0;
+    for (int i = fromIndex; i < upperSql.length(); i++) {
+      char c = upperSql.charAt(i);
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && isKeywordAt(upperSql, i, keyword)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * 按最外层的逗号（或空白）拆分，忽略括号和引号中的内容
+   */
+  private static List<String> split(String sql, boolean onWhitespace) {
+    List<String> parts = new ArrayList<>();
+    StringBuilder part = new StringBuilder();
+    int depth = 0;
+    char quote = 0;
+    for (int i = 0; i <= sql.length(); i++) {
+      char c = i < sql.length() ? sql.charAt(i) : ',';
+      if (quote != 0) {
+        if (c == quote) {
+          quote = 0;
+        }
+      } else if (c == '\'' || c == '"' || c == '`') {
+        quote = c;
+      } else if (c == '(') {
+        depth++;
+      } else if (c == ')') {
+        depth--;
+      } else if (depth == 0 && (c == ',' || (onWhitespace && Character.isWhitespace(c)))) {
+        String trimmed = part.toString().trim();
+        if (!trimmed.isEmpty() || !onWhitespace) {
+          parts.add(trimmed);
+        }
+        part.setLength(0);
+        continue;
+      }
+      part.append(c);
+    }
+    return parts;
+  }
+
+  private static int skipWhitespace(String sql, int index) {
+    while (index < sql.length() && Character.isWhitespace(sql.charAt(index))) {
+      index++;
+    }
+    return index;
+  }
+
+  private static boolean isIdentifier(String token) {
+    String name = unquote(token);
+    return !name.isEmpty() && name.chars().allMatch(Character::isJavaIdentifierPart);
+  }
+
+  private static String unquote(String identifier) {
+    return identifier.replace("\"", "").replace("`", "");
+  }
+
+  private static boolean isKeywordAt(String sql, int index, String keyword) {
+    int end = index + keyword.length();
+    return sql.startsWith(keyword, index)
+        && (index == 0 || !Character.isJavaIdentifierPart(sql.charAt(index - 1)))
+        && (end == sql.length() || !Character.isJavaIdentifierPart(sql.charAt(end)));
+  }
+
   //
   // GET VALUE FROM ROW FOR NESTED RESULT MAP
   //
@@ -1150,7 +1675,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
    * @return
    * @throws SQLException
    */
-  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, CacheKey combinedKey, String columnPrefix, Object partialObject) throws SQLException {
+  private Object getRowValue(ResultSetWrapper rsw, ResultMap resultMap, Object combinedKey, String columnPrefix, Object partialObject) throws SQLException {
     final String resultMapId = resultMap.getId();
     Object rowValue = partialObject;
     if (rowValue != null) {
@@ -1191,7 +1716,7 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // NESTED RESULT MAP (JOIN MAPPING)
   //
 
-  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, CacheKey parentRowKey, boolean newObject) {
+  private boolean applyNestedResultMappings(ResultSetWrapper rsw, ResultMap resultMap, MetaObject metaObject, String parentPrefix, Object parentRowKey, boolean newObject) {
     boolean foundValues = false;
     for (ResultMapping resultMapping : resultMap.getPropertyResultMappings()) {
       final String nestedResultMapId = resultMapping.getNestedResultMapId();
@@ -1210,8 +1735,8 @@ public class DefaultResultSetHandler implements ResultSetHandler {
               continue;
             }
           }
-          final CacheKey rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
-          final CacheKey combinedKey = combineKeys(rowKey, parentRowKey);
+          final Object rowKey = createRowKey(nestedResultMap, rsw, columnPrefix);
+          final Object combinedKey = combineKeys(rowKey, parentRowKey);
           Object rowValue = nestedResultObjects.get(combinedKey);
           boolean knownValue = rowValue != null;
           instantiateCollectionPropertyIfAppropriate(resultMapping, metaObject); // mandatory
@@ -1272,7 +1797,10 @@ public class DefaultResultSetHandler implements ResultSetHandler {
   // UNIQUE RESULT KEY
   //
 
-  private CacheKey createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+  private Object createRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    if (configuration.isCompactNestedResultMapping()) {
+      return createCompactRowKey(resultMap, rsw, columnPrefix);
+    }
     final CacheKey cacheKey = new CacheKey();
     cacheKey.update(resultMap.getId());
     List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
@@ -1291,11 +1819,15 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return cacheKey;
   }
 
-  private CacheKey combineKeys(CacheKey rowKey, CacheKey parentRowKey) {
-    if (rowKey.getUpdateCount() > 1 && parentRowKey.getUpdateCount() > 1) {
+  private Object combineKeys(Object rowKey, Object parentRowKey) {
+    if (rowKey instanceof RowKey && parentRowKey instanceof RowKey) {
+      return ((RowKey) rowKey).combine((RowKey) parentRowKey);
+    }
+    if (rowKey instanceof CacheKey && parentRowKey instanceof CacheKey
+        && ((CacheKey) rowKey).getUpdateCount() > 1 && ((CacheKey) parentRowKey).getUpdateCount() > 1) {
       CacheKey combinedKey;
       try {
-        combinedKey = rowKey.clone();
+        combinedKey = ((CacheKey) rowKey).clone();
       } catch (CloneNotSupportedException e) {
         throw new ExecutorException("Error cloning cache key.  Cause: " + e, e);
       }
@@ -1305,6 +1837,79 @@ public class DefaultResultSetHandler implements ResultSetHandler {
     return CacheKey.NULL_CACHE_KEY;
   }
 
+  /**
+   * 创建紧凑的行键。读取的字段和 {@link CacheKey} 相同，但只保存按位置排列的值，字段列表按 ResultMap 和字段前缀缓存
+   */
+  private Object createCompactRowKey(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final String mapKey = resultMap.getId() + ":" + columnPrefix;
+    RowKeyColumns rowKeyColumns = rowKeyColumnsCache.get(mapKey);
+    if (rowKeyColumns == null) {
+      rowKeyColumns = createRowKeyColumns(resultMap, rsw, columnPrefix);
+      rowKeyColumnsCache.put(mapKey, rowKeyColumns);
+    }
+    final ResultSet rs = rsw.getResultSet();
+    final int size = rowKeyColumns.columns.size();
+    final Object[] values = new Object[size];
+    boolean found = rowKeyColumns.nullValuesCounted && size > 0;
+    for (int i = 0; i < size; i++) {
+      final TypeHandler<?> th = rowKeyColumns.typeHandlers.get(i);
+      final String column = rowKeyColumns.columns.get(i);
+      values[i] = th == null ? rs.getString(column) : th.getResult(rs, column);
+      found = found || values[i] != null;
+    }
+    return found ? new RowKey(resultMap.getId(), columnPrefix, values) : CacheKey.NULL_CACHE_KEY;
+  }
+
+  private RowKeyColumns createRowKeyColumns(ResultMap resultMap, ResultSetWrapper rsw, String columnPrefix) throws SQLException {
+    final RowKeyColumns rowKeyColumns = new RowKeyColumns();
+    List<ResultMapping> resultMappings = getResultMappingsForRowKey(resultMap);
+    if (resultMappings.isEmpty()) {
+      if (Map.class.isAssignableFrom(resultMap.getType())) {
+        for (String columnName : rsw.getColumnNames()) {
+          rowKeyColumns.columns.add(columnName);
+          rowKeyColumns.typeHandlers.add(null);
+        }
+      } else {
+        final MetaClass metaType = MetaClass.forClass(resultMap.getType(), reflectorFactory);
+        for (String column : rsw.getUnmappedColumnNames(resultMap, columnPrefix)) {
+          String property = column;
+          if (columnPrefix != null && !columnPrefix.isEmpty()) {
+            if (column.toUpperCase(Locale.ENGLISH).startsWith(columnPrefix)) {
+              property = column.substring(columnPrefix.length());
+            } else {
+              continue;
+            }
+          }
+          if (metaType.findProperty(property, configuration.isMapUnderscoreToCamelCase()) != null) {
+            rowKeyColumns.columns.add(column);
+            rowKeyColumns.typeHandlers.add(null);
+          }
+        }
+      }
+    } else {
+      rowKeyColumns.nullValuesCounted = configuration.isReturnInstanceForEmptyRow();
+      addRowKeyColumnsForMappedProperties(resultMap, rsw, rowKeyColumns, resultMappings, columnPrefix);
+    }
+    return rowKeyColumns;
+  }
+
+  private void addRowKeyColumnsForMappedProperties(ResultMap resultMap, ResultSetWrapper rsw, RowKeyColumns rowKeyColumns, List<ResultMapping> resultMappings, String columnPrefix) throws SQLException {
+    for (ResultMapping resultMapping : resultMappings) {
+      if (resultMapping.getNestedResultMapId() != null && resultMapping.getResultSet() == null) {
+        final ResultMap nestedResultMap = configuration.getResultMap(resultMapping.getNestedResultMapId());
+        addRowKeyColumnsForMappedProperties(nestedResultMap, rsw, rowKeyColumns, nestedResultMap.getConstructorResultMappings(),
+            prependPrefix(resultMapping.getColumnPrefix(), columnPrefix));
+      } else if (resultMapping.getNestedQueryId() == null) {
+        final String column = prependPrefix(resultMapping.getColumn(), columnPrefix);
+        List<String> mappedColumnNames = rsw.getMappedColumnNames(resultMap, columnPrefix);
+        if (column != null && mappedColumnNames.contains(column.toUpperCase(Locale.ENGLISH))) {
+          rowKeyColumns.columns.add(column);
+          rowKeyColumns.typeHandlers.add(resultMapping.getTypeHandler());
+        }
+      }
+    }
+  }
+
   private List<ResultMapping> getResultMappingsForRowKey(ResultMap resultMap) {
     List<ResultMapping> resultMappings = resultMap.getIdResultMappings();
     if (resultMappings.isEmpty()) {
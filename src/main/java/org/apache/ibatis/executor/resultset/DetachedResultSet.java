@@ -0,0 +1,287 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.type.TypeHandler;
+
+/**
+ * 和数据库连接分离的一段 ResultSet 数据。
+ *
+ * 读取线程映射结果集的第一行时，通过 {@link #recorder(List)} 记录映射读取的字段和使用的 TypeHandler ，
+ * 之后每一行通过 {@link #readRow(ResultSet)} 在读取线程调用同样的 TypeHandler 读取字段值。
+ * 其它线程通过 {@link #open()} 得到只读、只能向前移动的 ResultSet 进行映射，字段值由 {@link #READER} 返回读取线程读取的值，
+ * 不会在其它线程调用 TypeHandler 或者转换类型，结果和顺序映射相同。ResultSet 本身只支持移动和获取字段信息。
+ */
+final class DetachedResultSet {
+
+  /**
+   * 从 {@link #open()} 返回的 ResultSet 中获取读取线程读取的字段值
+   */
+  static final ColumnReader READER = (rs, typeHandler, column) -> {
+    Cursor cursor = (Cursor) Proxy.getInvocationHandler(rs);
+    return cursor.getValue(typeHandler, column);
+  };
+
+  private final String[] columnLabels;
+  private final String[] columnNames;
+  private final int[] columnTypes;
+  private final String[] columnClassNames;
+  /**
+   * 映射时读取的字段和它在每一行的值中的位置，按照第一行读取的顺序排列，同一个结果集的数据块共用
+   */
+  private final Map<ColumnRead, Integer> reads;
+  private final List<Object[]> rows;
+
+  private DetachedResultSet(String[] columnLabels, String[] columnNames, int[] columnTypes, String[] columnClassNames,
+      Map<ColumnRead, Integer> reads, List<Object[]> rows) {
+    this.columnLabels = columnLabels;
+    this.columnNames = columnNames;
+    this.columnTypes = columnTypes;
+    this.columnClassNames = columnClassNames;
+    this.reads = reads;
+    this.rows = rows;
+  }
+
+  /**
+   * 读取 ResultSet 的字段信息，返回不包含数据的 DetachedResultSet
+   */
+  static DetachedResultSet of(ResultSetMetaData metaData) throws SQLException {
+    int columnCount = metaData.getColumnCount();
+    String[] columnLabels = new String[columnCount];
+    String[] columnNames = new String[columnCount];
+    int[] columnTypes = new int[columnCount];
+    String[] columnClassNames = new String[columnCount];
+    for (int i = 0; i < columnCount; i++) {
+      columnLabels[i] = metaData.getColumnLabel(i + 1);
+      columnNames[i] = metaData.getColumnName(i + 1);
+      columnTypes[i] = metaData.getColumnType(i + 1);
+      columnClassNames[i] = metaData.getColumnClassName(i + 1);
+    }
+    return new DetachedResultSet(columnLabels, columnNames, columnTypes, columnClassNames, new LinkedHashMap<>(), new ArrayList<>());
+  }
+
+  /**
+   * 返回在读取线程映射第一行时使用的 ColumnReader ，通过 TypeHandler 读取字段值，并记录读取的字段
+   *
+   * @param values 第一行读取的字段值
+   */
+  ColumnReader recorder(List<Object> values) {
+    return (rs, typeHandler, column) -> {
+      ColumnRead read = new ColumnRead(typeHandler, column);
+      Integer index = reads.get(read);
+      if (index != null) {
+        return values.get(index);
+      }
+      Object value = read.read(rs);
+      reads.put(read, values.size());
+      values.add(value);
+      return value;
+    };
+  }
+
+  /**
+   * 在读取线程读取当前行中映射第一行时读取的字段
+   */
+  Object[] readRow(ResultSet rs) throws SQLException {
+    Object[] row = new Object[reads.size()];
+    for (Map.Entry<ColumnRead, Integer> entry : reads.entrySet()) {
+      row[entry.getValue()] = entry.getKey().read(rs);
+    }
+    return row;
+  }
+
+  /**
+   * 返回字段信息和读取的字段相同，包含指定行的 DetachedResultSet
+   */
+  DetachedResultSet withRows(List<Object[]> rows) {
+    return new DetachedResultSet(columnLabels, columnNames, columnTypes, columnClassNames, reads, rows);
+  }
+
+  int size() {
+    return rows.size();
+  }
+
+  /**
+   * 返回从第一行之前开始的 ResultSet ，每次调用返回新的游标
+   */
+  ResultSet open() {
+    ClassLoader cl = ResultSet.class.getClassLoader();
+    return (ResultSet) Proxy.newProxyInstance(cl, new Class[]{ResultSet.class}, new Cursor());
+  }
+
+  private int findColumn(String columnName) throws SQLException {
+    for (int i = 0; i < columnLabels.length; i++) {
+      if (columnName.equalsIgnoreCase(columnLabels[i])) {
+        return i + 1;
+      }
+    }
+    for (int i = 0; i < columnNames.length; i++) {
+      if (columnName.equalsIgnoreCase(columnNames[i])) {
+        return i + 1;
+      }
+    }
+    throw new SQLException("Column '" + columnName + "' not found.");
+  }
+
+  /**
+   * 映射时读取字段值的方式
+   */
+  interface ColumnReader {
+
+    /**
+     * @param rs 映射的 ResultSet
+     * @param typeHandler 读取字段使用的 TypeHandler ，为 null 时读取关联多结果集使用的字符串值
+     * @param column 字段名
+     */
+    Object read(ResultSet rs, TypeHandler<?> typeHandler, String column) throws SQLException;
+
+  }
+
+  /**
+   * 映射读取的一个字段，TypeHandler 按照对象比较
+   */
+  private static final class ColumnRead {
+
+    private final TypeHandler<?> typeHandler;
+    private final String column;
+
+    ColumnRead(TypeHandler<?> typeHandler, String column) {
+      this.typeHandler = typeHandler;
+      this.column = column;
+    }
+
+    Object read(ResultSet rs) throws SQLException {
+      return typeHandler == null ? rs.getString(column) : typeHandler.getResult(rs, column);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof ColumnRead)) {
+        return false;
+      }
+      ColumnRead other = (ColumnRead) o;
+      return typeHandler == other.typeHandler && column.equals(other.column);
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * System.identityHashCode(typeHandler) + column.hashCode();
+    }
+  }
+
+  private class Cursor implements InvocationHandler {
+
+    private int rowIndex = -1;
+    private boolean closed;
+
+    Object getValue(TypeHandler<?> typeHandler, String column) throws SQLException {
+      if (closed) {
+        throw new SQLException("The result set is closed.");
+      }
+      if (rowIndex < 0 || rowIndex >= rows.size()) {
+        throw new SQLException("The result set has no current row.");
+      }
+      Integer index = reads.get(new ColumnRead(typeHandler, column));
+      if (index == null) {
+        throw new ExecutorException("Column '" + column + "' was not read when mapping the first row of the result set.");
+      }
+      return rows.get(rowIndex)[index];
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] params) throws Throwable {
+      String name = method.getName();
+      switch (name) {
+        case "next":
+          if (rowIndex < rows.size()) {
+            rowIndex++;
+          }
+          return rowIndex < rows.size();
+        case "close":
+          closed = true;
+          return null;
+        case "isClosed":
+          return closed;
+        case "getType":
+          return ResultSet.TYPE_FORWARD_ONLY;
+        case "getConcurrency":
+          return ResultSet.CONCUR_READ_ONLY;
+        case "getMetaData":
+          return newMetaData();
+        case "findColumn":
+          return findColumn((String) params[0]);
+        case "getWarnings":
+        case "getStatement":
+          return null;
+        case "clearWarnings":
+          return null;
+        case "isWrapperFor":
+          return false;
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == params[0];
+        case "toString":
+          return "DetachedResultSet@" + Integer.toHexString(System.identityHashCode(proxy));
+        default:
+          // 字段值只能通过 READER 获取
+          throw new SQLFeatureNotSupportedException("Method '" + name + "' is not supported by a detached result set.");
+      }
+    }
+  }
+
+  private ResultSetMetaData newMetaData() {
+    ClassLoader cl = ResultSetMetaData.class.getClassLoader();
+    return (ResultSetMetaData) Proxy.newProxyInstance(cl, new Class[]{ResultSetMetaData.class}, (proxy, method, params) -> {
+      switch (method.getName()) {
+        case "getColumnCount":
+          return columnLabels.length;
+        case "getColumnLabel":
+          return columnLabels[(Integer) params[0] - 1];
+        case "getColumnName":
+          return columnNames[(Integer) params[0] - 1];
+        case "getColumnType":
+          return columnTypes[(Integer) params[0] - 1];
+        case "getColumnClassName":
+          return columnClassNames[(Integer) params[0] - 1];
+        case "hashCode":
+          return System.identityHashCode(proxy);
+        case "equals":
+          return proxy == params[0];
+        case "toString":
+          return "DetachedResultSetMetaData@" + Integer.toHexString(System.identityHashCode(proxy));
+        default:
+          throw new SQLFeatureNotSupportedException("Method '" + method.getName() + "' is not supported by a detached result set.");
+      }
+    });
+  }
+}
@@ -0,0 +1,84 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.resultset;
+
+import java.util.Arrays;
+
+/**
+ * 嵌套结果映射时，用于识别同一个结果对象的紧凑的行键，开启 compactNestedResultMapping 时代替 {@link org.apache.ibatis.cache.CacheKey} 。
+ *
+ * 只保存 ResultMap 的编号、字段前缀和按位置排列的 id 字段的值，不保存字段名；嵌套对象的键引用父对象的键，而不是复制它。
+ * hash 值在创建时计算一次。
+ */
+final class RowKey {
+
+  private final String resultMapId;
+  private final String columnPrefix;
+  private final Object[] values;
+  private final RowKey parent;
+  private final int hash;
+
+  RowKey(String resultMapId, String columnPrefix, Object[] values) {
+    this(resultMapId, columnPrefix, values, null);
+  }
+
+  private RowKey(String resultMapId, String columnPrefix, Object[] values, RowKey parent) {
+    this.resultMapId = resultMapId;
+    this.columnPrefix = columnPrefix;
+    this.values = values;
+    this.parent = parent;
+    int h = resultMapId.hashCode();
+    h = 31 * h + (columnPrefix == null ? 0 : columnPrefix.hashCode());
+    h = 31 * h + Arrays.deepHashCode(values);
+    h = 31 * h + (parent == null ? 0 : parent.hash);
+    // 打散低位，减少 HashMap 中的冲突
+    this.hash = h ^ (h >>> 16);
+  }
+
+  /**
+   * 返回父对象下的键
+   */
+  RowKey combine(RowKey parent) {
+    return new RowKey(resultMapId, columnPrefix, values, parent);
+  }
+
+  @Override
+  public int hashCode() {
+    return hash;
+  }
+
+  @Override
+  public boolean equals(Object object) {
+    if (this == object) {
+      return true;
+    }
+    if (!(object instanceof RowKey)) {
+      return false;
+    }
+    RowKey other = (RowKey) object;
+    return hash == other.hash
+        && resultMapId.equals(other.resultMapId)
+        && (columnPrefix == null ? other.columnPrefix == null : columnPrefix.equals(other.columnPrefix))
+        && Arrays.deepEquals(values, other.values)
+        && (parent == null ? other.parent == null : parent.equals(other.parent));
+  }
+
+  @Override
+  public String toString() {
+    return resultMapId + (columnPrefix == null ? "" : ":" + columnPrefix) + Arrays.deepToString(values)
+        + (parent == null ? "" : " < " + parent);
+  }
+}
@@ -65,7 +65,6 @@ public abstract class BaseStatementHandler implements StatementHandler {
     this.configuration = mappedStatement.getConfiguration();
     this.executor = executor;
     this.mappedStatement = mappedStatement;
-    this.rowBounds = rowBounds;
 
     // 获得 TypeHandlerRegistry 和 ObjectFactory 对象
     this.typeHandlerRegistry = configuration.getTypeHandlerRegistry();
@@ -80,11 +79,13 @@ public abstract class BaseStatementHandler implements StatementHandler {
     }
 
     this.boundSql = boundSql;
+    // SQL 中已经实现分页时，结果集不再跳过
+    this.rowBounds = boundSql.getAppliedRowBounds() != null ? RowBounds.DEFAULT : rowBounds;
 
     // <2> 创建 ParameterHandler 对象
     this.parameterHandler = configuration.newParameterHandler(mappedStatement, parameterObject, boundSql);
     // <3> 创建 ResultSetHandler 对象
-    this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, rowBounds, parameterHandler, resultHandler, boundSql);
+    this.resultSetHandler = configuration.newResultSetHandler(executor, mappedStatement, this.rowBounds, parameterHandler, resultHandler, boundSql);
   }
 
   @Override
@@ -104,6 +105,8 @@ public abstract class BaseStatementHandler implements StatementHandler {
     try {
       // <1> 创建 Statement 对象
       statement = instantiateStatement(connection);
+      // 异步执行时，注册 Statement 以便被取消
+      StatementCancellation.register(statement);
       // 设置超时时间
       setStatementTimeout(statement, transactionTimeout);
       // 设置 fetchSize
@@ -140,13 +143,20 @@ public abstract class BaseStatementHandler implements StatementHandler {
 
   protected void setFetchSize(Statement stmt) throws SQLException {
     Integer fetchSize = mappedStatement.getFetchSize();
+    if (fetchSize == null) {
+      fetchSize = configuration.getDefaultFetchSize();
+    }
+    // SQL 中已经实现分页时，最多读取一页，一次取回整页
+    RowBounds appliedRowBounds = boundSql.getAppliedRowBounds();
+    if (appliedRowBounds != null && appliedRowBounds.getLimit() != RowBounds.NO_ROW_LIMIT) {
+      int limit = appliedRowBounds.getLimit();
+      stmt.setMaxRows(limit);
+      if (fetchSize == null || fetchSize > limit) {
+        fetchSize = limit;
+      }
+    }
     if (fetchSize != null) {
       stmt.setFetchSize(fetchSize);
-      return;
-    }
-    Integer defaultFetchSize = configuration.getDefaultFetchSize();
-    if (defaultFetchSize != null) {
-      stmt.setFetchSize(defaultFetchSize);
     }
   }
 
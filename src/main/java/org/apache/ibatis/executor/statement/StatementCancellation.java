@@ -0,0 +1,90 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor.statement;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可以从其它线程取消的 Statement 集合。
+ *
+ * 在 {@link #bind()} 和 {@link #unbind()} 之间，当前线程创建的 Statement 都会注册到这里，
+ * 调用 {@link #cancel()} 时通过 {@link Statement#cancel()} 取消正在执行的 Statement ，之后创建 Statement 时直接抛出异常。
+ */
+public class StatementCancellation {
+
+  private static final ThreadLocal<StatementCancellation> CURRENT = new ThreadLocal<>();
+
+  private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+  private volatile boolean cancelled;
+
+  /**
+   * 绑定到当前线程
+   */
+  public void bind() {
+    CURRENT.set(this);
+  }
+
+  /**
+   * 从当前线程解绑
+   */
+  public void unbind() {
+    CURRENT.remove();
+    statements.clear();
+  }
+
+  public boolean isCancelled() {
+    return cancelled;
+  }
+
+  /**
+   * 取消已经注册的 Statement
+   */
+  public void cancel() {
+    cancelled = true;
+    for (Statement statement : statements) {
+      cancel(statement);
+    }
+  }
+
+  /**
+   * 注册当前线程创建的 Statement
+   */
+  static void register(Statement statement) throws SQLException {
+    StatementCancellation cancellation = CURRENT.get();
+    if (cancellation == null) {
+      return;
+    }
+    if (cancellation.cancelled) {
+      throw new SQLException("The statement was cancelled.");
+    }
+    cancellation.statements.add(statement);
+    // 注册时可能正好被取消
+    if (cancellation.cancelled) {
+      cancel(statement);
+    }
+  }
+
+  private static void cancel(Statement statement) {
+    try {
+      statement.cancel();
+    } catch (SQLException e) {
+      // ignore
+    }
+  }
+}
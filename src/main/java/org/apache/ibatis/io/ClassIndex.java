@@ -0,0 +1,184 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+
+/**
+ * 构建时生成的类索引，{@link ResolverUtil} 扫描包时优先使用，避免在启动时遍历 jar 包和目录。
+ *
+ * 索引文件位于 classpath 的 {@link #INDEX_LOCATION} ，每行一个类的全限定名，<code>#</code> 开头的行为注释，
+ * <code>package </code> 开头的行声明建立索引时扫描的包。
+ * 只有扫描的包是声明的包（或者它的子包）时，才只使用索引中的类；否则索引中的类和通过 {@link VFS} 扫描的类合并使用，
+ * 不会丢失其它 jar 包中或者生成索引后添加的类。索引文件可以在构建时通过 {@link #main(String[])} 生成。
+ */
+public final class ClassIndex {
+
+  private static final Log log = LogFactory.getLog(ClassIndex.class);
+
+  /**
+   * 索引文件的位置
+   */
+  public static final String INDEX_LOCATION = "META-INF/mybatis.index";
+
+  /**
+   * 声明包的行的前缀
+   */
+  private static final String PACKAGE_PREFIX = "package ";
+
+  private static final ClassIndex EMPTY = new ClassIndex(new TreeSet<>(), new TreeSet<>());
+
+  /**
+   * 每个 ClassLoader 对应的索引
+   */
+  private static final Map<ClassLoader, ClassIndex> indexes = new WeakHashMap<>();
+
+  /**
+   * 类的资源路径，例如 org/apache/ibatis/io/ClassIndex.class
+   */
+  private final TreeSet<String> classes;
+  /**
+   * 建立索引时扫描的包的路径，例如 org/apache/ibatis/io
+   */
+  private final Set<String> packages;
+
+  private ClassIndex(TreeSet<String> classes, Set<String> packages) {
+    this.classes = classes;
+    this.packages = packages;
+  }
+
+  /**
+   * 获得 ClassLoader 可见的所有索引文件合并后的索引
+   */
+  public static ClassIndex getInstance(ClassLoader classLoader) {
+    synchronized (indexes) {
+      return indexes.computeIfAbsent(classLoader, ClassIndex::load);
+    }
+  }
+
+  private static ClassIndex load(ClassLoader classLoader) {
+    TreeSet<String> classes = new TreeSet<>();
+    Set<String> packages = new TreeSet<>();
+    try {
+      Enumeration<URL> urls = classLoader.getResources(INDEX_LOCATION);
+      while (urls.hasMoreElements()) {
+        URL url = urls.nextElement();
+        if (log.isDebugEnabled()) {
+          log.debug("Reading class index " + url);
+        }
+        try (InputStream inputStream = url.openStream()) {
+          BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+          for (String line; (line = reader.readLine()) != null; ) {
+            line = line.trim();
+            if (line.startsWith(PACKAGE_PREFIX)) {
+              packages.add(line.substring(PACKAGE_PREFIX.length()).trim().replace('.', '/'));
+            } else if (!line.isEmpty() && !line.startsWith("#")) {
+              classes.add(line.replace('.', '/') + ".class");
+            }
+          }
+        }
+      }
+    } catch (IOException e) {
+      log.warn("Could not read class index " + INDEX_LOCATION + ", falling back to classpath scanning. Cause: " + e);
+      return EMPTY;
+    }
+    return classes.isEmpty() ? EMPTY : new ClassIndex(classes, packages);
+  }
+
+  /**
+   * 判断索引是否完整包含指定路径下的类，即路径是建立索引时扫描的包或者它的子包
+   *
+   * @param path 包的路径，例如 org/apache/ibatis/io
+   */
+  public boolean covers(String path) {
+    String packagePath = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+    for (String indexed : packages) {
+      if (packagePath.equals(indexed) || packagePath.startsWith(indexed + "/")) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * 获得指定路径下（包括子路径）的类，格式和 {@link VFS#list(String)} 一致。索引中没有该路径下的类时返回 null
+   *
+   * @param path 包的路径，例如 org/apache/ibatis/io
+   */
+  public List<String> list(String path) {
+    String prefix = path.endsWith("/") ? path : path + "/";
+    List<String> names = new ArrayList<>(classes.subSet(prefix, prefix + Character.MAX_VALUE));
+    return names.isEmpty() ? null : names;
+  }
+
+  /**
+   * 扫描指定的包，生成索引文件
+   *
+   * @param args 索引文件的输出路径，以及需要建立索引的包名
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      throw new IllegalArgumentException("Usage: ClassIndex <output file> <package>...");
+    }
+    Set<String> packageNames = new TreeSet<>();
+    Set<String> classNames = new TreeSet<>();
+    for (int i = 1; i < args.length; i++) {
+      packageNames.add(args[i]);
+      for (String child : VFS.getInstance().list(args[i].replace('.', '/'))) {
+        if (child.endsWith(".class")) {
+          classNames.add(child.substring(0, child.length() - ".class".length()).replace('/', '.'));
+        }
+      }
+    }
+    try (OutputStream out = Files.newOutputStream(Paths.get(args[0]))) {
+      write(out, packageNames, classNames);
+    }
+  }
+
+  static void write(OutputStream outputStream, Set<String> packageNames, Set<String> classNames) throws IOException {
+    Writer writer = new OutputStreamWriter(outputStream, StandardCharsets.UTF_8);
+    writer.write("# Generated by " + ClassIndex.class.getName() + "\n");
+    for (String packageName : packageNames) {
+      writer.write(PACKAGE_PREFIX + packageName + "\n");
+    }
+    for (String className : classNames) {
+      writer.write(className);
+      writer.write('\n');
+    }
+    writer.flush();
+  }
+
+}
@@ -17,7 +17,9 @@ package org.apache.ibatis.io;
 
 import java.io.IOException;
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -62,6 +64,11 @@ public class ResolverUtil<T> {
    */
   private static final Log log = LogFactory.getLog(ResolverUtil.class);
 
+  /**
+   * 扫描到的类的数量达到该值时，并行加载类
+   */
+  private static final int PARALLEL_LOADING_THRESHOLD = 64;
+
   /**
    * 匹配判断接口
    * A simple interface that specifies how to test classes to determine if they
@@ -229,14 +236,30 @@ public class ResolverUtil<T> {
     String path = getPackagePath(packageName);
 
     try {
-      // 获得路径下的所有文件
-      List<String> children = VFS.getInstance().list(path);
+      // 获得路径下的所有文件，构建时生成的类索引包含该包时直接使用，否则扫描 classpath ，并合并索引中的类
+      ClassIndex index = ClassIndex.getInstance(getClassLoader());
+      List<String> children = index.list(path);
+      if (children == null || !index.covers(path)) {
+        Set<String> merged = new LinkedHashSet<>(VFS.getInstance().list(path));
+        if (children != null) {
+          merged.addAll(children);
+        }
+        children = new ArrayList<>(merged);
+      }
+      List<String> classes = new ArrayList<>();
       for (String child : children) {
         if (child.endsWith(".class")) {
-          // 结果匹配，添加到集合
-          addIfMatching(test, child);
+          classes.add(child);
         }
       }
+      // 类较多时，先并行加载
+      if (classes.size() >= PARALLEL_LOADING_THRESHOLD) {
+        preloadClasses(classes);
+      }
+      for (String child : classes) {
+        // 结果匹配，添加到集合
+        addIfMatching(test, child);
+      }
     } catch (IOException ioe) {
       log.error("Could not read package: " + packageName, ioe);
     }
@@ -244,6 +267,23 @@ public class ResolverUtil<T> {
     return this;
   }
 
+  /**
+   * 并行加载类。类加载是扫描中最耗时的部分，预先加载后 {@link #addIfMatching(Test, String)} 可以直接使用 ClassLoader 中已加载的类，
+   * 而 {@link Test} 依然在调用线程中顺序执行
+   *
+   * @param classes the resource paths of the classes to load
+   */
+  protected void preloadClasses(List<String> classes) {
+    ClassLoader loader = getClassLoader();
+    classes.parallelStream().forEach(fqn -> {
+      try {
+        loader.loadClass(fqn.substring(0, fqn.indexOf('.')).replace('/', '.'));
+      } catch (Throwable t) {
+        // 忽略，由 addIfMatching 记录日志
+      }
+    });
+  }
+
   /**
    * Converts a Java package name to a path that can be looked up with a call to
    * {@link ClassLoader#getResources(String)}.
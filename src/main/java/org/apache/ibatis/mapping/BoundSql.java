@@ -22,6 +22,7 @@ import java.util.Map;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.property.PropertyTokenizer;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.RowBounds;
 
 /**
  * An actual SQL String got from an {@link SqlSource} after having processed any dynamic content.
@@ -40,6 +41,10 @@ public class BoundSql {
   private final Object parameterObject;
   private final Map<String, Object> additionalParameters;
   private final MetaObject metaParameters;
+  /**
+   * 已经在 SQL 中实现的分页，结果集处理时不再跳过
+   */
+  private RowBounds appliedRowBounds;
 
   public BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject) {
     this.sql = sql;
@@ -49,6 +54,17 @@ public class BoundSql {
     this.metaParameters = configuration.newMetaObject(additionalParameters);
   }
 
+  /**
+   * 使用新的 SQL 和参数映射创建 BoundSql ，复制 original 的附加参数
+   */
+  BoundSql(Configuration configuration, String sql, List<ParameterMapping> parameterMappings, Object parameterObject, BoundSql original) {
+    this.sql = sql;
+    this.parameterMappings = parameterMappings;
+    this.parameterObject = parameterObject;
+    this.additionalParameters = new HashMap<>(original.additionalParameters);
+    this.metaParameters = configuration.newMetaObject(additionalParameters);
+  }
+
   public String getSql() {
     return sql;
   }
@@ -61,6 +77,17 @@ public class BoundSql {
     return parameterObject;
   }
 
+  /**
+   * Returns the row bounds that the SQL already applies, or {@code null} if the rows must be skipped while reading the results.
+   */
+  public RowBounds getAppliedRowBounds() {
+    return appliedRowBounds;
+  }
+
+  void setAppliedRowBounds(RowBounds appliedRowBounds) {
+    this.appliedRowBounds = appliedRowBounds;
+  }
+
   public boolean hasAdditionalParameter(String name) {
     String paramName = new PropertyTokenizer(name).getName();
     return additionalParameters.containsKey(paramName);
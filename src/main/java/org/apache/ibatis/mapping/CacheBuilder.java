@@ -24,13 +24,19 @@ import java.util.Properties;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.Weigher;
 import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.ClusteredCache;
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
 import org.apache.ibatis.cache.decorators.SerializedCache;
 import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.InvalidationBus;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.reflection.SystemMetaObject;
 
@@ -70,6 +76,22 @@ public class CacheBuilder {
    * 是否可阻塞
    */
   private boolean blocking;
+  /**
+   * 是否有语句声明了 cacheTags ，需要按标签清除
+   */
+  private boolean tagged;
+  /**
+   * 在节点之间传递失效事件的总线
+   */
+  private InvalidationBus invalidationBus;
+  /**
+   * 统计信息
+   */
+  private CacheStats stats;
+  /**
+   * 构建的缓存是否开启了提前刷新
+   */
+  private boolean refreshAhead;
 
   public CacheBuilder(String id) {
     this.id = id;
@@ -108,6 +130,21 @@ public class CacheBuilder {
     return this;
   }
 
+  public CacheBuilder tagged(boolean tagged) {
+    this.tagged = tagged;
+    return this;
+  }
+
+  public CacheBuilder invalidationBus(InvalidationBus invalidationBus) {
+    this.invalidationBus = invalidationBus;
+    return this;
+  }
+
+  public CacheBuilder stats(CacheStats stats) {
+    this.stats = stats;
+    return this;
+  }
+
   public CacheBuilder properties(Properties properties) {
     this.properties = properties;
     return this;
@@ -116,6 +153,9 @@ public class CacheBuilder {
   public Cache build() {
     // 如果 implemention和 decorators 集合为空，则其设置默认值，implemention默认值为 Prepentual.class decorators的默认值为 LruCache.class
     setDefaultImplementations();
+    if (stats == null) {
+      stats = new CacheStats(id);
+    }
     // 根据 implemention 执行的类型，反射回去构造方法，通过该构造方法创建cache对象
     Cache cache = newBaseCacheInstance(implementation, id);
     // 根据 <cache>下的配置，初始化cache
@@ -132,11 +172,20 @@ public class CacheBuilder {
       cache = setStandardDecorators(cache);
     } else if (!LoggingCache.class.isAssignableFrom(cache.getClass())) {
       // 如果不是LoggingCache的子类，则添加loggingcache装饰器
-      cache = new LoggingCache(cache);
+      cache = new LoggingCache(cache, stats);
     }
+    stats.setCache(cache);
     return cache;
   }
 
+  /**
+   * 在 {@link #build()} 之后调用，返回构建的缓存是否开启了 {@link ScheduledCache} 的提前刷新。
+   * 只有开启时，查询才需要在 {@link org.apache.ibatis.cache.CacheKey} 上设置重新加载的任务
+   */
+  public boolean isRefreshAhead() {
+    return refreshAhead;
+  }
+
   private void setDefaultImplementations() {
     if (implementation == null) {
       implementation = PerpetualCache.class;
@@ -153,22 +202,37 @@ public class CacheBuilder {
       if (size != null && metaCache.hasSetter("size")) {
         metaCache.setValue("size", size);
       }
+      // 淘汰装饰器记录淘汰次数
+      if (metaCache.hasSetter("cacheStats")) {
+        metaCache.setValue("cacheStats", stats);
+      }
       // 包装成 ScheduledCache 对象
-      if (clearInterval != null) {
+      // 设置了 timeToLive 属性时，也包装成 ScheduledCache 对象，并设置属性
+      if (clearInterval != null || properties != null && properties.containsKey("timeToLive")) {
         cache = new ScheduledCache(cache);
-        ((ScheduledCache) cache).setClearInterval(clearInterval);
+        ((ScheduledCache) cache).setClearInterval(clearInterval != null ? clearInterval : 0);
+        ((ScheduledCache) cache).setCacheStats(stats);
+        setCacheProperties(cache);
+        refreshAhead = ((ScheduledCache) cache).isRefreshAhead();
       }
       // 包装成 SerializedCache 对象
       if (readWrite) {
         cache = new SerializedCache(cache);
       }
       // 包装成 LoggingCache 对象
-      cache = new LoggingCache(cache);
+      cache = new LoggingCache(cache, stats);
       // 包装成 SynchronizedCache 对象
       cache = new SynchronizedCache(cache);
       // 包装成 BlockingCache 对象
       if (blocking) {
         cache = new BlockingCache(cache);
+        ((BlockingCache) cache).setCacheStats(stats);
+      }
+      // 集群中包装成 ClusteredCache 对象，有语句声明了 cacheTags 时包装成 TaggedCache 对象
+      if (invalidationBus != null) {
+        cache = new ClusteredCache(cache, invalidationBus);
+      } else if (tagged) {
+        cache = new TaggedCache(cache);
       }
       return cache;
     } catch (Exception e) {
@@ -212,6 +276,9 @@ public class CacheBuilder {
           } else if (double.class == type
               || Double.class == type) {
             metaCache.setValue(name, Double.valueOf(value));
+          } else if (Weigher.class == type) {
+            // 通过类名创建 Weigher 对象
+            metaCache.setValue(name, newWeigherInstance(value));
           } else {
             throw new CacheException("Unsupported property type for cache: '" + name + "' of type " + type);
           }
@@ -229,6 +296,14 @@ public class CacheBuilder {
     }
   }
 
+  private Weigher newWeigherInstance(String className) {
+    try {
+      return (Weigher) Resources.classForName(className).getDeclaredConstructor().newInstance();
+    } catch (Exception e) {
+      throw new CacheException("Could not instantiate weigher (" + className + "). Cause: " + e, e);
+    }
+  }
+
   private Cache newBaseCacheInstance(Class<? extends Cache> cacheClass, String id) {
     Constructor<? extends Cache> cacheConstructor = getBaseCacheConstructor(cacheClass);
     try {
@@ -36,8 +36,16 @@ public final class Environment {
    * DataSource 对象
    */
   private final DataSource dataSource;
+  /**
+   * 只读会话使用的 DataSource 对象，例如只读副本，可以为空
+   */
+  private final DataSource readOnlyDataSource;
 
   public Environment(String id, TransactionFactory transactionFactory, DataSource dataSource) {
+    this(id, transactionFactory, dataSource, null);
+  }
+
+  public Environment(String id, TransactionFactory transactionFactory, DataSource dataSource, DataSource readOnlyDataSource) {
     if (id == null) {
       throw new IllegalArgumentException("Parameter 'id' must not be null");
     }
@@ -50,6 +58,7 @@ public final class Environment {
     }
     this.transactionFactory = transactionFactory;
     this.dataSource = dataSource;
+    this.readOnlyDataSource = readOnlyDataSource;
   }
 
   /**
@@ -59,6 +68,7 @@ public final class Environment {
     private String id;
     private TransactionFactory transactionFactory;
     private DataSource dataSource;
+    private DataSource readOnlyDataSource;
 
     public Builder(String id) {
       this.id = id;
@@ -74,12 +84,17 @@ public final class Environment {
       return this;
     }
 
+    public Builder readOnlyDataSource(DataSource readOnlyDataSource) {
+      this.readOnlyDataSource = readOnlyDataSource;
+      return this;
+    }
+
     public String id() {
       return this.id;
     }
 
     public Environment build() {
-      return new Environment(this.id, this.transactionFactory, this.dataSource);
+      return new Environment(this.id, this.transactionFactory, this.dataSource, this.readOnlyDataSource);
     }
 
   }
@@ -96,4 +111,11 @@ public final class Environment {
     return this.dataSource;
   }
 
+  /**
+   * @return the data source of read-only sessions, or {@code null} when they use {@link #getDataSource()}
+   */
+  public DataSource getReadOnlyDataSource() {
+    return this.readOnlyDataSource;
+  }
+
 }
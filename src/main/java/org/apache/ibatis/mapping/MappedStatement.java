@@ -16,10 +16,16 @@
 package org.apache.ibatis.mapping;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.ibatis.cache.Cache;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.keygen.Jdbc3KeyGenerator;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
 import org.apache.ibatis.executor.keygen.NoKeyGenerator;
@@ -27,6 +33,8 @@ import org.apache.ibatis.logging.Log;
 import org.apache.ibatis.logging.LogFactory;
 import org.apache.ibatis.scripting.LanguageDriver;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetBounds;
+import org.apache.ibatis.session.RowBounds;
 
 /**
  * 映射的语句，每个 <select />、<insert />、<update />、<delete /> 对应一个 MappedStatement 对象
@@ -35,6 +43,10 @@ import org.apache.ibatis.session.Configuration;
  */
 public final class MappedStatement {
 
+  private static final String KEYSET_PARAMETER_PREFIX = "__keyset_";
+  private static final String PAGE_PARAMETER_PREFIX = "__page_";
+  private static final Dialect DEFAULT_KEYSET_DIALECT = new LimitOffsetDialect();
+
   /**
    * 节点中的id属性
    */
@@ -70,6 +82,20 @@ public final class MappedStatement {
   private Log statementLog;
   private LanguageDriver lang;
   private String[] resultSets;
+  /**
+   * 基于键分页时的排序字段
+   */
+  private String[] keysetColumns;
+  /**
+   * 基于键分页时，排序字段在结果对象中对应的属性
+   */
+  private String[] keysetProperties;
+  /**
+   * 二级缓存的标签，一般为表名
+   *
+   * select 为读取的表，insert、update、delete 为修改的表，修改时只清除标签相同的缓存
+   */
+  private Set<String> cacheTags = Collections.emptySet();
 
   MappedStatement() {
     // constructor disabled
@@ -189,6 +215,23 @@ public final class MappedStatement {
       return this;
     }
 
+    public Builder keysetColumn(String keysetColumn) {
+      mappedStatement.keysetColumns = trim(delimitedStringToArray(keysetColumn));
+      return this;
+    }
+
+    public Builder keysetProperty(String keysetProperty) {
+      mappedStatement.keysetProperties = trim(delimitedStringToArray(keysetProperty));
+      return this;
+    }
+
+    public Builder cacheTags(String cacheTags) {
+      String[] tags = trim(delimitedStringToArray(cacheTags));
+      mappedStatement.cacheTags = tags == null ? Collections.emptySet()
+          : Collections.unmodifiableSet(new LinkedHashSet<>(Arrays.asList(tags)));
+      return this;
+    }
+
     /**
      * @deprecated Use {@link #resultSets}
      */
@@ -300,6 +343,24 @@ public final class MappedStatement {
     return resultSets;
   }
 
+  public String[] getKeysetColumns() {
+    return keysetColumns;
+  }
+
+  /**
+   * 未声明 keysetProperty 时，使用 keysetColumn 作为属性名
+   */
+  public String[] getKeysetProperties() {
+    return keysetProperties == null ? keysetColumns : keysetProperties;
+  }
+
+  /**
+   * 未声明时返回空集合。没有标签的写操作清空整个二级缓存，没有标签的查询结果在任何写操作后失效
+   */
+  public Set<String> getCacheTags() {
+    return cacheTags;
+  }
+
   /**
    * @deprecated Use {@link #getResultSets()}
    */
@@ -336,6 +397,104 @@ public final class MappedStatement {
     return boundSql;
   }
 
+  /**
+   * 获得 boundsql对象，使用 {@link KeysetBounds} 时添加基于键分页的条件，开启 physicalPagination 时由数据库处理 RowBounds
+   * @param parameterObject
+   * @param rowBounds
+   * @return
+   */
+  public BoundSql getBoundSql(Object parameterObject, RowBounds rowBounds) {
+    BoundSql boundSql = getBoundSql(parameterObject);
+    if (rowBounds instanceof KeysetBounds) {
+      boundSql = applyKeysetBounds(boundSql, (KeysetBounds) rowBounds);
+    } else if (configuration.isPhysicalPagination() && isPaginated(rowBounds) && canApplyRowBounds()) {
+      Dialect dialect = configuration.getDialect();
+      if (dialect != null) {
+        boundSql = applyRowBounds(boundSql, rowBounds, dialect);
+      }
+    }
+    return boundSql;
+  }
+
+  private static boolean isPaginated(RowBounds rowBounds) {
+    return rowBounds != null
+        && (rowBounds.getOffset() != RowBounds.NO_ROW_OFFSET || rowBounds.getLimit() != RowBounds.NO_ROW_LIMIT);
+  }
+
+  /**
+   * 嵌套结果映射时一个结果对象对应多行，存储过程和多结果集也无法改写，这些情况仍然在客户端跳过
+   */
+  private boolean canApplyRowBounds() {
+    return sqlCommandType == SqlCommandType.SELECT && statementType != StatementType.CALLABLE
+        && resultSets == null && !hasNestedResultMaps;
+  }
+
+  /**
+   * 将原 SQL 作为子查询，添加 `WHERE (k) > (?) ORDER BY k` ，再通过方言限制行数。键作为附加参数传入
+   */
+  private BoundSql applyKeysetBounds(BoundSql boundSql, KeysetBounds bounds) {
+    if (keysetColumns == null) {
+      throw new ExecutorException("Mapped Statement '" + id + "' does not declare a keysetColumn required by KeysetBounds.");
+    }
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    Object[] key = new Object[0];
+    StringBuilder sql = new StringBuilder("SELECT * FROM (").append(boundSql.getSql()).append(") keyset_");
+    if (bounds.getKey() != null) {
+      key = keysetColumns.length == 1 ? new Object[] {bounds.getKey()} : (Object[]) bounds.getKey();
+      if (key.length != keysetColumns.length) {
+        throw new ExecutorException("Mapped Statement '" + id + "' declares " + keysetColumns.length
+            + " keyset columns but the key has " + key.length + " values.");
+      }
+      // 复合键 (a, b) > (?, ?) 展开为 a > ? OR (a = ? AND b > ?) ，兼容不支持行值比较的数据库
+      sql.append(" WHERE ");
+      for (int i = 0; i < key.length; i++) {
+        sql.append(i == 0 ? "(" : " OR (");
+        for (int j = 0; j <= i; j++) {
+          sql.append(j == 0 ? "" : " AND ").append(keysetColumns[j]).append(j == i ? " > ?" : " = ?");
+          Class<?> javaType = key[j] == null ? Object.class : key[j].getClass();
+          parameterMappings.add(new ParameterMapping.Builder(configuration, KEYSET_PARAMETER_PREFIX + j, javaType).build());
+        }
+        sql.append(")");
+      }
+    }
+    sql.append(" ORDER BY ").append(String.join(", ", keysetColumns));
+
+    BoundSql keysetBoundSql = new BoundSql(configuration, sql.toString(), parameterMappings, boundSql.getParameterObject(), boundSql);
+    for (int i = 0; i < key.length; i++) {
+      keysetBoundSql.setAdditionalParameter(KEYSET_PARAMETER_PREFIX + i, key[i]);
+    }
+    // 无法识别数据库时，使用最常见的 LIMIT 语法
+    Dialect dialect = configuration.getDialect();
+    return applyRowBounds(keysetBoundSql, bounds, dialect != null ? dialect : DEFAULT_KEYSET_DIALECT);
+  }
+
+  /**
+   * 通过方言改写 SQL ，分页参数作为附加参数传入
+   */
+  private BoundSql applyRowBounds(BoundSql boundSql, RowBounds rowBounds, Dialect dialect) {
+    List<Integer> pageParameters = new ArrayList<>();
+    String sql = dialect.getPageSql(boundSql.getSql(), rowBounds.getOffset(), rowBounds.getLimit(), pageParameters);
+    List<ParameterMapping> parameterMappings = new ArrayList<>(boundSql.getParameterMappings());
+    for (int i = 0; i < pageParameters.size(); i++) {
+      parameterMappings.add(new ParameterMapping.Builder(configuration, PAGE_PARAMETER_PREFIX + i, Integer.class).build());
+    }
+    BoundSql pageBoundSql = new BoundSql(configuration, sql, parameterMappings, boundSql.getParameterObject(), boundSql);
+    for (int i = 0; i < pageParameters.size(); i++) {
+      pageBoundSql.setAdditionalParameter(PAGE_PARAMETER_PREFIX + i, pageParameters.get(i));
+    }
+    pageBoundSql.setAppliedRowBounds(rowBounds);
+    return pageBoundSql;
+  }
+
+  private static String[] trim(String[] values) {
+    if (values != null) {
+      for (int i = 0; i < values.length; i++) {
+        values[i] = values[i].trim();
+      }
+    }
+    return values;
+  }
+
   private static String[] delimitedStringToArray(String in) {
     if (in == null || in.trim().length() == 0) {
       return null;
@@ -0,0 +1,121 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.parsing;
+
+import java.io.InputStream;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.apache.ibatis.builder.BuilderException;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.Text;
+
+/**
+ * 基于 StAX 的 DOM 构建器，用于受信任的 xml 文件。
+ *
+ * 和 {@link XPathParser} 使用的 DocumentBuilder 相比，不加载 DTD ，也不做 DTD 校验，
+ * 生成的 DOM 同样忽略注释、保留空白和 CDATA 节点，可以直接用于创建 {@link XPathParser} 。
+ */
+public final class StaxDocumentBuilder {
+
+  private static final XMLInputFactory inputFactory = newInputFactory();
+
+  private StaxDocumentBuilder() {
+    // Prevent Instantiation
+  }
+
+  public static Document parse(InputStream inputStream) {
+    XMLStreamReader reader = null;
+    try {
+      reader = inputFactory.createXMLStreamReader(inputStream);
+      Document document = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+      Node current = document;
+      while (reader.hasNext()) {
+        switch (reader.next()) {
+          case XMLStreamConstants.START_ELEMENT:
+            Element element = document.createElement(qualifiedName(reader.getPrefix(), reader.getLocalName()));
+            for (int i = 0; i < reader.getAttributeCount(); i++) {
+              element.setAttribute(qualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                  reader.getAttributeValue(i));
+            }
+            current.appendChild(element);
+            current = element;
+            break;
+          case XMLStreamConstants.END_ELEMENT:
+            current = current.getParentNode();
+            break;
+          case XMLStreamConstants.CHARACTERS:
+          case XMLStreamConstants.SPACE:
+            if (current != document) {
+              appendText(document, current, reader.getText());
+            }
+            break;
+          case XMLStreamConstants.CDATA:
+            current.appendChild(document.createCDATASection(reader.getText()));
+            break;
+          default:
+            // 注释、处理指令和 DTD 都忽略
+            break;
+        }
+      }
+      return document;
+    } catch (Exception e) {
+      throw new BuilderException("Error creating document instance.  Cause: " + e, e);
+    } finally {
+      if (reader != null) {
+        try {
+          reader.close();
+        } catch (XMLStreamException e) {
+          // ignore
+        }
+      }
+    }
+  }
+
+  /**
+   * StAX 可能将一段文本拆分为多个事件（例如遇到实体引用时），这里和 DocumentBuilder 一样合并为一个文本节点
+   */
+  private static void appendText(Document document, Node parent, String text) {
+    Node last = parent.getLastChild();
+    if (last != null && last.getNodeType() == Node.TEXT_NODE) {
+      ((Text) last).appendData(text);
+    } else {
+      parent.appendChild(document.createTextNode(text));
+    }
+  }
+
+  private static String qualifiedName(String prefix, String localName) {
+    return prefix == null || prefix.isEmpty() ? localName : prefix + ":" + localName;
+  }
+
+  private static XMLInputFactory newInputFactory() {
+    XMLInputFactory factory = XMLInputFactory.newInstance();
+    factory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, false);
+    factory.setProperty(XMLInputFactory.IS_COALESCING, false);
+    factory.setProperty(XMLInputFactory.IS_REPLACING_ENTITY_REFERENCES, true);
+    factory.setProperty(XMLInputFactory.IS_VALIDATING, false);
+    factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+    factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    return factory;
+  }
+
+}
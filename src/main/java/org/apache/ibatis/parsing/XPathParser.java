@@ -19,8 +19,10 @@ import java.io.InputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
+import java.util.regex.Pattern;
 
 import javax.xml.namespace.QName;
 import javax.xml.parsers.DocumentBuilder;
@@ -47,6 +49,11 @@ import org.xml.sax.SAXParseException;
  */
 public class XPathParser {
 
+  /**
+   * 可以不通过 XPath 求值的简单路径：元素名组成的路径，或者以 | 分隔的多个子元素名
+   */
+  private static final Pattern SIMPLE_PATH = Pattern.compile("/?[A-Za-z_][\\w\\-]*(/[A-Za-z_][\\w\\-]*)*|[A-Za-z_][\\w\\-]*(\\|[A-Za-z_][\\w\\-]*)+");
+
   /**
    * xml Document对象
    */
@@ -225,6 +232,14 @@ public class XPathParser {
 
   public List<XNode> evalNodes(Object root, String expression) {
     List<XNode> xnodes = new ArrayList<>();
+    // 简单的路径直接遍历子节点，不使用 XPath
+    List<Node> children = selectChildElements(root, expression);
+    if (children != null) {
+      for (Node child : children) {
+        xnodes.add(new XNode(this, child, variables));
+      }
+      return xnodes;
+    }
     NodeList nodes = (NodeList) evaluate(expression, root, XPathConstants.NODESET);
     for (int i = 0; i < nodes.getLength(); i++) {
       xnodes.add(new XNode(this, nodes.item(i), variables));
@@ -237,13 +252,49 @@ public class XPathParser {
   }
 
   public XNode evalNode(Object root, String expression) {
-    Node node = (Node) evaluate(expression, root, XPathConstants.NODE);
+    List<Node> children = selectChildElements(root, expression);
+    Node node = children != null
+        ? (children.isEmpty() ? null : children.get(0))
+        : (Node) evaluate(expression, root, XPathConstants.NODE);
     if (node == null) {
       return null;
     }
     return new XNode(this, node, variables);
   }
 
+  /**
+   * 按照简单的路径表达式获得子元素，例如 <code>/mapper</code> 、<code>/mapper/resultMap</code> 、<code>select|insert|update|delete</code> 。
+   * 结果和 XPath 一样按照文档顺序排列，表达式不是简单路径时返回 null
+   */
+  private static List<Node> selectChildElements(Object root, String expression) {
+    if (!(root instanceof Node) || !SIMPLE_PATH.matcher(expression).matches()) {
+      return null;
+    }
+    Node start = (Node) root;
+    String path = expression;
+    if (path.startsWith("/")) {
+      start = start.getNodeType() == Node.DOCUMENT_NODE ? start : start.getOwnerDocument();
+      path = path.substring(1);
+    }
+    List<Node> current = new ArrayList<>();
+    current.add(start);
+    for (String step : path.split("/")) {
+      List<String> names = Arrays.asList(step.split("\\|"));
+      List<Node> next = new ArrayList<>();
+      for (Node node : current) {
+        NodeList children = node.getChildNodes();
+        for (int i = 0; i < children.getLength(); i++) {
+          Node child = children.item(i);
+          if (child.getNodeType() == Node.ELEMENT_NODE && names.contains(child.getNodeName())) {
+            next.add(child);
+          }
+        }
+      }
+      current = next;
+    }
+    return current;
+  }
+
   /**
    * 获取 Boolean、Short、Integer、Long、Float、Double、String、Node 类型的元素或节点的“值”
    * @param expression 表达式
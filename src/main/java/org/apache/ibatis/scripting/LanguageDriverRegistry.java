@@ -15,15 +15,15 @@
  */
 package org.apache.ibatis.scripting;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * @author Frank D. Martinez [mnesarco]
  */
 public class LanguageDriverRegistry {
 
-  private final Map<Class<? extends LanguageDriver>, LanguageDriver> LANGUAGE_DRIVER_MAP = new HashMap<>();
+  private final Map<Class<? extends LanguageDriver>, LanguageDriver> LANGUAGE_DRIVER_MAP = new ConcurrentHashMap<>();
 
   private Class<? extends LanguageDriver> defaultDriverClass;
 
@@ -34,7 +34,7 @@ public class LanguageDriverRegistry {
     // 创建 cls 对应的对象，并添加到 LANGUAGE_DRIVER_MAP 中
     if (!LANGUAGE_DRIVER_MAP.containsKey(cls)) {
       try {
-        LANGUAGE_DRIVER_MAP.put(cls, cls.newInstance());
+        LANGUAGE_DRIVER_MAP.putIfAbsent(cls, cls.newInstance());
       } catch (Exception ex) {
         throw new ScriptingException("Failed to load language driver for " + cls.getName(), ex);
       }
@@ -47,9 +47,7 @@ public class LanguageDriverRegistry {
     }
     // 添加到 LANGUAGE_DRIVER_MAP 中
     Class<? extends LanguageDriver> cls = instance.getClass();
-    if (!LANGUAGE_DRIVER_MAP.containsKey(cls)) {
-      LANGUAGE_DRIVER_MAP.put(cls, instance);
-    }
+    LANGUAGE_DRIVER_MAP.putIfAbsent(cls, instance);
   }
 
   public LanguageDriver getDriver(Class<? extends LanguageDriver> cls) {
@@ -15,8 +15,10 @@
  */
 package org.apache.ibatis.session;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -25,6 +27,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 
 import org.apache.ibatis.binding.MapperRegistry;
@@ -39,12 +44,23 @@ import org.apache.ibatis.cache.decorators.LruCache;
 import org.apache.ibatis.cache.decorators.SoftCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.InvalidationBus;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.invalidation.SocketTransport;
+import org.apache.ibatis.cache.stats.CacheStatsRegistry;
 import org.apache.ibatis.datasource.jndi.JndiDataSourceFactory;
 import org.apache.ibatis.datasource.pooled.PooledDataSourceFactory;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSourceFactory;
+import org.apache.ibatis.dialect.Dialect;
+import org.apache.ibatis.dialect.Dialects;
+import org.apache.ibatis.dialect.FetchFirstDialect;
+import org.apache.ibatis.dialect.LimitOffsetDialect;
+import org.apache.ibatis.dialect.RowNumDialect;
+import org.apache.ibatis.executor.BaseExecutor;
 import org.apache.ibatis.executor.BatchExecutor;
 import org.apache.ibatis.executor.CachingExecutor;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.PipelineExecutor;
 import org.apache.ibatis.executor.ReuseExecutor;
 import org.apache.ibatis.executor.SimpleExecutor;
 import org.apache.ibatis.executor.keygen.KeyGenerator;
@@ -112,11 +128,63 @@ public class Configuration {
   protected boolean callSettersOnNulls;
   protected boolean useActualParamName = true;
   protected boolean returnInstanceForEmptyRow;
+  /**
+   * 是否并行解析 mapper xml 文件
+   */
+  protected boolean parallelMapperParsing;
+  /**
+   * 是否延迟构建 mapper xml 中声明的 MappedStatement
+   */
+  protected boolean lazyMappedStatements;
+  /**
+   * mapper xml 快照文件的 classpath 路径
+   */
+  protected String mapperSnapshot;
+  /**
+   * 是否使用 StAX 解析 mapper xml 文件，并且跳过 DTD 校验
+   */
+  protected boolean streamingMapperParsing;
+  /**
+   * 执行返回 CompletableFuture 的 mapper 方法的线程池，为空时使用 {@link #defaultAsyncExecutor()}
+   */
+  protected java.util.concurrent.Executor asyncExecutor;
+  /**
+   * 是否由数据库处理 RowBounds 分页
+   */
+  protected boolean physicalPagination;
+  /**
+   * 分页使用的数据库方言，为空时根据 databaseId 选择
+   */
+  protected Dialect dialect;
+  /**
+   * 是否在其它线程并行映射多个结果集
+   */
+  protected boolean parallelResultSetMapping;
+  /**
+   * 嵌套结果映射时是否使用紧凑的行键，并在结果按 id 字段排序时及时清理已完成的父对象
+   */
+  protected boolean compactNestedResultMapping;
+  /**
+   * 在节点之间传递二级缓存失效事件的总线，为空时不传递
+   */
+  protected InvalidationBus cacheInvalidationBus;
+  /**
+   * 二级缓存的统计信息
+   */
+  protected final CacheStatsRegistry cacheStatsRegistry = new CacheStatsRegistry();
 
   protected String logPrefix;
   protected Class<? extends Log> logImpl;
   protected Class<? extends VFS> vfsImpl;
   protected LocalCacheScope localCacheScope = LocalCacheScope.SESSION;
+  /**
+   * 一级缓存的数量上限，小于等于 0 时不限制
+   */
+  protected int localCacheSize;
+  /**
+   * 一级缓存的权重上限，小于等于 0 时不限制
+   */
+  protected long localCacheMaxWeight;
   protected JdbcType jdbcTypeForNull = JdbcType.OTHER;
   protected Set<String> lazyLoadTriggerMethods = new HashSet<>(Arrays.asList("equals", "clone", "hashCode", "toString"));
   protected Integer defaultStatementTimeout;
@@ -158,6 +226,10 @@ public class Configuration {
    * cache 缓存集合 key 为 namesapce
    */
   protected final Map<String, Cache> caches = new StrictMap<>("Caches collection");
+  /**
+   * 开启了提前刷新的二级缓存的编号
+   */
+  protected final Set<String> refreshAheadCaches = ConcurrentHashMap.newKeySet();
   protected final Map<String, ResultMap> resultMaps = new StrictMap<>("Result Maps collection");
   protected final Map<String, ParameterMap> parameterMaps = new StrictMap<>("Parameter Maps collection");
   protected final Map<String, KeyGenerator> keyGenerators = new StrictMap<>("Key Generators collection");
@@ -165,6 +237,14 @@ public class Configuration {
   protected final Set<String> loadedResources = new HashSet<>();
   protected final Map<String, XNode> sqlFragments = new StrictMap<>("XML fragments parsed from previous mappers");
 
+  /**
+   * 延迟构建的 statement 节点，key 为 statement 的完整 id ，第一次获取时才会构建为 MappedStatement
+   */
+  protected final Map<String, XMLStatementBuilder> lazyStatements = new ConcurrentHashMap<>();
+  /**
+   * 持有 lazyStatements 的锁正在构建的延迟 statement
+   */
+  private volatile String lazyStatementInProgress;
   protected final Collection<XMLStatementBuilder> incompleteStatements = new LinkedList<>();
   protected final Collection<CacheRefResolver> incompleteCacheRefs = new LinkedList<>();
   protected final Collection<ResultMapResolver> incompleteResultMaps = new LinkedList<>();
@@ -209,6 +289,13 @@ public class Configuration {
     typeAliasRegistry.registerAlias("STDOUT_LOGGING", StdOutImpl.class);
     typeAliasRegistry.registerAlias("NO_LOGGING", NoLoggingImpl.class);
 
+    typeAliasRegistry.registerAlias("LIMIT_OFFSET", LimitOffsetDialect.class);
+    typeAliasRegistry.registerAlias("FETCH_FIRST", FetchFirstDialect.class);
+    typeAliasRegistry.registerAlias("ROWNUM", RowNumDialect.class);
+
+    typeAliasRegistry.registerAlias("LOOPBACK", LoopbackTransport.class);
+    typeAliasRegistry.registerAlias("SOCKET", SocketTransport.class);
+
     typeAliasRegistry.registerAlias("CGLIB", CglibProxyFactory.class);
     typeAliasRegistry.registerAlias("JAVASSIST", JavassistProxyFactory.class);
 
@@ -271,6 +358,128 @@ public class Configuration {
     this.returnInstanceForEmptyRow = returnEmptyInstance;
   }
 
+  public boolean isParallelMapperParsing() {
+    return parallelMapperParsing;
+  }
+
+  public void setParallelMapperParsing(boolean parallelMapperParsing) {
+    this.parallelMapperParsing = parallelMapperParsing;
+  }
+
+  /**
+   * 开启或关闭 mappedStatements 、keyGenerators 等集合的并发访问。
+   * 并行解析 mapper 时，由 {@link org.apache.ibatis.builder.xml.XMLConfigBuilder} 在多个线程同时构建 statement 期间开启，结束后关闭，
+   * 其余时间仍然和串行解析一样不加锁读取
+   */
+  public void setConcurrentMapperRegistration(boolean concurrent) {
+    for (Map<String, ?> map : Arrays.asList(mappedStatements, caches, resultMaps, parameterMaps, keyGenerators, sqlFragments)) {
+      if (map instanceof StrictMap) {
+        ((StrictMap<?>) map).setConcurrent(concurrent);
+      }
+    }
+  }
+
+  public boolean isLazyMappedStatements() {
+    return lazyMappedStatements;
+  }
+
+  public void setLazyMappedStatements(boolean lazyMappedStatements) {
+    this.lazyMappedStatements = lazyMappedStatements;
+  }
+
+  public String getMapperSnapshot() {
+    return mapperSnapshot;
+  }
+
+  public void setMapperSnapshot(String mapperSnapshot) {
+    this.mapperSnapshot = mapperSnapshot;
+  }
+
+  public boolean isStreamingMapperParsing() {
+    return streamingMapperParsing;
+  }
+
+  public void setStreamingMapperParsing(boolean streamingMapperParsing) {
+    this.streamingMapperParsing = streamingMapperParsing;
+  }
+
+  public synchronized java.util.concurrent.Executor getAsyncExecutor() {
+    if (asyncExecutor == null) {
+      asyncExecutor = defaultAsyncExecutor();
+    }
+    return asyncExecutor;
+  }
+
+  public synchronized void setAsyncExecutor(java.util.concurrent.Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
+  public boolean isPhysicalPagination() {
+    return physicalPagination;
+  }
+
+  public void setPhysicalPagination(boolean physicalPagination) {
+    this.physicalPagination = physicalPagination;
+  }
+
+  public boolean isParallelResultSetMapping() {
+    return parallelResultSetMapping;
+  }
+
+  public void setParallelResultSetMapping(boolean parallelResultSetMapping) {
+    this.parallelResultSetMapping = parallelResultSetMapping;
+  }
+
+  public boolean isCompactNestedResultMapping() {
+    return compactNestedResultMapping;
+  }
+
+  public void setCompactNestedResultMapping(boolean compactNestedResultMapping) {
+    this.compactNestedResultMapping = compactNestedResultMapping;
+  }
+
+  /**
+   * 获得数据库方言。未设置时，根据 databaseId 选择内置的方言，无法识别时返回 null
+   */
+  public Dialect getDialect() {
+    return dialect != null ? dialect : Dialects.forDatabaseId(databaseId);
+  }
+
+  public void setDialect(Dialect dialect) {
+    this.dialect = dialect;
+  }
+
+  public InvalidationBus getCacheInvalidationBus() {
+    return cacheInvalidationBus;
+  }
+
+  /**
+   * 设置后创建的二级缓存，会把提交时的清除发布到其它节点
+   */
+  public void setCacheInvalidationBus(InvalidationBus cacheInvalidationBus) {
+    this.cacheInvalidationBus = cacheInvalidationBus;
+  }
+
+  public CacheStatsRegistry getCacheStatsRegistry() {
+    return cacheStatsRegistry;
+  }
+
+  /**
+   * 运行在 Java 21 及以上版本时，每个任务使用一个虚拟线程；否则使用守护线程组成的缓存线程池
+   */
+  private static java.util.concurrent.Executor defaultAsyncExecutor() {
+    try {
+      return (java.util.concurrent.Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      AtomicInteger threadNumber = new AtomicInteger();
+      return Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "mybatis-async-" + threadNumber.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
   public String getDatabaseId() {
     return databaseId;
   }
@@ -459,6 +668,22 @@ public class Configuration {
     this.localCacheScope = localCacheScope;
   }
 
+  public int getLocalCacheSize() {
+    return localCacheSize;
+  }
+
+  public void setLocalCacheSize(int localCacheSize) {
+    this.localCacheSize = localCacheSize;
+  }
+
+  public long getLocalCacheMaxWeight() {
+    return localCacheMaxWeight;
+  }
+
+  public void setLocalCacheMaxWeight(long localCacheMaxWeight) {
+    this.localCacheMaxWeight = localCacheMaxWeight;
+  }
+
   public JdbcType getJdbcTypeForNull() {
     return jdbcTypeForNull;
   }
@@ -599,19 +824,32 @@ public class Configuration {
    * @return
    */
   public Executor newExecutor(Transaction transaction, ExecutorType executorType) {
+    return newExecutor(transaction, executorType, false);
+  }
+
+  /**
+   * 创建 Executor 对象
+   *
+   * @param readOnly 是否只读。只读时连接设置为只读，不能执行修改，二级缓存未命中时直接写入缓存
+   */
+  public Executor newExecutor(Transaction transaction, ExecutorType executorType, boolean readOnly) {
     executorType = executorType == null ? defaultExecutorType : executorType;
     executorType = executorType == null ? ExecutorType.SIMPLE : executorType;
-    Executor executor;
+    BaseExecutor baseExecutor;
     if (ExecutorType.BATCH == executorType) {
-      executor = new BatchExecutor(this, transaction);
+      baseExecutor = new BatchExecutor(this, transaction);
+    } else if (ExecutorType.PIPELINE == executorType) {
+      baseExecutor = new PipelineExecutor(this, transaction);
     } else if (ExecutorType.REUSE == executorType) {
-      executor = new ReuseExecutor(this, transaction);
+      baseExecutor = new ReuseExecutor(this, transaction);
     } else {
-      executor = new SimpleExecutor(this, transaction);
+      baseExecutor = new SimpleExecutor(this, transaction);
     }
+    baseExecutor.setReadOnly(readOnly);
+    Executor executor = baseExecutor;
     // <3> 如果开启缓存，创建 CachingExecutor 对象，进行包装
     if (cacheEnabled) {
-      executor = new CachingExecutor(executor);
+      executor = new CachingExecutor(executor, cacheStatsRegistry, readOnly);
     }
     executor = (Executor) interceptorChain.pluginAll(executor);
     return executor;
@@ -641,6 +879,17 @@ public class Configuration {
     caches.put(cache.getId(), cache);
   }
 
+  public void addRefreshAheadCache(String cacheId) {
+    refreshAheadCaches.add(cacheId);
+  }
+
+  /**
+   * 二级缓存是否开启了提前刷新，开启时查询结果需要记录重新加载的任务
+   */
+  public boolean isRefreshAheadCache(String cacheId) {
+    return refreshAheadCaches.contains(cacheId);
+  }
+
   public Collection<String> getCacheNames() {
     return caches.keySet();
   }
@@ -703,19 +952,35 @@ public class Configuration {
   }
 
   public void addMappedStatement(MappedStatement ms) {
+    // 正在构建的延迟 statement 会在注册之后才从 lazyStatements 中移除
+    if (!ms.getId().equals(lazyStatementInProgress) && lazyStatements.containsKey(ms.getId())) {
+      throw new IllegalArgumentException("Mapped Statements collection already contains value for " + ms.getId());
+    }
     mappedStatements.put(ms.getId(), ms);
   }
 
   public Collection<String> getMappedStatementNames() {
     buildAllStatements();
+    buildLazyStatements();
     return mappedStatements.keySet();
   }
 
   public Collection<MappedStatement> getMappedStatements() {
     buildAllStatements();
+    buildLazyStatements();
     return mappedStatements.values();
   }
 
+  public Map<String, XMLStatementBuilder> getLazyStatements() {
+    return lazyStatements;
+  }
+
+  public void addLazyStatement(String id, XMLStatementBuilder lazyStatement) {
+    if (mappedStatements.containsKey(id) || lazyStatements.putIfAbsent(id, lazyStatement) != null) {
+      throw new IllegalArgumentException("Mapped Statements collection already contains value for " + id);
+    }
+  }
+
   public Collection<XMLStatementBuilder> getIncompleteStatements() {
     return incompleteStatements;
   }
@@ -756,6 +1021,7 @@ public class Configuration {
     // 这里校验所有的 MappedStatement 已经构造完毕
     if (validateIncompleteStatements) {
       buildAllStatements();
+      buildLazyStatement(id);
     }
     // 获得 MappedStatement
     return mappedStatements.get(id);
@@ -796,6 +1062,7 @@ public class Configuration {
   public boolean hasStatement(String statementName, boolean validateIncompleteStatements) {
     if (validateIncompleteStatements) {
       buildAllStatements();
+      buildLazyStatement(statementName);
     }
     return mappedStatements.containsKey(statementName);
   }
@@ -837,6 +1104,68 @@ public class Configuration {
     }
   }
 
+  /**
+   * 构建 id 对应的延迟 statement 。id 不包含 namespace 时，构建所有短名称相同的延迟 statement ，以便正确的识别歧义
+   */
+  protected void buildLazyStatement(String id) {
+    // 延迟 statement 在注册到 mappedStatements 之后才从 lazyStatements 中移除，所以这里不加锁的判断不会漏掉正在构建的 statement
+    if (id == null || lazyStatements.isEmpty()) {
+      return;
+    }
+    boolean qualified = id.indexOf('.') > 0;
+    if (qualified && mappedStatements.containsKey(id)) {
+      return;
+    }
+    // DOM 并非线程安全，同一个 mapper 的节点也不能同时构建，因此使用同一把锁，保证每个 statement 只构建一次。
+    // 其它线程在构建完成前获取同一个 statement 时，会在这里等待
+    synchronized (lazyStatements) {
+      if (qualified) {
+        buildLockedLazyStatement(id);
+      } else {
+        String suffix = "." + id;
+        for (String lazyId : new ArrayList<>(lazyStatements.keySet())) {
+          if (lazyId.endsWith(suffix)) {
+            buildLockedLazyStatement(lazyId);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * 立即构建所有延迟 statement ，例如在测试中校验所有 mapper 。第一个构建失败的 statement 会抛出异常，并保留在 lazyStatements 中
+   */
+  public void buildLazyStatements() {
+    if (lazyStatements.isEmpty()) {
+      return;
+    }
+    synchronized (lazyStatements) {
+      for (String id : new ArrayList<>(lazyStatements.keySet())) {
+        buildLockedLazyStatement(id);
+      }
+    }
+  }
+
+  /**
+   * 构建延迟 statement ，调用时需要持有 lazyStatements 的锁。构建失败时保留在 lazyStatements 中，
+   * 构建成功后将节点从 mapper 文档中移除，不再占用内存
+   */
+  private void buildLockedLazyStatement(String id) {
+    XMLStatementBuilder lazyStatement = lazyStatements.get(id);
+    if (lazyStatement == null) {
+      return;
+    }
+    String previous = lazyStatementInProgress;
+    lazyStatementInProgress = id;
+    try {
+      lazyStatement.parseStatementNode();
+    } finally {
+      lazyStatementInProgress = previous;
+    }
+    lazyStatements.remove(id);
+    lazyStatement.detachStatementNode();
+  }
+
   private void parsePendingResultMaps() {
     if (incompleteResultMaps.isEmpty()) {
       return;
@@ -923,6 +1252,10 @@ public class Configuration {
     private static final long serialVersionUID = -4950446264854982944L;
     private final String name;
     private BiFunction<V, V, String> conflictMessageProducer;
+    /**
+     * 并行构建 statement 期间为 true ，此时会被多个线程同时读写，读操作也需要加锁
+     */
+    private transient volatile boolean concurrent;
 
     public StrictMap(String name, int initialCapacity, float loadFactor) {
       super(initialCapacity, loadFactor);
@@ -957,8 +1290,12 @@ public class Configuration {
       return this;
     }
 
+    void setConcurrent(boolean concurrent) {
+      this.concurrent = concurrent;
+    }
+
     @SuppressWarnings("unchecked")
-    public V put(String key, V value) {
+    public synchronized V put(String key, V value) {
       // 判断是否已经包含了该key,并直接返回
       if (containsKey(key)) {
         throw new IllegalArgumentException(name + " already contains value for " + key
@@ -978,8 +1315,24 @@ public class Configuration {
       return super.put(key, value);
     }
 
+    public boolean containsKey(Object key) {
+      if (concurrent) {
+        synchronized (this) {
+          return super.containsKey(key);
+        }
+      }
+      return super.containsKey(key);
+    }
+
     public V get(Object key) {
-      V value = super.get(key);
+      V value;
+      if (concurrent) {
+        synchronized (this) {
+          value = super.get(key);
+        }
+      } else {
+        value = super.get(key);
+      }
       if (value == null) {
         throw new IllegalArgumentException(name + " does not contain value for " + key);
       }
@@ -0,0 +1,94 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+/**
+ * 基于键的分页（keyset pagination）
+ *
+ * 和 {@link RowBounds} 在客户端跳过 offset 行不同，查询时会在 SQL 中添加 {@code WHERE (k) > (?) ORDER BY k LIMIT ?} ，
+ * 只读取一页的数据。排序键通过 statement 的 {@code keysetColumn} 和 {@code keysetProperty} 属性声明。
+ * <p>
+ * {@link SqlSession#selectList(String, Object, RowBounds)} 或 {@link SqlSession#select(String, Object, RowBounds, ResultHandler)} 返回后，
+ * 通过 {@link #getNextKey()} 获得下一页的起始键，或者直接通过 {@link #nextPage()} 获得下一页的 KeysetBounds 。
+ * 游标在读取完之前无法得知下一页的起始键，因此 {@link SqlSession#selectCursor(String, Object, RowBounds)} 和返回 Cursor 的 mapper 方法不支持 KeysetBounds 。
+ *
+ * @see org.apache.ibatis.mapping.MappedStatement#getKeysetColumns()
+ */
+public class KeysetBounds extends RowBounds {
+
+  /**
+   * 上一页最后一条记录的键，为 null 时查询第一页。复合键时为 Object[]
+   */
+  private final Object key;
+  /**
+   * 下一页的起始键，查询后设置
+   */
+  private Object nextKey;
+
+  /**
+   * Creates bounds for the first page.
+   *
+   * @param pageSize the maximum number of rows per page
+   */
+  public KeysetBounds(int pageSize) {
+    this(null, pageSize);
+  }
+
+  /**
+   * Creates bounds for the page that follows the given key.
+   *
+   * @param key the key of the last row of the previous page, an {@code Object[]} for a composite key,
+   *            or {@code null} for the first page
+   * @param pageSize the maximum number of rows per page
+   */
+  public KeysetBounds(Object key, int pageSize) {
+    super(NO_ROW_OFFSET, pageSize);
+    if (pageSize <= 0) {
+      throw new IllegalArgumentException("Page size must be positive but was " + pageSize);
+    }
+    this.key = key;
+  }
+
+  public Object getKey() {
+    return key;
+  }
+
+  public int getPageSize() {
+    return getLimit();
+  }
+
+  /**
+   * Returns the key to pass to the next page, or {@code null} when the fetched page was the last one.
+   */
+  public Object getNextKey() {
+    return nextKey;
+  }
+
+  /**
+   * Called by the session after a page is fetched.
+   */
+  public void setNextKey(Object nextKey) {
+    this.nextKey = nextKey;
+  }
+
+  /**
+   * Returns the bounds of the next page, or {@code null} when the fetched page was the last one.
+   */
+  public KeysetBounds nextPage() {
+    return nextKey == null ? null : new KeysetBounds(nextKey, getLimit());
+  }
+
+}
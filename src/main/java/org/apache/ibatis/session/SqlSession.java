@@ -19,8 +19,11 @@ import java.io.Closeable;
 import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.defaults.DefaultCursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 
 /**
@@ -145,6 +148,43 @@ public interface SqlSession extends Closeable {
    */
   <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds);
 
+  /**
+   * A CursorPublisher pushes the same results as a Cursor to a subscriber, fetching rows only as they are requested.
+   * The query is executed when the subscriber first requests items.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement) {
+    return selectPublisher(statement, null);
+  }
+
+  /**
+   * A CursorPublisher pushes the same results as a Cursor to a subscriber, fetching rows only as they are requested.
+   * The query is executed when the subscriber first requests items.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return selectPublisher(statement, parameter, RowBounds.DEFAULT);
+  }
+
+  /**
+   * A CursorPublisher pushes the same results as a Cursor to a subscriber, fetching rows only as they are requested.
+   * The query is executed when the subscriber first requests items.
+   * The default implementation publishes the results of {@link #selectCursor(String, Object, RowBounds)}.
+   * @param <T> the returned publisher element type.
+   * @param statement Unique identifier matching the statement to use.
+   * @param parameter A parameter object to pass to the statement.
+   * @param rowBounds  Bounds to limit object retrieval
+   * @return CursorPublisher of mapped objects
+   */
+  default <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    return new DefaultCursorPublisher<>(() -> this.<T>selectCursor(statement, parameter, rowBounds), 0);
+  }
+
   /**
    * Retrieve a single row mapped from the statement key and parameter
    * using a {@code ResultHandler}.
@@ -203,6 +243,30 @@ public interface SqlSession extends Closeable {
    */
   int update(String statement, Object parameter);
 
+  /**
+   * Queues an insert, update or delete statement and returns its number of affected rows once it is executed.
+   * With {@link ExecutorType#PIPELINE}, the statement is added to a pending batch that is sent before the next query,
+   * on {@link #flushStatements()} or on {@link #commit()}; the future completes at that point, or completes exceptionally
+   * if the batch fails or is discarded by a rollback. With other executor types, the statement is executed immediately.
+   * @param statement Unique identifier matching the statement to execute.
+   * @return a future completed with the number of rows affected.
+   */
+  default CompletableFuture<Integer> updatePipelined(String statement) {
+    return updatePipelined(statement, null);
+  }
+
+  /**
+   * Queues an insert, update or delete statement and returns its number of affected rows once it is executed.
+   * The default implementation executes the statement immediately with {@link #update(String, Object)}.
+   * @param statement Unique identifier matching the statement to execute.
+   * @param parameter A parameter object to pass to the statement.
+   * @return a future completed with the number of rows affected.
+   * @see #updatePipelined(String)
+   */
+  default CompletableFuture<Integer> updatePipelined(String statement, Object parameter) {
+    return CompletableFuture.completedFuture(update(statement, parameter));
+  }
+
   /**
    * Execute a delete statement. The number of rows affected will be returned.
    * @param statement Unique identifier matching the statement to execute.
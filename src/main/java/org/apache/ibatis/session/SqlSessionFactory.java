@@ -40,6 +40,31 @@ public interface SqlSessionFactory {
 
   SqlSession openSession(ExecutorType execType, Connection connection);
 
+  /**
+   * Opens a read-only session with the default executor type. The connection is set read-only and is
+   * acquired from the read-only data source of the environment when one is configured. Updates are rejected.
+   * When no read-only data source is configured, results loaded on a 2nd level cache miss are written to
+   * the cache immediately instead of on commit. Results read from the read-only data source, which may lag
+   * behind, are not written to the 2nd level cache.
+   *
+   * @return a read-only session
+   */
+  default SqlSession openReadOnlySession() {
+    return openReadOnlySession(getConfiguration().getDefaultExecutorType());
+  }
+
+  /**
+   * Opens a read-only session with the given executor type.
+   * The default implementation throws an {@link UnsupportedOperationException}.
+   *
+   * @param execType the executor type
+   * @return a read-only session
+   * @see #openReadOnlySession()
+   */
+  default SqlSession openReadOnlySession(ExecutorType execType) {
+    throw new UnsupportedOperationException("Read-only sessions are not supported by " + getClass().getName());
+  }
+
   Configuration getConfiguration();
 
 }
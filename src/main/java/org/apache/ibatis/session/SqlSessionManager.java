@@ -24,8 +24,10 @@ import java.sql.Connection;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.reflection.ExceptionUtil;
 
@@ -162,6 +164,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionFactory.openSession(execType, connection);
   }
 
+  @Override
+  public SqlSession openReadOnlySession() {
+    return sqlSessionFactory.openReadOnlySession();
+  }
+
+  @Override
+  public SqlSession openReadOnlySession(ExecutorType execType) {
+    return sqlSessionFactory.openReadOnlySession(execType);
+  }
+
   @Override
   public Configuration getConfiguration() {
     return sqlSessionFactory.getConfiguration();
@@ -207,6 +219,21 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.selectCursor(statement, parameter, rowBounds);
   }
 
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement) {
+    return sqlSessionProxy.selectPublisher(statement);
+  }
+
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter) {
+    return sqlSessionProxy.selectPublisher(statement, parameter);
+  }
+
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    return sqlSessionProxy.selectPublisher(statement, parameter, rowBounds);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return sqlSessionProxy.selectList(statement);
@@ -257,6 +284,16 @@ public class SqlSessionManager implements SqlSessionFactory, SqlSession {
     return sqlSessionProxy.update(statement, parameter);
   }
 
+  @Override
+  public CompletableFuture<Integer> updatePipelined(String statement) {
+    return sqlSessionProxy.updatePipelined(statement);
+  }
+
+  @Override
+  public CompletableFuture<Integer> updatePipelined(String statement, Object parameter) {
+    return sqlSessionProxy.updatePipelined(statement, parameter);
+  }
+
   @Override
   public int delete(String statement) {
     return sqlSessionProxy.delete(statement);
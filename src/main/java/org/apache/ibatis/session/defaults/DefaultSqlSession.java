@@ -23,21 +23,29 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 import org.apache.ibatis.binding.BindingException;
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.cursor.defaults.DefaultCursorPublisher;
 import org.apache.ibatis.exceptions.ExceptionFactory;
 import org.apache.ibatis.exceptions.TooManyResultsException;
 import org.apache.ibatis.executor.BatchResult;
 import org.apache.ibatis.executor.ErrorContext;
 import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.result.DefaultMapResultHandler;
 import org.apache.ibatis.executor.result.DefaultResultContext;
 import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.reflection.MetaObject;
 import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.KeysetBounds;
+import org.apache.ibatis.session.ResultContext;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
 
 /**
  * The default implementation for {@link SqlSession}.
@@ -59,6 +67,10 @@ public class DefaultSqlSession implements SqlSession {
    */
   private boolean dirty;
   private List<Cursor<?>> cursorList;
+  /**
+   * 打开当前会话的 SqlSessionFactory ，可能为 null
+   */
+  private SqlSessionFactory sqlSessionFactory;
 
   public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit) {
     this.configuration = configuration;
@@ -67,10 +79,22 @@ public class DefaultSqlSession implements SqlSession {
     this.autoCommit = autoCommit;
   }
 
+  public DefaultSqlSession(Configuration configuration, Executor executor, boolean autoCommit, SqlSessionFactory sqlSessionFactory) {
+    this(configuration, executor, autoCommit);
+    this.sqlSessionFactory = sqlSessionFactory;
+  }
+
   public DefaultSqlSession(Configuration configuration, Executor executor) {
     this(configuration, executor, false);
   }
 
+  /**
+   * @return the factory that opened this session, or {@code null} when the session was created directly
+   */
+  public SqlSessionFactory getSqlSessionFactory() {
+    return sqlSessionFactory;
+  }
+
   @Override
   public <T> T selectOne(String statement) {
     return this.<T>selectOne(statement, null);
@@ -126,6 +150,11 @@ public class DefaultSqlSession implements SqlSession {
   @Override
   public <T> Cursor<T> selectCursor(String statement, Object parameter, RowBounds rowBounds) {
     try {
+      // 游标在读取完之前无法得知下一页的起始键
+      if (rowBounds instanceof KeysetBounds) {
+        throw new ExecutorException("KeysetBounds is not supported by selectCursor because the next key is only known after "
+            + "the cursor is read. Use selectList or select with a ResultHandler instead.");
+      }
       MappedStatement ms = configuration.getMappedStatement(statement);
       Cursor<T> cursor = executor.queryCursor(ms, wrapCollection(parameter), rowBounds);
       registerCursor(cursor);
@@ -137,6 +166,15 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public <T> CursorPublisher<T> selectPublisher(String statement, Object parameter, RowBounds rowBounds) {
+    // 每次映射的行数和 fetchSize 保持一致
+    MappedStatement ms = configuration.getMappedStatement(statement);
+    Integer fetchSize = ms.getFetchSize() != null ? ms.getFetchSize() : configuration.getDefaultFetchSize();
+    int chunkSize = fetchSize != null && fetchSize > 0 ? fetchSize : 0;
+    return new DefaultCursorPublisher<>(() -> this.<T>selectCursor(statement, parameter, rowBounds), chunkSize);
+  }
+
   @Override
   public <E> List<E> selectList(String statement) {
     return this.selectList(statement, null);
@@ -153,7 +191,13 @@ public class DefaultSqlSession implements SqlSession {
       // 获得 MappedStatement
       MappedStatement ms = configuration.getMappedStatement(statement);
       // 执行查询
-      return executor.query(ms, wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
+      List<E> list = executor.query(ms, wrapCollection(parameter), rowBounds, Executor.NO_RESULT_HANDLER);
+      // 基于键分页时，记录下一页的起始键
+      if (rowBounds instanceof KeysetBounds) {
+        Object last = list.isEmpty() ? null : list.get(list.size() - 1);
+        ((KeysetBounds) rowBounds).setNextKey(nextKey(ms, (KeysetBounds) rowBounds, list.size(), last));
+      }
+      return list;
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
@@ -161,6 +205,27 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  /**
+   * 获得下一页的起始键，即本页最后一条记录的键。本页不满时说明已经是最后一页，返回 null
+   * @param count 本页的记录数
+   * @param last 本页最后一条记录
+   */
+  private Object nextKey(MappedStatement ms, KeysetBounds bounds, int count, Object last) {
+    if (count < bounds.getPageSize()) {
+      return null;
+    }
+    MetaObject metaObject = configuration.newMetaObject(last);
+    String[] properties = ms.getKeysetProperties();
+    if (properties.length == 1) {
+      return metaObject.getValue(properties[0]);
+    }
+    Object[] key = new Object[properties.length];
+    for (int i = 0; i < properties.length; i++) {
+      key[i] = metaObject.getValue(properties[i]);
+    }
+    return key;
+  }
+
   @Override
   public void select(String statement, Object parameter, ResultHandler handler) {
     select(statement, parameter, RowBounds.DEFAULT, handler);
@@ -175,7 +240,16 @@ public class DefaultSqlSession implements SqlSession {
   public void select(String statement, Object parameter, RowBounds rowBounds, ResultHandler handler) {
     try {
       MappedStatement ms = configuration.getMappedStatement(statement);
-      executor.query(ms, wrapCollection(parameter), rowBounds, handler);
+      if (rowBounds instanceof KeysetBounds) {
+        // 基于键分页时，记录交给 handler 的最后一条记录，查询后设置下一页的起始键
+        KeysetBounds bounds = (KeysetBounds) rowBounds;
+        KeysetResultHandler<?> keysetHandler = new KeysetResultHandler<>(handler);
+        executor.query(ms, wrapCollection(parameter), rowBounds, keysetHandler);
+        int count = keysetHandler.stopped ? bounds.getPageSize() : keysetHandler.count;
+        bounds.setNextKey(nextKey(ms, bounds, count, keysetHandler.last));
+      } else {
+        executor.query(ms, wrapCollection(parameter), rowBounds, handler);
+      }
     } catch (Exception e) {
       throw ExceptionFactory.wrapException("Error querying database.  Cause: " + e, e);
     } finally {
@@ -212,6 +286,19 @@ public class DefaultSqlSession implements SqlSession {
     }
   }
 
+  @Override
+  public CompletableFuture<Integer> updatePipelined(String statement, Object parameter) {
+    try {
+      dirty = true;
+      MappedStatement ms = configuration.getMappedStatement(statement);
+      return executor.updatePipelined(ms, wrapCollection(parameter));
+    } catch (Exception e) {
+      throw ExceptionFactory.wrapException("Error updating database.  Cause: " + e, e);
+    } finally {
+      ErrorContext.instance().reset();
+    }
+  }
+
   @Override
   public int delete(String statement) {
     return update(statement, null);
@@ -374,4 +461,28 @@ public class DefaultSqlSession implements SqlSession {
 
   }
 
+  /**
+   * 基于键分页时包装用户的 ResultHandler ，记录处理的记录数和最后一条记录。
+   * handler 提前停止时，下一页从最后处理的记录之后开始
+   */
+  private static class KeysetResultHandler<T> implements ResultHandler<T> {
+
+    private final ResultHandler<T> delegate;
+    private int count;
+    private Object last;
+    private boolean stopped;
+
+    KeysetResultHandler(ResultHandler<T> delegate) {
+      this.delegate = delegate;
+    }
+
+    @Override
+    public void handleResult(ResultContext<? extends T> context) {
+      delegate.handleResult(context);
+      count++;
+      last = context.getResultObject();
+      stopped = context.isStopped();
+    }
+  }
+
 }
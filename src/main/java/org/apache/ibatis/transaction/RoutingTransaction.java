@@ -0,0 +1,136 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.transaction;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import org.apache.ibatis.executor.keygen.SelectKeyGenerator;
+import org.apache.ibatis.logging.Log;
+import org.apache.ibatis.logging.LogFactory;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.StatementType;
+
+/**
+ * 读写分离的 Transaction ，用于自动提交的会话
+ *
+ * {@link #getConnection()} 总是返回主库的连接。Executor 执行查询时，对 {@link #isReplicaEligible(MappedStatement)}
+ * 的语句调用 {@link #getReadConnection()} 使用只读副本的连接，连接按语句选择，不会影响之后的语句。
+ * 存储过程和 selectKey 查询（需要和插入使用同一个连接）使用主库。获取副本的连接失败时，之后的查询都使用主库。
+ * 会话执行过写操作后，之后的查询也使用主库，保证能读到自己写入的数据。
+ *
+ * @see org.apache.ibatis.mapping.Environment#getReadOnlyDataSource()
+ */
+public class RoutingTransaction implements Transaction {
+
+  private static final Log log = LogFactory.getLog(RoutingTransaction.class);
+
+  private final Transaction primary;
+  private final Transaction replica;
+  /**
+   * 获取副本的连接是否失败
+   */
+  private boolean replicaFailed;
+  /**
+   * 会话是否执行过写操作
+   */
+  private boolean written;
+
+  public RoutingTransaction(Transaction primary, Transaction replica) {
+    this.primary = primary;
+    this.replica = replica;
+  }
+
+  /**
+   * 判断语句是否可以使用副本的连接执行
+   *
+   * @param ms the statement to execute
+   * @return true if the statement is a plain select
+   */
+  public static boolean isReplicaEligible(MappedStatement ms) {
+    return ms.getSqlCommandType() == SqlCommandType.SELECT
+        && ms.getStatementType() != StatementType.CALLABLE
+        && !ms.getId().endsWith(SelectKeyGenerator.SELECT_KEY_SUFFIX);
+  }
+
+  /**
+   * 记录会话执行过写操作，之后的查询使用主库
+   */
+  public void markWritten() {
+    written = true;
+  }
+
+  /**
+   * 判断语句的查询结果是否来自副本。副本的数据可能落后于主库
+   *
+   * @param ms the statement to execute
+   * @return true if the statement is read through {@link #getReadConnection()} from the replica
+   */
+  public boolean readsFromReplica(MappedStatement ms) {
+    return isReplicaEligible(ms) && !written && !replicaFailed;
+  }
+
+  /**
+   * 获得查询使用的连接。获取副本的连接失败时，或者会话执行过写操作后，返回主库的连接
+   */
+  public Connection getReadConnection() throws SQLException {
+    if (!written && !replicaFailed) {
+      try {
+        return replica.getConnection();
+      } catch (SQLException e) {
+        log.warn("Could not get a connection from the replica, using the primary instead.  Cause: " + e);
+        replicaFailed = true;
+      }
+    }
+    return primary.getConnection();
+  }
+
+  /**
+   * 获得主库的连接
+   */
+  @Override
+  public Connection getConnection() throws SQLException {
+    return primary.getConnection();
+  }
+
+  @Override
+  public void commit() throws SQLException {
+    primary.commit();
+    replica.commit();
+  }
+
+  @Override
+  public void rollback() throws SQLException {
+    primary.rollback();
+    replica.rollback();
+  }
+
+  @Override
+  public void close() throws SQLException {
+    try {
+      primary.close();
+    } finally {
+      replica.close();
+    }
+  }
+
+  @Override
+  public Integer getTimeout() throws SQLException {
+    return primary.getTimeout();
+  }
+
+}
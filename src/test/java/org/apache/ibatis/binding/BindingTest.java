@@ -28,6 +28,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import javassist.util.proxy.Proxy;
 
@@ -50,6 +54,7 @@ import org.apache.ibatis.session.RowBounds;
 import org.apache.ibatis.session.SqlSession;
 import org.apache.ibatis.session.SqlSessionFactory;
 import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.apache.ibatis.session.defaults.DefaultSqlSessionFactory;
 import org.apache.ibatis.transaction.TransactionFactory;
 import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
 import org.junit.jupiter.api.Assertions;
@@ -688,4 +693,63 @@ class BindingTest {
     assertTrue(mapperClasses.contains(BoundAuthorMapper.class));
   }
 
+  @Test
+  void shouldExecuteMapperMethodsAsynchronously() throws Exception {
+    CompletableFuture<Blog> blog;
+    CompletableFuture<List<Blog>> blogs;
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      BoundBlogMapper mapper = session.getMapper(BoundBlogMapper.class);
+      blog = mapper.selectBlogAsync(1);
+      blogs = mapper.selectBlogsAsync();
+    }
+    // 异步执行使用独立的 SqlSession ，不受调用方 SqlSession 关闭的影响
+    assertEquals(1, blog.get(10, TimeUnit.SECONDS).getId());
+    assertEquals(2, blogs.get(10, TimeUnit.SECONDS).size());
+  }
+
+  @Test
+  void shouldExecuteUpdatesAsynchronously() throws Exception {
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      BoundBlogMapper mapper = session.getMapper(BoundBlogMapper.class);
+      assertEquals(Integer.valueOf(1), mapper.touchBlogAsync(1).get(10, TimeUnit.SECONDS));
+      assertEquals(Integer.valueOf(0), mapper.touchBlogAsync(999).get(10, TimeUnit.SECONDS));
+      assertTrue(mapper.touchBlogAsyncReturningBoolean(1).get(10, TimeUnit.SECONDS));
+      assertFalse(mapper.touchBlogAsyncReturningBoolean(999).get(10, TimeUnit.SECONDS));
+      assertNull(mapper.touchBlogAsyncReturningVoid(1).get(10, TimeUnit.SECONDS));
+    }
+  }
+
+  @Test
+  void shouldOpenAsyncSessionsFromOwningFactory() throws Exception {
+    AtomicInteger opened = new AtomicInteger();
+    SqlSessionFactory factory = new DefaultSqlSessionFactory(sqlSessionFactory.getConfiguration()) {
+      @Override
+      public SqlSession openSession() {
+        opened.incrementAndGet();
+        return super.openSession();
+      }
+    };
+    try (SqlSession session = factory.openSession(true)) {
+      BoundBlogMapper mapper = session.getMapper(BoundBlogMapper.class);
+      assertEquals(Integer.valueOf(1), mapper.touchBlogAsync(1).get(10, TimeUnit.SECONDS));
+    }
+    assertEquals(1, opened.get());
+  }
+
+  @Test
+  void shouldNotExecuteCancelledAsyncMapperMethod() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Executor asyncExecutor = configuration.getAsyncExecutor();
+    List<Runnable> tasks = new ArrayList<>();
+    configuration.setAsyncExecutor(tasks::add);
+    try (SqlSession session = sqlSessionFactory.openSession()) {
+      CompletableFuture<Blog> blog = session.getMapper(BoundBlogMapper.class).selectBlogAsync(1);
+      assertTrue(blog.cancel(true));
+      tasks.forEach(Runnable::run);
+      assertTrue(blog.isCancelled());
+    } finally {
+      configuration.setAsyncExecutor(asyncExecutor);
+    }
+  }
+
 }
@@ -27,6 +27,7 @@ import org.apache.ibatis.session.RowBounds;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @CacheNamespace(readWrite = false)
 public interface BoundBlogMapper {
@@ -122,6 +123,32 @@ public interface BoundBlogMapper {
 
   //======================================================
 
+  @Select("SELECT * FROM " +
+      "blog WHERE id = #{id}")
+  CompletableFuture<Blog> selectBlogAsync(int id);
+
+  //======================================================
+
+  @Select("SELECT * FROM blog")
+  CompletableFuture<List<Blog>> selectBlogsAsync();
+
+  //======================================================
+
+  @Update("UPDATE blog SET title = title WHERE id = #{id}")
+  CompletableFuture<Integer> touchBlogAsync(int id);
+
+  //======================================================
+
+  @Update("UPDATE blog SET title = title WHERE id = #{id}")
+  CompletableFuture<Boolean> touchBlogAsyncReturningBoolean(int id);
+
+  //======================================================
+
+  @Update("UPDATE blog SET title = title WHERE id = #{id}")
+  CompletableFuture<Void> touchBlogAsyncReturningVoid(int id);
+
+  //======================================================
+
   @Select("SELECT * FROM " +
       "blog WHERE id = #{id}")
   @ConstructorArgs({
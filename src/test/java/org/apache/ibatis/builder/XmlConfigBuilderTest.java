@@ -15,20 +15,42 @@
  */
 package org.apache.ibatis.builder;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.StringReader;
 import java.math.RoundingMode;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 import org.apache.ibatis.builder.mapper.CustomMapper;
 import org.apache.ibatis.builder.typehandler.CustomIntegerTypeHandler;
 import org.apache.ibatis.builder.xml.XMLConfigBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperBuilder;
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
+import org.apache.ibatis.builder.xml.XMLMapperSnapshot;
 import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
 import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.domain.blog.Blog;
@@ -41,6 +63,9 @@ import org.apache.ibatis.io.JBoss6VFS;
 import org.apache.ibatis.io.Resources;
 import org.apache.ibatis.logging.slf4j.Slf4jImpl;
 import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultMap;
+import org.apache.ibatis.parsing.XPathParser;
 import org.apache.ibatis.scripting.defaults.RawLanguageDriver;
 import org.apache.ibatis.scripting.xmltags.XMLLanguageDriver;
 import org.apache.ibatis.session.AutoMappingBehavior;
@@ -56,6 +81,7 @@ import org.apache.ibatis.type.JdbcType;
 import org.apache.ibatis.type.TypeHandler;
 import org.apache.ibatis.type.TypeHandlerRegistry;
 import org.junit.jupiter.api.Test;
+import org.w3c.dom.Document;
 
 import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
@@ -253,6 +279,230 @@ class XmlConfigBuilderTest {
     }
   }
 
+  @Test
+  void shouldParseMappersInParallel() throws Exception {
+    Configuration sequential = new XMLConfigBuilder(new StringReader(blogMapperConfig(""))).parse();
+    Configuration parallel = new XMLConfigBuilder(new StringReader(blogMapperConfig(
+        "<setting name=\"parallelMapperParsing\" value=\"true\"/>"))).parse();
+
+    assertThat(parallel.isParallelMapperParsing()).isTrue();
+    assertThat(parallel.getIncompleteStatements()).isEmpty();
+    assertThat(parallel.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(sequential.getMappedStatementNames());
+    assertThat(parallel.getResultMapNames()).containsExactlyInAnyOrderElementsOf(sequential.getResultMapNames());
+    assertThat(parallel.getCacheNames()).containsExactlyInAnyOrderElementsOf(sequential.getCacheNames());
+    assertThat(parallel.getSqlFragments().keySet()).containsExactlyInAnyOrderElementsOf(sequential.getSqlFragments().keySet());
+    assertThat(parallel.hasMapper(BlogMapper.class)).isTrue();
+    for (String id : sequential.getMappedStatementNames()) {
+      if (!id.contains(".")) {
+        continue;
+      }
+      MappedStatement ms = sequential.getMappedStatement(id);
+      MappedStatement parallelMs = parallel.getMappedStatement(id);
+      assertThat(parallelMs.getSqlSource().getClass()).isEqualTo(ms.getSqlSource().getClass());
+      assertThat(parallelMs.getResultMaps()).extracting("id").containsExactlyElementsOf(ms.getResultMaps().stream().map(ResultMap::getId).collect(Collectors.toList()));
+      assertThat(parallelMs.getCache() == null).isEqualTo(ms.getCache() == null);
+    }
+    Map<String, Object> param = new HashMap<>();
+    param.put("blog_id", 1);
+    MappedStatement withInclude = parallel.getMappedStatement("org.apache.ibatis.domain.blog.mappers.PostMapper.findPost");
+    assertThat(withInclude.getBoundSql(param).getSql()).contains("blog_id = ?")
+        .isEqualTo(sequential.getMappedStatement(withInclude.getId()).getBoundSql(param).getSql());
+  }
+
+  @Test
+  void shouldResolveMappersWithContextClassLoaderInParallel() throws Exception {
+    File dir = Files.createTempDirectory("tccl").toFile();
+    File mapper = new File(dir, "tccl/TcclMapper.xml");
+    mapper.getParentFile().mkdirs();
+    Files.write(mapper.toPath(), ("<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n"
+        + "<mapper namespace=\"tccl.TcclMapper\">\n"
+        + "  <select id=\"selectOne\" resultType=\"int\">select 1</select>\n"
+        + "</mapper>\n").getBytes(StandardCharsets.UTF_8));
+    String config = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE configuration PUBLIC \"-//mybatis.org//DTD Config 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-config.dtd\">\n"
+        + "<configuration>\n"
+        + "  <settings>\n"
+        + "    <setting name=\"parallelMapperParsing\" value=\"true\"/>\n"
+        + "  </settings>\n"
+        + "  <mappers>\n"
+        + "    <mapper resource=\"tccl/TcclMapper.xml\"/>\n"
+        + "  </mappers>\n"
+        + "</configuration>\n";
+
+    // mapper 文件只能通过 context class loader 加载，工作线程需要使用调用线程的 class loader
+    Thread thread = Thread.currentThread();
+    ClassLoader original = thread.getContextClassLoader();
+    try (URLClassLoader classLoader = new URLClassLoader(new URL[] {dir.toURI().toURL()}, original)) {
+      thread.setContextClassLoader(classLoader);
+      Configuration configuration = new XMLConfigBuilder(new StringReader(config)).parse();
+      assertThat(configuration.hasStatement("tccl.TcclMapper.selectOne")).isTrue();
+    } finally {
+      thread.setContextClassLoader(original);
+      mapper.delete();
+      mapper.getParentFile().delete();
+      dir.delete();
+    }
+  }
+
+  @Test
+  void shouldBuildMappedStatementsLazily() throws Exception {
+    Configuration eager = new XMLConfigBuilder(new StringReader(blogMapperConfig(""))).parse();
+    Configuration lazy = new XMLConfigBuilder(new StringReader(blogMapperConfig(
+        "<setting name=\"lazyMappedStatements\" value=\"true\"/>"))).parse();
+
+    String id = "org.apache.ibatis.domain.blog.mappers.PostMapper.findPost";
+    assertThat(lazy.isLazyMappedStatements()).isTrue();
+    assertThat(lazy.getLazyStatements()).containsKey(id);
+    assertThat(lazy.hasStatement(id, false)).isFalse();
+
+    MappedStatement ms = lazy.getMappedStatement(id);
+    assertThat(ms.getId()).isEqualTo(id);
+    assertThat(lazy.getLazyStatements()).doesNotContainKey(id);
+    assertThat(lazy.hasStatement(id, false)).isTrue();
+    assertThat(lazy.getMappedStatement("findPost")).isSameAs(ms);
+
+    assertThat(lazy.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(eager.getMappedStatementNames());
+    assertThat(lazy.getLazyStatements()).isEmpty();
+  }
+
+  @Test
+  void shouldReportLazyStatementErrorsWhenBuiltEagerly() throws Exception {
+    String mapper = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
+        + "<!DOCTYPE mapper PUBLIC \"-//mybatis.org//DTD Mapper 3.0//EN\" \"http://mybatis.org/dtd/mybatis-3-mapper.dtd\">\n"
+        + "<mapper namespace=\"lazy.BrokenMapper\">\n"
+        + "  <select id=\"selectOne\" resultType=\"int\">select 1</select>\n"
+        + "  <select id=\"selectBroken\" resultType=\"lazy.NoSuchClass\">select 1</select>\n"
+        + "</mapper>\n";
+    Configuration configuration = new Configuration();
+    configuration.setLazyMappedStatements(true);
+    // 延迟构建时 build() 不会发现错误
+    new XMLMapperBuilder(new ByteArrayInputStream(mapper.getBytes(StandardCharsets.UTF_8)), configuration, "lazy/BrokenMapper.xml",
+        configuration.getSqlFragments()).parse();
+    assertThat(configuration.getLazyStatements()).containsOnlyKeys("lazy.BrokenMapper.selectOne", "lazy.BrokenMapper.selectBroken");
+
+    when(configuration).buildLazyStatements();
+    then(caughtException()).isInstanceOf(BuilderException.class).hasMessageContaining("lazy.NoSuchClass");
+    assertThat(configuration.getLazyStatements()).containsKey("lazy.BrokenMapper.selectBroken");
+  }
+
+  @Test
+  void shouldBuildLazyStatementOnceForConcurrentLookups() throws Exception {
+    Configuration lazy = new XMLConfigBuilder(new StringReader(blogMapperConfig(
+        "<setting name=\"lazyMappedStatements\" value=\"true\"/>"))).parse();
+    List<String> ids = new ArrayList<>(lazy.getLazyStatements().keySet());
+    int threads = 8;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      CountDownLatch start = new CountDownLatch(1);
+      List<Future<Map<String, MappedStatement>>> futures = new ArrayList<>();
+      for (int i = 0; i < threads; i++) {
+        futures.add(executor.submit(() -> {
+          start.await();
+          Map<String, MappedStatement> statements = new HashMap<>();
+          for (String id : ids) {
+            statements.put(id, lazy.getMappedStatement(id));
+          }
+          return statements;
+        }));
+      }
+      start.countDown();
+      Map<String, MappedStatement> first = futures.get(0).get(30, TimeUnit.SECONDS);
+      for (Future<Map<String, MappedStatement>> future : futures) {
+        Map<String, MappedStatement> statements = future.get(30, TimeUnit.SECONDS);
+        for (String id : ids) {
+          // 每个 statement 只构建一次，所有线程获得同一个对象
+          assertThat(statements.get(id)).isSameAs(first.get(id));
+        }
+      }
+      assertThat(lazy.getLazyStatements()).isEmpty();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @Test
+  void shouldParseMappersFromSnapshot() throws Exception {
+    String config = "org/apache/ibatis/builder/MapperConfig.xml";
+    String setting = "<setting name=\"mapperSnapshot\" value=\"org/apache/ibatis/builder/MapperSnapshot.bin\"/>";
+    File file = new File(Resources.getResourceAsFile(config).getParentFile(), "MapperSnapshot.bin");
+    try {
+      XMLMapperSnapshot.main(new String[] {config, file.getPath()});
+      Configuration eager = new XMLConfigBuilder(new StringReader(blogMapperConfig(""))).parse();
+      Configuration restored = new XMLConfigBuilder(new StringReader(blogMapperConfig(setting))).parse();
+      assertThat(restored.getMapperSnapshot()).isEqualTo("org/apache/ibatis/builder/MapperSnapshot.bin");
+      assertThat(restored.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(eager.getMappedStatementNames());
+      String findPost = "org.apache.ibatis.domain.blog.mappers.PostMapper.findPost";
+      Map<String, Object> param = new HashMap<>();
+      param.put("blog_id", 1);
+      assertThat(restored.getMappedStatement(findPost).getBoundSql(param).getSql())
+          .isEqualTo(eager.getMappedStatement(findPost).getBoundSql(param).getSql());
+
+      // 文件的大小和最后修改时间没有变化时不比较内容，直接使用快照中的 DOM
+      String resource = "org/apache/ibatis/builder/AuthorMapper.xml";
+      File mapperFile = Resources.getResourceAsFile(resource);
+      byte[] content = Files.readAllBytes(mapperFile.toPath());
+      String changed = new String(content, StandardCharsets.UTF_8).replace("\"selectAllAuthors\"", "\"selectAllAuthorsFromSnapshot\"");
+      Document document = new XPathParser(changed, true, null, new XMLMapperEntityResolver()).evalNode("/mapper").getNode().getOwnerDocument();
+      XMLMapperSnapshot snapshot = new XMLMapperSnapshot();
+      snapshot.addDocument(resource, new byte[content.length], mapperFile.lastModified(), document);
+      try (OutputStream out = new FileOutputStream(file)) {
+        snapshot.write(out);
+      }
+      restored = new XMLConfigBuilder(new StringReader(blogMapperConfig(setting))).parse();
+      assertThat(restored.hasStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthorsFromSnapshot")).isTrue();
+      assertThat(restored.hasStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors")).isFalse();
+
+      // 最后修改时间变化但内容没有变化时同样使用快照中的 DOM
+      snapshot = new XMLMapperSnapshot();
+      snapshot.addDocument(resource, content, mapperFile.lastModified() - 1000, document);
+      try (OutputStream out = new FileOutputStream(file)) {
+        snapshot.write(out);
+      }
+      restored = new XMLConfigBuilder(new StringReader(blogMapperConfig(setting))).parse();
+      assertThat(restored.hasStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthorsFromSnapshot")).isTrue();
+
+      // 文件内容变化后重新解析
+      snapshot = new XMLMapperSnapshot();
+      snapshot.addDocument(resource, new byte[0], mapperFile.lastModified(), document);
+      try (OutputStream out = new FileOutputStream(file)) {
+        snapshot.write(out);
+      }
+      restored = new XMLConfigBuilder(new StringReader(blogMapperConfig(setting))).parse();
+      assertThat(restored.hasStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthorsFromSnapshot")).isFalse();
+      assertThat(restored.hasStatement("org.apache.ibatis.domain.blog.mappers.AuthorMapper.selectAllAuthors")).isTrue();
+
+      // 快照不存在时照常解析
+      restored = new XMLConfigBuilder(new StringReader(blogMapperConfig(
+          "<setting name=\"mapperSnapshot\" value=\"org/apache/ibatis/builder/MissingSnapshot.bin\"/>"))).parse();
+      assertThat(restored.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(eager.getMappedStatementNames());
+    } finally {
+      file.delete();
+    }
+  }
+
+  @Test
+  void shouldParseMappersWithStax() throws Exception {
+    Configuration dom = new XMLConfigBuilder(new StringReader(blogMapperConfig(""))).parse();
+    Configuration stax = new XMLConfigBuilder(new StringReader(blogMapperConfig(
+        "<setting name=\"streamingMapperParsing\" value=\"true\"/>"))).parse();
+    assertThat(stax.isStreamingMapperParsing()).isTrue();
+    assertThat(stax.getMappedStatementNames()).containsExactlyInAnyOrderElementsOf(dom.getMappedStatementNames());
+    assertThat(stax.getResultMapNames()).containsExactlyInAnyOrderElementsOf(dom.getResultMapNames());
+    String findPost = "org.apache.ibatis.domain.blog.mappers.PostMapper.findPost";
+    Map<String, Object> param = new HashMap<>();
+    param.put("blog_id", 1);
+    assertThat(stax.getMappedStatement(findPost).getBoundSql(param).getSql())
+        .isEqualTo(dom.getMappedStatement(findPost).getBoundSql(param).getSql());
+  }
+
+  private String blogMapperConfig(String setting) throws IOException {
+    String resource = "org/apache/ibatis/builder/MapperConfig.xml";
+    return new String(Files.readAllBytes(Resources.getResourceAsFile(resource).toPath()), StandardCharsets.UTF_8)
+        .replace("<settings>", "<settings>\n    " + setting)
+        .replace("<mapper resource=\"org/apache/ibatis/builder/NestedBlogMapper.xml\"/>", "");
+  }
+
   @Test
   void unknownSettings() {
     final String MAPPER_CONFIG = "<?xml version=\"1.0\" encoding=\"UTF-8\" ?>\n"
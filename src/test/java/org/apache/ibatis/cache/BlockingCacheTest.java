@@ -0,0 +1,130 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.junit.jupiter.api.Test;
+
+class BlockingCacheTest {
+
+  @Test
+  void shouldReturnCachedValueWithoutBlocking() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.putObject(0, "zero");
+    assertEquals("zero", cache.getObject(0));
+    assertEquals("zero", cache.getObject(0));
+  }
+
+  @Test
+  void shouldWaitForInFlightValue() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    Semaphore waiting = watchWaits(cache);
+    assertNull(cache.getObject(0));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.getObject(0));
+    assertTrue(waiting.tryAcquire(5, TimeUnit.SECONDS));
+    assertFalse(waiter.isDone());
+    cache.putObject(0, "zero");
+    assertEquals("zero", waiter.get(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  void shouldLoadAgainWhenReleasedWithoutValue() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    Semaphore waiting = watchWaits(cache);
+    ExecutorService loader = Executors.newSingleThreadExecutor();
+    try {
+      assertNull(cache.getObject(0));
+      Future<Object> waiter = loader.submit(() -> cache.getObject(0));
+      assertTrue(waiting.tryAcquire(5, TimeUnit.SECONDS));
+      cache.removeObject(0);
+      // 等待的线程成为新的加载线程
+      assertNull(waiter.get(5, TimeUnit.SECONDS));
+      CompletableFuture<Object> next = CompletableFuture.supplyAsync(() -> cache.getObject(0));
+      assertTrue(waiting.tryAcquire(5, TimeUnit.SECONDS));
+      assertFalse(next.isDone());
+      loader.submit(() -> cache.putObject(0, "zero")).get(5, TimeUnit.SECONDS);
+      assertEquals("zero", next.get(5, TimeUnit.SECONDS));
+    } finally {
+      loader.shutdown();
+    }
+  }
+
+  @Test
+  void shouldFallThroughAfterTimeout() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    cache.setTimeout(50);
+    assertNull(cache.getObject(0));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.getObject(0));
+    assertNull(waiter.get(5, TimeUnit.SECONDS));
+    cache.putObject(0, "zero");
+    assertEquals("zero", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotWaitForOwnLoad() {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    assertNull(cache.getObject(0));
+    // 加载线程再次未命中时不会等待自己
+    assertNull(cache.getObject(0));
+    cache.putObject(0, "zero");
+    assertEquals("zero", cache.getObject(0));
+  }
+
+  @Test
+  void shouldNotReleaseLoadOfOtherThread() throws Exception {
+    BlockingCache cache = new BlockingCache(new PerpetualCache("default"));
+    Semaphore waiting = watchWaits(cache);
+    assertNull(cache.getObject(0));
+    CompletableFuture<Object> waiter = CompletableFuture.supplyAsync(() -> cache.getObject(0));
+    assertTrue(waiting.tryAcquire(5, TimeUnit.SECONDS));
+    // 其它线程（例如等待超时后回滚的线程）不会完成当前线程的加载
+    CompletableFuture.runAsync(() -> cache.removeObject(0)).get(5, TimeUnit.SECONDS);
+    CompletableFuture.runAsync(() -> cache.putObject(1, "one")).get(5, TimeUnit.SECONDS);
+    assertFalse(waiter.isDone());
+    cache.putObject(0, "zero");
+    assertEquals("zero", waiter.get(5, TimeUnit.SECONDS));
+  }
+
+  /**
+   * 线程开始等待正在加载的值时释放一个许可，测试通过它确认线程已经在等待，而不是等待一段时间
+   */
+  private static Semaphore watchWaits(BlockingCache cache) {
+    Semaphore waiting = new Semaphore(0);
+    cache.setCacheStats(new CacheStats("default") {
+      @Override
+      public void recordBlockedWait() {
+        super.recordBlockedWait();
+        waiting.release();
+      }
+    });
+    return waiting;
+  }
+
+}
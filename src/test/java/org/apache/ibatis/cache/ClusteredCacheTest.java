@@ -0,0 +1,164 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.ibatis.cache.decorators.ClusteredCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.invalidation.InvalidationBus;
+import org.apache.ibatis.cache.invalidation.InvalidationTransport;
+import org.apache.ibatis.cache.invalidation.LoopbackTransport;
+import org.apache.ibatis.cache.invalidation.SocketTransport;
+import org.junit.jupiter.api.Test;
+
+class ClusteredCacheTest {
+
+  @Test
+  void shouldClearOtherNodes() throws Exception {
+    InvalidationBus bus1 = new InvalidationBus(loopback("clear"));
+    InvalidationBus bus2 = new InvalidationBus(loopback("clear"));
+    try {
+      ClusteredCache cache1 = new ClusteredCache(new PerpetualCache("default"), bus1);
+      ClusteredCache cache2 = new ClusteredCache(new PerpetualCache("default"), bus2);
+      ClusteredCache other2 = new ClusteredCache(new PerpetualCache("other"), bus2);
+      cache1.putObject(0, "zero");
+      cache2.putObject(0, "zero");
+      other2.putObject(0, "zero");
+      cache1.clear();
+      assertNull(cache1.getObject(0));
+      awaitRemoved(cache2, 0);
+      assertEquals("zero", other2.getObject(0));
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldInvalidateTagsOnOtherNodes() throws Exception {
+    InvalidationBus bus1 = new InvalidationBus(loopback("tags"));
+    InvalidationBus bus2 = new InvalidationBus(loopback("tags"));
+    try {
+      ClusteredCache cache1 = new ClusteredCache(new PerpetualCache("default"), bus1);
+      ClusteredCache cache2 = new ClusteredCache(new PerpetualCache("default"), bus2);
+      cache2.putObject(0, "blog", Collections.singleton("blog"));
+      cache2.putObject(1, "author", Collections.singleton("author"));
+      cache1.invalidate(Collections.singleton("author"));
+      awaitRemoved(cache2, 1);
+      assertEquals("blog", cache2.getObject(0));
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldSendInvalidationsOverSockets() throws Exception {
+    SocketTransport transport1 = new SocketTransport();
+    transport1.setProperties(new Properties());
+    InvalidationBus bus1 = new InvalidationBus(transport1);
+    Properties properties = new Properties();
+    properties.setProperty(SocketTransport.PEERS_PROPERTY, "localhost:" + transport1.getLocalPort());
+    SocketTransport transport2 = new SocketTransport();
+    transport2.setProperties(properties);
+    InvalidationBus bus2 = new InvalidationBus(transport2);
+    try {
+      ClusteredCache cache1 = new ClusteredCache(new PerpetualCache("default"), bus1);
+      ClusteredCache cache2 = new ClusteredCache(new PerpetualCache("default"), bus2);
+      cache1.putObject(0, "blog", Collections.singleton("blog"));
+      cache1.putObject(1, "author", Collections.singleton("author"));
+      cache2.invalidate(Collections.singleton("author"));
+      awaitRemoved(cache1, 1);
+      assertEquals("blog", cache1.getObject(0));
+      cache2.clear();
+      awaitRemoved(cache1, 0);
+    } finally {
+      bus1.close();
+      bus2.close();
+    }
+  }
+
+  @Test
+  void shouldListenOnLoopbackByDefault() {
+    SocketTransport transport = new SocketTransport();
+    transport.setProperties(new Properties());
+    InvalidationBus bus = new InvalidationBus(transport);
+    try {
+      assertTrue(transport.getLocalAddress().isLoopbackAddress());
+    } finally {
+      bus.close();
+    }
+  }
+
+  @Test
+  void shouldListenOnConfiguredBindAddress() {
+    Properties properties = new Properties();
+    properties.setProperty(SocketTransport.BIND_PROPERTY, "0.0.0.0");
+    SocketTransport transport = new SocketTransport();
+    transport.setProperties(properties);
+    InvalidationBus bus = new InvalidationBus(transport);
+    try {
+      assertTrue(transport.getLocalAddress().isAnyLocalAddress());
+    } finally {
+      bus.close();
+    }
+  }
+
+  @Test
+  void shouldNotBlockPublisherOnUnreachablePeer() {
+    Properties properties = new Properties();
+    // 不可路由的地址，连接会一直等到超时
+    properties.setProperty(SocketTransport.PEERS_PROPERTY, "10.255.255.1:9");
+    properties.setProperty(SocketTransport.TIMEOUT_PROPERTY, "2000");
+    SocketTransport transport = new SocketTransport();
+    transport.setProperties(properties);
+    InvalidationBus bus = new InvalidationBus(transport);
+    try {
+      ClusteredCache cache = new ClusteredCache(new PerpetualCache("default"), bus);
+      long start = System.nanoTime();
+      for (int i = 0; i < 10; i++) {
+        cache.clear();
+      }
+      assertTrue(System.nanoTime() - start < TimeUnit.MILLISECONDS.toNanos(1000));
+    } finally {
+      bus.close();
+    }
+  }
+
+  private static InvalidationTransport loopback(String channel) {
+    Properties properties = new Properties();
+    properties.setProperty(LoopbackTransport.CHANNEL_PROPERTY, channel);
+    InvalidationTransport transport = new LoopbackTransport();
+    transport.setProperties(properties);
+    return transport;
+  }
+
+  private static void awaitRemoved(Cache cache, Object key) throws InterruptedException {
+    // 其它节点的事件异步应用
+    for (int i = 0; i < 500 && cache.getObject(key) != null; i++) {
+      Thread.sleep(10);
+    }
+    assertNull(cache.getObject(key));
+  }
+
+}
@@ -0,0 +1,62 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.junit.jupiter.api.Test;
+
+class DefaultWeigherTest {
+
+  private final Weigher weigher = new DefaultWeigher();
+
+  @Test
+  void shouldWeighByteArraysBySize() {
+    assertEquals(16, weigher.weigh("key", new byte[0]));
+    assertEquals(1040, weigher.weigh("key", new byte[1024]));
+    assertEquals(0, weigher.weigh("key", null));
+  }
+
+  @Test
+  void shouldWeighListsByElementCount() {
+    long small = weigher.weigh("key", authors(10));
+    long large = weigher.weigh("key", authors(10000));
+    assertTrue(small > weigher.weigh("key", Collections.emptyList()));
+    assertTrue(large > small * 900, "large: " + large + ", small: " + small);
+  }
+
+  @Test
+  void shouldWeighResultObjectProperties() {
+    Author author = new Author(1, "jim", "********", "jim@ibatis.apache.org", "", Section.NEWS);
+    Author longBio = new Author(1, "jim", "********", "jim@ibatis.apache.org", new String(new char[1000]), Section.NEWS);
+    assertTrue(weigher.weigh("key", longBio) >= weigher.weigh("key", author) + 2000);
+  }
+
+  private List<Author> authors(int count) {
+    List<Author> authors = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      authors.add(new Author(i, "user" + i, "********", "user" + i + "@ibatis.apache.org", "bio", Section.NEWS));
+    }
+    return authors;
+  }
+
+}
@@ -57,4 +57,20 @@ class FifoCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldRemoveFirstItemsBeyondMaxWeight() {
+    FifoCache cache = new FifoCache(new PerpetualCache("default"));
+    cache.setMaxWeight(10);
+    cache.setWeigher((key, value) -> (Integer) value);
+    cache.putObject("a", 4);
+    cache.putObject("b", 4);
+    assertEquals(4, cache.getObject("a"));
+    cache.putObject("c", 4);
+    assertNull(cache.getObject("a"));
+    assertEquals(4, cache.getObject("b"));
+    assertEquals(8, cache.getWeight());
+    cache.clear();
+    assertEquals(0, cache.getWeight());
+  }
+
 }
@@ -0,0 +1,57 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.apache.ibatis.cache.decorators.LoggingCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class LoggingCacheTest {
+
+  @Test
+  void shouldKeepDeprecatedCountersInSyncWithStats() {
+    CountingCache cache = new CountingCache(new PerpetualCache("default"));
+    cache.putObject("a", "value");
+    cache.getObject("a");
+    cache.getObject("b");
+    assertEquals(2, cache.requests());
+    assertEquals(1, cache.hits());
+    assertEquals(2, cache.getStats().getRequests());
+    assertEquals(1, cache.getStats().getHits());
+  }
+
+  /**
+   * 通过 protected 字段读取统计信息的子类
+   */
+  @SuppressWarnings("deprecation")
+  private static class CountingCache extends LoggingCache {
+
+    CountingCache(Cache delegate) {
+      super(delegate);
+    }
+
+    int requests() {
+      return requests;
+    }
+
+    int hits() {
+      return hits;
+    }
+  }
+
+}
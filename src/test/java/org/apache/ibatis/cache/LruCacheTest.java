@@ -57,4 +57,24 @@ class LruCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldRemoveLeastRecentlyUsedItemsBeyondMaxWeight() {
+    LruCache cache = new LruCache(new PerpetualCache("default"));
+    cache.setMaxWeight(10);
+    cache.setWeigher((key, value) -> (Integer) value);
+    cache.putObject("a", 4);
+    cache.putObject("b", 4);
+    assertEquals(4, cache.getObject("a"));
+    cache.putObject("c", 4);
+    assertNull(cache.getObject("b"));
+    assertEquals(4, cache.getObject("a"));
+    assertEquals(8, cache.getWeight());
+    cache.removeObject("a");
+    assertEquals(4, cache.getWeight());
+    // 超过上限的单个缓存项不会被缓存
+    cache.putObject("d", 11);
+    assertNull(cache.getObject("d"));
+    assertEquals(0, cache.getWeight());
+  }
+
 }
\ No newline at end of file
@@ -15,8 +15,12 @@
  */
 package org.apache.ibatis.cache;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.ibatis.cache.decorators.LoggingCache;
 import org.apache.ibatis.cache.decorators.ScheduledCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.Test;
@@ -65,4 +69,76 @@ class ScheduledCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldExpireItemsAfterTimeToLive() throws Exception {
+    ScheduledCache scheduledCache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    scheduledCache.setClearInterval(0);
+    scheduledCache.setTimeToLive(200);
+    Cache cache = new LoggingCache(scheduledCache);
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+    Thread.sleep(300);
+    cache.putObject(1, 1);
+    assertNull(cache.getObject(0));
+    assertEquals(1, cache.getObject(1));
+  }
+
+  @Test
+  void shouldRefreshItemAheadOfExpiry() throws Exception {
+    ScheduledCache scheduledCache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    scheduledCache.setClearInterval(0);
+    scheduledCache.setTimeToLive(1000);
+    scheduledCache.setRefreshAheadFactor(0.1);
+    Cache cache = new SynchronizedCache(scheduledCache);
+    CountDownLatch refreshed = new CountDownLatch(1);
+    CacheKey key = new CacheKey(new Object[] { "key" });
+    key.setRefresher(() -> {
+      cache.putObject(key, "new");
+      refreshed.countDown();
+    });
+    cache.putObject(key, "old");
+    Thread.sleep(200);
+    // 刷新完成前返回原来的值
+    assertEquals("old", cache.getObject(key));
+    assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+    assertEquals("new", cache.getObject(key));
+  }
+
+  @Test
+  void shouldDropRefreshOfRemovedItem() throws Exception {
+    ScheduledCache scheduledCache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    scheduledCache.setClearInterval(0);
+    scheduledCache.setTimeToLive(1000);
+    scheduledCache.setRefreshAheadFactor(0.1);
+    Cache cache = new SynchronizedCache(scheduledCache);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch removed = new CountDownLatch(1);
+    CountDownLatch refreshed = new CountDownLatch(1);
+    CacheKey key = new CacheKey(new Object[] { "key" });
+    key.setRefresher(() -> {
+      started.countDown();
+      try {
+        removed.await(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      cache.putObject(key, "stale");
+      refreshed.countDown();
+    });
+    cache.putObject(key, "old");
+    Thread.sleep(200);
+    assertEquals("old", cache.getObject(key));
+    assertTrue(started.await(5, TimeUnit.SECONDS));
+    cache.removeObject(key);
+    removed.countDown();
+    assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+    assertNull(cache.getObject(key));
+  }
+
+  @Test
+  void shouldRejectInvalidRefreshAheadFactor() {
+    ScheduledCache cache = new ScheduledCache(new PerpetualCache("DefaultCache"));
+    assertThrows(IllegalArgumentException.class, () -> cache.setRefreshAheadFactor(1));
+  }
+
 }
\ No newline at end of file
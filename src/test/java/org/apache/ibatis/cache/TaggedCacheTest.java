@@ -0,0 +1,68 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TaggedCacheTest {
+
+  @Test
+  void shouldInvalidateEntriesWithTag() {
+    TaggedCache cache = new TaggedCache(new PerpetualCache("default"));
+    cache.putObject(0, "blog", Collections.singleton("blog"));
+    cache.putObject(1, "author", Collections.singleton("author"));
+    cache.putObject(2, "both", new HashSet<>(Arrays.asList("blog", "author")));
+    cache.invalidate(Collections.singleton("author"));
+    assertEquals("blog", cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNull(cache.getObject(2));
+  }
+
+  @Test
+  void shouldInvalidateUntaggedEntriesWithAnyTag() {
+    TaggedCache cache = new TaggedCache(new PerpetualCache("default"));
+    cache.putObject(0, "blog", Collections.singleton("blog"));
+    cache.putObject(1, "untagged");
+    cache.invalidate(Collections.singleton("author"));
+    assertEquals("blog", cache.getObject(0));
+    assertNull(cache.getObject(1));
+  }
+
+  @Test
+  void shouldClearWhenIndexIsDropped() {
+    PerpetualCache delegate = new PerpetualCache("default");
+    TaggedCache cache = new TaggedCache(delegate);
+    for (int i = 0; i < 2000; i++) {
+      cache.putObject(i, i, Collections.singleton("blog"));
+      // 模拟被淘汰的缓存项
+      delegate.removeObject(i);
+    }
+    cache.putObject("author", "author", Collections.singleton("author"));
+    cache.invalidate(Collections.singleton("blog"));
+    assertNull(cache.getObject("author"));
+    assertEquals(0, cache.getSize());
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.cache;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.ibatis.cache.decorators.BlockingCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
+import org.apache.ibatis.cache.decorators.TaggedCache;
+import org.apache.ibatis.cache.decorators.TransactionalCache;
+import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.junit.jupiter.api.Test;
+
+class TransactionalCacheTest {
+
+  @Test
+  void shouldNotWriteMissedEntriesToNonBlockingCache() {
+    RecordingCache target = new RecordingCache();
+    TransactionalCache cache = new TransactionalCache(new TaggedCache(target));
+    assertNull(cache.getObject("missed"));
+    cache.putObject("added", "value");
+    cache.commit();
+    assertEquals(1, target.puts.size());
+    assertEquals("value", target.getObject("added"));
+  }
+
+  @Test
+  void shouldReleaseMissedEntriesOfBlockingCache() {
+    RecordingCache target = new RecordingCache();
+    TransactionalCache cache = new TransactionalCache(new TaggedCache(new BlockingCache(target)));
+    assertNull(cache.getObject("missed"));
+    cache.commit();
+    assertEquals(1, target.puts.size());
+
+    assertNull(cache.getObject("missed"));
+    cache.rollback();
+    // 回滚时只唤醒等待的线程，不移除缓存
+    assertTrue(target.removes.isEmpty());
+  }
+
+  @Test
+  void shouldKeepEntriesAddedByOtherSessionsOnRollback() {
+    Cache shared = new TaggedCache(new BlockingCache(new PerpetualCache("default")));
+    TransactionalCache cache = new TransactionalCache(shared);
+    assertNull(cache.getObject("key"));
+    // 其它会话在回滚之前添加了缓存
+    shared.putObject("key", "value");
+    cache.rollback();
+    assertEquals("value", shared.getObject("key"));
+  }
+
+  @Test
+  void shouldNotTrackMissesOfStandardNonBlockingCache() {
+    RecordingCache target = new RecordingCache();
+    TransactionalCache cache = new TransactionalCache(new SynchronizedCache(target));
+    assertNull(cache.getObject("missed"));
+    cache.commit();
+    assertTrue(target.puts.isEmpty());
+  }
+
+  @Test
+  void shouldReleaseRepeatedMissOnce() {
+    RecordingCache target = new RecordingCache();
+    TransactionalCache cache = new TransactionalCache(target);
+    for (int i = 0; i < 3; i++) {
+      assertNull(cache.getObject("missed"));
+    }
+    cache.commit();
+    assertEquals(1, target.puts.size());
+
+    for (int i = 0; i < 3; i++) {
+      assertNull(cache.getObject("missed"));
+    }
+    cache.rollback();
+    assertEquals(1, target.removes.size());
+  }
+
+  @Test
+  void shouldReleaseMissedEntriesOfCustomCache() {
+    RecordingCache target = new RecordingCache();
+    TransactionalCache cache = new TransactionalCache(target);
+    assertNull(cache.getObject("missed"));
+    cache.rollback();
+    assertEquals(1, target.removes.size());
+  }
+
+  @Test
+  void shouldNotWriteOnCommitOfReadOnlySession() {
+    RecordingCache target = new RecordingCache();
+    for (int i = 0; i < 500; i++) {
+      target.putObject(new CacheKey(new Object[] { i }), i);
+    }
+    target.puts.clear();
+    Cache cache = new TaggedCache(target);
+    TransactionalCacheManager tcm = new TransactionalCacheManager();
+    for (int i = 0; i < 500; i++) {
+      assertEquals(i, tcm.getObject(cache, new CacheKey(new Object[] { i })));
+    }
+    assertNull(tcm.getObject(cache, new CacheKey(new Object[] { 500 })));
+    tcm.commit();
+    assertTrue(target.puts.isEmpty());
+    assertTrue(target.removes.isEmpty());
+  }
+
+  private static class RecordingCache extends PerpetualCache {
+
+    final List<Object> puts = new ArrayList<>();
+    final List<Object> removes = new ArrayList<>();
+
+    RecordingCache() {
+      super("recording");
+    }
+
+    @Override
+    public void putObject(Object key, Object value) {
+      puts.add(key);
+      super.putObject(key, value);
+    }
+
+    @Override
+    public Object removeObject(Object key) {
+      removes.add(key);
+      return super.removeObject(key);
+    }
+  }
+
+}
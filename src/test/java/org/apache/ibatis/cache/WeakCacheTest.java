@@ -15,11 +15,20 @@
  */
 package org.apache.ibatis.cache;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
 import org.apache.ibatis.cache.decorators.SerializedCache;
+import org.apache.ibatis.cache.decorators.SynchronizedCache;
 import org.apache.ibatis.cache.decorators.WeakCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
 import org.junit.jupiter.api.Test;
@@ -77,4 +86,32 @@ class WeakCacheTest {
     assertNull(cache.getObject(4));
   }
 
+  @Test
+  void shouldBeAccessibleFromManyThreads() throws Exception {
+    Cache cache = new SynchronizedCache(new WeakCache(new PerpetualCache("default")));
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10000; i++) {
+            cache.putObject(i % 100, i % 100);
+            Object value = cache.getObject(i % 100);
+            assertTrue(value == null || value.equals(i % 100));
+            if (i % 1000 == 0) {
+              cache.clear();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    cache.putObject(0, 0);
+    assertEquals(0, cache.getObject(0));
+  }
+
 }
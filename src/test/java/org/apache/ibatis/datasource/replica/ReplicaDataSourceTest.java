@@ -0,0 +1,102 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.datasource.replica;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.junit.jupiter.api.Test;
+
+class ReplicaDataSourceTest {
+
+  private static final String DRIVER = "org.hsqldb.jdbcDriver";
+
+  @Test
+  void shouldUseReplicasInTurn() throws SQLException {
+    ReplicaDataSource dataSource = new ReplicaDataSource(Arrays.asList(replica("replica_ds_1"), replica("replica_ds_2")));
+    Set<String> urls = new HashSet<>();
+    for (int i = 0; i < 4; i++) {
+      try (Connection connection = dataSource.getConnection()) {
+        urls.add(connection.getMetaData().getURL());
+      }
+    }
+    assertEquals(new HashSet<>(Arrays.asList("jdbc:hsqldb:mem:replica_ds_1", "jdbc:hsqldb:mem:replica_ds_2")), urls);
+  }
+
+  @Test
+  void shouldSkipEjectedReplica() throws SQLException {
+    ReplicaDataSource dataSource = new ReplicaDataSource(Arrays.asList(brokenReplica(), replica("replica_ds_3")));
+    for (int i = 0; i < 4; i++) {
+      try (Connection connection = dataSource.getConnection()) {
+        assertEquals("jdbc:hsqldb:mem:replica_ds_3", connection.getMetaData().getURL());
+      }
+    }
+    assertFalse(dataSource.isAvailable(0));
+    assertTrue(dataSource.isAvailable(1));
+  }
+
+  @Test
+  void shouldRetryEjectedReplicaAfterEjectTime() throws SQLException {
+    UnpooledDataSource replica = replica("replica_ds_4");
+    replica.setUrl("jdbc:unknown:replica");
+    ReplicaDataSource dataSource = new ReplicaDataSource(Arrays.asList(replica));
+    dataSource.setEjectTime(0);
+    assertThrows(SQLException.class, dataSource::getConnection);
+    // 恢复后可以再次使用
+    replica.setUrl("jdbc:hsqldb:mem:replica_ds_4");
+    try (Connection connection = dataSource.getConnection()) {
+      assertEquals("jdbc:hsqldb:mem:replica_ds_4", connection.getMetaData().getURL());
+    }
+    assertTrue(dataSource.isAvailable(0));
+  }
+
+  @Test
+  void shouldTryEjectedReplicasWhenAllAreEjected() throws SQLException {
+    UnpooledDataSource replica = brokenReplica();
+    ReplicaDataSource dataSource = new ReplicaDataSource(Arrays.asList(replica));
+    assertThrows(SQLException.class, dataSource::getConnection);
+    assertFalse(dataSource.isAvailable(0));
+    replica.setUrl("jdbc:hsqldb:mem:replica_ds_5");
+    try (Connection connection = dataSource.getConnection()) {
+      assertEquals("jdbc:hsqldb:mem:replica_ds_5", connection.getMetaData().getURL());
+    }
+  }
+
+  @Test
+  void shouldRejectEmptyReplicas() {
+    assertThrows(IllegalArgumentException.class, () -> new ReplicaDataSource(Arrays.<DataSource>asList()));
+  }
+
+  private static UnpooledDataSource replica(String name) {
+    return new UnpooledDataSource(DRIVER, "jdbc:hsqldb:mem:" + name, "sa", "");
+  }
+
+  private static UnpooledDataSource brokenReplica() {
+    return new UnpooledDataSource(DRIVER, "jdbc:unknown:replica", "sa", "");
+  }
+
+}
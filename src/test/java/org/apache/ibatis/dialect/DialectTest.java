@@ -0,0 +1,145 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.dialect;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.session.RowBounds;
+import org.junit.jupiter.api.Test;
+
+class DialectTest {
+
+  private static final String SQL = "select * from users";
+
+  @Test
+  void shouldAppendLimitAndOffset() {
+    Dialect dialect = new LimitOffsetDialect();
+    List<Integer> parameters = new ArrayList<>();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPageSql(SQL, 10, 5, parameters));
+    assertEquals(Arrays.asList(5, 10), parameters);
+
+    parameters.clear();
+    assertEquals(SQL + " LIMIT ?", dialect.getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 5, parameters));
+    assertEquals(Arrays.asList(5), parameters);
+
+    parameters.clear();
+    assertEquals(SQL + " LIMIT ? OFFSET ?", dialect.getPageSql(SQL, 10, RowBounds.NO_ROW_LIMIT, parameters));
+    assertEquals(Arrays.asList(RowBounds.NO_ROW_LIMIT, 10), parameters);
+  }
+
+  @Test
+  void shouldAppendOffsetAndFetch() {
+    Dialect dialect = new FetchFirstDialect();
+    List<Integer> parameters = new ArrayList<>();
+    assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY", dialect.getPageSql(SQL, 10, 5, parameters));
+    assertEquals(Arrays.asList(10, 5), parameters);
+
+    parameters.clear();
+    assertEquals(SQL + " FETCH FIRST ? ROWS ONLY", dialect.getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 5, parameters));
+    assertEquals(Arrays.asList(5), parameters);
+
+    parameters.clear();
+    assertEquals(SQL + " OFFSET ? ROWS", dialect.getPageSql(SQL, 10, RowBounds.NO_ROW_LIMIT, parameters));
+    assertEquals(Arrays.asList(10), parameters);
+  }
+
+  @Test
+  void shouldWrapWithRowNum() {
+    Dialect dialect = new RowNumDialect();
+    List<Integer> parameters = new ArrayList<>();
+    assertEquals("SELECT * FROM (SELECT row_.*, ROWNUM rownum_ FROM (" + SQL + ") row_ WHERE ROWNUM <= ?) WHERE rownum_ > ?",
+        dialect.getPageSql(SQL, 10, 5, parameters));
+    assertEquals(Arrays.asList(15, 10), parameters);
+
+    parameters.clear();
+    assertEquals("SELECT * FROM (" + SQL + ") WHERE ROWNUM <= ?", dialect.getPageSql(SQL, RowBounds.NO_ROW_OFFSET, 5, parameters));
+    assertEquals(Arrays.asList(5), parameters);
+
+    parameters.clear();
+    dialect.getPageSql(SQL, 10, Integer.MAX_VALUE - 1, parameters);
+    assertEquals(Arrays.asList(Integer.MAX_VALUE, 10), parameters);
+  }
+
+  @Test
+  void shouldResolveDialectFromDatabaseId() {
+    assertEquals(LimitOffsetDialect.class, Dialects.forDatabaseId("HSQL Database Engine").getClass());
+    assertEquals(LimitOffsetDialect.class, Dialects.forDatabaseId("mysql").getClass());
+    assertEquals(LimitOffsetDialect.class, Dialects.forDatabaseId("PostgreSQL").getClass());
+    assertEquals(RowNumDialect.class, Dialects.forDatabaseId("Oracle").getClass());
+    assertEquals(FetchFirstDialect.class, Dialects.forDatabaseId("Apache Derby").getClass());
+    assertEquals(FetchFirstDialect.class, Dialects.forDatabaseId("DB2/LINUXX8664").getClass());
+    assertNull(Dialects.forDatabaseId("Microsoft SQL Server"));
+    assertNull(Dialects.forDatabaseId(null));
+  }
+
+  @Test
+  void shouldMatchDatabaseIdExactly() {
+    assertEquals(LimitOffsetDialect.class, Dialects.forDatabaseId("MySQL").getClass());
+    assertEquals(LimitOffsetDialect.class, Dialects.forDatabaseId("H2").getClass());
+    assertNull(Dialects.forDatabaseId("mysql-like"));
+    assertNull(Dialects.forDatabaseId("Aurora"));
+    assertNull(Dialects.forDatabaseId("Oracle TimesTen"));
+    assertNull(Dialects.forDatabaseId("sqlh2"));
+  }
+
+  @Test
+  void shouldInsertPageClauseBeforeLockingClause() {
+    String sql = SQL + " FOR UPDATE";
+    List<Integer> parameters = new ArrayList<>();
+    assertEquals(SQL + " LIMIT ? OFFSET ? FOR UPDATE", new LimitOffsetDialect().getPageSql(sql, 10, 5, parameters));
+    assertEquals(SQL + " LIMIT ? lock in share mode",
+        new LimitOffsetDialect().getPageSql(SQL + " lock in share mode", 0, 5, new ArrayList<>()));
+    assertEquals(SQL + " OFFSET ? ROWS FETCH NEXT ? ROWS ONLY FOR UPDATE",
+        new FetchFirstDialect().getPageSql(sql, 10, 5, new ArrayList<>()));
+    assertEquals("SELECT * FROM (" + SQL + ") WHERE ROWNUM <= ? FOR UPDATE",
+        new RowNumDialect().getPageSql(sql, 0, 5, new ArrayList<>()));
+
+    // 子查询和字符串中的 FOR UPDATE 不是锁定子句
+    String nested = "select * from (select id from blog for update) b where title = 'for update'";
+    assertEquals(nested + " LIMIT ?", new LimitOffsetDialect().getPageSql(nested, 0, 5, new ArrayList<>()));
+  }
+
+  @Test
+  void shouldSkipIdentifiersAndCommentsWhenLocatingLockingClause() {
+    // 双引号标识符、单行注释和块注释中的 FOR UPDATE 不是锁定子句
+    String sql = "select \"for update\" from blog /* for update ) */ where title = 'it''s (' -- for update\n";
+    assertEquals(sql.length(), Dialects.lockingClauseStart(sql));
+    String unterminated = sql + "/* for update";
+    assertEquals(unterminated.length(), Dialects.lockingClauseStart(unterminated));
+    String comment = sql + "-- for update";
+    assertEquals(comment.length(), Dialects.lockingClauseStart(comment));
+    assertEquals(sql.length(), Dialects.lockingClauseStart(sql + "FOR UPDATE"));
+    assertEquals(sql.length() + 1, Dialects.lockingClauseStart(sql + " for share"));
+
+    // 标识符的一部分不是锁定子句
+    String identifiers = SQL + " where a_for = update_ for update";
+    assertEquals(identifiers.lastIndexOf("for"), Dialects.lockingClauseStart(identifiers));
+    assertEquals(SQL.length(), Dialects.lockingClauseStart(SQL));
+  }
+
+  @Test
+  void shouldKeepLockingClauseOutsideOfRowNumSubquery() {
+    String sql = "select id from blog where \"for update\" = 1 /* for update */ for update";
+    assertEquals("SELECT * FROM (SELECT row_.*, ROWNUM rownum_ FROM (select id from blog where \"for update\" = 1 /* for update */) row_"
+        + " WHERE ROWNUM <= ?) WHERE rownum_ > ? for update", new RowNumDialect().getPageSql(sql, 10, 5, new ArrayList<>()));
+  }
+
+}
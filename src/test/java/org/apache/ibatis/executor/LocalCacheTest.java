@@ -0,0 +1,83 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.apache.ibatis.executor.ExecutionPlaceholder.EXECUTION_PLACEHOLDER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.Test;
+
+class LocalCacheTest {
+
+  @Test
+  void shouldNotEvictUntilTrimmed() {
+    LocalCache cache = new LocalCache("default", 2, 0);
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, Collections.singletonList(i));
+    }
+    assertEquals(5, cache.getSize());
+    assertEquals(Arrays.asList(0, 1, 2), cache.trim());
+    assertEquals(2, cache.getSize());
+    assertNotNull(cache.getObject(3));
+    assertNotNull(cache.getObject(4));
+  }
+
+  @Test
+  void shouldTrimLeastRecentlyUsed() {
+    LocalCache cache = new LocalCache("default", 2, 0);
+    cache.putObject(0, Collections.singletonList(0));
+    cache.putObject(1, Collections.singletonList(1));
+    cache.getObject(0); //touch
+    cache.putObject(2, Collections.singletonList(2));
+    cache.trim();
+    assertNotNull(cache.getObject(0));
+    assertNull(cache.getObject(1));
+    assertNotNull(cache.getObject(2));
+  }
+
+  @Test
+  void shouldTrimByWeight() {
+    LocalCache cache = new LocalCache("default", 0, 1000);
+    for (int i = 0; i < 10; i++) {
+      cache.putObject(i, Collections.nCopies(10, "value" + i));
+    }
+    assertTrue(cache.getWeight() > 1000);
+    cache.trim();
+    assertTrue(cache.getWeight() <= 1000);
+    assertTrue(cache.getSize() > 0 && cache.getSize() < 10);
+    assertNotNull(cache.getObject(9));
+  }
+
+  @Test
+  void shouldNotWeighPlaceholders() {
+    LocalCache cache = new LocalCache("default", 0, 1000);
+    cache.putObject(0, EXECUTION_PLACEHOLDER);
+    assertEquals(0, cache.getWeight());
+    cache.removeObject(0);
+    cache.putObject(0, Collections.singletonList("value"));
+    long weight = cache.getWeight();
+    assertTrue(weight > 0);
+    cache.removeObject(0);
+    assertEquals(0, cache.getWeight());
+  }
+
+}
@@ -0,0 +1,188 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.executor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.domain.blog.Author;
+import org.apache.ibatis.domain.blog.Section;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.transaction.Transaction;
+import org.apache.ibatis.transaction.jdbc.JdbcTransaction;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class PipelineExecutorTest extends BaseExecutorTest {
+
+  private static DataSource pipelineDataSource;
+
+  @BeforeAll
+  static void setupDataSource() throws Exception {
+    pipelineDataSource = createBlogDataSource();
+  }
+
+  @Test
+  void shouldCompleteFuturesWhenFlushed() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      MappedStatement deleteStatement = ExecutorTestHelper.prepareDeleteAuthorMappedStatement(config);
+      CompletableFuture<Integer> first = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      CompletableFuture<Integer> missing = executor.updatePipelined(deleteStatement,
+          new Author(999, null, null, null, null, null));
+      CompletableFuture<Integer> second = executor.updatePipelined(updateStatement,
+          new Author(102, "sally2", "******", "sally@apache.org", null, Section.VIDEOS));
+      assertFalse(first.isDone());
+      assertFalse(missing.isDone());
+      assertFalse(second.isDone());
+
+      List<BatchResult> results = executor.flushStatements();
+      // 相同 SQL 的写操作合并到一个批处理
+      assertEquals(2, results.size());
+      assertEquals(2, results.get(0).getParameterObjects().size());
+      assertEquals(Integer.valueOf(1), first.get());
+      assertEquals(Integer.valueOf(0), missing.get());
+      assertEquals(Integer.valueOf(1), second.get());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldFlushPendingUpdatesBeforeQuery() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      CompletableFuture<Integer> rows = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      List<Author> authors = executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER);
+      assertTrue(rows.isDone());
+      assertEquals(Integer.valueOf(1), rows.get());
+      assertEquals("jim2", authors.get(0).getUsername());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldFailFuturesDiscardedByRollback() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      CompletableFuture<Integer> rows = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      executor.rollback(true);
+      assertTrue(rows.isCompletedExceptionally());
+    } finally {
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldFailFuturesOfExecutedBatchesWhenLaterBatchFails() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      MappedStatement insertStatement = ExecutorTestHelper.prepareInsertAuthorMappedStatement(config);
+      CompletableFuture<Integer> updated = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      // 主键重复，第二个批处理失败
+      CompletableFuture<Integer> inserted = executor.updatePipelined(insertStatement,
+          new Author(101, "jim", "******", "jim@apache.org", null, Section.NEWS));
+      assertThrows(BatchExecutorException.class, executor::flushStatements);
+      // 第一个批处理已经执行，但会随事务回滚
+      assertTrue(updated.isCompletedExceptionally());
+      assertTrue(inserted.isCompletedExceptionally());
+      ExecutionException e = assertThrows(ExecutionException.class, updated::get);
+      assertTrue(e.getCause() instanceof BatchExecutorException);
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldFlushPendingUpdatesBeforePlainUpdate() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      MappedStatement deleteStatement = ExecutorTestHelper.prepareDeleteAuthorMappedStatement(config);
+      MappedStatement selectStatement = ExecutorTestHelper.prepareSelectOneAuthorMappedStatement(config);
+      CompletableFuture<Integer> updated = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      // 普通的写操作不加入批处理，先执行等待中的写操作
+      int deleted = executor.update(deleteStatement, new Author(101, null, null, null, null, null));
+      assertTrue(updated.isDone());
+      assertEquals(Integer.valueOf(1), updated.get());
+      assertEquals(1, deleted);
+      assertTrue(executor.flushStatements().isEmpty());
+      assertTrue(executor.query(selectStatement, 101, RowBounds.DEFAULT, Executor.NO_RESULT_HANDLER).isEmpty());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Test
+  void shouldAllowPipelinedUpdatesFromCallbacks() throws Exception {
+    Executor executor = createExecutor(new JdbcTransaction(pipelineDataSource, null, false));
+    try {
+      MappedStatement updateStatement = ExecutorTestHelper.prepareUpdateAuthorMappedStatement(config);
+      List<CompletableFuture<Integer>> chained = new ArrayList<>();
+      CompletableFuture<Integer> first = executor.updatePipelined(updateStatement,
+          new Author(101, "jim2", "******", "jim@apache.org", null, Section.NEWS));
+      // future 在批处理清空后才完成，回调中可以加入新的写操作
+      first.thenRun(() -> {
+        try {
+          chained.add(executor.updatePipelined(updateStatement,
+              new Author(102, "sally2", "******", "sally@apache.org", null, Section.VIDEOS)));
+        } catch (SQLException e) {
+          throw new RuntimeException(e);
+        }
+      });
+      executor.flushStatements();
+      assertEquals(Integer.valueOf(1), first.get());
+      assertEquals(1, chained.size());
+      assertFalse(chained.get(0).isDone());
+      executor.flushStatements();
+      assertEquals(Integer.valueOf(1), chained.get(0).get());
+    } finally {
+      executor.rollback(true);
+      executor.close(false);
+    }
+  }
+
+  @Override
+  protected Executor createExecutor(Transaction transaction) {
+    return new PipelineExecutor(config, transaction);
+  }
+}
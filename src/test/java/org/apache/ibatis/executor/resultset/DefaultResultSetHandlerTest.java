@@ -16,10 +16,13 @@
 package org.apache.ibatis.executor.resultset;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
+import java.math.BigDecimal;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.ResultSet;
@@ -28,11 +31,14 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 
 import org.apache.ibatis.builder.StaticSqlSource;
+import org.apache.ibatis.dialect.RowNumDialect;
+import org.apache.ibatis.domain.blog.Author;
 import org.apache.ibatis.executor.Executor;
 import org.apache.ibatis.executor.ExecutorException;
 import org.apache.ibatis.executor.parameter.ParameterHandler;
@@ -41,6 +47,7 @@ import org.apache.ibatis.mapping.MappedStatement;
 import org.apache.ibatis.mapping.ResultMap;
 import org.apache.ibatis.mapping.ResultMapping;
 import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.session.AutoMappingUnknownColumnBehavior;
 import org.apache.ibatis.session.Configuration;
 import org.apache.ibatis.session.ResultHandler;
 import org.apache.ibatis.session.RowBounds;
@@ -129,6 +136,77 @@ class DefaultResultSetHandlerTest {
     }
   }
 
+  @Test
+  void shouldFindOutermostOrderByColumns() {
+    assertEquals(Arrays.asList("T.ID", "NAME"),
+        DefaultResultSetHandler.getOrderByColumns("select * from t where x in (select y from u order by z) order by t.id desc, \"name\""));
+    assertEquals(Arrays.asList("AUTHOR_ID", "POST_ID"),
+        DefaultResultSetHandler.getOrderByColumns("select a.id author_id from a\n order  by author_id, post_id limit ? offset ?"));
+    assertEquals(Collections.singletonList("LOWER(NAME)"),
+        DefaultResultSetHandler.getOrderByColumns("select * from t order by lower(name)"));
+    assertEquals(Collections.emptyList(),
+        DefaultResultSetHandler.getOrderByColumns("select * from (select * from t order by id) where rownum <= ?"));
+    assertEquals(Collections.emptyList(),
+        DefaultResultSetHandler.getOrderByColumns("select 'order by id' from t"));
+  }
+
+  @Test
+  void shouldResolveOrderByColumnsAgainstSelectList() {
+    List<String[]> items = DefaultResultSetHandler.getSelectItems(
+        "select distinct a.id, a.name as author_name, c.id comment_id, count(*) total from a join c on c.a_id = a.id order by c.id");
+    assertEquals("ID", DefaultResultSetHandler.resolveColumnLabel("A.ID", items));
+    assertEquals("COMMENT_ID", DefaultResultSetHandler.resolveColumnLabel("C.ID", items));
+    assertEquals("COMMENT_ID", DefaultResultSetHandler.resolveColumnLabel("COMMENT_ID", items));
+    assertEquals("AUTHOR_NAME", DefaultResultSetHandler.resolveColumnLabel("2", items));
+    assertEquals("TOTAL", DefaultResultSetHandler.resolveColumnLabel("TOTAL", items));
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("B.ID", items));
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("LOWER(NAME)", items));
+
+    // 同名的列或者通配符无法确定对应哪一列
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("ID",
+        DefaultResultSetHandler.getSelectItems("select a.id, c.id from a join c on c.a_id = a.id")));
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("ID",
+        DefaultResultSetHandler.getSelectItems("select a.id, c.* from a join c on c.a_id = a.id")));
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("C.ID",
+        DefaultResultSetHandler.getSelectItems("select a.id, c.* from a join c on c.a_id = a.id")));
+    assertNull(DefaultResultSetHandler.resolveColumnLabel("A.ID",
+        DefaultResultSetHandler.getSelectItems("select a.id, c.* from a join c on c.a_id = a.id")));
+  }
+
+  @Test
+  void shouldIgnoreRowNumColumnOfPagedSql() throws Exception {
+    final Configuration config = new Configuration();
+    config.setPhysicalPagination(true);
+    config.setDialect(new RowNumDialect());
+    config.setAutoMappingUnknownColumnBehavior(AutoMappingUnknownColumnBehavior.FAILING);
+    final MappedStatement ms = new MappedStatement.Builder(config, "selectAuthors", new StaticSqlSource(config, "select id from author"),
+        SqlCommandType.SELECT).resultMaps(Collections.singletonList(
+            new ResultMap.Builder(config, "authorMap", Author.class, new ArrayList<>()).build())).build();
+    // SQL 已经分页时，语句处理器传入 RowBounds.DEFAULT
+    final BoundSql boundSql = ms.getBoundSql(null, new RowBounds(10, 5));
+    final DefaultResultSetHandler resultSetHandler = new DefaultResultSetHandler(null, ms, null, null, boundSql, RowBounds.DEFAULT);
+
+    when(stmt.getResultSet()).thenReturn(rs);
+    when(rs.getMetaData()).thenReturn(rsmd);
+    when(rs.getType()).thenReturn(ResultSet.TYPE_FORWARD_ONLY);
+    when(rs.next()).thenReturn(true).thenReturn(false);
+    when(rs.getInt("ID")).thenReturn(101);
+    when(rsmd.getColumnCount()).thenReturn(2);
+    doReturn("ID").when(rsmd).getColumnLabel(1);
+    doReturn("ROWNUM_").when(rsmd).getColumnLabel(2);
+    doReturn(Types.INTEGER).when(rsmd).getColumnType(1);
+    doReturn(Types.NUMERIC).when(rsmd).getColumnType(2);
+    doReturn(Integer.class.getCanonicalName()).when(rsmd).getColumnClassName(1);
+    doReturn(BigDecimal.class.getCanonicalName()).when(rsmd).getColumnClassName(2);
+    when(stmt.getConnection()).thenReturn(conn);
+    when(conn.getMetaData()).thenReturn(dbmd);
+    when(dbmd.supportsMultipleResultSets()).thenReturn(false);
+
+    final List<Object> results = resultSetHandler.handleResultSets(stmt);
+    assertEquals(1, results.size());
+    assertEquals(101, ((Author) results.get(0)).getId());
+  }
+
   MappedStatement getMappedStatement() {
     final Configuration config = new Configuration();
     final TypeHandlerRegistry registry = config.getTypeHandlerRegistry();
@@ -15,6 +15,7 @@
  */
 package org.apache.ibatis.executor.statement;
 
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.reset;
@@ -145,4 +146,19 @@ class BaseStatementHandlerTest {
         verify(statement).setQueryTimeout(10);
     }
 
+    @Test
+    void cancelStatementsRegisteredByCurrentThread() throws SQLException {
+        StatementCancellation cancellation = new StatementCancellation();
+        cancellation.bind();
+        try {
+            StatementCancellation.register(statement);
+            cancellation.cancel();
+
+            verify(statement).cancel(); // cancel a running statement
+            assertThrows(SQLException.class, () -> StatementCancellation.register(statement)); // reject new statements
+        } finally {
+            cancellation.unbind();
+        }
+    }
+
 }
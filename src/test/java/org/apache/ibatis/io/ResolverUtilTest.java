@@ -0,0 +1,131 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.io;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.apache.ibatis.domain.blog.Blog;
+import org.apache.ibatis.domain.blog.mappers.AuthorMapper;
+import org.apache.ibatis.domain.blog.mappers.BlogMapper;
+import org.apache.ibatis.domain.jpetstore.Cart;
+import org.apache.ibatis.type.IntegerTypeHandler;
+import org.apache.ibatis.type.TypeHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ResolverUtilTest {
+
+  private Path directory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    directory = Files.createTempDirectory("mybatis-index");
+    Files.createDirectories(directory.resolve("META-INF"));
+  }
+
+  @AfterEach
+  void tearDown() throws Exception {
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+    }
+  }
+
+  @Test
+  void shouldFindClassesFromIndex() throws Exception {
+    Files.write(directory.resolve(ClassIndex.INDEX_LOCATION), Arrays.asList(
+        "# test index", "package org.apache.ibatis.domain.blog.mappers", AuthorMapper.class.getName()), StandardCharsets.UTF_8);
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+      ResolverUtil<Object> indexed = new ResolverUtil<>();
+      indexed.setClassLoader(loader);
+      indexed.find(new ResolverUtil.IsA(Object.class), "org.apache.ibatis.domain.blog.mappers");
+      assertThat(indexed.getClasses()).containsExactly(AuthorMapper.class);
+
+      // 索引中没有的包，照常扫描
+      ResolverUtil<Object> scanned = new ResolverUtil<>();
+      scanned.setClassLoader(loader);
+      scanned.find(new ResolverUtil.IsA(Object.class), "org.apache.ibatis.domain.jpetstore");
+      assertThat(scanned.getClasses()).contains(Cart.class);
+    }
+  }
+
+  @Test
+  void shouldMergeIndexWithScanningWhenPackageIsNotIndexed() throws Exception {
+    // 索引中有该包的类，但是没有声明该包，例如其它 jar 包生成的索引
+    Files.write(directory.resolve(ClassIndex.INDEX_LOCATION), Arrays.asList(
+        "# test index", AuthorMapper.class.getName()), StandardCharsets.UTF_8);
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+      ResolverUtil<Object> resolverUtil = new ResolverUtil<>();
+      resolverUtil.setClassLoader(loader);
+      resolverUtil.find(new ResolverUtil.IsA(Object.class), "org.apache.ibatis.domain.blog.mappers");
+      assertThat(resolverUtil.getClasses()).contains(AuthorMapper.class, BlogMapper.class);
+    }
+  }
+
+  @Test
+  void shouldMergeIndexWithScanningForParentPackage() throws Exception {
+    Files.write(directory.resolve(ClassIndex.INDEX_LOCATION), Arrays.asList(
+        "package org.apache.ibatis.domain.blog.mappers", AuthorMapper.class.getName()), StandardCharsets.UTF_8);
+
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+      ClassIndex index = ClassIndex.getInstance(loader);
+      assertThat(index.covers("org/apache/ibatis/domain/blog/mappers")).isTrue();
+      assertThat(index.covers("org/apache/ibatis/domain/blog")).isFalse();
+      assertThat(index.covers("org/apache/ibatis/domain/blog/mappersx")).isFalse();
+
+      ResolverUtil<Object> resolverUtil = new ResolverUtil<>();
+      resolverUtil.setClassLoader(loader);
+      resolverUtil.find(new ResolverUtil.IsA(Object.class), "org.apache.ibatis.domain.blog");
+      assertThat(resolverUtil.getClasses()).contains(AuthorMapper.class, BlogMapper.class, Blog.class);
+    }
+  }
+
+  @Test
+  void shouldGenerateIndex() throws Exception {
+    Path index = directory.resolve(ClassIndex.INDEX_LOCATION);
+    ClassIndex.main(new String[] {index.toString(), "org.apache.ibatis.domain.blog.mappers"});
+
+    List<String> lines = Files.readAllLines(index, StandardCharsets.UTF_8);
+    assertThat(lines).contains("package org.apache.ibatis.domain.blog.mappers", AuthorMapper.class.getName(), BlogMapper.class.getName());
+    try (URLClassLoader loader = new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader())) {
+      assertThat(ClassIndex.getInstance(loader).list("org/apache/ibatis/domain/blog"))
+          .contains("org/apache/ibatis/domain/blog/mappers/AuthorMapper.class")
+          .hasSize(lines.size() - 2);
+      assertThat(ClassIndex.getInstance(loader).list("org/apache/ibatis/domain/jpetstore")).isNull();
+    }
+  }
+
+  @Test
+  void shouldFindClassesWithParallelLoading() {
+    ResolverUtil<TypeHandler<?>> resolverUtil = new ResolverUtil<>();
+    resolverUtil.findImplementations(TypeHandler.class, "org.apache.ibatis.type");
+    assertThat(resolverUtil.getClasses()).contains(IntegerTypeHandler.class);
+  }
+
+}
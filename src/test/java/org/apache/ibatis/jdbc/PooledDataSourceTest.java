@@ -16,7 +16,11 @@
 package org.apache.ibatis.jdbc;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -24,6 +28,10 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.ibatis.BaseDataTest;
@@ -75,6 +83,98 @@ class PooledDataSourceTest extends BaseDataTest {
     }
   }
 
+  @Test
+  void shouldParkWaitingThreadsOnCondition() throws Exception {
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    ds.setPoolMaximumActiveConnections(2);
+    ds.setPoolMaximumIdleConnections(2);
+    ds.setPoolTimeToWait(60000);
+    List<Connection> held = new ArrayList<>();
+    held.add(ds.getConnection());
+    held.add(ds.getConnection());
+    List<Thread> waiters = new ArrayList<>();
+    List<Throwable> failures = new CopyOnWriteArrayList<>();
+    try {
+      for (int i = 0; i < 5; i++) {
+        Thread waiter = new Thread(() -> {
+          try (Connection con = ds.getConnection()) {
+            assertFalse(con.isClosed());
+          } catch (Throwable t) {
+            failures.add(t);
+          }
+        });
+        waiter.start();
+        waiters.add(waiter);
+      }
+      // 等待的线程应该停在 Condition 上（LockSupport.park），而不是 Object.wait 的监视器上。
+      // 虚拟线程在监视器上阻塞时会占用载体线程
+      ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+      for (Thread waiter : waiters) {
+        ThreadInfo info = threads.getThreadInfo(waiter.getId());
+        while (info.getThreadState() != Thread.State.TIMED_WAITING || info.getLockName() == null) {
+          assertTrue(System.nanoTime() < deadline, "Thread did not start waiting for a connection");
+          Thread.yield();
+          info = threads.getThreadInfo(waiter.getId());
+        }
+        assertTrue(info.getLockName().contains("ConditionObject"), info.getLockName());
+      }
+      assertEquals(5, ds.getPoolState().getHadToWaitCount());
+    } finally {
+      for (Connection con : held) {
+        con.close();
+      }
+    }
+    for (Thread waiter : waiters) {
+      waiter.join(30000);
+      assertFalse(waiter.isAlive());
+    }
+    assertTrue(failures.isEmpty(), failures.toString());
+    assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+    ds.forceCloseAll();
+  }
+
+  @Test
+  void shouldHandOutConnectionsToManyVirtualThreads() throws Exception {
+    ExecutorService executor = newVirtualThreadPerTaskExecutor();
+    assumeTrue(executor != null, "Virtual threads require Java 21 or later");
+    PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
+    try {
+      ds.setPoolMaximumActiveConnections(3);
+      ds.setPoolMaximumIdleConnections(3);
+      ds.setPoolTimeToWait(60000);
+      // 虚拟线程远多于载体线程，等待连接时如果占用载体线程，持有连接的线程将无法继续执行
+      int tasks = Runtime.getRuntime().availableProcessors() * 50;
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < tasks; i++) {
+        futures.add(executor.submit(() -> {
+          try (Connection con = ds.getConnection()) {
+            Thread.sleep(1);
+            assertFalse(con.isClosed());
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+      assertEquals(0, ds.getPoolState().getActiveConnectionCount());
+      assertEquals(tasks, ds.getPoolState().getRequestCount());
+    } finally {
+      executor.shutdownNow();
+      ds.forceCloseAll();
+    }
+  }
+
+  private static ExecutorService newVirtualThreadPerTaskExecutor() {
+    try {
+      // Java 21+
+      return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+
   @Test
   void shouldNotFailCallingToStringOverAnInvalidConnection() throws Exception {
     PooledDataSource ds = createPooledDataSource(JPETSTORE_PROPERTIES);
@@ -18,11 +18,15 @@ package org.apache.ibatis.mapping;
 import org.apache.ibatis.builder.InitializingObject;
 import org.apache.ibatis.cache.Cache;
 import org.apache.ibatis.cache.CacheException;
+import org.apache.ibatis.cache.Weigher;
+import org.apache.ibatis.cache.decorators.TaggedCache;
 import org.apache.ibatis.cache.impl.PerpetualCache;
+import org.apache.ibatis.cache.stats.CacheStats;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 
 import java.lang.reflect.Field;
+import java.util.Properties;
 
 import static com.googlecode.catchexception.apis.BDDCatchException.*;
 import static org.assertj.core.api.BDDAssertions.then;
@@ -43,6 +47,69 @@ class CacheBuilderTest {
       .hasMessage("Failed cache initialization for 'test' on 'org.apache.ibatis.mapping.CacheBuilderTest$InitializingFailureCache'");
   }
 
+  @Test
+  void testWeigherProperty() {
+    Properties props = new Properties();
+    props.setProperty("maxWeight", "10");
+    props.setProperty("weigher", ConstantWeigher.class.getName());
+    Cache cache = new CacheBuilder("test").properties(props).build();
+    for (int i = 0; i < 5; i++) {
+      cache.putObject(i, i);
+    }
+    Assertions.assertThat(cache.getSize()).isEqualTo(2);
+  }
+
+  @Test
+  void testStats() {
+    Properties props = new Properties();
+    props.setProperty("maxWeight", "10");
+    props.setProperty("weigher", ConstantWeigher.class.getName());
+    CacheStats stats = new CacheStats("test");
+    Cache cache = new CacheBuilder("test").properties(props).stats(stats).build();
+    for (int i = 0; i < 3; i++) {
+      cache.putObject(i, i);
+    }
+    cache.getObject(0);
+    cache.getObject(2);
+    Assertions.assertThat(stats.getPuts()).isEqualTo(3);
+    Assertions.assertThat(stats.getEvictions()).isEqualTo(1);
+    Assertions.assertThat(stats.getHits()).isEqualTo(1);
+    Assertions.assertThat(stats.getMisses()).isEqualTo(1);
+    Assertions.assertThat(stats.getEntryCount()).isEqualTo(2);
+    Assertions.assertThat(stats.getEstimatedBytes()).isEqualTo(10);
+    cache.clear();
+    Assertions.assertThat(stats.getEstimatedBytes()).isEqualTo(0);
+  }
+
+  @Test
+  void testTaggedCacheOnlyWhenTagged() {
+    Assertions.assertThat(new CacheBuilder("test").build()).isNotInstanceOf(TaggedCache.class);
+    Assertions.assertThat(new CacheBuilder("test").tagged(true).build()).isInstanceOf(TaggedCache.class);
+  }
+
+  @Test
+  void testRefreshAhead() {
+    CacheBuilder builder = new CacheBuilder("test");
+    builder.build();
+    Assertions.assertThat(builder.isRefreshAhead()).isFalse();
+
+    Properties props = new Properties();
+    props.setProperty("timeToLive", "1000");
+    props.setProperty("refreshAheadFactor", "0.5");
+    builder = new CacheBuilder("test").properties(props);
+    builder.build();
+    Assertions.assertThat(builder.isRefreshAhead()).isTrue();
+  }
+
+  @Test
+  void testInvalidWeigherProperty() {
+    Properties props = new Properties();
+    props.setProperty("weigher", "unknown.Weigher");
+    when(new CacheBuilder("test").properties(props)).build();
+    then(caughtException()).isInstanceOf(CacheException.class)
+      .hasMessageStartingWith("Could not instantiate weigher (unknown.Weigher).");
+  }
+
   @SuppressWarnings("unchecked")
   private <T> T unwrap(Cache cache) {
     Field field;
@@ -76,6 +143,15 @@ class CacheBuilderTest {
 
   }
 
+  public static class ConstantWeigher implements Weigher {
+
+    @Override
+    public long weigh(Object key, Object value) {
+      return 5;
+    }
+
+  }
+
   private static class InitializingFailureCache extends PerpetualCache implements InitializingObject {
 
     public InitializingFailureCache(String id) {
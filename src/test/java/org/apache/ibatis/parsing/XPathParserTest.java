@@ -16,9 +16,14 @@
 package org.apache.ibatis.parsing;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 
 import java.io.InputStream;
+import java.util.List;
 
+import org.apache.ibatis.builder.xml.XMLMapperEntityResolver;
 import org.apache.ibatis.io.Resources;
 import org.junit.jupiter.api.Test;
 
@@ -44,4 +49,41 @@ class XPathParserTest {
     }
   }
 
+  @Test
+  void shouldEvaluateSimplePathsLikeXPath() throws Exception {
+    try (InputStream inputStream = Resources.getResourceAsStream("org/apache/ibatis/builder/AuthorMapper.xml")) {
+      XPathParser parser = new XPathParser(inputStream, true, null, new XMLMapperEntityResolver());
+      XNode mapper = parser.evalNode("/mapper");
+      assertSame(parser.evalNode("/child::mapper").getNode(), mapper.getNode());
+      assertSameNodes(mapper.evalNodes("child::resultMap"), mapper.evalNodes("/mapper/resultMap"));
+      assertSameNodes(mapper.evalNodes("child::select|child::insert|child::update|child::delete"),
+          mapper.evalNodes("select|insert|update|delete"));
+      assertSameNodes(mapper.evalNodes("child::resultMap/child::id"), mapper.evalNodes("resultMap/id"));
+      assertNull(mapper.evalNode("cache-ref"));
+    }
+  }
+
+  @Test
+  void shouldBuildSameDocumentWithStax() throws Exception {
+    String resource = "org/apache/ibatis/builder/AuthorMapper.xml";
+    XPathParser dom;
+    XPathParser stax;
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      dom = new XPathParser(inputStream, true, null, new XMLMapperEntityResolver());
+    }
+    try (InputStream inputStream = Resources.getResourceAsStream(resource)) {
+      stax = new XPathParser(StaxDocumentBuilder.parse(inputStream));
+    }
+    assertEquals(dom.evalNode("/mapper").toString(), stax.evalNode("/mapper").toString());
+    assertEquals(dom.evalNodes("/mapper/*").size(), stax.evalNodes("/mapper/*").size());
+  }
+
+  private static void assertSameNodes(List<XNode> expected, List<XNode> actual) {
+    assertFalse(expected.isEmpty());
+    assertEquals(expected.size(), actual.size());
+    for (int i = 0; i < expected.size(); i++) {
+      assertSame(expected.get(i).getNode(), actual.get(i).getNode());
+    }
+  }
+
 }
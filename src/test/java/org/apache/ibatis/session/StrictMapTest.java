@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.session;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.ibatis.session.Configuration.StrictMap;
+import org.junit.jupiter.api.Test;
+
+class StrictMapTest {
+
+  @Test
+  void shouldReturnDefaultForMissingKey() {
+    StrictMap<String> map = new StrictMap<>("test");
+    map.put("a.b", "value");
+    assertEquals("value", map.getOrDefault("a.b", "default"));
+    assertEquals("default", map.getOrDefault("missing", "default"));
+    assertEquals("default", map.getOrDefault(null, "default"));
+  }
+
+  @Test
+  void shouldNotThrowOnContainsKey() {
+    StrictMap<String> map = new StrictMap<>("test");
+    map.put("a.b", "value");
+    assertTrue(map.containsKey("a.b"));
+    assertTrue(map.containsKey("b"));
+    assertFalse(map.containsKey("missing"));
+    assertFalse(map.containsKey(null));
+  }
+
+  @Test
+  void shouldRejectDuplicateAndAmbiguousKeys() {
+    StrictMap<String> map = new StrictMap<>("test");
+    map.put("a.b", "first");
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> map.put("a.b", "second"));
+    assertEquals("test already contains value for a.b", e.getMessage());
+    map.put("c.b", "third");
+    assertEquals("first", map.get("a.b"));
+    e = assertThrows(IllegalArgumentException.class, () -> map.get("b"));
+    assertEquals("b is ambiguous in test (try using the full name including the namespace, or rename one of the entries)", e.getMessage());
+  }
+
+  @Test
+  void shouldBehaveTheSameWhenConcurrent() {
+    StrictMap<String> map = new StrictMap<>("test");
+    map.setConcurrent(true);
+    map.put("a.b", "value");
+    assertTrue(map.containsKey("b"));
+    assertEquals("value", map.get("a.b"));
+    assertThrows(IllegalArgumentException.class, () -> map.get("missing"));
+    map.setConcurrent(false);
+    assertEquals("value", map.get("b"));
+  }
+
+}
@@ -16,6 +16,7 @@
 package org.apache.ibatis.submitted.blocking_cache;
 
 import java.io.Reader;
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -70,6 +71,16 @@ class BlockingCacheTest {
     Assertions.assertTrue(totalTime > 1000);
   }
 
+  @Test
+  void shouldNotBlockOnRepeatedSelectInOneSession() {
+    Assertions.assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        PersonMapper pm = sqlSession.getMapper(PersonMapper.class);
+        Assertions.assertEquals(pm.findAll().size(), pm.findAll().size());
+      }
+    });
+  }
+
   private void accessDB() {
     try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
       PersonMapper pm = sqlSession.getMapper(PersonMapper.class);
@@ -0,0 +1,126 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_refresh;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CacheRefreshTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.cache_refresh.Mapper.";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_refresh/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    sqlSessionFactory.getConfiguration().addInterceptor(new QueryThreadPlugin());
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_refresh/CreateDB.sql");
+  }
+
+  @Test
+  void shouldOnlyRegisterRefreshAheadCaches() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Assertions.assertTrue(configuration.isRefreshAheadCache("org.apache.ibatis.submitted.cache_refresh.Mapper"));
+    Assertions.assertFalse(configuration.isRefreshAheadCache("org.apache.ibatis.submitted.cache_refresh.Other"));
+  }
+
+  @Test
+  void shouldRefreshCachedResultInBackground() throws Exception {
+    Object author;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      author = sqlSession.selectOne(NS + "getAuthor", 1);
+    }
+    // 不经过 MyBatis 修改数据，二级缓存不会被清空
+    try (Connection conn = sqlSessionFactory.getConfiguration().getEnvironment().getDataSource().getConnection();
+         Statement stmt = conn.createStatement()) {
+      stmt.executeUpdate("update author set name = 'john' where id = 1");
+    }
+    Thread.sleep(300);
+    // 超过 timeToLive * refreshAheadFactor 后访问，返回原来的值并在后台刷新
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+    }
+    Map<String, Object> refreshed = selectAuthor();
+    for (int i = 0; i < 50 && refreshed == author; i++) {
+      Thread.sleep(10);
+      refreshed = selectAuthor();
+    }
+    Assertions.assertEquals("john", refreshed.get("NAME"));
+    // 刷新和普通的查询一样经过插件
+    Assertions.assertTrue(QueryThreadPlugin.THREADS.contains("mybatis-cache-refresh"));
+  }
+
+  private Map<String, Object> selectAuthor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      return sqlSession.selectOne(NS + "getAuthor", 1);
+    }
+  }
+
+  @Intercepts(@Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class}))
+  public static class QueryThreadPlugin implements Interceptor {
+
+    static final Set<String> THREADS = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public Object intercept(Invocation invocation) throws Throwable {
+      THREADS.add(Thread.currentThread().getName());
+      return invocation.proceed();
+    }
+
+    @Override
+    public Object plugin(Object target) {
+      return Plugin.wrap(target, this);
+    }
+
+    @Override
+    public void setProperties(Properties properties) {
+    }
+
+  }
+
+}
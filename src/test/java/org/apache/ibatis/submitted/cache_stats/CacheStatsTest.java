@@ -0,0 +1,98 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_stats;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cache.stats.CacheStats;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheStatsTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.cache_stats.Mapper";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_stats/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_stats/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRecordHitsMissesAndLoads() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectOne(NS + ".getAuthor", 1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.selectOne(NS + ".getAuthor", 1);
+    }
+    CacheStats stats = sqlSessionFactory.getConfiguration().getCacheStatsRegistry().getStats(NS);
+    Assertions.assertEquals(1, stats.getHits());
+    Assertions.assertEquals(1, stats.getMisses());
+    Assertions.assertEquals(0.5, stats.getHitRatio());
+    Assertions.assertEquals(1, stats.getPuts());
+    Assertions.assertEquals(1, stats.getLoads());
+    Assertions.assertTrue(stats.getTotalLoadTime() > 0);
+    Assertions.assertEquals(1, stats.getEntryCount());
+    Assertions.assertEquals(2, stats.getCommits());
+  }
+
+  @Test
+  void shouldRecordEvictionsAndRollbacks() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      for (int id = 1; id <= 3; id++) {
+        sqlSession.selectOne(NS + ".getAuthor", id);
+      }
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("id", 1);
+      params.put("name", "jimmy");
+      sqlSession.update(NS + ".updateAuthor", params);
+      sqlSession.rollback();
+    }
+    CacheStats stats = sqlSessionFactory.getConfiguration().getCacheStatsRegistry().getStats(NS);
+    // size 为 2 ，添加第 3 个缓存项时淘汰 1 个
+    Assertions.assertEquals(3, stats.getPuts());
+    Assertions.assertEquals(1, stats.getEvictions());
+    Assertions.assertEquals(2, stats.getEntryCount());
+    // 关闭没有修改的会话时也会提交
+    Assertions.assertEquals(3, stats.getCommits());
+    Assertions.assertEquals(1, stats.getRollbacks());
+
+    sqlSessionFactory.getConfiguration().getCacheStatsRegistry().reset();
+    Assertions.assertEquals(0, stats.getPuts());
+    Assertions.assertEquals(2, stats.getEntryCount());
+  }
+
+}
@@ -0,0 +1,120 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cache_tags;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class CacheTagsTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.cache_tags.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cache_tags/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cache_tags/CreateDB.sql");
+  }
+
+  @Test
+  void shouldInvalidateOnlyResultsWithModifiedTags() {
+    Object blog;
+    Object author;
+    Object blogAndAuthor;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      blog = sqlSession.selectOne(NS + "getBlog", 1);
+      author = sqlSession.selectOne(NS + "getAuthor", 1);
+      blogAndAuthor = sqlSession.selectOne(NS + "getBlogAndAuthor", 1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertSame(blog, sqlSession.selectOne(NS + "getBlog", 1));
+      Assertions.assertSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+      Assertions.assertSame(blogAndAuthor, sqlSession.selectOne(NS + "getBlogAndAuthor", 1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.update(NS + "updateAuthor", params("name", "john"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertSame(blog, sqlSession.selectOne(NS + "getBlog", 1));
+      Map<String, Object> newAuthor = sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertEquals("john", newAuthor.get("NAME"));
+      // 没有标签的查询结果在任何修改后失效
+      Map<String, Object> newBlogAndAuthor = sqlSession.selectOne(NS + "getBlogAndAuthor", 1);
+      Assertions.assertEquals("john", newBlogAndAuthor.get("NAME"));
+    }
+  }
+
+  @Test
+  void shouldHideInvalidatedResultsBeforeCommit() {
+    Object blog;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      blog = sqlSession.selectOne(NS + "getBlog", 1);
+      sqlSession.selectOne(NS + "getAuthor", 1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.update(NS + "updateAuthor", params("name", "john"));
+      Assertions.assertSame(blog, sqlSession.selectOne(NS + "getBlog", 1));
+      Map<String, Object> author = sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertEquals("john", author.get("NAME"));
+      sqlSession.rollback();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> author = sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertEquals("jim", author.get("NAME"));
+    }
+  }
+
+  @Test
+  void shouldFlushWholeCacheForUpdatesWithoutTags() {
+    Object author;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      author = sqlSession.selectOne(NS + "getAuthor", 1);
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      sqlSession.update(NS + "updateBlog", params("title", "Jim Daily"));
+      sqlSession.commit();
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertNotSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+    }
+  }
+
+  private static Map<String, Object> params(String name, Object value) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", 1);
+    params.put(name, value);
+    return params;
+  }
+
+}
@@ -0,0 +1,123 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.compact_nested_results;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.executor.ExecutorException;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CompactNestedResultsTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/compact_nested_results/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/compact_nested_results/CreateDB.sql");
+  }
+
+  @Test
+  void shouldMapJoinOrderedById() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Author> authors = sqlSession.selectList("getAuthorsOrderedById");
+      Assertions.assertEquals("1:Zoe[1:Post1(1,3,7), 2:Post2(5)], 2:Adam[3:Post3(2,6), 4:Post4(), 5:Post5(4)], 3:Mia[]", describe(authors));
+    }
+  }
+
+  @Test
+  void shouldMapJoinNotGroupedByParent() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Author> authors = sqlSession.selectList("getAuthorsUnordered");
+      Assertions.assertEquals(3, authors.size());
+      Map<Integer, String> byId = new TreeMap<>();
+      for (Author author : authors) {
+        author.getPosts().sort((a, b) -> a.getId() - b.getId());
+        for (Post post : author.getPosts()) {
+          post.getComments().sort((a, b) -> a.getId() - b.getId());
+        }
+        byId.put(author.getId(), describe(author));
+      }
+      Assertions.assertEquals("[1:Zoe[1:Post1(1,3,7), 2:Post2(5)], 2:Adam[3:Post3(2,6), 4:Post4(), 5:Post5(4)], 3:Mia[]]",
+          byId.values().toString());
+    }
+  }
+
+  @Test
+  void shouldHandCompleteParentsToResultHandlerWhenOrderedById() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<String> handled = new ArrayList<>();
+      // 每个父对象在下一个父对象开始时交给 ResultHandler ，此时已经包含全部嵌套对象
+      sqlSession.select("getAuthorsOrderedById", context -> handled.add(describe((Author) context.getResultObject())));
+      Assertions.assertEquals("[1:Zoe[1:Post1(1,3,7), 2:Post2(5)], 2:Adam[3:Post3(2,6), 4:Post4(), 5:Post5(4)], 3:Mia[]]",
+          handled.toString());
+    }
+  }
+
+  @Test
+  void shouldNotAssumeGroupingWhenNotOrderedById() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Author> authors = sqlSession.selectList("getAuthorsOrderedByName");
+      Assertions.assertEquals("2:Adam[3:Post3(2,6), 4:Post4(), 5:Post5(4)], 3:Mia[], 1:Zoe[1:Post1(1,3,7), 2:Post2(5)]", describe(authors));
+
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class,
+          () -> sqlSession.select("getAuthorsOrderedByName", context -> { }));
+      Assertions.assertTrue(e.getCause() instanceof ExecutorException);
+    }
+  }
+
+  @Test
+  void shouldNotTakeQualifiedChildIdForParentId() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // order by c.id 排序的是评论，而不是结果集中的 id 列
+      List<Author> authors = sqlSession.selectList("getAuthorsOrderedByCommentId");
+      Assertions.assertEquals(3, authors.size());
+
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class,
+          () -> sqlSession.select("getAuthorsOrderedByCommentId", context -> { }));
+      Assertions.assertTrue(e.getCause() instanceof ExecutorException);
+    }
+  }
+
+  private static String describe(List<Author> authors) {
+    return authors.stream().map(CompactNestedResultsTest::describe).collect(Collectors.joining(", "));
+  }
+
+  private static String describe(Author author) {
+    return author.getId() + ":" + author.getName() + author.getPosts().stream()
+        .map(post -> post.getId() + ":" + post.getTitle() + post.getComments().stream()
+            .map(comment -> String.valueOf(comment.getId())).collect(Collectors.joining(",", "(", ")")))
+        .collect(Collectors.joining(", ", "[", "]"));
+  }
+
+}
@@ -0,0 +1,54 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+drop table comment if exists;
+drop table post if exists;
+drop table author if exists;
+
+create table author (
+  id int,
+  name varchar(20)
+);
+
+create table post (
+  id int,
+  author_id int,
+  title varchar(20)
+);
+
+create table comment (
+  id int,
+  post_id int,
+  text varchar(20)
+);
+
+insert into author values(1, 'Zoe');
+insert into author values(2, 'Adam');
+insert into author values(3, 'Mia');
+
+insert into post values(1, 1, 'Post1');
+insert into post values(2, 1, 'Post2');
+insert into post values(3, 2, 'Post3');
+insert into post values(4, 2, 'Post4');
+insert into post values(5, 2, 'Post5');
+
+insert into comment values(1, 1, 'Comment1');
+insert into comment values(2, 3, 'Comment2');
+insert into comment values(3, 1, 'Comment3');
+insert into comment values(4, 5, 'Comment4');
+insert into comment values(5, 2, 'Comment5');
+insert into comment values(6, 3, 'Comment6');
+insert into comment values(7, 1, 'Comment7');
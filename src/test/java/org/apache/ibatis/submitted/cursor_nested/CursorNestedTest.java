@@ -27,7 +27,12 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
 import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class CursorNestedTest {
 
@@ -45,6 +50,40 @@ class CursorNestedTest {
         "org/apache/ibatis/submitted/cursor_nested/CreateDB.sql");
   }
 
+  @Test
+  void shouldReturnCompleteParentsWithoutResultOrdered() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsersNotResultOrdered();
+      // 记录每个父对象返回时嵌套集合的大小
+      List<String> sizes = new ArrayList<>();
+      for (User user : usersCursor) {
+        sizes.add(user.getId() + ":" + user.getGroups().size() + "/" + user.getRoles().size());
+      }
+      Assertions.assertEquals(Arrays.asList("1:2/3", "2:1/3", "3:3/1", "4:2/2"), sizes);
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldStreamAllUsersInChunks() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      List<User> users;
+      try (Stream<User> stream = usersCursor.stream(3)) {
+        users = stream.collect(Collectors.toList());
+      }
+      Assertions.assertEquals(4, users.size());
+      Assertions.assertEquals(2, users.get(0).getGroups().size());
+      Assertions.assertEquals(3, users.get(0).getRoles().size());
+      Assertions.assertEquals(1, users.get(1).getGroups().size());
+      Assertions.assertEquals(3, users.get(2).getGroups().size());
+      Assertions.assertEquals(1, users.get(2).getRoles().size());
+      Assertions.assertEquals(2, users.get(3).getGroups().size());
+      Assertions.assertEquals(2, users.get(3).getRoles().size());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
   @Test
   void shouldGetAllUser() {
     Cursor<User> usersCursor;
@@ -0,0 +1,157 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.cursor_simple;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.CursorPublisher;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class CursorPublisherTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/cursor_simple/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/cursor_simple/CreateDB.sql");
+  }
+
+  @Test
+  void shouldPublishUsersOnRequest() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsersPublisher();
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      publisher.subscribe(subscriber);
+      Assertions.assertTrue(subscriber.names.isEmpty());
+
+      subscriber.subscription.request(2);
+      Assertions.assertEquals(Arrays.asList("User1", "User2"), subscriber.names);
+      Assertions.assertFalse(subscriber.completed);
+
+      subscriber.subscription.request(10);
+      Assertions.assertEquals(Arrays.asList("User1", "User2", "User3", "User4", "User5"), subscriber.names);
+      Assertions.assertTrue(subscriber.completed);
+      Assertions.assertNull(subscriber.error);
+    }
+  }
+
+  @Test
+  void shouldPublishUsersWithRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.selectPublisher("getAllUsers", null, new RowBounds(1, 3));
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      publisher.subscribe(subscriber);
+      subscriber.subscription.request(Long.MAX_VALUE);
+      Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"), subscriber.names);
+      Assertions.assertTrue(subscriber.completed);
+    }
+  }
+
+  @Test
+  void shouldRequestMoreFromOnNext() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsersPublisher();
+      RecordingSubscriber subscriber = new RecordingSubscriber() {
+        @Override
+        public void onNext(User item) {
+          super.onNext(item);
+          subscription.request(1);
+        }
+      };
+      publisher.subscribe(subscriber);
+      subscriber.subscription.request(1);
+      Assertions.assertEquals(5, subscriber.names.size());
+      Assertions.assertTrue(subscriber.completed);
+    }
+  }
+
+  @Test
+  void shouldStopPublishingWhenCancelled() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsersPublisher();
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      publisher.subscribe(subscriber);
+      subscriber.subscription.request(1);
+      subscriber.subscription.cancel();
+      subscriber.subscription.request(1);
+      Assertions.assertEquals(Arrays.asList("User1"), subscriber.names);
+      Assertions.assertFalse(subscriber.completed);
+      Assertions.assertNull(subscriber.error);
+    }
+  }
+
+  @Test
+  void shouldSignalErrorOnInvalidRequest() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      CursorPublisher<User> publisher = sqlSession.getMapper(Mapper.class).getAllUsersPublisher();
+      RecordingSubscriber subscriber = new RecordingSubscriber();
+      publisher.subscribe(subscriber);
+      subscriber.subscription.request(0);
+      Assertions.assertTrue(subscriber.error instanceof IllegalArgumentException);
+
+      RecordingSubscriber second = new RecordingSubscriber();
+      publisher.subscribe(second);
+      Assertions.assertTrue(second.error instanceof IllegalStateException);
+    }
+  }
+
+  private static class RecordingSubscriber implements CursorPublisher.Subscriber<User> {
+
+    final List<String> names = new ArrayList<>();
+    CursorPublisher.Subscription subscription;
+    boolean completed;
+    Throwable error;
+
+    @Override
+    public void onSubscribe(CursorPublisher.Subscription subscription) {
+      this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(User item) {
+      names.add(item.getName());
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+      error = throwable;
+    }
+
+    @Override
+    public void onComplete() {
+      completed = true;
+    }
+  }
+
+}
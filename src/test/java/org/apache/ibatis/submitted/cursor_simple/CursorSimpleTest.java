@@ -29,9 +29,12 @@ import org.junit.jupiter.api.Test;
 import java.io.IOException;
 import java.io.Reader;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 class CursorSimpleTest {
 
@@ -387,4 +390,54 @@ class CursorSimpleTest {
 
   }
 
+  @Test
+  void shouldStreamAllUsersInChunks() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      try (Stream<User> users = usersCursor.stream(2)) {
+        Assertions.assertEquals(Arrays.asList("User1", "User2", "User3", "User4", "User5"),
+            users.map(User::getName).collect(Collectors.toList()));
+      }
+      Assertions.assertEquals(4, usersCursor.getCurrentIndex());
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldStreamUsersWithRowBounds() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.selectCursor("getAllUsers", null, new RowBounds(1, 3));
+      try (Stream<User> users = usersCursor.stream(2)) {
+        Assertions.assertEquals(Arrays.asList("User2", "User3", "User4"),
+            users.map(User::getName).collect(Collectors.toList()));
+      }
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldStreamUsersInParallel() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      try (Stream<User> users = usersCursor.stream(1).parallel()) {
+        Assertions.assertEquals(Arrays.asList("User1", "User2", "User3", "User4", "User5"),
+            users.map(User::getName).collect(Collectors.toList()));
+      }
+      Assertions.assertTrue(usersCursor.isConsumed());
+    }
+  }
+
+  @Test
+  void shouldCloseCursorWhenStreamIsClosed() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Cursor<User> usersCursor = sqlSession.getMapper(Mapper.class).getAllUsers();
+      try (Stream<User> users = usersCursor.stream()) {
+        Assertions.assertEquals("User1", users.findFirst().map(User::getName).orElse(null));
+        Assertions.assertTrue(usersCursor.isOpen());
+      }
+      Assertions.assertFalse(usersCursor.isOpen());
+      Assertions.assertFalse(usersCursor.isConsumed());
+    }
+  }
+
 }
@@ -16,9 +16,12 @@
 package org.apache.ibatis.submitted.cursor_simple;
 
 import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.cursor.CursorPublisher;
 
 public interface Mapper {
 
   Cursor<User> getAllUsers();
 
+  CursorPublisher<User> getAllUsersPublisher();
+
 }
@@ -0,0 +1,171 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.keyset_pagination;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.KeysetBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class KeysetPaginationTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/keyset_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/keyset_pagination/CreateDB.sql");
+  }
+
+  @Test
+  void shouldWalkAllPages() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<Integer>> pages = new ArrayList<>();
+      KeysetBounds bounds = new KeysetBounds(3);
+      while (bounds != null) {
+        List<User> users = sqlSession.selectList("org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsers", null, bounds);
+        pages.add(ids(users));
+        bounds = bounds.nextPage();
+      }
+      Assertions.assertEquals(Arrays.asList(Arrays.asList(1, 2, 3), Arrays.asList(4, 5, 6), Arrays.asList(7)), pages);
+    }
+  }
+
+  @Test
+  void shouldResumeFromKeyAndKeepStatementConditions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      KeysetBounds bounds = new KeysetBounds(4, 2);
+      Assertions.assertEquals(Arrays.asList(5, 6), ids(mapper.getUsers("User%", bounds)));
+      Assertions.assertEquals(6, bounds.getNextKey());
+      Assertions.assertEquals(Arrays.asList(3), ids(mapper.getUsers("User3", new KeysetBounds(2, 2))));
+    }
+  }
+
+  @Test
+  void shouldNotReturnNextKeyAfterLastPage() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      KeysetBounds bounds = new KeysetBounds(7, 3);
+      Assertions.assertTrue(sqlSession.getMapper(Mapper.class).getUsers(null, bounds).isEmpty());
+      Assertions.assertNull(bounds.getNextKey());
+      Assertions.assertNull(bounds.nextPage());
+    }
+  }
+
+  @Test
+  void shouldNotMixUpCachedPages() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertEquals(Arrays.asList(1, 2), ids(mapper.getUsers(null, new KeysetBounds(2))));
+      Assertions.assertEquals(Arrays.asList(3, 4), ids(mapper.getUsers(null, new KeysetBounds(2, 2))));
+      Assertions.assertEquals(Arrays.asList(5, 6), ids(mapper.getUsers(null, new KeysetBounds(4, 2))));
+    }
+  }
+
+  @Test
+  void shouldPageByCompositeKey() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      String statement = "org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsersByGroup";
+      KeysetBounds bounds = new KeysetBounds(3);
+      Assertions.assertEquals(Arrays.asList(1, 2, 5), ids(sqlSession.selectList(statement, null, bounds)));
+      Assertions.assertArrayEquals(new Object[] {1, 5}, (Object[]) bounds.getNextKey());
+      bounds = bounds.nextPage();
+      Assertions.assertEquals(Arrays.asList(7, 3, 4), ids(sqlSession.selectList(statement, null, bounds)));
+      bounds = bounds.nextPage();
+      Assertions.assertEquals(Arrays.asList(6), ids(sqlSession.selectList(statement, null, bounds)));
+      Assertions.assertNull(bounds.nextPage());
+    }
+  }
+
+  @Test
+  void shouldPageAnnotatedStatement() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      Assertions.assertEquals(Arrays.asList(6, 7), ids(mapper.getUsersAnnotated(new KeysetBounds(5, 10))));
+    }
+  }
+
+  @Test
+  void shouldSetNextKeyWhenSelectingWithResultHandler() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      String statement = "org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsers";
+      List<User> users = new ArrayList<>();
+      KeysetBounds bounds = new KeysetBounds(3);
+      sqlSession.select(statement, null, bounds, context -> users.add((User) context.getResultObject()));
+      Assertions.assertEquals(Arrays.asList(1, 2, 3), ids(users));
+      Assertions.assertEquals(3, bounds.getNextKey());
+
+      // handler 提前停止时，下一页从最后处理的记录之后开始
+      users.clear();
+      bounds = new KeysetBounds(3);
+      sqlSession.select(statement, null, bounds, context -> {
+        users.add((User) context.getResultObject());
+        context.stop();
+      });
+      Assertions.assertEquals(Arrays.asList(1), ids(users));
+      Assertions.assertEquals(1, bounds.getNextKey());
+
+      bounds = new KeysetBounds(6, 3);
+      sqlSession.select(statement, null, bounds, context -> { });
+      Assertions.assertNull(bounds.getNextKey());
+    }
+  }
+
+  @Test
+  void shouldRejectKeysetBoundsForCursor() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class, () ->
+          sqlSession.selectCursor("org.apache.ibatis.submitted.keyset_pagination.Mapper.getUsers", null, new KeysetBounds(2)));
+      Assertions.assertTrue(e.getMessage().contains("KeysetBounds is not supported by selectCursor"));
+      Assertions.assertThrows(PersistenceException.class, () ->
+          sqlSession.getMapper(Mapper.class).getUsersCursor(new KeysetBounds(2)));
+    }
+  }
+
+  @Test
+  void shouldFailWithoutKeysetColumn() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertThrows(PersistenceException.class, () ->
+          sqlSession.selectList("org.apache.ibatis.submitted.keyset_pagination.Mapper.getAllUsers", null, new KeysetBounds(2)));
+    }
+  }
+
+  private static List<Integer> ids(List<User> users) {
+    List<Integer> ids = new ArrayList<>();
+    for (User user : users) {
+      ids.add(user.getId());
+    }
+    return ids;
+  }
+
+}
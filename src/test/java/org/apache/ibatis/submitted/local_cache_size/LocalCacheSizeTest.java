@@ -0,0 +1,71 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.local_cache_size;
+
+import java.io.Reader;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class LocalCacheSizeTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.local_cache_size.Mapper.";
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/local_cache_size/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/local_cache_size/CreateDB.sql");
+  }
+
+  @Test
+  void shouldResolveCircularReferencesOverTheLimit() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      // 执行中的语句使用了两个缓存项，超过上限也不会被淘汰
+      Parent parent = sqlSession.selectOne(NS + "getParent", 1);
+      Assertions.assertEquals(2, parent.getChildren().size());
+      for (Child child : parent.getChildren()) {
+        Assertions.assertSame(parent, child.getParent());
+      }
+    }
+  }
+
+  @Test
+  void shouldEvictLeastRecentlyUsedResults() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Parent parent = sqlSession.selectOne(NS + "getParent", 1);
+      Assertions.assertSame(parent, sqlSession.selectOne(NS + "getParent", 1));
+      sqlSession.selectOne(NS + "getParent", 2);
+      Parent reloaded = sqlSession.selectOne(NS + "getParent", 1);
+      Assertions.assertNotSame(parent, reloaded);
+      Assertions.assertSame(reloaded, reloaded.getChildren().get(0).getParent());
+    }
+  }
+
+}
@@ -15,6 +15,8 @@
 --
 
     DROP PROCEDURE GetOrderDetailsAndHeaders IF EXISTS;
+    DROP PROCEDURE GetOrderHeadersAndEvents IF EXISTS;
+    DROP TABLE order_event IF EXISTS;
     DROP TABLE order_detail IF EXISTS;
     DROP TABLE order_header IF EXISTS;
 
@@ -33,3 +35,15 @@
         cust_name varchar(50) NOT NULL,
         PRIMARY KEY (order_id)
     );
+
+    CREATE TABLE order_event
+    (
+        order_id integer NOT NULL,
+        event_id integer NOT NULL,
+        created_at timestamp,
+        created_at_tz timestamp with time zone,
+        created_on date,
+        signature varbinary(16),
+        flagged boolean,
+        PRIMARY KEY (order_id, event_id)
+    );
@@ -33,3 +33,10 @@
         VALUES (2, 2, 1, 'Protractor');
     INSERT INTO order_detail(order_id, line_number, quantity, item_description)
         VALUES (2, 3, 2, 'Pencil');
+
+    INSERT INTO order_event(order_id, event_id, created_at, created_at_tz, created_on, signature, flagged)
+        VALUES (1, 1, '2019-01-02 03:04:05.6', '2019-01-02 03:04:05.6+09:00', '2019-01-02', X'CAFE01', true);
+    INSERT INTO order_event(order_id, event_id, created_at, created_at_tz, created_on, signature, flagged)
+        VALUES (1, 2, '2019-02-03 04:05:06', '2019-02-03 04:05:06-05:00', '2019-02-03', X'00FF', false);
+    INSERT INTO order_event(order_id, event_id, created_at, created_at_tz, created_on, signature, flagged)
+        VALUES (2, 1, NULL, NULL, NULL, NULL, NULL);
@@ -0,0 +1,34 @@
+--
+--    Copyright 2009-2019 the original author or authors.
+--
+--    Licensed under the Apache License, Version 2.0 (the "License");
+--    you may not use this file except in compliance with the License.
+--    You may obtain a copy of the License at
+--
+--       http://www.apache.org/licenses/LICENSE-2.0
+--
+--    Unless required by applicable law or agreed to in writing, software
+--    distributed under the License is distributed on an "AS IS" BASIS,
+--    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+--    See the License for the specific language governing permissions and
+--    limitations under the License.
+--
+
+    CREATE PROCEDURE GetOrderHeadersAndEvents()
+        READS SQL DATA
+        DYNAMIC RESULT SETS 1
+        BEGIN ATOMIC
+
+        DECLARE result1 CURSOR FOR
+        SELECT * FROM order_header ORDER BY order_id
+        FOR READ ONLY ;
+
+        DECLARE result2 CURSOR FOR
+        SELECT order_id, event_id, created_at, created_at AS created_at_in_zone, created_at_tz, created_on,
+            signature, signature AS signature_text, flagged, flagged AS flagged_text
+        FROM order_event ORDER BY order_id, event_id
+        FOR READ ONLY ;
+
+        OPEN result1 ;
+        OPEN result2 ;
+    END;
@@ -26,6 +26,12 @@ public interface Mapper {
 
   List<OrderDetail> getOrderDetailsWithHeaders();
 
+  List<OrderDetail> getOrderDetailsWithHeadersInChunks();
+
+  List<List<?>> getOrderDetailsAndHeaders();
+
+  List<List<?>> getOrderHeadersAndEvents();
+
   @Select(value = "{ call GetOrderDetailsAndHeaders() }")
   @ResultMap("orderDetailResultMap")
   @Options(statementType = StatementType.CALLABLE, resultSets = "orderDetailResultSet,orderHeaderResultSet")
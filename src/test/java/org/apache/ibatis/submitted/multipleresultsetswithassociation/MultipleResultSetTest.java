@@ -57,6 +57,9 @@ class MultipleResultSetTest {
       try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multipleresultsetswithassociation/CreateDB3.sql")) {
         runReaderScript(conn, reader);
       }
+      try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/multipleresultsetswithassociation/CreateDB4.sql")) {
+        runReaderScript(conn, reader);
+      }
     }
   }
 
@@ -105,4 +108,81 @@ class MultipleResultSetTest {
     }
   }
 
+  @Test
+  void shouldGetOrderDetailsWithHeadersMappedInParallel() {
+    sqlSessionFactory.getConfiguration().setParallelResultSetMapping(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Mapper mapper = sqlSession.getMapper(Mapper.class);
+      assertOrderDetailsHaveHeaders(mapper.getOrderDetailsWithHeaders());
+      // 6 order details and 3 order headers are mapped in chunks of 4 rows
+      assertOrderDetailsHaveHeaders(mapper.getOrderDetailsWithHeadersInChunks());
+    } finally {
+      sqlSessionFactory.getConfiguration().setParallelResultSetMapping(false);
+    }
+  }
+
+  @Test
+  void shouldGetMultipleResultListsMappedInParallel() {
+    sqlSessionFactory.getConfiguration().setParallelResultSetMapping(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<?>> results = sqlSession.getMapper(Mapper.class).getOrderDetailsAndHeaders();
+      Assertions.assertEquals(2, results.size());
+      Assertions.assertEquals(6, results.get(0).size());
+      Assertions.assertEquals(3, results.get(1).size());
+      Assertions.assertEquals(1, ((OrderHeader) results.get(1).get(0)).getOrderId());
+      Assertions.assertEquals(3, ((OrderHeader) results.get(1).get(2)).getOrderId());
+    } finally {
+      sqlSessionFactory.getConfiguration().setParallelResultSetMapping(false);
+    }
+  }
+
+  @Test
+  void shouldReadColumnsInParallelLikeSequentialMapping() {
+    List<List<?>> expected;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      expected = sqlSession.getMapper(Mapper.class).getOrderHeadersAndEvents();
+    }
+    sqlSessionFactory.getConfiguration().setParallelResultSetMapping(true);
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<List<?>> results = sqlSession.getMapper(Mapper.class).getOrderHeadersAndEvents();
+      Assertions.assertEquals(2, results.size());
+      Assertions.assertEquals(3, results.get(0).size());
+      Assertions.assertEquals(3, results.get(1).size());
+      // date/time, calendar and binary columns are read through the same type handlers as sequential mapping
+      OrderEvent first = (OrderEvent) results.get(1).get(0);
+      Assertions.assertNotNull(first.getCreatedAt());
+      Assertions.assertNotNull(first.getCreatedAtInZone());
+      Assertions.assertNotNull(first.getCreatedAtTz());
+      Assertions.assertArrayEquals(new byte[] {(byte) 0xCA, (byte) 0xFE, 0x01}, first.getSignature());
+      for (int i = 0; i < 3; i++) {
+        OrderEvent event = (OrderEvent) results.get(1).get(i);
+        OrderEvent expectedEvent = (OrderEvent) expected.get(1).get(i);
+        Assertions.assertEquals(expectedEvent.getOrderId(), event.getOrderId());
+        Assertions.assertEquals(expectedEvent.getEventId(), event.getEventId());
+        Assertions.assertEquals(expectedEvent.getCreatedAt(), event.getCreatedAt());
+        Assertions.assertEquals(expectedEvent.getCreatedAtInZone(), event.getCreatedAtInZone());
+        Assertions.assertEquals(expectedEvent.getCreatedAtTz(), event.getCreatedAtTz());
+        Assertions.assertEquals(expectedEvent.getCreatedOn(), event.getCreatedOn());
+        Assertions.assertArrayEquals(expectedEvent.getSignature(), event.getSignature());
+        Assertions.assertEquals(expectedEvent.getSignatureText(), event.getSignatureText());
+        Assertions.assertEquals(expectedEvent.getFlagged(), event.getFlagged());
+        Assertions.assertEquals(expectedEvent.getFlaggedText(), event.getFlaggedText());
+      }
+    } finally {
+      sqlSessionFactory.getConfiguration().setParallelResultSetMapping(false);
+    }
+  }
+
+  private void assertOrderDetailsHaveHeaders(List<OrderDetail> orderDetails) {
+    Assertions.assertEquals(6, orderDetails.size());
+    for (int i = 0; i < orderDetails.size(); i++) {
+      OrderDetail orderDetail = orderDetails.get(i);
+      Assertions.assertEquals(i < 3 ? 1 : 2, orderDetail.getOrderId());
+      Assertions.assertEquals(i % 3 + 1, orderDetail.getLineNumber());
+      Assertions.assertNotNull(orderDetail.getOrderHeader());
+      Assertions.assertEquals(orderDetail.getOrderId(), orderDetail.getOrderHeader().getOrderId());
+      Assertions.assertNotNull(orderDetail.getOrderHeader().getCustName());
+    }
+  }
+
 }
@@ -0,0 +1,116 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multipleresultsetswithassociation;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.util.Date;
+
+public class OrderEvent {
+
+  private int orderId;
+  private int eventId;
+  private LocalDateTime createdAt;
+  private Date createdAtInZone;
+  private OffsetDateTime createdAtTz;
+  private LocalDate createdOn;
+  private byte[] signature;
+  private String signatureText;
+  private Boolean flagged;
+  private String flaggedText;
+
+  public int getOrderId() {
+    return orderId;
+  }
+
+  public void setOrderId(int orderId) {
+    this.orderId = orderId;
+  }
+
+  public int getEventId() {
+    return eventId;
+  }
+
+  public void setEventId(int eventId) {
+    this.eventId = eventId;
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public void setCreatedAt(LocalDateTime createdAt) {
+    this.createdAt = createdAt;
+  }
+
+  public Date getCreatedAtInZone() {
+    return createdAtInZone;
+  }
+
+  public void setCreatedAtInZone(Date createdAtInZone) {
+    this.createdAtInZone = createdAtInZone;
+  }
+
+  public OffsetDateTime getCreatedAtTz() {
+    return createdAtTz;
+  }
+
+  public void setCreatedAtTz(OffsetDateTime createdAtTz) {
+    this.createdAtTz = createdAtTz;
+  }
+
+  public LocalDate getCreatedOn() {
+    return createdOn;
+  }
+
+  public void setCreatedOn(LocalDate createdOn) {
+    this.createdOn = createdOn;
+  }
+
+  public byte[] getSignature() {
+    return signature;
+  }
+
+  public void setSignature(byte[] signature) {
+    this.signature = signature;
+  }
+
+  public String getSignatureText() {
+    return signatureText;
+  }
+
+  public void setSignatureText(String signatureText) {
+    this.signatureText = signatureText;
+  }
+
+  public Boolean getFlagged() {
+    return flagged;
+  }
+
+  public void setFlagged(Boolean flagged) {
+    this.flagged = flagged;
+  }
+
+  public String getFlaggedText() {
+    return flaggedText;
+  }
+
+  public void setFlaggedText(String flaggedText) {
+    this.flaggedText = flaggedText;
+  }
+
+}
@@ -0,0 +1,65 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.multipleresultsetswithassociation;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+/**
+ * Reads timestamps with a calendar in a fixed time zone.
+ */
+public class ZonedTimestampTypeHandler extends BaseTypeHandler<Date> {
+
+  private static final String ZONE = "Pacific/Chatham";
+
+  @Override
+  public void setNonNullParameter(PreparedStatement ps, int i, Date parameter, JdbcType jdbcType) throws SQLException {
+    ps.setTimestamp(i, new Timestamp(parameter.getTime()), calendar());
+  }
+
+  @Override
+  public Date getNullableResult(ResultSet rs, String columnName) throws SQLException {
+    return toDate(rs.getTimestamp(columnName, calendar()));
+  }
+
+  @Override
+  public Date getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+    return toDate(rs.getTimestamp(columnIndex, calendar()));
+  }
+
+  @Override
+  public Date getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+    return toDate(cs.getTimestamp(columnIndex, calendar()));
+  }
+
+  private static Calendar calendar() {
+    return Calendar.getInstance(TimeZone.getTimeZone(ZONE));
+  }
+
+  private static Date toDate(Timestamp timestamp) {
+    return timestamp == null ? null : new Date(timestamp.getTime());
+  }
+
+}
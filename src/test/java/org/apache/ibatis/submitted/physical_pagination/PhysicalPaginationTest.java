@@ -0,0 +1,100 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.physical_pagination;
+
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.RowBounds;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+class PhysicalPaginationTest {
+
+  private static SqlSessionFactory sqlSessionFactory;
+
+  @BeforeAll
+  static void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/physical_pagination/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/physical_pagination/CreateDB.sql");
+  }
+
+  @Test
+  void shouldRewriteSqlUsingDialectOfDatabase() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement("getUsers");
+    BoundSql boundSql = ms.getBoundSql(null, new RowBounds(1, 2));
+    Assertions.assertTrue(boundSql.getSql().trim().endsWith("LIMIT ? OFFSET ?"));
+    Assertions.assertNotNull(boundSql.getAppliedRowBounds());
+    Assertions.assertNull(ms.getBoundSql(null, RowBounds.DEFAULT).getAppliedRowBounds());
+  }
+
+  @Test
+  void shouldPaginateInDatabase() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals(Arrays.asList(2, 3), userIds(sqlSession.selectList("getUsers", null, new RowBounds(1, 2))));
+      Assertions.assertEquals(Arrays.asList(4, 5), userIds(sqlSession.selectList("getUsers", null, new RowBounds(3, 10))));
+      Assertions.assertEquals(Arrays.asList(1), userIds(sqlSession.selectList("getUsers", null, new RowBounds(0, 1))));
+    }
+  }
+
+  @Test
+  void shouldPaginateCursorInDatabase() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<User> users = new ArrayList<>();
+      try (Cursor<User> cursor = sqlSession.selectCursor("getUsers", null, new RowBounds(2, 2))) {
+        cursor.forEach(users::add);
+      }
+      Assertions.assertEquals(Arrays.asList(3, 4), userIds(users));
+    }
+  }
+
+  @Test
+  void shouldSkipRowsInMemoryForNestedResultMaps() {
+    MappedStatement ms = sqlSessionFactory.getConfiguration().getMappedStatement("getGroups");
+    Assertions.assertNull(ms.getBoundSql(null, new RowBounds(1, 1)).getAppliedRowBounds());
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      List<Group> groups = sqlSession.selectList("getGroups", null, new RowBounds(1, 1));
+      Assertions.assertEquals(1, groups.size());
+      Assertions.assertEquals(1, groups.get(0).getId());
+    }
+  }
+
+  private static List<Integer> userIds(List<User> users) {
+    List<Integer> ids = new ArrayList<>();
+    for (User user : users) {
+      ids.add(user.getId());
+    }
+    return ids;
+  }
+
+}
@@ -0,0 +1,149 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.read_only_session;
+
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.exceptions.PersistenceException;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReadOnlySessionTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.read_only_session.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/read_only_session/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory database
+    BaseDataTest.runScript(sqlSessionFactory.getConfiguration().getEnvironment().getDataSource(),
+        "org/apache/ibatis/submitted/read_only_session/CreateDB.sql");
+  }
+
+  @Test
+  void shouldCacheResultsWithoutCommit() {
+    try (SqlSession readOnlySession = sqlSessionFactory.openReadOnlySession()) {
+      Object author = readOnlySession.selectOne(NS + "getAuthor", 1);
+      // 会话没有提交，其它会话也可以使用缓存
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        Assertions.assertSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+      }
+    }
+  }
+
+  @Test
+  void shouldRejectUpdates() {
+    try (SqlSession sqlSession = sqlSessionFactory.openReadOnlySession()) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("id", 1);
+      params.put("name", "john");
+      PersistenceException e = Assertions.assertThrows(PersistenceException.class,
+          () -> sqlSession.update(NS + "updateAuthor", params));
+      Assertions.assertTrue(e.getMessage().contains("read-only session"));
+    }
+  }
+
+  @Test
+  void shouldSetConnectionReadOnlyUntilClosed() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openReadOnlySession()) {
+      sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertTrue(sqlSession.getConnection().isReadOnly());
+    }
+    // 连接池中的连接恢复为可写
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> params = new HashMap<>();
+      params.put("id", 1);
+      params.put("name", "john");
+      Assertions.assertEquals(1, sqlSession.update(NS + "updateAuthor", params));
+      Assertions.assertFalse(sqlSession.getConnection().isReadOnly());
+      sqlSession.commit();
+    }
+  }
+
+  @Test
+  void shouldUseReadOnlyDataSource() throws Exception {
+    useReplica();
+    try (SqlSession sqlSession = sqlSessionFactory.openReadOnlySession()) {
+      Map<String, Object> author = sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertEquals("replica", author.get("NAME"));
+    }
+  }
+
+  @Test
+  void shouldNotCacheResultsReadFromReadOnlyDataSource() throws Exception {
+    useReplica();
+    try (SqlSession readOnlySession = sqlSessionFactory.openReadOnlySession()) {
+      Map<String, Object> author = readOnlySession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertEquals("replica", author.get("NAME"));
+      readOnlySession.commit();
+    }
+    // 副本的数据可能落后于主库，不能被其它会话读到
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Map<String, Object> author = sqlSession.selectOne(NS + "getAuthor", 1);
+      Assertions.assertNotEquals("replica", author.get("NAME"));
+    }
+  }
+
+  @Test
+  void shouldFlushCacheOnCommitLikeOtherSessions() {
+    Object author;
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      author = sqlSession.selectOne(NS + "getAuthor", 1);
+      sqlSession.commit();
+    }
+    try (SqlSession readOnlySession = sqlSessionFactory.openReadOnlySession()) {
+      readOnlySession.selectOne(NS + "getAuthorFlushingCache", 1);
+      Assertions.assertNotSame(author, readOnlySession.selectOne(NS + "getAuthor", 1));
+      // 提交之前不清空共享的二级缓存
+      try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+        Assertions.assertSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+      }
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertNotSame(author, sqlSession.selectOne(NS + "getAuthor", 1));
+    }
+  }
+
+  private void useReplica() throws Exception {
+    UnpooledDataSource replica = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:hsqldb:mem:read_only_session_replica", "sa", "");
+    BaseDataTest.runScript(replica, "org/apache/ibatis/submitted/read_only_session/CreateReplicaDB.sql");
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    configuration.setEnvironment(new Environment.Builder(environment.getId())
+        .transactionFactory(environment.getTransactionFactory())
+        .dataSource(environment.getDataSource())
+        .readOnlyDataSource(replica)
+        .build());
+  }
+
+}
@@ -0,0 +1,166 @@
+/**
+ *    Copyright 2009-2019 the original author or authors.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.apache.ibatis.submitted.replica_routing;
+
+import java.io.Reader;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.sql.DataSource;
+
+import org.apache.ibatis.BaseDataTest;
+import org.apache.ibatis.datasource.replica.ReplicaDataSource;
+import org.apache.ibatis.datasource.unpooled.UnpooledDataSource;
+import org.apache.ibatis.io.Resources;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.Configuration;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.session.SqlSessionFactoryBuilder;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class ReplicaRoutingTest {
+
+  private static final String NS = "org.apache.ibatis.submitted.replica_routing.Mapper.";
+
+  private SqlSessionFactory sqlSessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    // create a SqlSessionFactory
+    try (Reader reader = Resources.getResourceAsReader("org/apache/ibatis/submitted/replica_routing/mybatis-config.xml")) {
+      sqlSessionFactory = new SqlSessionFactoryBuilder().build(reader);
+    }
+
+    // populate in-memory databases
+    Environment environment = sqlSessionFactory.getConfiguration().getEnvironment();
+    BaseDataTest.runScript(environment.getDataSource(), "org/apache/ibatis/submitted/replica_routing/CreateDB.sql");
+    int i = 1;
+    for (DataSource replica : ((ReplicaDataSource) environment.getReadOnlyDataSource()).getReplicas()) {
+      BaseDataTest.runScript(replica, "org/apache/ibatis/submitted/replica_routing/CreateDB.sql");
+      rename(replica, "replica" + i++);
+    }
+  }
+
+  @Test
+  void shouldReadFromReplicasInAutoCommitSessions() {
+    Set<String> names = new HashSet<>();
+    for (int i = 0; i < 2; i++) {
+      try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+        names.add(sqlSession.selectOne(NS + "getName", 1));
+      }
+    }
+    Assertions.assertEquals(new HashSet<>(Arrays.asList("replica1", "replica2")), names);
+  }
+
+  @Test
+  void shouldWriteToPrimaryInAutoCommitSessions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Assertions.assertEquals(1, sqlSession.update(NS + "updateName", params("john")));
+      // 写入后的查询使用主库，能读到自己写入的数据
+      Assertions.assertEquals("john", sqlSession.selectOne(NS + "getName", 1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("john", sqlSession.selectOne(NS + "getName", 1));
+    }
+  }
+
+  @Test
+  void shouldNotCacheResultsReadFromReplicas() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Assertions.assertTrue(sqlSession.<String>selectOne(NS + "getName", 1).startsWith("replica"));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("primary", sqlSession.selectOne(NS + "getName", 1));
+      sqlSession.commit();
+    }
+    // 主库读取的结果可以缓存
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Assertions.assertEquals("primary", sqlSession.selectOne(NS + "getName", 1));
+    }
+  }
+
+  @Test
+  void shouldWriteToPrimaryAfterReadInAutoCommitSession() throws Exception {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Assertions.assertTrue(sqlSession.<String>selectOne(NS + "getName", 1).startsWith("replica"));
+      Assertions.assertEquals("primary", nameOf(sqlSession.getConnection()));
+      Assertions.assertEquals(1, sqlSession.update(NS + "updateName", params("john")));
+      Assertions.assertEquals("john", sqlSession.selectOne(NS + "getName", 1));
+    }
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("john", sqlSession.selectOne(NS + "getName", 1));
+    }
+  }
+
+  @Test
+  void shouldUsePrimaryInTransactions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openSession()) {
+      Assertions.assertEquals("primary", sqlSession.selectOne(NS + "getName", 1));
+      sqlSession.update(NS + "updateName", params("john"));
+      Assertions.assertEquals("john", sqlSession.selectOne(NS + "getName", 1));
+    }
+  }
+
+  @Test
+  void shouldUseReplicasInReadOnlySessions() {
+    try (SqlSession sqlSession = sqlSessionFactory.openReadOnlySession()) {
+      Assertions.assertTrue(sqlSession.<String>selectOne(NS + "getName", 1).startsWith("replica"));
+    }
+  }
+
+  @Test
+  void shouldFallBackToPrimaryWhenReplicasAreDown() {
+    Configuration configuration = sqlSessionFactory.getConfiguration();
+    Environment environment = configuration.getEnvironment();
+    DataSource brokenReplica = new UnpooledDataSource("org.hsqldb.jdbcDriver", "jdbc:unknown:replica", "sa", "");
+    configuration.setEnvironment(new Environment(environment.getId(), environment.getTransactionFactory(),
+        environment.getDataSource(), new ReplicaDataSource(Arrays.asList(brokenReplica))));
+    try (SqlSession sqlSession = sqlSessionFactory.openSession(true)) {
+      Assertions.assertEquals("primary", sqlSession.selectOne(NS + "getName", 1));
+    }
+  }
+
+  private static Map<String, Object> params(String name) {
+    Map<String, Object> params = new HashMap<>();
+    params.put("id", 1);
+    params.put("name", name);
+    return params;
+  }
+
+  private static String nameOf(Connection connection) throws Exception {
+    try (Statement statement = connection.createStatement();
+         ResultSet rs = statement.executeQuery("select name from author where id = 1")) {
+      rs.next();
+      return rs.getString(1);
+    }
+  }
+
+  private static void rename(DataSource dataSource, String name) throws Exception {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.executeUpdate("update author set name = '" + name + "' where id = 1");
+    }
+  }
+
+}